@@ -0,0 +1,15 @@
+package com.adanac.framework.cache.redis.annotations;
+
+/**
+ * 缓存未命中时的回源保护
+ * @author adanac
+ * @version 1.0
+ */
+public enum LoadGuard {
+	// 不保护，每个调用方各自回源
+	NONE,
+	// 同一JVM内同一个key只有一个调用方回源，其余等待其结果
+	LOCAL,
+	// 在LOCAL基础上，通过redis锁(SET NX PX)保证集群内同一个key只有一个节点回源
+	DISTRIBUTED
+}
@@ -27,10 +27,41 @@ public @interface MyCacheable {
 
 	/**
 	 * 原生redis数据类型 STRING,MAP,LIST,SET
+	 * MAP/LIST/SET 分别以 hash/list/set 结构保存，元素各自为json，支持部分读取
 	 * @return
 	 */
 	RedisDataType dataType() default RedisDataType.STRING;
 
+	/**
+	 * MAP类型时的hash field，语法同key (如 #user.id)，设置后只读写这一个field
+	 * @return
+	 */
+	String field() default "";
+
+	/**
+	 * LIST类型读取的起始下标 (LRANGE start)
+	 * @return
+	 */
+	long rangeStart() default 0;
+
+	/**
+	 * LIST类型读取的结束下标 (LRANGE end)，-1 表示到末尾；只读取部分范围时未命中不回写缓存
+	 * @return
+	 */
+	long rangeEnd() default -1;
+
+	/**
+	 * 批量模式：方法参数中第一个集合参数为id集合，返回值为 Map&lt;id, 值&gt;。
+	 * key中引用该参数的片段按每个id生成 (如 key="user#ids" 生成 user:1 user:2)，
+	 * 查询时批量读取缓存，只以未命中的id调用方法，结果按id分别写入缓存；保存、删除时删除所有id的缓存
+	 * @return
+	 */
+	boolean batch() default false;
+
+	/**
+	 * 集合返回值的元素类型全名，可选 (默认从方法泛型签名 List&lt;User&gt; 解析)
+	 * @return
+	 */
 	String returnType() default "java.lang.Object";
 
 	/**
@@ -45,4 +76,41 @@ public @interface MyCacheable {
 	 */
 	int timeout() default -1;
 
+	/**
+	 * 
+	 * 查询未命中时的回源保护 (防止缓存击穿)
+	 */
+	LoadGuard loadGuard() default LoadGuard.NONE;
+
+	/**
+	 * 
+	 * DISTRIBUTED 模式下等待其他节点回源的最长时间 毫秒，超时后自行回源
+	 */
+	int lockWaitMillis() default 3000;
+
+	/**
+	 * 
+	 * DISTRIBUTED 模式下回源锁的过期时间 毫秒
+	 */
+	int lockLeaseMillis() default 10000;
+
+	/**
+	 * 
+	 * 提前刷新 (timeout大于0时生效)：timeout作为逻辑过期时间，过期前按概率提前在后台刷新，
+	 * 过期后的staleTimeout内仍返回旧值并在后台刷新
+	 */
+	boolean refreshAhead() default false;
+
+	/**
+	 * 
+	 * 提前刷新的激进程度 (XFetch beta)，越大越早刷新，0 表示只在逻辑过期后刷新
+	 */
+	double refreshBeta() default 1.0;
+
+	/**
+	 * 
+	 * 逻辑过期后仍可返回旧值的时间 秒，小于0时与timeout相同
+	 */
+	int staleTimeout() default -1;
+
 }
@@ -0,0 +1,167 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * 基于redis pub/sub 的失效通知
+ * <p>
+ * 消息格式为 节点标识|key，节点忽略自己发出的消息。订阅连接断开后自动重连，并通知监听方清空近端缓存。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public abstract class AbstractRedisInvalidationBus implements InvalidationBus {
+	private static final Logger logger = LoggerFactory.getLogger(AbstractRedisInvalidationBus.class);
+
+	public static final String DEFAULT_CHANNEL = "adanac.cache.invalidation";
+
+	private static final char SEPARATOR = '|';
+
+	private static final long RECONNECT_INTERVAL_MILLIS = 1000L;
+
+	protected final String channel;
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private volatile boolean running;
+
+	private volatile Jedis subscriberConnection;
+
+	private volatile JedisPubSub pubSub;
+
+	protected AbstractRedisInvalidationBus(String channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * 发布消息
+	 * @param message
+	 */
+	protected abstract void doPublish(String message);
+
+	/**
+	 * 创建订阅专用连接 (订阅会一直占用连接，不能使用连接池中的连接)
+	 * @return
+	 */
+	protected abstract Jedis openSubscriberConnection();
+
+	@Override
+	public void publish(String cacheKey) {
+		doPublish(nodeId + SEPARATOR + cacheKey);
+	}
+
+	@Override
+	public synchronized void subscribe(final Listener listener) {
+		if (running) {
+			throw new IllegalStateException("already subscribed to " + channel);
+		}
+		running = true;
+		Thread subscriber = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				boolean first = true;
+				while (running) {
+					try {
+						if (!first) {
+							listener.onReset();
+						}
+						first = false;
+						subscriberConnection = openSubscriberConnection();
+						pubSub = new InvalidationPubSub(listener);
+						// 阻塞直到取消订阅或连接断开
+						subscriberConnection.subscribe(pubSub, channel);
+					} catch (Exception e) {
+						if (running) {
+							logger.warn("cache invalidation subscriber disconnected, channel=" + channel, e);
+						}
+					} finally {
+						closeSubscriberConnection();
+					}
+					if (running) {
+						try {
+							Thread.sleep(RECONNECT_INTERVAL_MILLIS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				}
+			}
+		}, "cache-invalidation-" + channel);
+		subscriber.setDaemon(true);
+		subscriber.start();
+	}
+
+	@Override
+	public synchronized void close() {
+		running = false;
+		JedisPubSub current = pubSub;
+		if (current != null && current.isSubscribed()) {
+			try {
+				current.unsubscribe();
+			} catch (Exception e) {
+				logger.warn("unsubscribe error", e);
+			}
+		}
+		closeSubscriberConnection();
+	}
+
+	private void closeSubscriberConnection() {
+		Jedis connection = subscriberConnection;
+		subscriberConnection = null;
+		if (connection != null) {
+			try {
+				connection.disconnect();
+			} catch (Exception ignore) {
+				// ok to go...
+			}
+		}
+	}
+
+	private class InvalidationPubSub extends JedisPubSub {
+		private final Listener listener;
+
+		InvalidationPubSub(Listener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void onMessage(String channel, String message) {
+			int index = message.indexOf(SEPARATOR);
+			if (index < 0 || message.regionMatches(0, nodeId, 0, index) && index == nodeId.length()) {
+				return;
+			}
+			try {
+				listener.onInvalidate(message.substring(index + 1));
+			} catch (Exception e) {
+				logger.warn("cache invalidation listener error", e);
+			}
+		}
+
+		@Override
+		public void onPMessage(String pattern, String channel, String message) {
+		}
+
+		@Override
+		public void onSubscribe(String channel, int subscribedChannels) {
+		}
+
+		@Override
+		public void onUnsubscribe(String channel, int subscribedChannels) {
+		}
+
+		@Override
+		public void onPUnsubscribe(String pattern, int subscribedChannels) {
+		}
+
+		@Override
+		public void onPSubscribe(String pattern, int subscribedChannels) {
+		}
+	}
+}
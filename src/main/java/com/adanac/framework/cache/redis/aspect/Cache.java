@@ -1,5 +1,10 @@
 package com.adanac.framework.cache.redis.aspect;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * 缓存
  * @author adanac
@@ -40,6 +45,137 @@ public interface Cache {
 	 */
 	Object get(String cacheKey, Class<?>... type) throws Exception;
 
+	/**
+	 * 批量取出缓存，按分片/slot分组并行读取
+	 * @param cacheKeys
+	 * @param type 同 get(String, Class...)
+	 * @return 命中的key和值，按cacheKeys的顺序，不存在的key不在结果中
+	 * @throws Exception
+	 */
+	Map<String, Object> getAll(Collection<String> cacheKeys, Class<?>... type) throws Exception;
+
+	/**
+	 * 批量取出缓存及其剩余生存时间 (近端缓存使用)，GET和PTTL以pipeline一起发送，不增加往返
+	 * @param cacheKeys
+	 * @param entry 为true时值同 getEntry 的结果，否则同 get(String, Class...)
+	 * @param type
+	 * @return 命中的key和值，按cacheKeys的顺序，不存在的key不在结果中
+	 * @throws Exception
+	 */
+	Map<String, TimedValue> getAllWithTtl(Collection<String> cacheKeys, boolean entry, Class<?>... type)
+			throws Exception;
+
+	/**
+	 * 批量添加缓存，按分片/slot分组并行写入
+	 * @param values key和值
+	 * @param timeout 小于等于0时不过期
+	 * @throws Exception
+	 */
+	void setAll(Map<String, ?> values, int timeout) throws Exception;
+
+	/**
+	 * 添加带逻辑过期时间的缓存 (提前刷新使用)
+	 * @param cacheKey
+	 * @param timeout redis中的实际超时时间 秒，应大于逻辑过期时间
+	 * @param entry
+	 * @throws Exception
+	 */
+	void setEntry(String cacheKey, int timeout, CacheEntry entry) throws Exception;
+
+	/**
+	 * 取出带逻辑过期时间的缓存，不是通过 setEntry 保存的值视为没有逻辑过期时间
+	 * @param cacheKey
+	 * @param type
+	 * @return 不存在返回null
+	 * @throws Exception
+	 */
+	CacheEntry getEntry(String cacheKey, Class<?>... type) throws Exception;
+
+	/**
+	 * 以hash保存 (覆盖原有内容)，field为map的key，值为json
+	 * @param cacheKey
+	 * @param timeout
+	 * @param hash
+	 * @throws Exception
+	 */
+	void setMap(String cacheKey, int timeout, Map<?, ?> hash) throws Exception;
+
+	/**
+	 * 保存hash的一个field
+	 * @param cacheKey
+	 * @param timeout 大于0时同时重置整个hash的超时时间
+	 * @param field
+	 * @param value
+	 * @throws Exception
+	 */
+	void setMapField(String cacheKey, int timeout, String field, Object value) throws Exception;
+
+	/**
+	 * 取出整个hash
+	 * @param cacheKey
+	 * @param valueType 值类型，为null时返回json对象
+	 * @return 不存在返回null，保存的是空map时返回空map
+	 * @throws Exception
+	 */
+	Map<String, Object> getMap(String cacheKey, Class<?> valueType) throws Exception;
+
+	/**
+	 * 取出hash的一个field
+	 * @param cacheKey
+	 * @param field
+	 * @param valueType
+	 * @return
+	 * @throws Exception
+	 */
+	Object getMapField(String cacheKey, String field, Class<?> valueType) throws Exception;
+
+	/**
+	 * 删除hash的一个field
+	 * @param cacheKey
+	 * @param field
+	 * @return
+	 * @throws Exception
+	 */
+	long removeMapField(String cacheKey, String field) throws Exception;
+
+	/**
+	 * 以list保存 (覆盖原有内容)
+	 * @param cacheKey
+	 * @param timeout
+	 * @param list
+	 * @throws Exception
+	 */
+	void setList(String cacheKey, int timeout, List<?> list) throws Exception;
+
+	/**
+	 * 取出list的一段 (LRANGE)
+	 * @param cacheKey
+	 * @param elementType
+	 * @param start
+	 * @param end -1 表示到末尾
+	 * @return 不存在或范围内没有元素返回null，保存的是空list时返回空list
+	 * @throws Exception
+	 */
+	List<Object> getList(String cacheKey, Class<?> elementType, long start, long end) throws Exception;
+
+	/**
+	 * 以set保存 (覆盖原有内容)
+	 * @param cacheKey
+	 * @param timeout
+	 * @param set
+	 * @throws Exception
+	 */
+	void setSet(String cacheKey, int timeout, Collection<?> set) throws Exception;
+
+	/**
+	 * 取出set
+	 * @param cacheKey
+	 * @param elementType
+	 * @return 不存在返回null，保存的是空set时返回空set
+	 * @throws Exception
+	 */
+	Set<Object> getSet(String cacheKey, Class<?> elementType) throws Exception;
+
 	/**
 	 * 删除缓存
 	 * @param cacheKeys 不定参数，可以传入多个String对象
@@ -57,6 +193,14 @@ public interface Cache {
 	 */
 	boolean expire(String cacheKey, int seconds) throws Exception;
 
+	/**
+	 * 缓存剩余生存时间
+	 * @param cacheKey
+	 * @return 秒，-1 表示没有超时时间，-2 表示不存在
+	 * @throws Exception
+	 */
+	long ttl(String cacheKey) throws Exception;
+
 	/**
 	 * 缓存是否存在
 	 * @param cacheKey
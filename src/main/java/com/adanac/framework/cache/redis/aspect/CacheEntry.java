@@ -0,0 +1,173 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+
+import com.adanac.framework.cache.redis.util.JsonBytes;
+
+/**
+ * 带逻辑过期时间的缓存值 (提前刷新使用)
+ * <p>
+ * redis中的实际超时时间比逻辑过期时间长，逻辑过期后仍可返回旧值并在后台刷新。
+ * 逻辑过期前按 XFetch 算法 (now - delta * beta * ln(rand) &gt;= expireAt) 概率性地提前刷新，
+ * 加载越慢、越接近过期，提前刷新的概率越大，避免所有节点在同一时刻回源。
+ * json格式保存时使用 "#RA#expireAt:delta:json" 格式，没有该前缀的值视为没有逻辑过期时间。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class CacheEntry implements Serializable {
+	private static final long serialVersionUID = -2484402385163702163L;
+
+	private static final String HEADER = "#RA#";
+
+	private static final char SEPARATOR = ':';
+
+	private final Object value;
+
+	// 逻辑过期时间 毫秒
+	private final long expireAt;
+
+	// 上次加载耗时 毫秒
+	private final long delta;
+
+	public CacheEntry(Object value, long expireAt, long delta) {
+		this.value = value;
+		this.expireAt = expireAt;
+		this.delta = delta;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	public long getExpireAt() {
+		return expireAt;
+	}
+
+	public long getDelta() {
+		return delta;
+	}
+
+	/**
+	 * 是否已逻辑过期
+	 * @param now
+	 * @return
+	 */
+	public boolean isStale(long now) {
+		return now >= expireAt;
+	}
+
+	/**
+	 * XFetch 提前刷新判断
+	 * @param now 当前时间 毫秒
+	 * @param beta 大于1更早刷新，小于1更晚刷新，0 不提前刷新
+	 * @return
+	 */
+	public boolean shouldRefreshEarly(long now, double beta) {
+		if (beta <= 0 || delta <= 0) {
+			return now >= expireAt;
+		}
+		double gap = -delta * beta * Math.log(1.0 - Math.random());
+		return now + gap >= expireAt;
+	}
+
+	/**
+	 * 生成json保存格式
+	 * @param json 缓存值json
+	 * @return
+	 */
+	public String wrap(String json) {
+		return new StringBuilder(HEADER.length() + json.length() + 32).append(HEADER).append(expireAt)
+				.append(SEPARATOR).append(delta).append(SEPARATOR).append(json).toString();
+	}
+
+	/**
+	 * 解析json保存格式
+	 * @param raw redis中保存的字符串
+	 * @return value为缓存值json的CacheEntry，raw为null时返回null
+	 */
+	public static CacheEntry unwrap(String raw) {
+		if (raw == null) {
+			return null;
+		}
+		if (!raw.startsWith(HEADER)) {
+			return new CacheEntry(raw, Long.MAX_VALUE, 0);
+		}
+		int first = raw.indexOf(SEPARATOR, HEADER.length());
+		int second = first < 0 ? -1 : raw.indexOf(SEPARATOR, first + 1);
+		if (second < 0) {
+			return new CacheEntry(raw, Long.MAX_VALUE, 0);
+		}
+		try {
+			long expireAt = Long.parseLong(raw.substring(HEADER.length(), first));
+			long delta = Long.parseLong(raw.substring(first + 1, second));
+			return new CacheEntry(raw.substring(second + 1), expireAt, delta);
+		} catch (NumberFormatException e) {
+			return new CacheEntry(raw, Long.MAX_VALUE, 0);
+		}
+	}
+
+	/**
+	 * 生成json保存格式的UTF-8字节，与 wrap(String) 格式相同
+	 * @return
+	 */
+	public byte[] toJsonBytes() {
+		return JsonBytes.toBytes(new StringBuilder(32).append(HEADER).append(expireAt).append(SEPARATOR)
+				.append(delta).append(SEPARATOR).toString(), value);
+	}
+
+	/**
+	 * 从json保存格式的UTF-8字节解析
+	 * @param raw redis中保存的字节
+	 * @param type 缓存值类型
+	 * @return raw为null时返回null
+	 */
+	public static CacheEntry fromJsonBytes(byte[] raw, Type type) {
+		if (raw == null) {
+			return null;
+		}
+		long expireAt = Long.MAX_VALUE;
+		long delta = 0;
+		int offset = 0;
+		if (startsWithHeader(raw)) {
+			int position = HEADER.length();
+			long[] numbers = new long[2];
+			int i = 0;
+			for (; i < numbers.length; i++) {
+				long number = 0;
+				boolean negative = position < raw.length && raw[position] == '-';
+				if (negative) {
+					position++;
+				}
+				int start = position;
+				while (position < raw.length && raw[position] >= '0' && raw[position] <= '9') {
+					number = number * 10 + (raw[position++] - '0');
+				}
+				if (position == start || position >= raw.length || raw[position] != SEPARATOR) {
+					break;
+				}
+				numbers[i] = negative ? -number : number;
+				position++;
+			}
+			if (i == numbers.length) {
+				expireAt = numbers[0];
+				delta = numbers[1];
+				offset = position;
+			}
+		}
+		return new CacheEntry(JsonBytes.parse(raw, offset, type), expireAt, delta);
+	}
+
+	private static boolean startsWithHeader(byte[] raw) {
+		if (raw.length < HEADER.length()) {
+			return false;
+		}
+		for (int i = 0; i < HEADER.length(); i++) {
+			if (raw[i] != HEADER.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,274 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * 缓存key生成计划 (每个方法只编译一次)
+ * <p>
+ * 将 MyCacheable.key() 如 userCache#user.id#user.name 预先拆分为常量前缀和参数片段，
+ * 形如 参数名.属性.属性 的片段直接按参数下标和getter取值，其余片段预先解析为SpEL表达式，
+ * 调用时不再做字符串拆分和表达式解析。生成的key与原有规则一致：各段以 ':' 连接。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public final class CacheKeyPlan {
+
+	private static final char SEPARATOR = ':';
+
+	private static final Pattern PROPERTY_PATH = Pattern
+			.compile("[A-Za-z_$][A-Za-z0-9_$]*(\\.[A-Za-z_$][A-Za-z0-9_$]*)*");
+
+	private final String key;
+
+	private final String prefix;
+
+	private final Fragment[] fragments;
+
+	private CacheKeyPlan(String key, String prefix, Fragment[] fragments) {
+		this.key = key;
+		this.prefix = prefix;
+		this.fragments = fragments;
+	}
+
+	/**
+	 * 编译缓存key
+	 *
+	 * @param key MyCacheable.key()
+	 * @param parameterNames 方法参数名
+	 * @param expressionParser SpEL解析器
+	 * @return
+	 */
+	public static CacheKeyPlan compile(String key, String[] parameterNames, SpelExpressionParser expressionParser) {
+		if (!key.contains("#")) {
+			return new CacheKeyPlan(key, null, new Fragment[0]);
+		}
+		String[] names = parameterNames == null ? new String[0] : parameterNames;
+
+		String prefix = null;
+		String expressions;
+		int firstCharMark = key.indexOf("#");
+		if (firstCharMark > 0) {
+			// 常量字符串
+			prefix = key.substring(0, firstCharMark);
+		}
+		expressions = key.substring(firstCharMark + 1);
+
+		List<Fragment> fragments = new ArrayList<Fragment>();
+		for (String keyStr : expressions.split("#")) {
+			Expression expression = expressionParser.parseExpression("#" + keyStr);
+			ExpressionFragment fallback = new ExpressionFragment(expression, names);
+			int index = PROPERTY_PATH.matcher(keyStr).matches() ? indexOf(names, keyStr) : -1;
+			if (index < 0) {
+				fragments.add(fallback);
+			} else {
+				String[] path = keyStr.split("\\.");
+				PropertyStep[] steps = new PropertyStep[path.length - 1];
+				for (int i = 1; i < path.length; i++) {
+					steps[i - 1] = new PropertyStep(path[i]);
+				}
+				fragments.add(new PathFragment(index, steps, fallback));
+			}
+		}
+		return new CacheKeyPlan(key, prefix, fragments.toArray(new Fragment[fragments.size()]));
+	}
+
+	private static int indexOf(String[] parameterNames, String path) {
+		int dot = path.indexOf('.');
+		String root = dot < 0 ? path : path.substring(0, dot);
+		for (int i = 0; i < parameterNames.length; i++) {
+			if (root.equals(parameterNames[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 生成缓存key
+	 *
+	 * @param args 方法参数
+	 * @return
+	 */
+	public String generate(Object[] args) {
+		if (fragments.length == 0 && prefix == null) {
+			return key;
+		}
+		StringBuilder cacheKeyBuilder = new StringBuilder(key.length() + 16 * fragments.length);
+		if (prefix != null) {
+			cacheKeyBuilder.append(prefix);
+		}
+		for (int i = 0; i < fragments.length; i++) {
+			if (i > 0 || prefix != null) {
+				cacheKeyBuilder.append(SEPARATOR);
+			}
+			Object value = fragments[i].value(args);
+			if (value == null) {
+				throw new RedisClientException("cache key fragment of '" + key + "' evaluated to null");
+			}
+			cacheKeyBuilder.append(value.toString());
+		}
+		return cacheKeyBuilder.toString();
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	private interface Fragment {
+		Object value(Object[] args);
+	}
+
+	/**
+	 * 参数名.属性 形式的片段：参数下标 + 缓存的getter
+	 */
+	private static final class PathFragment implements Fragment {
+		private final int index;
+		private final PropertyStep[] steps;
+		private final ExpressionFragment fallback;
+
+		PathFragment(int index, PropertyStep[] steps, ExpressionFragment fallback) {
+			this.index = index;
+			this.steps = steps;
+			this.fallback = fallback;
+		}
+
+		@Override
+		public Object value(Object[] args) {
+			Object target = args[index];
+			for (PropertyStep step : steps) {
+				if (target == null) {
+					return null;
+				}
+				target = step.read(target);
+				if (target == PropertyStep.UNRESOLVED) {
+					// 无法直接访问的属性(Map等)，交给SpEL处理
+					return fallback.value(args);
+				}
+			}
+			return target;
+		}
+	}
+
+	/**
+	 * 预先解析的SpEL表达式片段
+	 */
+	private static final class ExpressionFragment implements Fragment {
+		private final Expression expression;
+		private final String[] parameterNames;
+
+		ExpressionFragment(Expression expression, String[] parameterNames) {
+			this.expression = expression;
+			this.parameterNames = parameterNames;
+		}
+
+		@Override
+		public Object value(Object[] args) {
+			StandardEvaluationContext context = new StandardEvaluationContext();
+			for (int i = 0; i < parameterNames.length; i++) {
+				context.setVariable(parameterNames[i], args[i]);
+			}
+			return expression.getValue(context);
+		}
+	}
+
+	/**
+	 * 单个属性访问，按目标类型缓存getter/字段
+	 */
+	private static final class PropertyStep {
+		static final Object UNRESOLVED = new Object();
+
+		private final String name;
+
+		private volatile Accessor accessor;
+
+		PropertyStep(String name) {
+			this.name = name;
+		}
+
+		Object read(Object target) {
+			Accessor current = accessor;
+			Class<?> type = target.getClass();
+			if (current == null || current.type != type) {
+				current = Accessor.resolve(type, name);
+				accessor = current;
+			}
+			return current.read(target);
+		}
+	}
+
+	private static final class Accessor {
+		final Class<?> type;
+		final Method getter;
+		final Field field;
+
+		private Accessor(Class<?> type, Method getter, Field field) {
+			this.type = type;
+			this.getter = getter;
+			this.field = field;
+		}
+
+		static Accessor resolve(Class<?> type, String name) {
+			String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			Method getter = findGetter(type, "get" + suffix);
+			if (getter == null) {
+				getter = findGetter(type, "is" + suffix);
+			}
+			if (getter != null) {
+				return new Accessor(type, getter, null);
+			}
+			try {
+				Field field = type.getField(name);
+				if (!Modifier.isStatic(field.getModifiers())) {
+					field.setAccessible(true);
+					return new Accessor(type, null, field);
+				}
+			} catch (NoSuchFieldException ignore) {
+				// fall through
+			} catch (SecurityException ignore) {
+				// fall through
+			}
+			return new Accessor(type, null, null);
+		}
+
+		private static Method findGetter(Class<?> type, String methodName) {
+			try {
+				Method method = type.getMethod(methodName);
+				if (method.getReturnType() == void.class || Modifier.isStatic(method.getModifiers())) {
+					return null;
+				}
+				method.setAccessible(true);
+				return method;
+			} catch (NoSuchMethodException e) {
+				return null;
+			} catch (SecurityException e) {
+				return null;
+			}
+		}
+
+		Object read(Object target) {
+			try {
+				if (getter != null) {
+					return getter.invoke(target);
+				}
+				if (field != null) {
+					return field.get(target);
+				}
+			} catch (Exception e) {
+				throw new RedisClientException(e);
+			}
+			return PropertyStep.UNRESOLVED;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.adanac.framework.cache.redis.aspect;
+
+/**
+ * 跨节点回源锁
+ * @author adanac
+ * @version 1.0
+ */
+public interface CacheLock {
+	/**
+	 * 尝试加锁 (SET key token NX PX leaseMillis)
+	 * @param lockKey
+	 * @param token 锁持有者标识，解锁时校验
+	 * @param leaseMillis 锁过期时间 毫秒
+	 * @return 是否加锁成功
+	 */
+	boolean tryLock(String lockKey, String token, long leaseMillis);
+
+	/**
+	 * 解锁，只有token一致时才删除
+	 * @param lockKey
+	 * @param token
+	 */
+	void unlock(String lockKey, String token);
+}
@@ -0,0 +1,99 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 提前刷新统计
+ * @author adanac
+ * @version 1.0
+ */
+public class CacheRefreshStats {
+
+	// 逻辑过期前提前触发的刷新
+	private final AtomicLong earlyRefreshCount = new AtomicLong();
+
+	// 返回旧值的次数
+	private final AtomicLong staleHitCount = new AtomicLong();
+
+	// 返回旧值时已过期时长之和 毫秒
+	private final AtomicLong staleMillisTotal = new AtomicLong();
+
+	private final AtomicLong staleMillisMax = new AtomicLong();
+
+	private final AtomicLong refreshSuccessCount = new AtomicLong();
+
+	private final AtomicLong refreshFailureCount = new AtomicLong();
+
+	// 线程池已满被丢弃的刷新
+	private final AtomicLong refreshRejectedCount = new AtomicLong();
+
+	void recordEarlyRefresh() {
+		earlyRefreshCount.incrementAndGet();
+	}
+
+	void recordStaleHit(long staleMillis) {
+		staleHitCount.incrementAndGet();
+		staleMillisTotal.addAndGet(staleMillis);
+		long max = staleMillisMax.get();
+		while (staleMillis > max && !staleMillisMax.compareAndSet(max, staleMillis)) {
+			max = staleMillisMax.get();
+		}
+	}
+
+	void recordRefreshSuccess() {
+		refreshSuccessCount.incrementAndGet();
+	}
+
+	void recordRefreshFailure() {
+		refreshFailureCount.incrementAndGet();
+	}
+
+	void recordRefreshRejected() {
+		refreshRejectedCount.incrementAndGet();
+	}
+
+	public long getEarlyRefreshCount() {
+		return earlyRefreshCount.get();
+	}
+
+	public long getStaleHitCount() {
+		return staleHitCount.get();
+	}
+
+	public long getStaleMillisTotal() {
+		return staleMillisTotal.get();
+	}
+
+	public long getStaleMillisMax() {
+		return staleMillisMax.get();
+	}
+
+	/**
+	 * 平均返回旧值的过期时长 毫秒
+	 * @return
+	 */
+	public double getStaleMillisAverage() {
+		long hits = staleHitCount.get();
+		return hits == 0 ? 0 : (double) staleMillisTotal.get() / hits;
+	}
+
+	public long getRefreshSuccessCount() {
+		return refreshSuccessCount.get();
+	}
+
+	public long getRefreshFailureCount() {
+		return refreshFailureCount.get();
+	}
+
+	public long getRefreshRejectedCount() {
+		return refreshRejectedCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "CacheRefreshStats [earlyRefresh=" + getEarlyRefreshCount() + ", staleHit=" + getStaleHitCount()
+				+ ", staleMillisAvg=" + getStaleMillisAverage() + ", staleMillisMax=" + getStaleMillisMax()
+				+ ", refreshSuccess=" + getRefreshSuccessCount() + ", refreshFailure=" + getRefreshFailureCount()
+				+ ", refreshRejected=" + getRefreshRejectedCount() + "]";
+	}
+}
@@ -0,0 +1,287 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import com.adanac.framework.cache.redis.annotations.CacheOperate;
+import com.adanac.framework.cache.redis.annotations.MyCacheable;
+import com.adanac.framework.cache.redis.annotations.RedisDataType;
+
+/**
+ * 缓存方法元数据 (每个方法只解析一次)
+ * <p>
+ * 包含注解参数、返回值类型、集合泛型元素类型和缓存key生成计划。
+ * 元素类型优先取方法的泛型签名 (List&lt;User&gt;，Map取值类型)，取不到时才使用 MyCacheable.returnType()。
+ * 查询方法的返回值类型与 dataType 不匹配时按 STRING 处理。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public final class CachedMethodDescriptor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CachedMethodDescriptor.class);
+
+	private static final String DEFAULT_RETURN_TYPE = "java.lang.Object";
+
+	private final Method method;
+
+	private final MyCacheable cacheable;
+
+	private final Class<?> returnType;
+
+	private final Type genericReturnType;
+
+	private final Class<?> elementType;
+
+	private final Class<?>[] returnObjType;
+
+	private final CacheKeyPlan keyPlan;
+
+	private final RedisDataType dataType;
+
+	// hash field生成计划，未设置field时为null
+	private final CacheKeyPlan fieldPlan;
+
+	private final boolean refreshAhead;
+
+	// redis中的实际超时时间 秒 (提前刷新时为 timeout + staleTimeout)
+	private final int storeTimeout;
+
+	// 批量模式下id集合参数的下标，非批量模式为-1
+	private final int batchIndex;
+
+	private CachedMethodDescriptor(Method method, MyCacheable cacheable, Class<?> elementType, CacheKeyPlan keyPlan,
+			RedisDataType dataType, CacheKeyPlan fieldPlan, int batchIndex) {
+		this.method = method;
+		this.cacheable = cacheable;
+		this.returnType = method.getReturnType();
+		this.genericReturnType = method.getGenericReturnType();
+		this.elementType = elementType;
+		this.returnObjType = elementType == null ? new Class<?>[] { returnType }
+				: new Class<?>[] { returnType, elementType };
+		this.keyPlan = keyPlan;
+		this.dataType = dataType;
+		this.fieldPlan = fieldPlan;
+		this.batchIndex = batchIndex;
+		this.refreshAhead = cacheable.refreshAhead() && cacheable.timeout() > 0 && dataType == RedisDataType.STRING
+				&& batchIndex < 0;
+		if (refreshAhead) {
+			int staleTimeout = cacheable.staleTimeout() < 0 ? cacheable.timeout() : cacheable.staleTimeout();
+			this.storeTimeout = cacheable.timeout() + staleTimeout;
+		} else {
+			this.storeTimeout = cacheable.timeout();
+		}
+	}
+
+	/**
+	 * 解析方法元数据
+	 *
+	 * @param method 目标方法
+	 * @param parameterNames 方法参数名
+	 * @param expressionParser SpEL解析器
+	 * @return
+	 */
+	public static CachedMethodDescriptor resolve(Method method, String[] parameterNames,
+			SpelExpressionParser expressionParser) {
+		MyCacheable cacheable = method.getAnnotation(MyCacheable.class);
+		Class<?> elementType = null;
+		Class<?> type = method.getReturnType();
+		if (type.isAssignableFrom(List.class) || type.isAssignableFrom(Set.class)
+				|| Collection.class.isAssignableFrom(type)) {
+			// 泛型参数返回类型 (List<User> Set<User>)
+			elementType = resolveElementType(method.getGenericReturnType(), 0, cacheable.returnType());
+		} else if (Map.class.isAssignableFrom(type)) {
+			// Map<String, User> 取值类型
+			elementType = resolveElementType(method.getGenericReturnType(), 1, cacheable.returnType());
+		}
+		CacheKeyPlan keyPlan = CacheKeyPlan.compile(cacheable.key(), parameterNames, expressionParser);
+		CacheKeyPlan fieldPlan = cacheable.field().length() == 0 ? null
+				: CacheKeyPlan.compile(cacheable.field(), parameterNames, expressionParser);
+		return new CachedMethodDescriptor(method, cacheable, elementType, keyPlan, resolveDataType(method, cacheable),
+				fieldPlan, resolveBatchIndex(method, cacheable));
+	}
+
+	private static int resolveBatchIndex(Method method, MyCacheable cacheable) {
+		if (!cacheable.batch()) {
+			return -1;
+		}
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		int index = -1;
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+				index = i;
+				break;
+			}
+		}
+		Class<?> type = method.getReturnType();
+		if (index < 0 || (cacheable.beforecmd() == CacheOperate.QUERY && !Map.class.isAssignableFrom(type)
+				&& !type.isAssignableFrom(Map.class))) {
+			LOGGER.warn("batch cache method {} must take a collection of ids and return a map, batch ignored",
+					method);
+			return -1;
+		}
+		return index;
+	}
+
+	private static RedisDataType resolveDataType(Method method, MyCacheable cacheable) {
+		RedisDataType dataType = cacheable.dataType();
+		if (cacheable.beforecmd() != CacheOperate.QUERY) {
+			return dataType;
+		}
+		Class<?> type = method.getReturnType();
+		boolean compatible;
+		switch (dataType) {
+		case MAP:
+			compatible = cacheable.field().length() > 0 || Map.class.isAssignableFrom(type)
+					|| type.isAssignableFrom(Map.class);
+			break;
+		case LIST:
+			compatible = List.class.isAssignableFrom(type) || type.isAssignableFrom(List.class);
+			break;
+		case SET:
+			compatible = Set.class.isAssignableFrom(type) || type.isAssignableFrom(Set.class);
+			break;
+		default:
+			compatible = true;
+			break;
+		}
+		if (!compatible) {
+			LOGGER.warn("return type {} of {} does not match dataType {}, cached as STRING", type.getName(),
+					method, dataType);
+			return RedisDataType.STRING;
+		}
+		return dataType;
+	}
+
+	private static Class<?> resolveElementType(Type genericReturnType, int index, String returnType) {
+		if (genericReturnType instanceof ParameterizedType) {
+			Type[] arguments = ((ParameterizedType) genericReturnType).getActualTypeArguments();
+			if (arguments.length == index + 1) {
+				if (arguments[index] instanceof Class) {
+					return (Class<?>) arguments[index];
+				}
+				if (arguments[index] instanceof ParameterizedType) {
+					return (Class<?>) ((ParameterizedType) arguments[index]).getRawType();
+				}
+			}
+		}
+		if (DEFAULT_RETURN_TYPE.equals(returnType)) {
+			return null;
+		}
+		try {
+			return Class.forName(returnType);
+		} catch (ClassNotFoundException e) {
+			LOGGER.error("getReturnObjType error", e);
+			return null;
+		}
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public MyCacheable getCacheable() {
+		return cacheable;
+	}
+
+	public Class<?> getReturnType() {
+		return returnType;
+	}
+
+	public Type getGenericReturnType() {
+		return genericReturnType;
+	}
+
+	/**
+	 * 集合返回值的元素类型 (Map为值类型)，非集合或无法解析时为null
+	 *
+	 * @return
+	 */
+	public Class<?> getElementType() {
+		return elementType;
+	}
+
+	/**
+	 * 传给 Cache.get(String, Class...) 的返回值类型
+	 *
+	 * @return
+	 */
+	public Class<?>[] getReturnObjType() {
+		return returnObjType;
+	}
+
+	public CacheKeyPlan getKeyPlan() {
+		return keyPlan;
+	}
+
+	/**
+	 * 实际使用的redis数据类型
+	 *
+	 * @return
+	 */
+	public RedisDataType getDataType() {
+		return dataType;
+	}
+
+	/**
+	 * hash field生成计划，未设置field时为null
+	 *
+	 * @return
+	 */
+	public CacheKeyPlan getFieldPlan() {
+		return fieldPlan;
+	}
+
+	/**
+	 * 是否只读取list的一部分
+	 *
+	 * @return
+	 */
+	public boolean isPartialRange() {
+		return cacheable.rangeStart() != 0 || cacheable.rangeEnd() != -1;
+	}
+
+	/**
+	 * 是否为批量模式
+	 *
+	 * @return
+	 */
+	public boolean isBatch() {
+		return batchIndex >= 0;
+	}
+
+	/**
+	 * 批量模式下id集合参数的下标
+	 *
+	 * @return
+	 */
+	public int getBatchIndex() {
+		return batchIndex;
+	}
+
+	/**
+	 * 是否开启提前刷新
+	 *
+	 * @return
+	 */
+	public boolean isRefreshAhead() {
+		return refreshAhead;
+	}
+
+	/**
+	 * redis中的实际超时时间 秒
+	 *
+	 * @return
+	 */
+	public int getStoreTimeout() {
+		return storeTimeout;
+	}
+}
@@ -0,0 +1,42 @@
+package com.adanac.framework.cache.redis.aspect;
+
+/**
+ * 近端缓存失效通知通道
+ * @author adanac
+ * @version 1.0
+ */
+public interface InvalidationBus {
+
+	/**
+	 * 失效通知监听
+	 */
+	interface Listener {
+		/**
+		 * 其他节点修改或删除了key
+		 * @param cacheKey
+		 */
+		void onInvalidate(String cacheKey);
+
+		/**
+		 * 通知通道重连，期间的消息可能丢失，需要清空近端缓存
+		 */
+		void onReset();
+	}
+
+	/**
+	 * 广播key失效
+	 * @param cacheKey
+	 */
+	void publish(String cacheKey);
+
+	/**
+	 * 订阅失效通知 (后台线程接收)
+	 * @param listener
+	 */
+	void subscribe(Listener listener);
+
+	/**
+	 * 停止订阅
+	 */
+	void close();
+}
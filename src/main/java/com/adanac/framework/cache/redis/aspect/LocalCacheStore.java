@@ -0,0 +1,303 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内有界缓存 (分段 + SLRU 淘汰 + 按条目过期)
+ * <p>
+ * 每个分段维护 probation / protected 两个LRU队列：新条目进入probation，再次命中后晋升到protected，
+ * protected超出容量时最久未访问的条目降级回probation，淘汰只发生在probation尾部。
+ * 这样一次性扫描的key不会把热点key挤出缓存。容量同时按条目数和权重限制。
+ * <p>
+ * 从redis读取后放入时，用 generation 判断读取期间key是否被失效过，避免把失效前读到的旧值放回缓存。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class LocalCacheStore {
+
+	private static final int SEGMENTS = 16;
+
+	// protected队列占分段容量的比例
+	private static final double PROTECTED_RATIO = 0.8;
+
+	// 失效计数按key hash分条，不同key可能共用一条 (只会多一次未命中)
+	private static final int GENERATION_STRIPES = 1024;
+
+	private final Segment[] segments;
+
+	private final Weigher weigher;
+
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * 条目权重计算
+	 */
+	public interface Weigher {
+		int weigh(String key, Object value);
+	}
+
+	private static final Weigher SINGLETON_WEIGHER = new Weigher() {
+		@Override
+		public int weigh(String key, Object value) {
+			return 1;
+		}
+	};
+
+	public LocalCacheStore(int maximumSize) {
+		this(maximumSize, maximumSize, null);
+	}
+
+	/**
+	 * @param maximumSize 最大条目数
+	 * @param maximumWeight 最大总权重
+	 * @param weigher 权重计算，为null时每个条目权重为1
+	 */
+	public LocalCacheStore(int maximumSize, long maximumWeight, Weigher weigher) {
+		this.weigher = weigher == null ? SINGLETON_WEIGHER : weigher;
+		this.segments = new Segment[SEGMENTS];
+		int segmentSize = Math.max(1, (maximumSize + SEGMENTS - 1) / SEGMENTS);
+		long segmentWeight = Math.max(1, (maximumWeight + SEGMENTS - 1) / SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(segmentSize, segmentWeight);
+		}
+	}
+
+	/**
+	 * 取出未过期的值
+	 *
+	 * @param key
+	 * @return 不存在或已过期返回null
+	 */
+	public Object get(String key) {
+		Object value = segmentFor(key).get(key, System.currentTimeMillis());
+		if (value == null) {
+			missCount.incrementAndGet();
+		} else {
+			hitCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * 放入缓存
+	 *
+	 * @param key
+	 * @param value
+	 * @param ttlMillis 存活时间 毫秒，必须大于0
+	 */
+	public void put(String key, Object value, long ttlMillis) {
+		if (value == null || ttlMillis <= 0) {
+			return;
+		}
+		int weight = Math.max(1, weigher.weigh(key, value));
+		segmentFor(key).put(key, new Entry(value, weight, System.currentTimeMillis() + ttlMillis));
+	}
+
+	/**
+	 * 读取数据源之前取得key当前的失效计数，放入时传给 put(key, value, ttlMillis, generation)
+	 *
+	 * @param key
+	 * @return
+	 */
+	public long generation(String key) {
+		return generations.get(stripeFor(key));
+	}
+
+	/**
+	 * 从 generation(key) 之后key没有被失效过时才放入缓存
+	 *
+	 * @param key
+	 * @param value
+	 * @param ttlMillis 存活时间 毫秒，必须大于0
+	 * @param generation 读取数据源之前的 generation(key)
+	 * @return 是否放入
+	 */
+	public boolean put(String key, Object value, long ttlMillis, long generation) {
+		if (value == null || ttlMillis <= 0) {
+			return false;
+		}
+		int weight = Math.max(1, weigher.weigh(key, value));
+		return segmentFor(key).put(key, new Entry(value, weight, System.currentTimeMillis() + ttlMillis),
+				stripeFor(key), generation);
+	}
+
+	public void invalidate(String key) {
+		// 先增加计数再删除：正在读取的旧值放入时会被拒绝
+		generations.incrementAndGet(stripeFor(key));
+		segmentFor(key).remove(key);
+	}
+
+	public void invalidateAll() {
+		for (int i = 0; i < GENERATION_STRIPES; i++) {
+			generations.incrementAndGet(i);
+		}
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	public long size() {
+		long size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private Segment segmentFor(String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (SEGMENTS - 1)];
+	}
+
+	private static int stripeFor(String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return h & (GENERATION_STRIPES - 1);
+	}
+
+	private static final class Entry {
+		final Object value;
+		final int weight;
+		final long expireAt;
+
+		Entry(Object value, int weight, long expireAt) {
+			this.value = value;
+			this.weight = weight;
+			this.expireAt = expireAt;
+		}
+	}
+
+	private final class Segment {
+		private final int maximumSize;
+		private final long maximumWeight;
+		private final int protectedSize;
+		private final long protectedWeight;
+
+		// accessOrder=true：迭代顺序即LRU顺序
+		private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+		private final LinkedHashMap<String, Entry> protectedQueue = new LinkedHashMap<String, Entry>(16, 0.75f,
+				true);
+
+		private long probationWeightSum;
+		private long protectedWeightSum;
+
+		Segment(int maximumSize, long maximumWeight) {
+			this.maximumSize = maximumSize;
+			this.maximumWeight = maximumWeight;
+			this.protectedSize = (int) (maximumSize * PROTECTED_RATIO);
+			this.protectedWeight = (long) (maximumWeight * PROTECTED_RATIO);
+		}
+
+		synchronized Object get(String key, long now) {
+			Entry entry = protectedQueue.get(key);
+			if (entry != null) {
+				if (entry.expireAt <= now) {
+					protectedQueue.remove(key);
+					protectedWeightSum -= entry.weight;
+					return null;
+				}
+				return entry.value;
+			}
+			entry = probation.remove(key);
+			if (entry == null) {
+				return null;
+			}
+			probationWeightSum -= entry.weight;
+			if (entry.expireAt <= now) {
+				return null;
+			}
+			// 再次命中，晋升到protected
+			protectedQueue.put(key, entry);
+			protectedWeightSum += entry.weight;
+			demoteProtected();
+			return entry.value;
+		}
+
+		synchronized void put(String key, Entry entry) {
+			removeEntry(key);
+			probation.put(key, entry);
+			probationWeightSum += entry.weight;
+			evict();
+		}
+
+		// 与 remove 使用同一把锁：检查通过后的失效一定在放入之后删除
+		synchronized boolean put(String key, Entry entry, int stripe, long generation) {
+			if (generations.get(stripe) != generation) {
+				return false;
+			}
+			put(key, entry);
+			return true;
+		}
+
+		synchronized void remove(String key) {
+			removeEntry(key);
+		}
+
+		synchronized void clear() {
+			probation.clear();
+			protectedQueue.clear();
+			probationWeightSum = 0;
+			protectedWeightSum = 0;
+		}
+
+		synchronized int size() {
+			return probation.size() + protectedQueue.size();
+		}
+
+		private void removeEntry(String key) {
+			Entry old = probation.remove(key);
+			if (old != null) {
+				probationWeightSum -= old.weight;
+			}
+			old = protectedQueue.remove(key);
+			if (old != null) {
+				protectedWeightSum -= old.weight;
+			}
+		}
+
+		private void demoteProtected() {
+			Iterator<Map.Entry<String, Entry>> it = protectedQueue.entrySet().iterator();
+			while ((protectedQueue.size() > protectedSize || protectedWeightSum > protectedWeight) && it.hasNext()) {
+				Map.Entry<String, Entry> eldest = it.next();
+				it.remove();
+				protectedWeightSum -= eldest.getValue().weight;
+				probation.put(eldest.getKey(), eldest.getValue());
+				probationWeightSum += eldest.getValue().weight;
+			}
+			evict();
+		}
+
+		private void evict() {
+			Iterator<Map.Entry<String, Entry>> it = probation.entrySet().iterator();
+			while ((size() > maximumSize || probationWeightSum + protectedWeightSum > maximumWeight)
+					&& it.hasNext()) {
+				Map.Entry<String, Entry> eldest = it.next();
+				it.remove();
+				probationWeightSum -= eldest.getValue().weight;
+				evictionCount.incrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 近端缓存 (进程内L1)，包装任意 Cache 实现
+ * <p>
+ * get(String, Class...) 命中时直接返回已反序列化的对象，调用方不要修改返回的对象。
+ * 条目存活时间取 expireAfterWriteMillis 与读取时redis中剩余生存时间的较小值，剩余生存时间和值在同一次往返中读取。
+ * 本节点的写操作会直接失效本地条目，并通过 InvalidationBus 通知其他节点；
+ * 读取redis期间收到的失效会使读到的值不放入本地缓存。
+ * hash/list/set 结构支持部分读取，不在本地缓存，直接读取redis。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class NearCache implements Cache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(NearCache.class);
+
+	private final Cache delegate;
+
+	private final LocalCacheStore store;
+
+	private final long expireAfterWriteMillis;
+
+	private InvalidationBus invalidationBus;
+
+	/**
+	 * @param delegate redis缓存
+	 * @param maximumSize 最大条目数
+	 * @param expireAfterWriteMillis 本地条目最长存活时间 毫秒
+	 */
+	public NearCache(Cache delegate, int maximumSize, long expireAfterWriteMillis) {
+		this(delegate, new LocalCacheStore(maximumSize), expireAfterWriteMillis);
+	}
+
+	public NearCache(Cache delegate, LocalCacheStore store, long expireAfterWriteMillis) {
+		this.delegate = delegate;
+		this.store = store;
+		this.expireAfterWriteMillis = expireAfterWriteMillis;
+	}
+
+	/**
+	 * 设置失效通知通道，并订阅其他节点的失效消息
+	 * @param invalidationBus
+	 */
+	public void setInvalidationBus(InvalidationBus invalidationBus) {
+		this.invalidationBus = invalidationBus;
+		invalidationBus.subscribe(new InvalidationBus.Listener() {
+			@Override
+			public void onInvalidate(String cacheKey) {
+				store.invalidate(cacheKey);
+			}
+
+			@Override
+			public void onReset() {
+				store.invalidateAll();
+			}
+		});
+	}
+
+	@Override
+	public void set(String cacheKey, Object cacheValue) throws Exception {
+		delegate.set(cacheKey, cacheValue);
+		invalidate(cacheKey);
+	}
+
+	@Override
+	public void set(String cacheKey, int timeout, Object cacheValue) throws Exception {
+		delegate.set(cacheKey, timeout, cacheValue);
+		invalidate(cacheKey);
+	}
+
+	@Override
+	public String get(String cacheKey) throws Exception {
+		return delegate.get(cacheKey);
+	}
+
+	@Override
+	public Object get(String cacheKey, Class<?>... type) throws Exception {
+		Object value = store.get(cacheKey);
+		if (value instanceof CacheEntry) {
+			return ((CacheEntry) value).getValue();
+		}
+		if (value != null) {
+			return value;
+		}
+		long generation = store.generation(cacheKey);
+		TimedValue loaded = delegate.getAllWithTtl(Collections.singletonList(cacheKey), false, type).get(cacheKey);
+		if (loaded == null) {
+			return null;
+		}
+		store.put(cacheKey, loaded.getValue(), loaded.localTtl(expireAfterWriteMillis), generation);
+		return loaded.getValue();
+	}
+
+	/**
+	 * 本地未命中的key批量从redis读取，读取期间没有失效的放入本地缓存
+	 */
+	@Override
+	public Map<String, Object> getAll(Collection<String> cacheKeys, Class<?>... type) throws Exception {
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		List<String> missing = new ArrayList<String>();
+		Map<String, Long> generations = new HashMap<String, Long>();
+		for (String cacheKey : cacheKeys) {
+			Object value = store.get(cacheKey);
+			if (value instanceof CacheEntry) {
+				value = ((CacheEntry) value).getValue();
+			}
+			if (value == null) {
+				missing.add(cacheKey);
+				generations.put(cacheKey, Long.valueOf(store.generation(cacheKey)));
+			}
+			result.put(cacheKey, value);
+		}
+		Map<String, TimedValue> loaded = missing.isEmpty() ? Collections.<String, TimedValue> emptyMap()
+				: delegate.getAllWithTtl(missing, false, type);
+		Iterator<Map.Entry<String, Object>> it = result.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, Object> entry = it.next();
+			if (entry.getValue() == null) {
+				TimedValue value = loaded.get(entry.getKey());
+				if (value == null) {
+					it.remove();
+				} else {
+					entry.setValue(value.getValue());
+					store.put(entry.getKey(), value.getValue(), value.localTtl(expireAfterWriteMillis),
+							generations.get(entry.getKey()).longValue());
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, TimedValue> getAllWithTtl(Collection<String> cacheKeys, boolean entry, Class<?>... type)
+			throws Exception {
+		return delegate.getAllWithTtl(cacheKeys, entry, type);
+	}
+
+	@Override
+	public void setAll(Map<String, ?> values, int timeout) throws Exception {
+		delegate.setAll(values, timeout);
+		for (String cacheKey : values.keySet()) {
+			invalidate(cacheKey);
+		}
+	}
+
+	@Override
+	public void setEntry(String cacheKey, int timeout, CacheEntry entry) throws Exception {
+		delegate.setEntry(cacheKey, timeout, entry);
+		invalidate(cacheKey);
+	}
+
+	@Override
+	public CacheEntry getEntry(String cacheKey, Class<?>... type) throws Exception {
+		Object value = store.get(cacheKey);
+		if (value instanceof CacheEntry) {
+			return (CacheEntry) value;
+		}
+		long generation = store.generation(cacheKey);
+		TimedValue loaded = delegate.getAllWithTtl(Collections.singletonList(cacheKey), true, type).get(cacheKey);
+		if (loaded == null) {
+			return null;
+		}
+		store.put(cacheKey, loaded.getValue(), loaded.localTtl(expireAfterWriteMillis), generation);
+		return (CacheEntry) loaded.getValue();
+	}
+
+	@Override
+	public void setMap(String cacheKey, int timeout, Map<?, ?> hash) throws Exception {
+		delegate.setMap(cacheKey, timeout, hash);
+		invalidate(cacheKey);
+	}
+
+	@Override
+	public void setMapField(String cacheKey, int timeout, String field, Object value) throws Exception {
+		delegate.setMapField(cacheKey, timeout, field, value);
+		invalidate(cacheKey);
+	}
+
+	@Override
+	public Map<String, Object> getMap(String cacheKey, Class<?> valueType) throws Exception {
+		return delegate.getMap(cacheKey, valueType);
+	}
+
+	@Override
+	public Object getMapField(String cacheKey, String field, Class<?> valueType) throws Exception {
+		return delegate.getMapField(cacheKey, field, valueType);
+	}
+
+	@Override
+	public long removeMapField(String cacheKey, String field) throws Exception {
+		long count = delegate.removeMapField(cacheKey, field);
+		invalidate(cacheKey);
+		return count;
+	}
+
+	@Override
+	public void setList(String cacheKey, int timeout, List<?> list) throws Exception {
+		delegate.setList(cacheKey, timeout, list);
+		invalidate(cacheKey);
+	}
+
+	@Override
+	public List<Object> getList(String cacheKey, Class<?> elementType, long start, long end) throws Exception {
+		return delegate.getList(cacheKey, elementType, start, end);
+	}
+
+	@Override
+	public void setSet(String cacheKey, int timeout, Collection<?> set) throws Exception {
+		delegate.setSet(cacheKey, timeout, set);
+		invalidate(cacheKey);
+	}
+
+	@Override
+	public Set<Object> getSet(String cacheKey, Class<?> elementType) throws Exception {
+		return delegate.getSet(cacheKey, elementType);
+	}
+
+	@Override
+	public long remove(String... cacheKeys) throws Exception {
+		long count = delegate.remove(cacheKeys);
+		for (String cacheKey : cacheKeys) {
+			invalidate(cacheKey);
+		}
+		return count;
+	}
+
+	@Override
+	public boolean expire(String cacheKey, int seconds) throws Exception {
+		boolean success = delegate.expire(cacheKey, seconds);
+		invalidate(cacheKey);
+		return success;
+	}
+
+	@Override
+	public long ttl(String cacheKey) throws Exception {
+		return delegate.ttl(cacheKey);
+	}
+
+	@Override
+	public boolean exists(String cacheKey) throws Exception {
+		return delegate.exists(cacheKey);
+	}
+
+	@Override
+	public String keyType(String key) throws Exception {
+		return delegate.keyType(key);
+	}
+
+	public LocalCacheStore getStore() {
+		return store;
+	}
+
+	private void invalidate(String cacheKey) {
+		store.invalidate(cacheKey);
+		if (invalidationBus != null) {
+			try {
+				invalidationBus.publish(cacheKey);
+			} catch (Exception e) {
+				// 通知失败时其他节点依靠条目过期兜底
+				LOGGER.warn("publish invalidation error, key=" + cacheKey, e);
+			}
+		}
+	}
+}
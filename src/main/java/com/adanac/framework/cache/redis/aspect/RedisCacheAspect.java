@@ -1,22 +1,39 @@
 package com.adanac.framework.cache.redis.aspect;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import com.adanac.framework.cache.redis.annotations.CacheExecuteOrder;
 import com.adanac.framework.cache.redis.annotations.CacheOperate;
+import com.adanac.framework.cache.redis.annotations.LoadGuard;
 import com.adanac.framework.cache.redis.annotations.MyCacheable;
+import com.adanac.framework.cache.redis.annotations.RedisDataType;
 
 /**
  * 
@@ -27,17 +44,53 @@ import com.adanac.framework.cache.redis.annotations.MyCacheable;
 public class RedisCacheAspect {
 	private static final Logger LOGGER = LoggerFactory.getLogger(RedisCacheAspect.class);
 
+	private static final String LOCK_SUFFIX = ":lock";
+
+	private static final long LOCK_POLL_MILLIS = 50L;
+
+	private static final int REFRESH_THREADS = 4;
+
+	private static final int REFRESH_QUEUE_SIZE = 1024;
+
 	// 缓存管理器
 	private Cache cache;
 
+	// 跨节点回源锁 (LoadGuard.DISTRIBUTED)
+	private CacheLock cacheLock;
+
+	private final SingleFlight singleFlight = new SingleFlight();
+
+	// 后台刷新线程池 (refreshAhead)
+	private Executor refreshExecutor = createRefreshExecutor();
+
+	// 正在后台刷新的key，同一个key同时只有一个刷新任务
+	private final ConcurrentMap<String, Boolean> refreshing = new ConcurrentHashMap<String, Boolean>();
+
+	private final CacheRefreshStats refreshStats = new CacheRefreshStats();
+
 	private SpelExpressionParser expressionParser = new SpelExpressionParser();
 
+	// 方法对应的缓存元数据 (注解、返回值类型、key生成计划)
+	private final ConcurrentMap<Method, CachedMethodDescriptor> descriptors = new ConcurrentHashMap<Method, CachedMethodDescriptor>();
+
 	public void setCache(Cache cache) {
 		this.cache = cache;
 	}
 
+	public void setCacheLock(CacheLock cacheLock) {
+		this.cacheLock = cacheLock;
+	}
+
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	public CacheRefreshStats getRefreshStats() {
+		return refreshStats;
+	}
+
 	// 声明环绕通知
-	@Around("@annotation(com.bn.framework.cache.redis.annotations.MyCacheable)")
+	@Around("@annotation(com.adanac.framework.cache.redis.annotations.MyCacheable)")
 	public Object doAroundCache(ProceedingJoinPoint joinPoint) throws Throwable {
 
 		return executeJoinPoint(joinPoint);
@@ -45,26 +98,26 @@ public class RedisCacheAspect {
 
 	private Object executeJoinPoint(ProceedingJoinPoint joinPoint) throws Throwable {
 
-		Signature signature = joinPoint.getSignature();// 方法签名
+		CachedMethodDescriptor descriptor = getDescriptor(joinPoint);// 缓存方法元数据
 
-		MyCacheable methodCacheable = getAnnotation(signature);// 缓存注解参数
+		MyCacheable methodCacheable = descriptor.getCacheable();// 缓存注解参数
 
 		// 查询操作 不区分缓存操作时机
 		if (methodCacheable.beforecmd() == CacheOperate.QUERY) {
-			return queryCache(methodCacheable, joinPoint);
+			return queryCache(descriptor, joinPoint);
 		}
 
 		// 增加操作 先增加到数据库 再增加到缓存
 		if (methodCacheable.beforecmd() == CacheOperate.SAVE) {
 			Object joinPointProceedResult = joinPoint.proceed();
-			cacheOperate(methodCacheable, joinPoint);
+			cacheOperate(descriptor, joinPoint);
 			return joinPointProceedResult;
 		}
 
 		// 删除操作 先删除缓存 再删除数据库
 
 		if (methodCacheable.beforecmd() == CacheOperate.DELETE) {
-			cacheOperate(methodCacheable, joinPoint);
+			cacheOperate(descriptor, joinPoint);
 			Object joinPointProceedResult = joinPoint.proceed();
 			return joinPointProceedResult;
 		}
@@ -72,13 +125,13 @@ public class RedisCacheAspect {
 		// 缓存操作执行时机 之后
 		if (methodCacheable.order() == CacheExecuteOrder.cacheLast) {
 			Object joinPointProceedResult = joinPoint.proceed();
-			cacheOperate(methodCacheable, joinPoint);
+			cacheOperate(descriptor, joinPoint);
 			return joinPointProceedResult;
 		}
 
 		// 缓存操作执行时机 之前
 		if (methodCacheable.order() == CacheExecuteOrder.cacheFirst) {
-			cacheOperate(methodCacheable, joinPoint);
+			cacheOperate(descriptor, joinPoint);
 			Object joinPointProceedResult = joinPoint.proceed();
 			return joinPointProceedResult;
 		}
@@ -87,16 +140,20 @@ public class RedisCacheAspect {
 
 	}
 
-	private void cacheOperate(MyCacheable methodCacheable, ProceedingJoinPoint joinPoint) throws Throwable {
+	private void cacheOperate(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) throws Throwable {
+		if (descriptor.isBatch()) {
+			delBatchCache(descriptor, joinPoint);
+			return;
+		}
 		// 缓存操作
-		switch (methodCacheable.beforecmd()) {
+		switch (descriptor.getCacheable().beforecmd()) {
 
 		case DELETE:// 删除缓存
-			delCache(methodCacheable, joinPoint);
+			delCache(descriptor, joinPoint);
 			break;
 
 		case SAVE:// 保存缓存
-			addCache(methodCacheable, joinPoint);
+			addCache(descriptor, joinPoint);
 			break;
 		default:
 			break;
@@ -106,45 +163,372 @@ public class RedisCacheAspect {
 	/**
 	 * 查询缓存 (先到缓存中查找，如果缓存中有则直接返回 ，如果没有进行查询，并将查询结果放到缓存中)
 	 * 
-	 * @param methodCacheable
+	 * @param descriptor
 	 * @param joinPoint
 	 * @return
 	 * @throws Throwable 
 	 */
-	private Object queryCache(MyCacheable methodCacheable, ProceedingJoinPoint joinPoint) throws Throwable {
-		Object object = getCache(methodCacheable, joinPoint);
+	private Object queryCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) throws Throwable {
+		if (descriptor.isBatch()) {
+			return batchQueryCache(descriptor, joinPoint);
+		}
+		Object object = descriptor.isRefreshAhead() ? getCacheRefreshAhead(descriptor, joinPoint)
+				: getCache(descriptor, joinPoint);
 		if (object != null) {
 			return object;
-		} else {
+		}
+
+		MyCacheable methodCacheable = descriptor.getCacheable();
+		if (methodCacheable.loadGuard() == LoadGuard.NONE) {
+			return loadCache(descriptor, joinPoint);
+		}
+		return guardedLoadCache(descriptor, joinPoint, getCacaheKey(descriptor, joinPoint));
+	}
+
+	/**
+	 * 批量查询缓存：按id批量读取缓存，只以未命中的id调用方法，结果按id分别写入缓存
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @return
+	 * @throws Throwable
+	 */
+	private Object batchQueryCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint)
+			throws Throwable {
+		Object[] args = joinPoint.getArgs();
+		int batchIndex = descriptor.getBatchIndex();
+		Collection<?> ids = (Collection<?>) args[batchIndex];
+		if (ids == null || ids.isEmpty()) {
+			return joinPoint.proceed();
+		}
+		Map<Object, String> cacheKeys = getBatchCacheKeys(descriptor, args, ids);
+		Map<String, Object> cached = Collections.emptyMap();
+		try {
+			Class<?> valueType = descriptor.getElementType() == null ? Object.class : descriptor.getElementType();
+			cached = cache.getAll(cacheKeys.values(), valueType);
+		} catch (Exception e) {
+			LOGGER.error("批量获取缓存错误", e);
+		}
+
+		List<Object> missing = new ArrayList<Object>();
+		for (Map.Entry<Object, String> entry : cacheKeys.entrySet()) {
+			if (!cached.containsKey(entry.getValue())) {
+				missing.add(entry.getKey());
+			}
+		}
+		Map<?, ?> loaded = Collections.emptyMap();
+		if (!missing.isEmpty()) {
+			Object[] loadArgs = args.clone();
+			loadArgs[batchIndex] = toIdCollection(missing, descriptor.getMethod().getParameterTypes()[batchIndex]);
+			Map<?, ?> proceedResult = (Map<?, ?>) joinPoint.proceed(loadArgs);
+			if (proceedResult != null) {
+				loaded = proceedResult;
+				addBatchCache(descriptor, loadArgs, loaded);
+			}
+		}
+
+		Map<Object, Object> result = new LinkedHashMap<Object, Object>();
+		for (Map.Entry<Object, String> entry : cacheKeys.entrySet()) {
+			Object value = cached.get(entry.getValue());
+			if (value == null) {
+				value = loaded.get(entry.getKey());
+			}
+			if (value != null) {
+				result.put(entry.getKey(), value);
+			}
+		}
+		return adaptReturnType(result, descriptor);
+	}
+
+	/**
+	 * 批量回源结果按id分别写入缓存
+	 * 
+	 * @param descriptor
+	 * @param args
+	 * @param loaded
+	 * @throws Exception
+	 */
+	private void addBatchCache(CachedMethodDescriptor descriptor, Object[] args, Map<?, ?> loaded) throws Exception {
+		Map<String, Object> values = new HashMap<String, Object>();
+		Object[] keyArgs = args.clone();
+		for (Map.Entry<?, ?> entry : loaded.entrySet()) {
+			if (entry.getKey() != null && entry.getValue() != null) {
+				keyArgs[descriptor.getBatchIndex()] = entry.getKey();
+				values.put(descriptor.getKeyPlan().generate(keyArgs), entry.getValue());
+			}
+		}
+		if (!values.isEmpty()) {
+			cache.setAll(values, descriptor.getCacheable().timeout());
+		}
+	}
+
+	/**
+	 * 批量模式的保存、删除：删除所有id的缓存
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @throws Exception
+	 */
+	private void delBatchCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) throws Exception {
+		Object[] args = joinPoint.getArgs();
+		Collection<?> ids = (Collection<?>) args[descriptor.getBatchIndex()];
+		if (ids != null && !ids.isEmpty()) {
+			Collection<String> cacheKeys = getBatchCacheKeys(descriptor, args, ids).values();
+			cache.remove(cacheKeys.toArray(new String[cacheKeys.size()]));
+		}
+	}
+
+	/**
+	 * 每个id的缓存key (id集合参数替换为单个id后生成)
+	 * 
+	 * @param descriptor
+	 * @param args
+	 * @param ids
+	 * @return
+	 */
+	private Map<Object, String> getBatchCacheKeys(CachedMethodDescriptor descriptor, Object[] args,
+			Collection<?> ids) {
+		Map<Object, String> cacheKeys = new LinkedHashMap<Object, String>();
+		Object[] keyArgs = args.clone();
+		for (Object id : ids) {
+			keyArgs[descriptor.getBatchIndex()] = id;
+			cacheKeys.put(id, descriptor.getKeyPlan().generate(keyArgs));
+		}
+		return cacheKeys;
+	}
+
+	/**
+	 * 未命中的id转换为方法参数声明的集合类型
+	 * 
+	 * @param ids
+	 * @param parameterType
+	 * @return
+	 * @throws Exception
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Collection<?> toIdCollection(List<Object> ids, Class<?> parameterType) throws Exception {
+		if (parameterType.isInstance(ids)) {
+			return ids;
+		}
+		if (parameterType.isAssignableFrom(LinkedHashSet.class)) {
+			return new LinkedHashSet<Object>(ids);
+		}
+		if (parameterType.isInterface() || Modifier.isAbstract(parameterType.getModifiers())) {
+			throw new IllegalStateException("can not create id collection of type " + parameterType.getName());
+		}
+		Collection result = (Collection) parameterType.newInstance();
+		result.addAll(ids);
+		return result;
+	}
+
+	/**
+	 * 回源并将结果放到缓存中
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @return
+	 * @throws Throwable
+	 */
+	private Object loadCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) throws Throwable {
+		long start = System.currentTimeMillis();
+		Object proceedResult = joinPoint.proceed();
+
+		if (null != proceedResult) {
+			// 加入缓存
+			addCache(proceedResult, System.currentTimeMillis() - start, descriptor, joinPoint);
+		}
+
+		return proceedResult;
+	}
 
-			Object proceedResult = joinPoint.proceed();
+	/**
+	 * 带回源保护的查询：同一个key在本JVM内只有一个调用方回源，DISTRIBUTED模式下再通过redis锁限制为集群内一个节点
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @param cacheKey
+	 * @return
+	 * @throws Throwable
+	 */
+	private Object guardedLoadCache(final CachedMethodDescriptor descriptor, final ProceedingJoinPoint joinPoint,
+			final String cacheKey) throws Throwable {
+		return singleFlight.execute(cacheKey, new SingleFlight.Loader() {
+			@Override
+			public Object load() throws Throwable {
+				// 等待期间其他调用方可能已经写入缓存
+				Object object = getCache(descriptor, joinPoint);
+				if (object != null) {
+					return object;
+				}
+				if (descriptor.getCacheable().loadGuard() == LoadGuard.DISTRIBUTED && cacheLock != null) {
+					return lockedLoadCache(descriptor, joinPoint, cacheKey);
+				}
+				return loadCache(descriptor, joinPoint);
+			}
+		});
+	}
+
+	/**
+	 * 持有redis锁回源，未拿到锁时在lockWaitMillis内等待其他节点写入缓存，超时后自行回源
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @param cacheKey
+	 * @return
+	 * @throws Throwable
+	 */
+	private Object lockedLoadCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint, String cacheKey)
+			throws Throwable {
+		MyCacheable methodCacheable = descriptor.getCacheable();
+		String lockKey = cacheKey + LOCK_SUFFIX;
+		String token = UUID.randomUUID().toString();
+		long deadline = System.currentTimeMillis() + methodCacheable.lockWaitMillis();
+
+		while (true) {
+			boolean locked = false;
+			try {
+				locked = cacheLock.tryLock(lockKey, token, methodCacheable.lockLeaseMillis());
+			} catch (Exception e) {
+				LOGGER.error("获取回源锁错误", e);
+				return loadCache(descriptor, joinPoint);
+			}
+			if (locked) {
+				try {
+					Object object = getCache(descriptor, joinPoint);
+					if (object != null) {
+						return object;
+					}
+					return loadCache(descriptor, joinPoint);
+				} finally {
+					try {
+						cacheLock.unlock(lockKey, token);
+					} catch (Exception e) {
+						LOGGER.error("释放回源锁错误", e);
+					}
+				}
+			}
 
-			if (null != proceedResult) {
-				// 加入缓存
-				addCache(proceedResult, methodCacheable, joinPoint);
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				LOGGER.warn("等待回源锁超时，直接回源 key={}", cacheKey);
+				return loadCache(descriptor, joinPoint);
+			}
+			Thread.sleep(Math.min(LOCK_POLL_MILLIS, remaining));
+			Object object = getCache(descriptor, joinPoint);
+			if (object != null) {
+				return object;
 			}
+		}
+	}
 
-			return proceedResult;
+	/**
+	 * 查询缓存 (提前刷新)：逻辑过期或XFetch判定需要提前刷新时，返回当前值并提交后台刷新
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @return
+	 */
+	private Object getCacheRefreshAhead(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) {
+		String cacheKey = getCacaheKey(descriptor, joinPoint);
+		CacheEntry entry = getCacheEntry(descriptor, cacheKey);
+		if (entry == null || entry.getValue() == null) {
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		if (entry.isStale(now)) {
+			refreshStats.recordStaleHit(now - entry.getExpireAt());
+			scheduleRefresh(descriptor, joinPoint, cacheKey);
+		} else if (entry.shouldRefreshEarly(now, descriptor.getCacheable().refreshBeta())) {
+			refreshStats.recordEarlyRefresh();
+			scheduleRefresh(descriptor, joinPoint, cacheKey);
+		}
+		return entry.getValue();
+	}
 
+	/**
+	 * 提交后台刷新
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @param cacheKey
+	 */
+	private void scheduleRefresh(final CachedMethodDescriptor descriptor, final ProceedingJoinPoint joinPoint,
+			final String cacheKey) {
+		if (refreshing.putIfAbsent(cacheKey, Boolean.TRUE) != null) {
+			return;
+		}
+		try {
+			refreshExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						refreshCache(descriptor, joinPoint, cacheKey);
+					} finally {
+						refreshing.remove(cacheKey);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			refreshing.remove(cacheKey);
+			refreshStats.recordRefreshRejected();
 		}
+	}
 
+	/**
+	 * 后台刷新，DISTRIBUTED模式下未拿到redis锁说明其他节点正在刷新，直接放弃
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @param cacheKey
+	 */
+	private void refreshCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint, String cacheKey) {
+		MyCacheable methodCacheable = descriptor.getCacheable();
+		boolean distributed = methodCacheable.loadGuard() == LoadGuard.DISTRIBUTED && cacheLock != null;
+		String lockKey = cacheKey + LOCK_SUFFIX;
+		String token = UUID.randomUUID().toString();
+		try {
+			if (distributed && !cacheLock.tryLock(lockKey, token, methodCacheable.lockLeaseMillis())) {
+				return;
+			}
+			try {
+				loadCache(descriptor, joinPoint);
+				refreshStats.recordRefreshSuccess();
+			} finally {
+				if (distributed) {
+					cacheLock.unlock(lockKey, token);
+				}
+			}
+		} catch (Throwable e) {
+			refreshStats.recordRefreshFailure();
+			LOGGER.error("后台刷新缓存错误 key=" + cacheKey, e);
+		}
 	}
 
 	/**
 	 * 结果加入到缓存
 	 * 
 	 * @param proceedResult
-	 * @param methodCacheable
+	 * @param loadMillis 回源耗时 毫秒
+	 * @param descriptor
 	 * @param joinPoint
 	 * @throws Exception 
 	 */
-	private void addCache(Object proceedResult, MyCacheable methodCacheable, ProceedingJoinPoint joinPoint)
-			throws Exception {
+	private void addCache(Object proceedResult, long loadMillis, CachedMethodDescriptor descriptor,
+			ProceedingJoinPoint joinPoint) throws Exception {
 
-		String cacheKey = getCacaheKey(methodCacheable, joinPoint);
+		String cacheKey = getCacaheKey(descriptor, joinPoint);
 		if (!cacheKey.equals("")) {
 
-			cache.set(cacheKey, methodCacheable.timeout(), proceedResult);
+			if (descriptor.isRefreshAhead()) {
+				long expireAt = System.currentTimeMillis() + descriptor.getCacheable().timeout() * 1000L;
+				cache.setEntry(cacheKey, descriptor.getStoreTimeout(),
+						new CacheEntry(proceedResult, expireAt, loadMillis));
+			} else if (descriptor.getDataType() == RedisDataType.LIST && descriptor.isPartialRange()) {
+				// 只是list的一部分，不能覆盖整个list
+				return;
+			} else {
+				setCache(descriptor, joinPoint, cacheKey, proceedResult);
+			}
 
 		}
 
@@ -153,16 +537,38 @@ public class RedisCacheAspect {
 	/**
 	 * 获取缓存
 	 * 
-	 * @param methodCacheable
+	 * @param descriptor
 	 * @param joinPoint
 	 * @return
 	 */
-	private Object getCache(MyCacheable methodCacheable, ProceedingJoinPoint joinPoint) {
+	private Object getCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) {
 		try {
-			String cacheKey = getCacaheKey(methodCacheable, joinPoint);
+			String cacheKey = getCacaheKey(descriptor, joinPoint);
 			if (!cacheKey.equals("")) {
 
-				return cache.get(cacheKey, getReturnObjType(joinPoint));
+				if (descriptor.isRefreshAhead()) {
+					CacheEntry entry = cache.getEntry(cacheKey, descriptor.getReturnObjType());
+					return entry == null ? null : entry.getValue();
+				}
+				switch (descriptor.getDataType()) {
+				case MAP:
+					if (descriptor.getFieldPlan() != null) {
+						return cache.getMapField(cacheKey, getField(descriptor, joinPoint),
+								descriptor.getReturnType());
+					}
+					Map<String, Object> map = cache.getMap(cacheKey, descriptor.getElementType());
+					return map == null ? null : adaptReturnType(map, descriptor);
+				case LIST:
+					MyCacheable methodCacheable = descriptor.getCacheable();
+					List<Object> list = cache.getList(cacheKey, descriptor.getElementType(),
+							methodCacheable.rangeStart(), methodCacheable.rangeEnd());
+					return list == null ? null : adaptReturnType(list, descriptor);
+				case SET:
+					Collection<Object> set = cache.getSet(cacheKey, descriptor.getElementType());
+					return set == null ? null : adaptReturnType(set, descriptor);
+				default:
+					return cache.get(cacheKey, descriptor.getReturnObjType());
+				}
 
 			}
 		} catch (Exception e) {
@@ -172,52 +578,39 @@ public class RedisCacheAspect {
 	}
 
 	/**
-	 * 方法返回值类型
+	 * 获取带逻辑过期时间的缓存
 	 * 
-	 * @param joinPoint
+	 * @param descriptor
+	 * @param cacheKey
 	 * @return
 	 */
-	private Class<?>[] getReturnObjType(ProceedingJoinPoint joinPoint) {
-		Signature signature = joinPoint.getSignature();
-		MethodSignature methodSignature = (MethodSignature) signature;
-		Method targetMethod = methodSignature.getMethod();
-
-		Class<?> type = targetMethod.getReturnType();
-		if (type.isAssignableFrom(List.class) || type.isAssignableFrom(Set.class)) {
-			// 泛型参数返回类型 (List<User> Set<User>)
-			MyCacheable cacheable = getAnnotation(signature);
-			String returnType = cacheable.returnType();
-
-			try {
-				Class<?> returnTypeClass = Class.forName(returnType);
-				return new Class<?>[] { type, returnTypeClass };
-			} catch (ClassNotFoundException e) {
-
-				LOGGER.error("getReturnObjType error", e);
+	private CacheEntry getCacheEntry(CachedMethodDescriptor descriptor, String cacheKey) {
+		try {
+			if (!cacheKey.equals("")) {
+				return cache.getEntry(cacheKey, descriptor.getReturnObjType());
 			}
-			return new Class<?>[] { type };
-		} else {
-			return new Class<?>[] { type };
+		} catch (Exception e) {
+			LOGGER.error("获取缓存错误", e);
 		}
-
+		return null;
 	}
 
 	/**
 	 * 保存缓存 (只支持方法参数是一个的)
 	 * 
-	 * @param methodCacheable
+	 * @param descriptor
 	 * @param joinPoint
 	 * @throws Exception 
 	 */
-	private void addCache(MyCacheable methodCacheable, ProceedingJoinPoint joinPoint) throws Exception {
+	private void addCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) throws Exception {
 
-		String cacheKey = getCacaheKey(methodCacheable, joinPoint);
+		String cacheKey = getCacaheKey(descriptor, joinPoint);
 		if (!cacheKey.equals("")) {
 
 			Object[] args = joinPoint.getArgs();// 方法参数
 			// 保存第一个方法参数作为缓存值
 			if (null != args) {
-				cache.set(cacheKey, methodCacheable.timeout(), args[0]);
+				setCache(descriptor, joinPoint, cacheKey, args[0]);
 			}
 
 		}
@@ -227,85 +620,146 @@ public class RedisCacheAspect {
 	/**
 	 * 删除缓存
 	 * 
-	 * @param methodCacheable
+	 * @param descriptor
 	 * @param joinPoint
 	 * @throws Exception 
 	 */
-	private void delCache(MyCacheable methodCacheable, ProceedingJoinPoint joinPoint) throws Exception {
+	private void delCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) throws Exception {
 
-		String cacheKey = getCacaheKey(methodCacheable, joinPoint);
+		String cacheKey = getCacaheKey(descriptor, joinPoint);
 		if (!cacheKey.equals("")) {
-			cache.remove(cacheKey);
+			if (descriptor.getDataType() == RedisDataType.MAP && descriptor.getFieldPlan() != null) {
+				cache.removeMapField(cacheKey, getField(descriptor, joinPoint));
+			} else {
+				cache.remove(cacheKey);
+			}
 		}
 
 	}
 
 	/**
-	 * 获取缓存key值
+	 * 按数据类型写入缓存，值的类型与dataType不匹配时按STRING保存
 	 * 
-	 * @param methodCacheable
+	 * @param descriptor
 	 * @param joinPoint
-	 * @return
+	 * @param cacheKey
+	 * @param value
+	 * @throws Exception
 	 */
-	private String getCacaheKey(MyCacheable methodCacheable, ProceedingJoinPoint joinPoint) {
-
-		String key = methodCacheable.key();
-
-		if (key.contains("#")) {
-			Object[] args = joinPoint.getArgs();// 方法参数
-
-			Signature signature = joinPoint.getSignature();// 方法签名
-			MethodSignature methodSignature = (MethodSignature) signature;
-			String[] parameterNames = methodSignature.getParameterNames();
-
-			StandardEvaluationContext context = new StandardEvaluationContext();
-
-			for (int i = 0; i < parameterNames.length; i++) {
-				context.setVariable(parameterNames[i], args[i]);
+	private void setCache(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint, String cacheKey,
+			Object value) throws Exception {
+		int timeout = descriptor.getCacheable().timeout();
+		switch (descriptor.getDataType()) {
+		case MAP:
+			if (descriptor.getFieldPlan() != null) {
+				cache.setMapField(cacheKey, timeout, getField(descriptor, joinPoint), value);
+				return;
 			}
-
-			// #user.id#user.name
-			// userCache#user.id#user.name
-			// 缓存key
-			StringBuilder cacheKeyBuilder = new StringBuilder();
-
-			if (!key.startsWith("#")) {
-				// 获取常量字符串
-				int firstCharMark = key.indexOf("#");
-				String commonChar = key.substring(0, firstCharMark);
-				key = key.substring(firstCharMark + 1);
-				cacheKeyBuilder.append(commonChar);
-				cacheKeyBuilder.append(":");
-			} else {
-				key = key.substring(key.indexOf("#") + 1);
+			if (value instanceof Map) {
+				cache.setMap(cacheKey, timeout, (Map<?, ?>) value);
+				return;
 			}
-
-			String[] keys = key.split("#");
-
-			for (String keyStr : keys) {
-				Object object = expressionParser.parseExpression("#" + keyStr).getValue(context);
-				cacheKeyBuilder.append(object.toString());
-				cacheKeyBuilder.append(":");
+			break;
+		case LIST:
+			if (value instanceof List) {
+				cache.setList(cacheKey, timeout, (List<?>) value);
+				return;
 			}
+			break;
+		case SET:
+			if (value instanceof Collection) {
+				cache.setSet(cacheKey, timeout, (Collection<?>) value);
+				return;
+			}
+			break;
+		default:
+			break;
+		}
+		cache.set(cacheKey, timeout, value);
+	}
 
-			String cacheKey = cacheKeyBuilder.toString();
-
-			return cacheKey.substring(0, cacheKey.length() - 1);
-
+	/**
+	 * 集合转换为方法声明的返回值类型 (如 LinkedHashMap TreeSet)
+	 * 
+	 * @param value
+	 * @param descriptor
+	 * @return
+	 * @throws Exception
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Object adaptReturnType(Object value, CachedMethodDescriptor descriptor) throws Exception {
+		Class<?> returnType = descriptor.getReturnType();
+		if (returnType.isInstance(value)) {
+			return value;
+		}
+		if (returnType.isInterface() || Modifier.isAbstract(returnType.getModifiers())) {
+			throw new IllegalStateException("can not convert cached " + value.getClass().getName() + " to "
+					+ returnType.getName());
+		}
+		Object result = returnType.newInstance();
+		if (value instanceof Map) {
+			((Map) result).putAll((Map) value);
 		} else {
-			return key;
+			((Collection) result).addAll((Collection) value);
 		}
+		return result;
+	}
+
+	/**
+	 * 获取hash field
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @return
+	 */
+	private String getField(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) {
+		return descriptor.getFieldPlan().generate(joinPoint.getArgs());
+	}
+
+	/**
+	 * 获取缓存key值
+	 * 
+	 * @param descriptor
+	 * @param joinPoint
+	 * @return
+	 */
+	private String getCacaheKey(CachedMethodDescriptor descriptor, ProceedingJoinPoint joinPoint) {
+		return descriptor.getKeyPlan().generate(joinPoint.getArgs());
 	}
 
 	/**
-	 * 获取方法注解参数
+	 * 获取方法缓存元数据 (首次调用时解析)
 	 * 
-	 * @param signature
+	 * @param joinPoint
 	 * @return
 	 */
-	private MyCacheable getAnnotation(Signature signature) {
-		MethodSignature methodSignature = (MethodSignature) signature;
+	private CachedMethodDescriptor getDescriptor(ProceedingJoinPoint joinPoint) {
+		MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
 		Method targetMethod = methodSignature.getMethod();
-		return targetMethod.getAnnotation(MyCacheable.class);
+		CachedMethodDescriptor descriptor = descriptors.get(targetMethod);
+		if (descriptor == null) {
+			descriptor = CachedMethodDescriptor.resolve(targetMethod, methodSignature.getParameterNames(),
+					expressionParser);
+			CachedMethodDescriptor existing = descriptors.putIfAbsent(targetMethod, descriptor);
+			if (existing != null) {
+				descriptor = existing;
+			}
+		}
+		return descriptor;
+	}
+
+	private static Executor createRefreshExecutor() {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(REFRESH_QUEUE_SIZE), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "cache-refresh-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
 	}
 }
@@ -1,16 +1,29 @@
 package com.adanac.framework.cache.redis.aspect;
 
-import java.util.HashSet;
-import java.util.Iterator;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.BatchResponse;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
 import com.adanac.framework.cache.redis.client.impl.MyJedisClusterClient;
+import com.adanac.framework.cache.redis.codec.RawCodec;
+import com.adanac.framework.cache.redis.compress.ValueCompression;
+import com.adanac.framework.cache.redis.util.JsonBytes;
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
+
+import redis.clients.util.SafeEncoder;
 
 /**
  * RedisCluster cache
@@ -23,6 +36,27 @@ public class RedisClusterCache implements Cache {
 
 	private MyJedisClusterClient redisClient;
 
+	// 值压缩，为null时不压缩
+	private ValueCompression compression;
+
+	private ShardExecutor shardExecutor = ShardExecutor.getDefault();
+
+	/**
+	 * 开启值压缩，开启后写入的数据需要同样开启压缩才能读取
+	 * @param compression
+	 */
+	public void setCompression(ValueCompression compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * 批量读写使用的并行执行器，默认共用 ShardExecutor.getDefault()
+	 * @param shardExecutor
+	 */
+	public void setShardExecutor(ShardExecutor shardExecutor) {
+		this.shardExecutor = shardExecutor;
+	}
+
 	public RedisClusterCache(MyJedisClusterClient redisClient) {
 
 		this.redisClient = redisClient;
@@ -38,12 +72,7 @@ public class RedisClusterCache implements Cache {
 	public void set(String cacheKey, int timeout, Object cacheValue) throws Exception {
 
 		try {
-			if (timeout <= 0) {
-
-				redisClient.getJedisCluster().set(cacheKey, JSON.toJSONString(cacheValue));
-			} else {
-				redisClient.getJedisCluster().setex(cacheKey, timeout, JSON.toJSONString(cacheValue));
-			}
+			writeBytes(cacheKey, timeout, JsonBytes.toBytes(null, cacheValue));
 		} catch (Exception e) {
 			LOGGER.error("set cache error", e);
 			throw e;
@@ -54,48 +83,194 @@ public class RedisClusterCache implements Cache {
 
 	@Override
 	public String get(String cacheKey) throws Exception {
-		String value = null;
+		byte[] value = read(cacheKey);
+		return value == null ? null : SafeEncoder.encode(value);
+	}
+
+	@Override
+	public Object get(String cacheKey, Class<?>... type) throws Exception {
+		return JsonBytes.parse(read(cacheKey), 0, JsonBytes.typeOf(type));
+	}
 
+	@Override
+	public Map<String, Object> getAll(Collection<String> cacheKeys, Class<?>... type) throws Exception {
+		Map<String, byte[]> values = new HashMap<String, byte[]>();
+		if (!cacheKeys.isEmpty()) {
+			List<String> keys = new ArrayList<String>(cacheKeys);
+			try {
+				List<byte[]> replies = redisClient.getJedisCluster().mgetBytes(keys, shardExecutor);
+				for (int i = 0; i < keys.size(); i++) {
+					if (replies.get(i) != null) {
+						values.put(keys.get(i), replies.get(i));
+					}
+				}
+			} catch (Exception e) {
+				LOGGER.error("get all cache error", e);
+				throw e;
+			}
+		}
+		Type valueType = JsonBytes.typeOf(type);
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		for (String cacheKey : cacheKeys) {
+			byte[] value = values.get(cacheKey);
+			if (value != null) {
+				if (compression != null) {
+					value = compression.decompress(value);
+				}
+				result.put(cacheKey, JsonBytes.parse(value, 0, valueType));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, TimedValue> getAllWithTtl(Collection<String> cacheKeys, boolean entry, Class<?>... type)
+			throws Exception {
+		Map<String, TimedValue> result = new LinkedHashMap<String, TimedValue>();
+		if (cacheKeys.isEmpty()) {
+			return result;
+		}
+		Batch<String> batch = redisClient.getJedisCluster().batch(Batch.STRING_KEYS, RawCodec.INSTANCE,
+				shardExecutor);
+		Map<String, BatchResponse<byte[]>> gets = new LinkedHashMap<String, BatchResponse<byte[]>>();
+		Map<String, BatchResponse<Long>> pttls = new HashMap<String, BatchResponse<Long>>();
+		for (String cacheKey : cacheKeys) {
+			gets.put(cacheKey, batch.<byte[]> get(cacheKey));
+			pttls.put(cacheKey, batch.pttl(cacheKey));
+		}
 		try {
-			value = redisClient.getJedisCluster().get(cacheKey);
+			batch.execute();
 		} catch (Exception e) {
-			LOGGER.error("get cache error", e);
+			LOGGER.error("get all cache error", e);
+			throw e;
+		}
+		Type valueType = JsonBytes.typeOf(type);
+		for (Map.Entry<String, BatchResponse<byte[]>> get : gets.entrySet()) {
+			byte[] value = get.getValue().get();
+			if (value != null) {
+				if (compression != null) {
+					value = compression.decompress(value);
+				}
+				Object decoded = entry ? CacheEntry.fromJsonBytes(value, valueType)
+						: JsonBytes.parse(value, 0, valueType);
+				result.put(get.getKey(), new TimedValue(decoded, pttls.get(get.getKey()).get().longValue()));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void setAll(Map<String, ?> values, int timeout) throws Exception {
+		if (values.isEmpty()) {
+			return;
+		}
+		Map<String, byte[]> encoded = new HashMap<String, byte[]>();
+		for (Map.Entry<String, ?> entry : values.entrySet()) {
+			byte[] value = JsonBytes.toBytes(null, entry.getValue());
+			encoded.put(entry.getKey(), compression == null ? value : compression.compress(value));
+		}
+		try {
+			redisClient.getJedisCluster().msetBytes(encoded, timeout, shardExecutor);
+		} catch (Exception e) {
+			LOGGER.error("set all cache error", e);
 			throw e;
 		}
-		return value;
 	}
 
 	@Override
-	public Object get(String cacheKey, Class<?>... type) throws Exception {
+	public void setEntry(String cacheKey, int timeout, CacheEntry entry) throws Exception {
+		try {
+			writeBytes(cacheKey, timeout, entry.toJsonBytes());
+		} catch (Exception e) {
+			LOGGER.error("set cache entry error", e);
+			throw e;
+		}
+	}
 
-		if (type.length == 1) {
-			return JSON.parseObject(get(cacheKey), type[0]);
-		} else {
-			if (type[0].isAssignableFrom(List.class)) {
+	@Override
+	public CacheEntry getEntry(String cacheKey, Class<?>... type) throws Exception {
+		return CacheEntry.fromJsonBytes(read(cacheKey), JsonBytes.typeOf(type));
+	}
+
+	@Override
+	public void setMap(String cacheKey, int timeout, Map<?, ?> hash) throws Exception {
+		write(cacheKey, RedisStructures.HASH_COMMAND, true, timeout, RedisStructures.encodeHash(hash));
+	}
 
-				return JSON.parseArray(get(cacheKey), type[1]);
-			} else if (type[0].isAssignableFrom(Set.class)) {
+	@Override
+	public void setMapField(String cacheKey, int timeout, String field, Object value) throws Exception {
+		write(cacheKey, RedisStructures.HASH_COMMAND, false, timeout,
+				Arrays.asList(field, JSON.toJSONString(value)));
+	}
 
-				Set jsonResult = (Set) JSON.parseObject(get(cacheKey), type[0]);
-				Iterator<Object> iterator = jsonResult.iterator();
+	@Override
+	public Map<String, Object> getMap(String cacheKey, Class<?> valueType) throws Exception {
+		Map<String, String> hash = null;
+		try {
+			hash = redisClient.getJedisCluster().hgetAll(cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("get cache map error", e);
+			throw e;
+		}
+		return RedisStructures.decodeHash(hash, valueType);
+	}
 
-				Set result = new HashSet();
-				while (iterator.hasNext()) {
-					JSONObject obj = (JSONObject) iterator.next();
+	@Override
+	public Object getMapField(String cacheKey, String field, Class<?> valueType) throws Exception {
+		String value = null;
+		try {
+			value = redisClient.getJedisCluster().hget(cacheKey, field);
+		} catch (Exception e) {
+			LOGGER.error("get cache map field error", e);
+			throw e;
+		}
+		return RedisStructures.decode(value, valueType);
+	}
 
-					Object o = JSON.toJavaObject(obj, type[1]);
+	@Override
+	public long removeMapField(String cacheKey, String field) throws Exception {
+		Long count = null;
+		try {
+			count = redisClient.getJedisCluster().hdel(cacheKey, field);
+		} catch (Exception e) {
+			LOGGER.error("remove cache map field error", e);
+			throw e;
+		}
+		return count == null ? 0 : count.longValue();
+	}
 
-					result.add(o);
+	@Override
+	public void setList(String cacheKey, int timeout, List<?> list) throws Exception {
+		write(cacheKey, RedisStructures.LIST_COMMAND, true, timeout, RedisStructures.encodeElements(list));
+	}
 
-				}
-				return result;
-			}
+	@Override
+	public List<Object> getList(String cacheKey, Class<?> elementType, long start, long end) throws Exception {
+		List<String> values = null;
+		try {
+			values = redisClient.getJedisCluster().lrange(cacheKey, start, end);
+		} catch (Exception e) {
+			LOGGER.error("get cache list error", e);
+			throw e;
+		}
+		return RedisStructures.decodeList(values, elementType);
+	}
 
-			else {
-				return JSON.parseObject(get(cacheKey), type[0]);
-			}
+	@Override
+	public void setSet(String cacheKey, int timeout, Collection<?> set) throws Exception {
+		write(cacheKey, RedisStructures.SET_COMMAND, true, timeout, RedisStructures.encodeElements(set));
+	}
 
+	@Override
+	public Set<Object> getSet(String cacheKey, Class<?> elementType) throws Exception {
+		Set<String> values = null;
+		try {
+			values = redisClient.getJedisCluster().smembers(cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("get cache set error", e);
+			throw e;
 		}
+		return RedisStructures.decodeSet(values, elementType);
 	}
 
 	@Override
@@ -127,6 +302,19 @@ public class RedisClusterCache implements Cache {
 		return success == 1 ? true : false;
 	}
 
+	@Override
+	public long ttl(String cacheKey) throws Exception {
+		Long ttl = null;
+		try {
+
+			ttl = redisClient.getJedisCluster().ttl(cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("ttl cache error", e);
+			throw e;
+		}
+		return ttl == null ? -2 : ttl.longValue();
+	}
+
 	@Override
 	public boolean exists(String cacheKey) throws Exception {
 		boolean isExist = false;
@@ -152,4 +340,37 @@ public class RedisClusterCache implements Cache {
 		}
 		return keyType;
 	}
+
+	private void write(String cacheKey, String command, boolean reset, int timeout, List<String> items)
+			throws Exception {
+		try {
+			redisClient.getJedisCluster().eval(RedisStructures.WRITE_SCRIPT, Collections.singletonList(cacheKey),
+					RedisStructures.writeArgs(command, reset, timeout, items));
+		} catch (Exception e) {
+			LOGGER.error("write cache structure error", e);
+			throw e;
+		}
+	}
+
+	private void writeBytes(String cacheKey, int timeout, byte[] value) {
+		if (compression != null) {
+			value = compression.compress(value);
+		}
+		if (timeout <= 0) {
+			redisClient.getJedisCluster().set(cacheKey, value);
+		} else {
+			redisClient.getJedisCluster().setex(cacheKey, timeout, value);
+		}
+	}
+
+	private byte[] read(String cacheKey) throws Exception {
+		byte[] value = null;
+		try {
+			value = redisClient.getJedisCluster().getBytes(cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("get cache error", e);
+			throw e;
+		}
+		return value == null || compression == null ? value : compression.decompress(value);
+	}
 }
@@ -0,0 +1,37 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.Collections;
+
+import com.adanac.framework.cache.redis.client.JedisClusterAction;
+import com.adanac.framework.cache.redis.client.impl.MyJedisCluster;
+import com.adanac.framework.cache.redis.client.impl.MyRedisClusterDefClient;
+
+/**
+ * 基于RedisCluster的回源锁
+ * @author adanac
+ * @version 1.0
+ */
+public class RedisClusterCacheLock implements CacheLock {
+
+	private MyRedisClusterDefClient redisClient;
+
+	public RedisClusterCacheLock(MyRedisClusterDefClient redisClient) {
+
+		this.redisClient = redisClient;
+	}
+
+	@Override
+	public boolean tryLock(String lockKey, String token, long leaseMillis) {
+		return "OK".equals(redisClient.set(lockKey, token, "NX", "PX", leaseMillis));
+	}
+
+	@Override
+	public void unlock(final String lockKey, final String token) {
+		redisClient.execute(new JedisClusterAction<Object>() {
+			public Object doAction(MyJedisCluster jedis) {
+				return jedis.eval(RedisShardedCacheLock.UNLOCK_SCRIPT, Collections.singletonList(lockKey),
+						Collections.singletonList(token));
+			}
+		});
+	}
+}
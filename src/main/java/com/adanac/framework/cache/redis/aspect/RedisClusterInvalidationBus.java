@@ -0,0 +1,65 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.Map;
+
+import com.adanac.framework.cache.redis.client.impl.MyJedisClusterClient;
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * RedisCluster上的失效通知 (PUBLISH 会通过集群总线广播到所有节点，任选一个节点收发即可)
+ * @author adanac
+ * @version 1.0
+ */
+public class RedisClusterInvalidationBus extends AbstractRedisInvalidationBus {
+
+	private MyJedisClusterClient redisClient;
+
+	public RedisClusterInvalidationBus(MyJedisClusterClient redisClient) {
+		this(redisClient, DEFAULT_CHANNEL);
+	}
+
+	public RedisClusterInvalidationBus(MyJedisClusterClient redisClient, String channel) {
+		super(channel);
+		this.redisClient = redisClient;
+	}
+
+	@Override
+	protected void doPublish(String message) {
+		JedisPool pool = anyNode().getValue();
+		Jedis jedis = null;
+		try {
+			jedis = pool.getResource();
+			jedis.publish(channel, message);
+		} catch (JedisConnectionException e) {
+			if (jedis != null) {
+				pool.returnBrokenResource(jedis);
+				jedis = null;
+			}
+			throw new RedisClientException(e);
+		} finally {
+			if (jedis != null) {
+				pool.returnResource(jedis);
+			}
+		}
+	}
+
+	@Override
+	protected Jedis openSubscriberConnection() {
+		String[] hostAndPort = anyNode().getKey().split(":");
+		HostAndPort node = new HostAndPort(hostAndPort[0], Integer.parseInt(hostAndPort[1]));
+		return new Jedis(node.getHost(), node.getPort());
+	}
+
+	private Map.Entry<String, JedisPool> anyNode() {
+		Map<String, JedisPool> nodes = redisClient.getJedisCluster().getClusterNodes();
+		if (nodes.isEmpty()) {
+			throw new RedisClientException("no cluster node available");
+		}
+		return nodes.entrySet().iterator().next();
+	}
+}
@@ -1,14 +1,27 @@
 package com.adanac.framework.cache.redis.aspect;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.BatchResponse;
 import com.adanac.framework.cache.redis.client.impl.MyShardedBinaryClient;
+import com.adanac.framework.cache.redis.codec.Codec;
 
 /**
  * redis缓存 byte格式保存
+ * <p>
+ * hash/list/set 保存空集合时只删除原有内容，读取时同不存在。
  * @author adanac
  * @version 1.0
  */
@@ -23,6 +36,14 @@ public class RedisShardedBinaryCache implements Cache {
 		this.redisClient = redisClient;
 	}
 
+	/**
+	 * 本缓存使用的值编解码 (共享连接池，不影响原客户端)
+	 * @param codec
+	 */
+	public void setCodec(Codec codec) {
+		this.redisClient = redisClient.withCodec(codec);
+	}
+
 	@Override
 	public void set(String cacheKey, Object cacheValue) throws Exception {
 		set(cacheKey, -1, cacheValue);
@@ -54,6 +75,193 @@ public class RedisShardedBinaryCache implements Cache {
 		return redisClient.get((Serializable) cacheKey);
 	}
 
+	@Override
+	public Map<String, Object> getAll(Collection<String> cacheKeys, Class<?>... type) throws Exception {
+		Map<Serializable, Serializable> values = null;
+		try {
+			values = redisClient.getAll(cacheKeys);
+		} catch (Exception e) {
+			LOGGER.error("get all cache error", e);
+			throw e;
+		}
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		for (Map.Entry<Serializable, Serializable> entry : values.entrySet()) {
+			result.put((String) entry.getKey(), entry.getValue());
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, TimedValue> getAllWithTtl(Collection<String> cacheKeys, boolean entry, Class<?>... type)
+			throws Exception {
+		Batch<Serializable> batch = redisClient.batch();
+		Map<String, BatchResponse<Object>> gets = new LinkedHashMap<String, BatchResponse<Object>>();
+		Map<String, BatchResponse<Long>> pttls = new HashMap<String, BatchResponse<Long>>();
+		for (String cacheKey : cacheKeys) {
+			gets.put(cacheKey, batch.get(cacheKey));
+			pttls.put(cacheKey, batch.pttl(cacheKey));
+		}
+		try {
+			batch.execute();
+		} catch (Exception e) {
+			LOGGER.error("get all cache error", e);
+			throw e;
+		}
+		Map<String, TimedValue> result = new LinkedHashMap<String, TimedValue>();
+		for (Map.Entry<String, BatchResponse<Object>> get : gets.entrySet()) {
+			Object value = get.getValue().get();
+			if (value != null) {
+				result.put(get.getKey(), new TimedValue(entry ? toEntry(value) : value,
+						pttls.get(get.getKey()).get().longValue()));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void setAll(Map<String, ?> values, int timeout) throws Exception {
+		Map<Serializable, Serializable> keyValues = new LinkedHashMap<Serializable, Serializable>();
+		for (Map.Entry<String, ?> entry : values.entrySet()) {
+			keyValues.put(entry.getKey(), (Serializable) entry.getValue());
+		}
+		try {
+			redisClient.setAll(keyValues, timeout);
+		} catch (Exception e) {
+			LOGGER.error("set all cache error", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public void setEntry(String cacheKey, int timeout, CacheEntry entry) throws Exception {
+		set(cacheKey, timeout, entry);
+	}
+
+	@Override
+	public CacheEntry getEntry(String cacheKey, Class<?>... type) throws Exception {
+		return toEntry(get(cacheKey, type));
+	}
+
+	@Override
+	public void setMap(String cacheKey, int timeout, Map<?, ?> hash) throws Exception {
+		Map<Serializable, Serializable> values = new LinkedHashMap<Serializable, Serializable>();
+		for (Map.Entry<?, ?> entry : hash.entrySet()) {
+			values.put(String.valueOf(entry.getKey()), (Serializable) entry.getValue());
+		}
+		try {
+			redisClient.del((Serializable) cacheKey);
+			if (!values.isEmpty()) {
+				redisClient.hmset((Serializable) cacheKey, values);
+				expireIfTimed(cacheKey, timeout);
+			}
+		} catch (Exception e) {
+			LOGGER.error("set cache map error", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public void setMapField(String cacheKey, int timeout, String field, Object value) throws Exception {
+		try {
+			redisClient.hset((Serializable) cacheKey, field, (Serializable) value);
+			expireIfTimed(cacheKey, timeout);
+		} catch (Exception e) {
+			LOGGER.error("set cache map field error", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public Map<String, Object> getMap(String cacheKey, Class<?> valueType) throws Exception {
+		Map<Serializable, Serializable> hash = null;
+		try {
+			hash = redisClient.hgetAll((Serializable) cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("get cache map error", e);
+			throw e;
+		}
+		if (hash == null || hash.isEmpty()) {
+			return null;
+		}
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		for (Map.Entry<Serializable, Serializable> entry : hash.entrySet()) {
+			result.put(String.valueOf(entry.getKey()), entry.getValue());
+		}
+		return result;
+	}
+
+	@Override
+	public Object getMapField(String cacheKey, String field, Class<?> valueType) throws Exception {
+		try {
+			return redisClient.hget((Serializable) cacheKey, field);
+		} catch (Exception e) {
+			LOGGER.error("get cache map field error", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public long removeMapField(String cacheKey, String field) throws Exception {
+		Long count = null;
+		try {
+			count = redisClient.hdel((Serializable) cacheKey, (Serializable) field);
+		} catch (Exception e) {
+			LOGGER.error("remove cache map field error", e);
+			throw e;
+		}
+		return count == null ? 0 : count.longValue();
+	}
+
+	@Override
+	public void setList(String cacheKey, int timeout, List<?> list) throws Exception {
+		try {
+			redisClient.del((Serializable) cacheKey);
+			if (!list.isEmpty()) {
+				redisClient.rpush((Serializable) cacheKey, list.toArray(new Serializable[list.size()]));
+				expireIfTimed(cacheKey, timeout);
+			}
+		} catch (Exception e) {
+			LOGGER.error("set cache list error", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Object> getList(String cacheKey, Class<?> elementType, long start, long end) throws Exception {
+		try {
+			List<Serializable> values = redisClient.lrange((Serializable) cacheKey, (int) start, (int) end);
+			return values == null || values.isEmpty() ? null : new ArrayList<Object>(values);
+		} catch (Exception e) {
+			LOGGER.error("get cache list error", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public void setSet(String cacheKey, int timeout, Collection<?> set) throws Exception {
+		try {
+			redisClient.del((Serializable) cacheKey);
+			if (!set.isEmpty()) {
+				redisClient.sadd((Serializable) cacheKey, set.toArray(new Serializable[set.size()]));
+				expireIfTimed(cacheKey, timeout);
+			}
+		} catch (Exception e) {
+			LOGGER.error("set cache set error", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public Set<Object> getSet(String cacheKey, Class<?> elementType) throws Exception {
+		try {
+			Set<Serializable> values = redisClient.smembers((Serializable) cacheKey);
+			return values == null || values.isEmpty() ? null : new LinkedHashSet<Object>(values);
+		} catch (Exception e) {
+			LOGGER.error("get cache set error", e);
+			throw e;
+		}
+	}
+
 	@Override
 	public long remove(String... cacheKeys) throws Exception {
 		long count = 0;
@@ -80,6 +288,18 @@ public class RedisShardedBinaryCache implements Cache {
 		return success == 1 ? true : false;
 	}
 
+	@Override
+	public long ttl(String cacheKey) throws Exception {
+		Long ttl = null;
+		try {
+			ttl = redisClient.ttl((Serializable) cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("ttl cache error", e);
+			throw e;
+		}
+		return ttl == null ? -2 : ttl.longValue();
+	}
+
 	@Override
 	public boolean exists(String cacheKey) throws Exception {
 		boolean isExist = false;
@@ -96,4 +316,17 @@ public class RedisShardedBinaryCache implements Cache {
 	public String keyType(String key) throws Exception {
 		throw new UnsupportedOperationException("不支持");
 	}
+
+	private void expireIfTimed(String cacheKey, int timeout) {
+		if (timeout > 0) {
+			redisClient.expire((Serializable) cacheKey, timeout);
+		}
+	}
+
+	private static CacheEntry toEntry(Object value) {
+		if (value == null || value instanceof CacheEntry) {
+			return (CacheEntry) value;
+		}
+		return new CacheEntry(value, Long.MAX_VALUE, 0);
+	}
 }
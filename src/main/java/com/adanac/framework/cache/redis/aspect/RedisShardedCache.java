@@ -1,16 +1,33 @@
 package com.adanac.framework.cache.redis.aspect;
 
-import java.util.HashSet;
-import java.util.Iterator;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.client.ShardedKeyCommand;
+import com.adanac.framework.cache.redis.client.ShardedJedisAction;
 import com.adanac.framework.cache.redis.client.impl.MyShardedClient;
+import com.adanac.framework.cache.redis.compress.ValueCompression;
+import com.adanac.framework.cache.redis.util.JsonBytes;
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.util.SafeEncoder;
 
 /**
  * redis缓存 json格式保存
@@ -23,6 +40,27 @@ public class RedisShardedCache implements Cache {
 
 	private MyShardedClient redisClient;
 
+	// 值压缩，为null时不压缩
+	private ValueCompression compression;
+
+	private ShardExecutor shardExecutor = ShardExecutor.getDefault();
+
+	/**
+	 * 开启值压缩，开启后写入的数据需要同样开启压缩才能读取
+	 * @param compression
+	 */
+	public void setCompression(ValueCompression compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * 批量读写使用的并行执行器，默认共用 ShardExecutor.getDefault()
+	 * @param shardExecutor
+	 */
+	public void setShardExecutor(ShardExecutor shardExecutor) {
+		this.shardExecutor = shardExecutor;
+	}
+
 	public RedisShardedCache(MyShardedClient redisClient) {
 
 		this.redisClient = redisClient;
@@ -38,11 +76,7 @@ public class RedisShardedCache implements Cache {
 	public void set(String cacheKey, int timeout, Object cacheValue) throws Exception {
 
 		try {
-			if (timeout <= 0) {
-				redisClient.set(cacheKey, JSON.toJSONString(cacheValue));
-			} else {
-				redisClient.setex(cacheKey, timeout, JSON.toJSONString(cacheValue));
-			}
+			writeBytes(cacheKey, timeout, JsonBytes.toBytes(null, cacheValue));
 		} catch (Exception e) {
 			LOGGER.error("set cache error", e);
 			throw e;
@@ -53,48 +87,187 @@ public class RedisShardedCache implements Cache {
 
 	@Override
 	public String get(String cacheKey) throws Exception {
-		String value = null;
+		byte[] value = read(cacheKey);
+		return value == null ? null : SafeEncoder.encode(value);
+	}
+
+	@Override
+	public Object get(String cacheKey, Class<?>... type) throws Exception {
+		return JsonBytes.parse(read(cacheKey), 0, JsonBytes.typeOf(type));
+	}
 
+	@Override
+	public Map<String, Object> getAll(Collection<String> cacheKeys, Class<?>... type) throws Exception {
+		Map<String, byte[]> values = readAll(cacheKeys, null);
+		Type valueType = JsonBytes.typeOf(type);
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		for (String cacheKey : cacheKeys) {
+			byte[] value = values.get(cacheKey);
+			if (value != null) {
+				result.put(cacheKey, JsonBytes.parse(value, 0, valueType));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, TimedValue> getAllWithTtl(Collection<String> cacheKeys, boolean entry, Class<?>... type)
+			throws Exception {
+		Map<String, Long> ttls = new HashMap<String, Long>();
+		Map<String, byte[]> values = readAll(cacheKeys, ttls);
+		Type valueType = JsonBytes.typeOf(type);
+		Map<String, TimedValue> result = new LinkedHashMap<String, TimedValue>();
+		for (String cacheKey : cacheKeys) {
+			byte[] value = values.get(cacheKey);
+			if (value != null) {
+				Object decoded = entry ? CacheEntry.fromJsonBytes(value, valueType)
+						: JsonBytes.parse(value, 0, valueType);
+				result.put(cacheKey, new TimedValue(decoded, ttls.get(cacheKey).longValue()));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void setAll(Map<String, ?> values, final int timeout) throws Exception {
+		if (values.isEmpty()) {
+			return;
+		}
+		final Map<String, byte[]> encoded = new HashMap<String, byte[]>();
+		for (Map.Entry<String, ?> entry : values.entrySet()) {
+			byte[] value = JsonBytes.toBytes(null, entry.getValue());
+			encoded.put(entry.getKey(), compression == null ? value : compression.compress(value));
+		}
 		try {
-			value = redisClient.get(cacheKey);
+			redisClient.evictMoved(encoded.keySet().toArray(new String[encoded.size()]));
+			redisClient.execute(new ShardedJedisAction<Object>() {
+				public Object doAction(final ShardedJedis jedis) {
+					List<List<String>> groups = ShardExecutor.groupByShard(jedis, encoded.keySet());
+					List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(groups.size());
+					for (final List<String> group : groups) {
+						tasks.add(new Callable<Object>() {
+							public Object call() {
+								Jedis shard = jedis.getShard(group.get(0));
+								for (List<String> batch : ShardExecutor.partition(group)) {
+									Pipeline pipeline = shard.pipelined();
+									for (String cacheKey : batch) {
+										byte[] key = SafeEncoder.encode(cacheKey);
+										if (timeout <= 0) {
+											pipeline.set(key, encoded.get(cacheKey));
+										} else {
+											pipeline.setex(key, timeout, encoded.get(cacheKey));
+										}
+									}
+									pipeline.sync();
+								}
+								return null;
+							}
+						});
+					}
+					shardExecutor.invokeAll(tasks);
+					return null;
+				}
+			});
 		} catch (Exception e) {
-			LOGGER.error("get cache error", e);
+			LOGGER.error("set all cache error", e);
 			throw e;
 		}
-		return value;
 	}
 
 	@Override
-	public Object get(String cacheKey, Class<?>... type) throws Exception {
+	public void setEntry(String cacheKey, int timeout, CacheEntry entry) throws Exception {
+		try {
+			writeBytes(cacheKey, timeout, entry.toJsonBytes());
+		} catch (Exception e) {
+			LOGGER.error("set cache entry error", e);
+			throw e;
+		}
+	}
 
-		if (type.length == 1) {
-			return JSON.parseObject(get(cacheKey), type[0]);
-		} else {
-			if (type[0].isAssignableFrom(List.class)) {// List
+	@Override
+	public CacheEntry getEntry(String cacheKey, Class<?>... type) throws Exception {
+		return CacheEntry.fromJsonBytes(read(cacheKey), JsonBytes.typeOf(type));
+	}
 
-				return JSON.parseArray(get(cacheKey), type[1]);
-			} else if (type[0].isAssignableFrom(Set.class)) {// Set
+	@Override
+	public void setMap(String cacheKey, int timeout, Map<?, ?> hash) throws Exception {
+		write(cacheKey, RedisStructures.HASH_COMMAND, true, timeout, RedisStructures.encodeHash(hash));
+	}
 
-				Set jsonResult = (Set) JSON.parseObject(get(cacheKey), type[0]);
-				Iterator<Object> iterator = jsonResult.iterator();
+	@Override
+	public void setMapField(String cacheKey, int timeout, String field, Object value) throws Exception {
+		write(cacheKey, RedisStructures.HASH_COMMAND, false, timeout,
+				Arrays.asList(field, JSON.toJSONString(value)));
+	}
 
-				Set result = new HashSet();
-				while (iterator.hasNext()) {
-					JSONObject obj = (JSONObject) iterator.next();
+	@Override
+	public Map<String, Object> getMap(String cacheKey, Class<?> valueType) throws Exception {
+		Map<String, String> hash = null;
+		try {
+			hash = redisClient.hgetAll(cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("get cache map error", e);
+			throw e;
+		}
+		return RedisStructures.decodeHash(hash, valueType);
+	}
 
-					Object o = JSON.toJavaObject(obj, type[1]);
+	@Override
+	public Object getMapField(String cacheKey, String field, Class<?> valueType) throws Exception {
+		String value = null;
+		try {
+			value = redisClient.hget(cacheKey, field);
+		} catch (Exception e) {
+			LOGGER.error("get cache map field error", e);
+			throw e;
+		}
+		return RedisStructures.decode(value, valueType);
+	}
 
-					result.add(o);
+	@Override
+	public long removeMapField(String cacheKey, String field) throws Exception {
+		Long count = null;
+		try {
+			count = redisClient.hdel(cacheKey, field);
+		} catch (Exception e) {
+			LOGGER.error("remove cache map field error", e);
+			throw e;
+		}
+		return count == null ? 0 : count.longValue();
+	}
 
-				}
-				return result;
-			}
+	@Override
+	public void setList(String cacheKey, int timeout, List<?> list) throws Exception {
+		write(cacheKey, RedisStructures.LIST_COMMAND, true, timeout, RedisStructures.encodeElements(list));
+	}
 
-			else {
-				return JSON.parseObject(get(cacheKey), type[0]);
-			}
+	@Override
+	public List<Object> getList(String cacheKey, Class<?> elementType, long start, long end) throws Exception {
+		List<String> values = null;
+		try {
+			values = redisClient.lrange(cacheKey, start, end);
+		} catch (Exception e) {
+			LOGGER.error("get cache list error", e);
+			throw e;
+		}
+		return RedisStructures.decodeList(values, elementType);
+	}
 
+	@Override
+	public void setSet(String cacheKey, int timeout, Collection<?> set) throws Exception {
+		write(cacheKey, RedisStructures.SET_COMMAND, true, timeout, RedisStructures.encodeElements(set));
+	}
+
+	@Override
+	public Set<Object> getSet(String cacheKey, Class<?> elementType) throws Exception {
+		Set<String> values = null;
+		try {
+			values = redisClient.smembers(cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("get cache set error", e);
+			throw e;
 		}
+		return RedisStructures.decodeSet(values, elementType);
 	}
 
 	@Override
@@ -126,6 +299,19 @@ public class RedisShardedCache implements Cache {
 		return success == 1 ? true : false;
 	}
 
+	@Override
+	public long ttl(String cacheKey) throws Exception {
+		Long ttl = null;
+		try {
+
+			ttl = redisClient.ttl(cacheKey);
+		} catch (Exception e) {
+			LOGGER.error("ttl cache error", e);
+			throw e;
+		}
+		return ttl == null ? -2 : ttl.longValue();
+	}
+
 	@Override
 	public boolean exists(String cacheKey) throws Exception {
 		boolean isExist = false;
@@ -151,4 +337,155 @@ public class RedisShardedCache implements Cache {
 		}
 		return keyType;
 	}
+
+	private void write(final String cacheKey, String command, boolean reset, int timeout, List<String> items)
+			throws Exception {
+		final List<String> args = RedisStructures.writeArgs(command, reset, timeout, items);
+		try {
+			redisClient.evictMoved(cacheKey);
+			redisClient.execute(new ShardedJedisAction<Object>() {
+				public Object doAction(ShardedJedis jedis) {
+					return jedis.getShard(cacheKey).eval(RedisStructures.WRITE_SCRIPT,
+							Collections.singletonList(cacheKey), args);
+				}
+			});
+		} catch (Exception e) {
+			LOGGER.error("write cache structure error", e);
+			throw e;
+		}
+	}
+
+	private void writeBytes(final String cacheKey, final int timeout, byte[] value) {
+		final byte[] bytes = compression == null ? value : compression.compress(value);
+		redisClient.evictMoved(SafeEncoder.encode(cacheKey));
+		redisClient.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				byte[] key = SafeEncoder.encode(cacheKey);
+				return timeout <= 0 ? jedis.set(key, bytes) : jedis.setex(key, timeout, bytes);
+			}
+		});
+	}
+
+	private static final ShardedKeyCommand<String, Void, byte[]> GET = new ShardedKeyCommand<String, Void, byte[]>() {
+		public byte[] doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.get(SafeEncoder.encode(key));
+		}
+	};
+
+	private byte[] read(String cacheKey) throws Exception {
+		byte[] value = null;
+		try {
+			value = redisClient.execute(GET, cacheKey);
+			if (value == null) {
+				value = redisClient.readMoved(GET, cacheKey, null, cacheKey);
+			}
+		} catch (Exception e) {
+			LOGGER.error("get cache error", e);
+			throw e;
+		}
+		return value == null || compression == null ? value : compression.decompress(value);
+	}
+
+	// 在旧分片上批量读取已迁移的key，arg不为null时同时读取剩余生存时间
+	private static final ShardedKeyCommand<List<String>, Map<String, Long>, Map<String, byte[]>> READ_MOVED =
+			new ShardedKeyCommand<List<String>, Map<String, Long>, Map<String, byte[]>>() {
+				public Map<String, byte[]> doAction(ShardedJedis jedis, List<String> keys, Map<String, Long> ttls) {
+					Map<String, byte[]> values = new HashMap<String, byte[]>();
+					for (List<String> group : ShardExecutor.groupByShard(jedis, keys)) {
+						readShard(jedis.getShard(group.get(0)), group, values, ttls);
+					}
+					return values;
+				}
+			};
+
+	/**
+	 * 按分片并行批量读取，新分片上读不到的已迁移key从旧分片再读一次
+	 * @param cacheKeys
+	 * @param ttls 不为null时同时读取剩余生存时间 (PTTL) 放入其中
+	 * @return 命中的key和解压后的值
+	 */
+	private Map<String, byte[]> readAll(final Collection<String> cacheKeys, final Map<String, Long> ttls)
+			throws Exception {
+		final Map<String, byte[]> values = new HashMap<String, byte[]>();
+		if (cacheKeys.isEmpty()) {
+			return values;
+		}
+		try {
+			redisClient.execute(new ShardedJedisAction<Object>() {
+				public Object doAction(final ShardedJedis jedis) {
+					List<List<String>> groups = ShardExecutor.groupByShard(jedis, cacheKeys);
+					List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(groups.size());
+					for (final List<String> group : groups) {
+						tasks.add(new Callable<Object>() {
+							public Object call() {
+								readShard(jedis.getShard(group.get(0)), group, values, ttls);
+								return null;
+							}
+						});
+					}
+					shardExecutor.invokeAll(tasks);
+					return null;
+				}
+			});
+			if (values.size() < cacheKeys.size()) {
+				List<String> misses = new ArrayList<String>();
+				for (String cacheKey : cacheKeys) {
+					if (!values.containsKey(cacheKey)) {
+						misses.add(cacheKey);
+					}
+				}
+				Map<String, byte[]> moved = redisClient.readMoved(READ_MOVED, misses, ttls);
+				if (moved != null) {
+					values.putAll(moved);
+				}
+			}
+		} catch (Exception e) {
+			LOGGER.error("get all cache error", e);
+			throw e;
+		}
+		if (compression != null) {
+			for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+				entry.setValue(compression.decompress(entry.getValue()));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 同一个分片共用一个连接，分批顺序发送 (MGET，或GET和PTTL的pipeline)
+	 */
+	private static void readShard(Jedis shard, List<String> keys, Map<String, byte[]> values,
+			Map<String, Long> ttls) {
+		for (List<String> batch : ShardExecutor.partition(keys)) {
+			List<byte[]> replies;
+			List<Response<Long>> pttls = null;
+			if (ttls == null) {
+				replies = shard.mget(SafeEncoder.encodeMany(batch.toArray(new String[batch.size()])));
+			} else {
+				List<Response<byte[]>> gets = new ArrayList<Response<byte[]>>(batch.size());
+				pttls = new ArrayList<Response<Long>>(batch.size());
+				Pipeline pipeline = shard.pipelined();
+				for (String cacheKey : batch) {
+					byte[] key = SafeEncoder.encode(cacheKey);
+					gets.add(pipeline.get(key));
+					pttls.add(pipeline.pttl(key));
+				}
+				pipeline.sync();
+				replies = new ArrayList<byte[]>(batch.size());
+				for (Response<byte[]> get : gets) {
+					replies.add(get.get());
+				}
+			}
+			synchronized (values) {
+				for (int i = 0; i < batch.size(); i++) {
+					if (replies.get(i) != null) {
+						values.put(batch.get(i), replies.get(i));
+						if (ttls != null) {
+							ttls.put(batch.get(i), pttls.get(i).get());
+						}
+					}
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,41 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.Collections;
+
+import com.adanac.framework.cache.redis.client.ShardedJedisAction;
+import com.adanac.framework.cache.redis.client.impl.MyShardedClient;
+
+import redis.clients.jedis.ShardedJedis;
+
+/**
+ * 基于分片redis的回源锁
+ * @author adanac
+ * @version 1.0
+ */
+public class RedisShardedCacheLock implements CacheLock {
+
+	static final String UNLOCK_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+			+ "return redis.call('del', KEYS[1]) else return 0 end";
+
+	private MyShardedClient redisClient;
+
+	public RedisShardedCacheLock(MyShardedClient redisClient) {
+
+		this.redisClient = redisClient;
+	}
+
+	@Override
+	public boolean tryLock(String lockKey, String token, long leaseMillis) {
+		return "OK".equals(redisClient.set(lockKey, token, "NX", "PX", leaseMillis));
+	}
+
+	@Override
+	public void unlock(final String lockKey, final String token) {
+		redisClient.execute(new ShardedJedisAction<Object>() {
+			public Object doAction(ShardedJedis jedis) {
+				return jedis.getShard(lockKey).eval(UNLOCK_SCRIPT, Collections.singletonList(lockKey),
+						Collections.singletonList(token));
+			}
+		});
+	}
+}
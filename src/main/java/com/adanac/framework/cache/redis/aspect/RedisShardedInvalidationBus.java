@@ -0,0 +1,46 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import com.adanac.framework.cache.redis.client.ShardedJedisAction;
+import com.adanac.framework.cache.redis.client.impl.MyShardedClient;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+
+/**
+ * 分片redis上的失效通知，频道固定落在按频道名分片得到的节点上
+ * @author adanac
+ * @version 1.0
+ */
+public class RedisShardedInvalidationBus extends AbstractRedisInvalidationBus {
+
+	private MyShardedClient redisClient;
+
+	public RedisShardedInvalidationBus(MyShardedClient redisClient) {
+		this(redisClient, DEFAULT_CHANNEL);
+	}
+
+	public RedisShardedInvalidationBus(MyShardedClient redisClient, String channel) {
+		super(channel);
+		this.redisClient = redisClient;
+	}
+
+	@Override
+	protected void doPublish(final String message) {
+		redisClient.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.getShard(channel).publish(channel, message);
+			}
+		});
+	}
+
+	@Override
+	protected Jedis openSubscriberConnection() {
+		JedisShardInfo shardInfo = redisClient.execute(new ShardedJedisAction<JedisShardInfo>() {
+			public JedisShardInfo doAction(ShardedJedis jedis) {
+				return jedis.getShardInfo(channel);
+			}
+		});
+		return new Jedis(shardInfo);
+	}
+}
@@ -0,0 +1,150 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * 原生hash/list/set结构的json编解码和写入脚本 (RedisShardedCache、RedisClusterCache共用)
+ * <p>
+ * 整体写入通过一次lua脚本调用完成 DEL + RPUSH/SADD/HMSET + EXPIRE，读取方不会看到只写了一部分的结构；
+ * 元素较多时在脚本内按 MAX_ARGS 分批执行写命令。
+ * 空集合保存为只含 EMPTY_MARKER 的结构 (hash为这个field)，与不存在的key区分。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+final class RedisStructures {
+
+	static final String LIST_COMMAND = "RPUSH";
+
+	static final String SET_COMMAND = "SADD";
+
+	static final String HASH_COMMAND = "HMSET";
+
+	// 脚本内每个写命令的最大元素个数 (偶数，hash按field/value成对拆分)
+	private static final int MAX_ARGS = 1000;
+
+	// ARGV: 是否先删除, 超时时间 秒, 命令, 元素...
+	static final String WRITE_SCRIPT = "if ARGV[1] == '1' then redis.call('DEL', KEYS[1]) end "
+			+ "for i = 4, #ARGV, " + MAX_ARGS + " do "
+			+ "redis.call(ARGV[3], KEYS[1], unpack(ARGV, i, math.min(i + " + (MAX_ARGS - 1) + ", #ARGV))) end "
+			+ "if tonumber(ARGV[2]) > 0 then redis.call('EXPIRE', KEYS[1], ARGV[2]) end return 1";
+
+	// 空集合的占位元素，json编码的元素不会与之相同
+	static final String EMPTY_MARKER = "#EMPTY#";
+
+	private RedisStructures() {
+	}
+
+	/**
+	 * 集合元素编码为json
+	 * @param values
+	 * @return
+	 */
+	static List<String> encodeElements(Collection<?> values) {
+		List<String> items = new ArrayList<String>(values.size());
+		for (Object value : values) {
+			items.add(JSON.toJSONString(value));
+		}
+		return items;
+	}
+
+	/**
+	 * hash编码为 field, json, field, json ...
+	 * @param hash
+	 * @return
+	 */
+	static List<String> encodeHash(Map<?, ?> hash) {
+		List<String> items = new ArrayList<String>(hash.size() * 2);
+		for (Map.Entry<?, ?> entry : hash.entrySet()) {
+			items.add(String.valueOf(entry.getKey()));
+			items.add(JSON.toJSONString(entry.getValue()));
+		}
+		return items;
+	}
+
+	/**
+	 * 生成 WRITE_SCRIPT 的参数，整体写入空集合时写入 EMPTY_MARKER
+	 * @param command RPUSH SADD HMSET HSET
+	 * @param reset 是否先删除原有内容
+	 * @param timeout 超时时间 秒
+	 * @param items 元素
+	 * @return
+	 */
+	static List<String> writeArgs(String command, boolean reset, int timeout, List<String> items) {
+		List<String> args = new ArrayList<String>(items.size() + 5);
+		args.add(reset ? "1" : "0");
+		args.add(String.valueOf(timeout));
+		args.add(command);
+		args.addAll(items);
+		if (reset && items.isEmpty()) {
+			args.add(EMPTY_MARKER);
+			if (HASH_COMMAND.equals(command)) {
+				args.add("");
+			}
+		}
+		return args;
+	}
+
+	static Object decode(String json, Class<?> type) {
+		if (json == null) {
+			return null;
+		}
+		return type == null ? JSON.parse(json) : JSON.parseObject(json, type);
+	}
+
+	/**
+	 * @return 不存在 (或范围内没有元素) 返回null，保存的是空list时返回空list
+	 */
+	static List<Object> decodeList(List<String> values, Class<?> type) {
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		List<Object> result = new ArrayList<Object>(values.size());
+		for (String value : values) {
+			if (!EMPTY_MARKER.equals(value)) {
+				result.add(decode(value, type));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return 不存在返回null，保存的是空set时返回空set
+	 */
+	static Set<Object> decodeSet(Set<String> values, Class<?> type) {
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		Set<Object> result = new HashSet<Object>(values.size() * 4 / 3 + 1);
+		for (String value : values) {
+			if (!EMPTY_MARKER.equals(value)) {
+				result.add(decode(value, type));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return 不存在返回null，保存的是空map时返回空map
+	 */
+	static Map<String, Object> decodeHash(Map<String, String> values, Class<?> type) {
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		Map<String, Object> result = new HashMap<String, Object>(values.size() * 4 / 3 + 1);
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			if (!EMPTY_MARKER.equals(entry.getKey())) {
+				result.put(entry.getKey(), decode(entry.getValue(), type));
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,75 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 同一个key的并发加载合并为一次 (single-flight)
+ * <p>
+ * 第一个调用方执行加载，其余并发调用方等待并共享其结果或异常。加载结束后key立即释放，
+ * 之后的调用会重新加载，因此这里不缓存任何结果。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class SingleFlight {
+
+	private final ConcurrentMap<String, Call> calls = new ConcurrentHashMap<String, Call>();
+
+	/**
+	 * 加载逻辑
+	 */
+	public interface Loader {
+		Object load() throws Throwable;
+	}
+
+	/**
+	 * 执行加载，同一个key同一时刻只有一个loader在运行
+	 *
+	 * @param key
+	 * @param loader
+	 * @return
+	 * @throws Throwable loader抛出的异常 (等待方得到同一个异常)
+	 */
+	public Object execute(String key, Loader loader) throws Throwable {
+		Call call = new Call();
+		Call inFlight = calls.putIfAbsent(key, call);
+		if (inFlight != null) {
+			return inFlight.await();
+		}
+		try {
+			call.value = loader.load();
+			return call.value;
+		} catch (Throwable e) {
+			call.error = e;
+			throw e;
+		} finally {
+			calls.remove(key, call);
+			call.done.countDown();
+		}
+	}
+
+	/**
+	 * 正在加载的key数量
+	 *
+	 * @return
+	 */
+	public int inFlight() {
+		return calls.size();
+	}
+
+	private static final class Call {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile Object value;
+		private volatile Throwable error;
+
+		Object await() throws Throwable {
+			done.await();
+			if (error != null) {
+				throw error;
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.adanac.framework.cache.redis.aspect;
+
+/**
+ * 缓存值及读取时在redis中的剩余生存时间 (近端缓存使用)
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class TimedValue {
+
+	private final Object value;
+
+	// 剩余生存时间 毫秒，-1 表示没有超时时间，-2 表示读取后已不存在
+	private final long ttlMillis;
+
+	public TimedValue(Object value, long ttlMillis) {
+		this.value = value;
+		this.ttlMillis = ttlMillis;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	public long getTtlMillis() {
+		return ttlMillis;
+	}
+
+	/**
+	 * 本地条目的存活时间，不超过redis中的剩余生存时间
+	 * @param maxMillis 本地条目最长存活时间 毫秒
+	 * @return 小于等于0时不应放入本地缓存
+	 */
+	public long localTtl(long maxMillis) {
+		if (ttlMillis == -1) {
+			return maxMillis;
+		}
+		return ttlMillis < 0 ? 0 : Math.min(maxMillis, ttlMillis);
+	}
+}
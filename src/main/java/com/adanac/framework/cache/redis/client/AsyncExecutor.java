@@ -0,0 +1,216 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * 异步命令执行 (有界线程池 + 有界队列)
+ * <p>
+ * 队列满时不阻塞调用线程，返回的 RedisFuture 直接以 RedisClientException 失败。
+ * 超时或取消时 RedisFuture 结束：还在排队的命令从队列移除，正在执行的命令不中断 (中断会破坏连接)，结果被丢弃。
+ * 超时由一个共用线程每 TIMEOUT_TICK 毫秒扫描未结束的命令检查，误差不超过一个扫描间隔；已结束的命令在扫描时丢弃。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class AsyncExecutor {
+
+	public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+	// 默认超时时间 毫秒
+	public static final long DEFAULT_TIMEOUT = 3000L;
+
+	private static final AsyncExecutor DEFAULT = new AsyncExecutor(
+			Math.max(4, Runtime.getRuntime().availableProcessors() * 2), DEFAULT_QUEUE_SIZE, DEFAULT_TIMEOUT);
+
+	// 超时扫描间隔 毫秒
+	static final long TIMEOUT_TICK = 10L;
+
+	// 所有实例共用的等待超时的命令
+	private static final Queue<Timeout> TIMEOUTS = new ConcurrentLinkedQueue<Timeout>();
+
+	private static final AtomicBoolean SWEEPING = new AtomicBoolean();
+
+	// 所有实例共用的超时扫描线程
+	private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "redis-async-timer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final ThreadPoolExecutor executor;
+
+	private final long timeoutMillis;
+
+	/**
+	 * @param threads 最大线程数
+	 * @param queueSize 最多排队的命令数
+	 * @param timeoutMillis 默认超时时间 毫秒，小于等于0不超时
+	 */
+	public AsyncExecutor(int threads, int queueSize, long timeoutMillis) {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "redis-async-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public static AsyncExecutor getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 使用默认超时时间异步执行
+	 *
+	 * @param task
+	 * @return
+	 */
+	public <T> RedisFuture<T> submit(Callable<T> task) {
+		return submit(task, timeoutMillis);
+	}
+
+	/**
+	 * 异步执行
+	 *
+	 * @param task
+	 * @param timeoutMillis 超时时间 毫秒 (从提交开始计算，包括排队时间)，小于等于0不超时
+	 * @return 队列满时返回已失败的结果
+	 */
+	public <T> RedisFuture<T> submit(Callable<T> task, long timeoutMillis) {
+		final RedisFuture<T> future = new RedisFuture<T>();
+		final Task<T> runnable = new Task<T>(task, future);
+		try {
+			executor.execute(runnable);
+		} catch (RejectedExecutionException e) {
+			future.setException(new RedisClientException("redis async queue is full", e));
+			return future;
+		}
+		future.addListener(new Runnable() {
+			@Override
+			public void run() {
+				if (!runnable.started) {
+					// 排队中超时或取消，从队列移除，不占用队列容量
+					executor.remove(runnable);
+				}
+			}
+		});
+		if (timeoutMillis > 0 && !future.isDone()) {
+			startSweeping();
+			TIMEOUTS.add(new Timeout(future, timeoutMillis));
+		}
+		return future;
+	}
+
+	/**
+	 * 排队中的命令数
+	 *
+	 * @return
+	 */
+	public int getQueueSize() {
+		return executor.getQueue().size();
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private static void startSweeping() {
+		if (!SWEEPING.get() && SWEEPING.compareAndSet(false, true)) {
+			TIMER.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					sweep(System.nanoTime());
+				}
+			}, TIMEOUT_TICK, TIMEOUT_TICK, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * 丢弃已结束的命令，已到期的命令以超时失败
+	 *
+	 * @param now System.nanoTime()
+	 */
+	static void sweep(long now) {
+		Iterator<Timeout> it = TIMEOUTS.iterator();
+		while (it.hasNext()) {
+			Timeout timeout = it.next();
+			if (timeout.future.isDone()) {
+				it.remove();
+			} else if (now - timeout.deadline >= 0) {
+				it.remove();
+				timeout.future.setException(new RedisClientException("redis async command timeout after "
+						+ timeout.timeoutMillis + "ms"));
+			}
+		}
+	}
+
+	/**
+	 * 等待超时的命令数 (包括扫描前已结束的)
+	 *
+	 * @return
+	 */
+	static int getPendingTimeouts() {
+		return TIMEOUTS.size();
+	}
+
+	private static final class Timeout {
+		final RedisFuture<?> future;
+		final long timeoutMillis;
+		final long deadline;
+
+		Timeout(RedisFuture<?> future, long timeoutMillis) {
+			this.future = future;
+			this.timeoutMillis = timeoutMillis;
+			this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		}
+	}
+
+	private static final class Task<T> implements Runnable {
+		private final Callable<T> task;
+		private final RedisFuture<T> future;
+
+		// 已被线程取出执行，结束时不需要从队列移除
+		volatile boolean started;
+
+		Task(Callable<T> task, RedisFuture<T> future) {
+			this.task = task;
+			this.future = future;
+		}
+
+		@Override
+		public void run() {
+			started = true;
+			if (future.isDone()) {
+				// 已超时或已取消
+				return;
+			}
+			try {
+				future.set(task.call());
+			} catch (Throwable e) {
+				future.setException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,481 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.adanac.framework.cache.redis.codec.Codec;
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+import com.adanac.framework.cache.redis.util.Serializer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 类型化的批量命令 (pipeline)
+ * <p>
+ * 先登记命令取得 BatchResponse，execute() 时按节点分组以pipeline发送，每个pipeline最多 chunkSize 个命令，
+ * 发送完一段再发送下一段，避免超大批量占用过多内存。值使用客户端配置的codec编解码，key和hash field使用 KeyCodec。
+ * 不同节点之间不保证原子性；单个命令失败只影响它自己的 BatchResponse。
+ *
+ * <pre>
+ * Batch&lt;String&gt; batch = client.batch();
+ * BatchResponse&lt;String&gt; name = batch.get("user:1:name");
+ * BatchResponse&lt;Map&lt;String, String&gt;&gt; profile = batch.hgetAll("user:1");
+ * batch.execute();
+ * name.get();
+ * </pre>
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public abstract class Batch<K> {
+
+	public static final int DEFAULT_CHUNK_SIZE = ShardExecutor.MAX_BATCH_SIZE;
+
+	/**
+	 * key和hash field编解码
+	 */
+	public interface KeyCodec<K> {
+		byte[] encode(K key);
+
+		K decode(byte[] bytes);
+	}
+
+	/**
+	 * UTF-8 字符串key
+	 */
+	public static final KeyCodec<String> STRING_KEYS = new KeyCodec<String>() {
+		@Override
+		public byte[] encode(String key) {
+			return SafeEncoder.encode(key);
+		}
+
+		@Override
+		public String decode(byte[] bytes) {
+			return SafeEncoder.encode(bytes);
+		}
+	};
+
+	/**
+	 * 与 ShardedBinaryClient 相同的 Serializer 编码key
+	 */
+	public static final KeyCodec<Serializable> SERIALIZABLE_KEYS = new KeyCodec<Serializable>() {
+		@Override
+		public byte[] encode(Serializable key) {
+			return Serializer.encode(key);
+		}
+
+		@Override
+		public Serializable decode(byte[] bytes) {
+			return Serializer.decode(bytes);
+		}
+	};
+
+	private final KeyCodec<K> keyCodec;
+
+	private final Codec codec;
+
+	private final List<Entry<?, ?>> entries = new ArrayList<Entry<?, ?>>();
+
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	private boolean executed;
+
+	protected Batch(KeyCodec<K> keyCodec, Codec codec) {
+		this.keyCodec = keyCodec;
+		this.codec = codec;
+	}
+
+	/**
+	 * 每个pipeline最多的命令数，默认 DEFAULT_CHUNK_SIZE
+	 *
+	 * @param chunkSize
+	 * @return
+	 */
+	public Batch<K> chunkSize(int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	public <T> BatchResponse<T> get(K key) {
+		return add(new Entry<byte[], T>(keyCodec.encode(key)) {
+			@Override
+			Response<byte[]> send(Pipeline pipeline, byte[] key) {
+				return pipeline.get(key);
+			}
+
+			@Override
+			T convert(byte[] reply) {
+				return Batch.this.<T> decodeValue(reply);
+			}
+		});
+	}
+
+	public BatchResponse<String> set(K key, final Object value) {
+		final byte[] bytes = codec.encode(value);
+		return add(new Entry<String, String>(keyCodec.encode(key)) {
+			@Override
+			Response<String> send(Pipeline pipeline, byte[] key) {
+				return pipeline.set(key, bytes);
+			}
+		});
+	}
+
+	public BatchResponse<String> setex(K key, final int seconds, final Object value) {
+		final byte[] bytes = codec.encode(value);
+		return add(new Entry<String, String>(keyCodec.encode(key)) {
+			@Override
+			Response<String> send(Pipeline pipeline, byte[] key) {
+				return pipeline.setex(key, seconds, bytes);
+			}
+		});
+	}
+
+	public BatchResponse<Long> del(K key) {
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.del(key);
+			}
+		});
+	}
+
+	public BatchResponse<Boolean> exists(K key) {
+		return add(new Entry<Boolean, Boolean>(keyCodec.encode(key)) {
+			@Override
+			Response<Boolean> send(Pipeline pipeline, byte[] key) {
+				return pipeline.exists(key);
+			}
+		});
+	}
+
+	public BatchResponse<Long> expire(K key, final int seconds) {
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.expire(key, seconds);
+			}
+		});
+	}
+
+	public BatchResponse<Long> ttl(K key) {
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.ttl(key);
+			}
+		});
+	}
+
+	public BatchResponse<Long> pttl(K key) {
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.pttl(key);
+			}
+		});
+	}
+
+	public BatchResponse<Long> incr(K key) {
+		return incrBy(key, 1L);
+	}
+
+	public BatchResponse<Long> incrBy(K key, final long increment) {
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.incrBy(key, increment);
+			}
+		});
+	}
+
+	public <T> BatchResponse<T> hget(K key, K field) {
+		final byte[] fieldBytes = keyCodec.encode(field);
+		return add(new Entry<byte[], T>(keyCodec.encode(key)) {
+			@Override
+			Response<byte[]> send(Pipeline pipeline, byte[] key) {
+				return pipeline.hget(key, fieldBytes);
+			}
+
+			@Override
+			T convert(byte[] reply) {
+				return Batch.this.<T> decodeValue(reply);
+			}
+		});
+	}
+
+	public BatchResponse<Long> hset(K key, K field, Object value) {
+		final byte[] fieldBytes = keyCodec.encode(field);
+		final byte[] bytes = codec.encode(value);
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.hset(key, fieldBytes, bytes);
+			}
+		});
+	}
+
+	public BatchResponse<Long> hdel(K key, K field) {
+		final byte[] fieldBytes = keyCodec.encode(field);
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.hdel(key, fieldBytes);
+			}
+		});
+	}
+
+	public <T> BatchResponse<Map<K, T>> hgetAll(K key) {
+		return add(new Entry<Map<byte[], byte[]>, Map<K, T>>(keyCodec.encode(key)) {
+			@Override
+			Response<Map<byte[], byte[]>> send(Pipeline pipeline, byte[] key) {
+				return pipeline.hgetAll(key);
+			}
+
+			@Override
+			Map<K, T> convert(Map<byte[], byte[]> reply) {
+				Map<K, T> result = new LinkedHashMap<K, T>(reply.size() * 2);
+				for (Map.Entry<byte[], byte[]> entry : reply.entrySet()) {
+					result.put(keyCodec.decode(entry.getKey()), Batch.this.<T> decodeValue(entry.getValue()));
+				}
+				return result;
+			}
+		});
+	}
+
+	public BatchResponse<Long> sadd(K key, Object member) {
+		final byte[] bytes = codec.encode(member);
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.sadd(key, bytes);
+			}
+		});
+	}
+
+	public <T> BatchResponse<Set<T>> smembers(K key) {
+		return add(new Entry<Set<byte[]>, Set<T>>(keyCodec.encode(key)) {
+			@Override
+			Response<Set<byte[]>> send(Pipeline pipeline, byte[] key) {
+				return pipeline.smembers(key);
+			}
+
+			@Override
+			Set<T> convert(Set<byte[]> reply) {
+				Set<T> result = new LinkedHashSet<T>(reply.size() * 2);
+				for (byte[] member : reply) {
+					result.add(Batch.this.<T> decodeValue(member));
+				}
+				return result;
+			}
+		});
+	}
+
+	public BatchResponse<Long> rpush(K key, Object value) {
+		final byte[] bytes = codec.encode(value);
+		return add(new Entry<Long, Long>(keyCodec.encode(key)) {
+			@Override
+			Response<Long> send(Pipeline pipeline, byte[] key) {
+				return pipeline.rpush(key, bytes);
+			}
+		});
+	}
+
+	public <T> BatchResponse<List<T>> lrange(K key, final long start, final long end) {
+		return add(new Entry<List<byte[]>, List<T>>(keyCodec.encode(key)) {
+			@Override
+			Response<List<byte[]>> send(Pipeline pipeline, byte[] key) {
+				return pipeline.lrange(key, start, end);
+			}
+
+			@Override
+			List<T> convert(List<byte[]> reply) {
+				List<T> result = new ArrayList<T>(reply.size());
+				for (byte[] value : reply) {
+					result.add(Batch.this.<T> decodeValue(value));
+				}
+				return result;
+			}
+		});
+	}
+
+	/**
+	 * 已登记的命令数
+	 *
+	 * @return
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 发送所有命令，返回后可以从 BatchResponse 取结果；一个Batch只能执行一次
+	 *
+	 * @throws RedisClientException 连接失败等整体错误，未完成的命令的 BatchResponse 也会失败
+	 */
+	public void execute() {
+		if (executed) {
+			throw new RedisClientException("batch has already been executed");
+		}
+		executed = true;
+		if (entries.isEmpty()) {
+			return;
+		}
+		try {
+			send(Collections.unmodifiableList(entries));
+		} catch (RuntimeException e) {
+			fail(entries, e);
+			throw e instanceof RedisClientException ? e : new RedisClientException(e);
+		}
+		for (Entry<?, ?> entry : entries) {
+			if (!entry.response.isDone()) {
+				entry.response.setException(entry.redirection != null ? entry.redirection
+						: new RedisClientException("command was not sent"));
+			}
+		}
+	}
+
+	/**
+	 * 按节点分组后对每组调用 sendChunked；返回时仍未完成的命令以其重定向错误结束
+	 *
+	 * @param entries 所有命令，按登记顺序
+	 */
+	protected abstract void send(List<Entry<?, ?>> entries);
+
+	/**
+	 * 在一个连接上以pipeline发送，每 chunkSize 个命令同步一次；已完成的命令不再发送 (重试时不会重复执行)
+	 *
+	 * @param connection
+	 * @param group 都在这个连接的节点上
+	 */
+	protected void sendChunked(Jedis connection, List<Entry<?, ?>> group) {
+		List<Entry<?, ?>> entries = new ArrayList<Entry<?, ?>>(group.size());
+		for (Entry<?, ?> entry : group) {
+			if (!entry.response.isDone()) {
+				entries.add(entry);
+			}
+		}
+		for (int i = 0; i < entries.size(); i += chunkSize) {
+			List<Entry<?, ?>> chunk = entries.subList(i, Math.min(entries.size(), i + chunkSize));
+			Pipeline pipeline = connection.pipelined();
+			for (Entry<?, ?> entry : chunk) {
+				entry.pending(pipeline);
+			}
+			pipeline.sync();
+			for (Entry<?, ?> entry : chunk) {
+				entry.complete();
+			}
+		}
+	}
+
+	/**
+	 * 未完成的命令以error结束
+	 *
+	 * @param entries
+	 * @param error
+	 */
+	protected static void fail(List<Entry<?, ?>> entries, RuntimeException error) {
+		for (Entry<?, ?> entry : entries) {
+			if (!entry.response.isDone()) {
+				entry.response.setException(error);
+			}
+		}
+	}
+
+	private <R, T> BatchResponse<T> add(Entry<R, T> entry) {
+		if (executed) {
+			throw new RedisClientException("batch has already been executed");
+		}
+		entries.add(entry);
+		return entry.response;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T decodeValue(byte[] bytes) {
+		return bytes == null ? null : (T) codec.decode(bytes);
+	}
+
+	/**
+	 * 一个命令
+	 *
+	 * @param <R> pipeline的返回类型
+	 * @param <T> BatchResponse的类型
+	 */
+	public abstract static class Entry<R, T> {
+		final byte[] key;
+
+		final BatchResponse<T> response = new BatchResponse<T>();
+
+		private Response<R> pending;
+
+		private JedisRedirectionException redirection;
+
+		Entry(byte[] key) {
+			this.key = key;
+		}
+
+		/**
+		 * 编码后的key，用于按节点分组
+		 *
+		 * @return
+		 */
+		public byte[] getKey() {
+			return key;
+		}
+
+		/**
+		 * 是否已有结果 (成功或失败)
+		 *
+		 * @return
+		 */
+		public boolean isDone() {
+			return response.isDone();
+		}
+
+		/**
+		 * 最近一次发送收到的 MOVED/ASK，此时命令仍未完成，可以发往新节点重试
+		 *
+		 * @return
+		 */
+		public JedisRedirectionException getRedirection() {
+			return redirection;
+		}
+
+		abstract Response<R> send(Pipeline pipeline, byte[] key);
+
+		@SuppressWarnings("unchecked")
+		T convert(R reply) {
+			return (T) reply;
+		}
+
+		void pending(Pipeline pipeline) {
+			redirection = null;
+			pending = send(pipeline, key);
+		}
+
+		void complete() {
+			try {
+				R reply = pending.get();
+				response.set(reply == null ? null : convert(reply));
+			} catch (JedisRedirectionException e) {
+				redirection = e;
+			} catch (RuntimeException e) {
+				response.setException(e);
+			} finally {
+				pending = null;
+			}
+		}
+	}
+}
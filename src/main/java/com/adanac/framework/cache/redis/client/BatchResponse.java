@@ -0,0 +1,52 @@
+package com.adanac.framework.cache.redis.client;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * Batch 中一个命令的结果，Batch.execute() 之后才能取值
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class BatchResponse<T> {
+
+	private volatile boolean done;
+
+	private T value;
+
+	private RuntimeException error;
+
+	BatchResponse() {
+	}
+
+	/**
+	 * 命令结果
+	 *
+	 * @return
+	 * @throws RedisClientException Batch还没有执行，或者这个命令执行失败
+	 */
+	public T get() {
+		if (!done) {
+			throw new RedisClientException("batch has not been executed");
+		}
+		if (error != null) {
+			throw error instanceof RedisClientException ? (RedisClientException) error
+					: new RedisClientException(error);
+		}
+		return value;
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	void set(T value) {
+		this.value = value;
+		this.done = true;
+	}
+
+	void setException(RuntimeException error) {
+		this.error = error;
+		this.done = true;
+	}
+}
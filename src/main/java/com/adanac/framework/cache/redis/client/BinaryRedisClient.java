@@ -608,4 +608,27 @@ public interface BinaryRedisClient {
 	 * @since [产品/模块版本](可选)
 	 */
 	String flushDB();
+
+	/**
+	 * 功能描述: <br>
+	 * 异步GET，在 AsyncExecutor 中执行，可以并行发出多个独立的读
+	 *
+	 * @param key
+	 * @return
+	 * @see [相关类/方法](可选)
+	 * @since [产品/模块版本](可选)
+	 */
+	<T extends Serializable> RedisFuture<T> getAsync(final Serializable key);
+
+	RedisFuture<String> setAsync(final Serializable key, final Serializable value);
+
+	RedisFuture<String> setexAsync(final Serializable key, final int time, final Serializable value);
+
+	RedisFuture<Long> delAsync(final Serializable key);
+
+	RedisFuture<Boolean> existsAsync(final Serializable key);
+
+	<T extends Serializable> RedisFuture<T> hgetAsync(final Serializable key, final Serializable field);
+
+	<T extends Serializable> RedisFuture<List<T>> mgetAsync(final Serializable... keys);
 }
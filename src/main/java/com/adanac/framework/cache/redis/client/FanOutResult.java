@@ -0,0 +1,68 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * 多分片执行的结果：每个分片的返回值和错误 (包括超时)
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class FanOutResult<T> {
+
+	private final Map<String, T> results = new LinkedHashMap<String, T>();
+
+	private final Map<String, RuntimeException> errors = new LinkedHashMap<String, RuntimeException>();
+
+	void success(String shard, T result) {
+		results.put(shard, result);
+	}
+
+	void failure(String shard, RuntimeException error) {
+		errors.put(shard, error);
+	}
+
+	/**
+	 * 成功的分片 → 返回值
+	 *
+	 * @return
+	 */
+	public Map<String, T> getResults() {
+		return Collections.unmodifiableMap(results);
+	}
+
+	/**
+	 * 失败或超时的分片 → 错误
+	 *
+	 * @return
+	 */
+	public Map<String, RuntimeException> getErrors() {
+		return Collections.unmodifiableMap(errors);
+	}
+
+	public boolean isSuccess() {
+		return errors.isEmpty();
+	}
+
+	/**
+	 * 所有分片都成功时返回结果
+	 *
+	 * @return
+	 * @throws RedisClientException 消息包含每个失败分片的错误，cause为第一个错误
+	 */
+	public Map<String, T> getOrThrow() {
+		if (errors.isEmpty()) {
+			return getResults();
+		}
+		StringBuilder message = new StringBuilder();
+		message.append(errors.size()).append(" of ").append(errors.size() + results.size()).append(" shards failed:");
+		for (Map.Entry<String, RuntimeException> error : errors.entrySet()) {
+			message.append(' ').append(error.getKey()).append('=').append(error.getValue().getMessage()).append(';');
+		}
+		throw new RedisClientException(message.toString(), errors.values().iterator().next());
+	}
+}
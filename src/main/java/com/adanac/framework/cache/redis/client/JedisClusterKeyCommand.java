@@ -0,0 +1,20 @@
+package com.adanac.framework.cache.redis.client;
+
+import com.adanac.framework.cache.redis.client.impl.MyJedisCluster;
+
+/**
+ * 单key命令，参数由 execute 直接传入
+ * <p>
+ * 实现不保存状态，一个实例可以被所有调用复用，不需要每次调用创建 JedisClusterAction 匿名类。
+ *
+ * @param <K> key类型
+ * @param <A> 参数类型，没有参数时为Void
+ * @param <T> 返回值类型
+ * @author adanac
+ * @version 1.0
+ */
+public interface JedisClusterKeyCommand<K, A, T> {
+
+	public T doAction(MyJedisCluster jedisCluster, K key, A arg);
+
+}
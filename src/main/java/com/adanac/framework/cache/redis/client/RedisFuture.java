@@ -0,0 +1,164 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * redis命令的异步结果
+ * <p>
+ * 只能完成一次 (结果、异常或取消)。取消后结果被丢弃；AsyncExecutor 中还在排队的命令不再执行，已经发送的命令仍会执行完。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class RedisFuture<T> implements Future<T> {
+
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	private final AtomicBoolean completed = new AtomicBoolean();
+
+	private volatile T value;
+
+	private volatile Throwable error;
+
+	private volatile boolean cancelled;
+
+	// 完成后执行的回调
+	private final Queue<Runnable> listeners = new ConcurrentLinkedQueue<Runnable>();
+
+	/**
+	 * 设置结果
+	 *
+	 * @param value
+	 * @return 已经完成过时返回false
+	 */
+	public boolean set(T value) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		this.value = value;
+		done.countDown();
+		fireListeners();
+		return true;
+	}
+
+	/**
+	 * 设置异常
+	 *
+	 * @param error
+	 * @return 已经完成过时返回false
+	 */
+	public boolean setException(Throwable error) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		this.error = error;
+		done.countDown();
+		fireListeners();
+		return true;
+	}
+
+	/**
+	 * 完成后在完成的线程中执行回调，已经完成时立即在当前线程执行
+	 *
+	 * @param listener
+	 */
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+		if (isDone()) {
+			fireListeners();
+		}
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		this.cancelled = true;
+		this.error = new CancellationException();
+		done.countDown();
+		fireListeners();
+		return true;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		done.await();
+		return result();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return result();
+	}
+
+	/**
+	 * 阻塞等待结果
+	 *
+	 * @return
+	 * @throws RedisClientException 命令失败或等待被中断
+	 * @throws CancellationException 已取消
+	 */
+	public T join() {
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RedisClientException(e);
+		}
+		if (cancelled) {
+			throw (CancellationException) error;
+		}
+		if (error != null) {
+			throw error instanceof RedisClientException ? (RedisClientException) error
+					: new RedisClientException(error);
+		}
+		return value;
+	}
+
+	private T result() throws ExecutionException {
+		if (cancelled) {
+			throw (CancellationException) error;
+		}
+		if (error != null) {
+			throw new ExecutionException(error);
+		}
+		return value;
+	}
+
+	private void fireListeners() {
+		Runnable listener;
+		while ((listener = listeners.poll()) != null) {
+			try {
+				listener.run();
+			} catch (RuntimeException e) {
+				// 回调的异常不影响其他回调
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+/**
+ * 多分片并行SCAN，代替阻塞的KEYS
+ * <p>
+ * 每个分片同时最多只有一页在读取或等待消费，消费一页时才请求该分片的下一页，
+ * 所以内存占用不超过 (分片数 + 1) * count 个key，与key总数无关。
+ * 与SCAN相同，遍历期间修改过的key可能重复返回或不返回。
+ * 遍历结束后自动关闭；提前结束遍历时必须调用close，否则占用的连接不会归还。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public abstract class ScanIterator<T> implements Iterator<T>, Closeable {
+
+	public static final int DEFAULT_COUNT = 1000;
+
+	/**
+	 * 一个分片 (或cluster master) 上的SCAN
+	 */
+	public interface Source {
+		ScanResult<byte[]> scan(byte[] cursor, ScanParams params);
+	}
+
+	private final List<? extends Source> sources;
+
+	private final ScanParams params;
+
+	private final ShardExecutor executor;
+
+	private final BlockingQueue<Page> pages = new LinkedBlockingQueue<Page>();
+
+	// 已请求但还没有取出的页数
+	private int pending;
+
+	private boolean started;
+
+	private boolean closed;
+
+	// 第一个读取失败的原始异常
+	private RuntimeException failure;
+
+	private Iterator<byte[]> current = Collections.<byte[]> emptyList().iterator();
+
+	/**
+	 * @param sources 各分片
+	 * @param pattern MATCH参数，为null时匹配所有key
+	 * @param count 每页的COUNT参数
+	 * @param executor
+	 */
+	protected ScanIterator(List<? extends Source> sources, byte[] pattern, int count, ShardExecutor executor) {
+		this.sources = sources;
+		this.params = new ScanParams().count(count > 0 ? count : DEFAULT_COUNT);
+		if (pattern != null) {
+			params.match(pattern);
+		}
+		this.executor = executor;
+	}
+
+	/**
+	 * key转换
+	 *
+	 * @param key
+	 * @return
+	 */
+	protected abstract T decode(byte[] key);
+
+	/**
+	 * 遍历结束后释放资源 (归还连接)
+	 *
+	 * @param error 读取失败的原始异常，成功时为null
+	 */
+	protected void release(RuntimeException error) {
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (!started) {
+			started = true;
+			for (Source source : sources) {
+				request(source, ScanParams.SCAN_POINTER_START_BINARY);
+			}
+		}
+		while (!current.hasNext()) {
+			if (pending == 0) {
+				close();
+				return false;
+			}
+			Page page;
+			try {
+				page = pages.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new RedisClientException(e);
+			}
+			pending--;
+			if (page.error != null) {
+				failure = page.error;
+				close();
+				throw page.error instanceof RedisClientException ? page.error : new RedisClientException(page.error);
+			}
+			byte[] cursor = page.result.getCursorAsBytes();
+			if (!(cursor.length == 1 && cursor[0] == '0')) {
+				// 先请求下一页，与消费当前页并行
+				request(page.source, cursor);
+			}
+			current = page.result.getResult().iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return decode(current.next());
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 等待正在读取的页结束后释放资源
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		current = Collections.<byte[]> emptyList().iterator();
+		boolean interrupted = false;
+		while (pending > 0) {
+			try {
+				Page page = pages.take();
+				pending--;
+				if (failure == null) {
+					failure = page.error;
+				}
+			} catch (InterruptedException e) {
+				// 连接仍被读取任务使用，必须等待结束
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		release(failure);
+	}
+
+	private void request(final Source source, final byte[] cursor) {
+		pending++;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				Page page = new Page(source);
+				try {
+					page.result = source.scan(cursor, params);
+				} catch (RuntimeException e) {
+					page.error = e;
+				}
+				pages.add(page);
+			}
+		});
+	}
+
+	private static final class Page {
+		final Source source;
+		ScanResult<byte[]> result;
+		RuntimeException error;
+
+		Page(Source source) {
+			this.source = source;
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+
+/**
+ * 多分片并行执行 (scatter-gather)
+ * <p>
+ * 第一个任务在调用线程执行，其余任务提交到线程池；线程池没有空闲线程时由调用线程执行，不排队。
+ * invokeAll 总是等所有任务结束才返回，任务使用的连接在返回后才能归还连接池。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ShardExecutor {
+
+	// 每个MGET/pipeline最多包含的key数量，避免单个命令阻塞redis
+	public static final int MAX_BATCH_SIZE = 500;
+
+	private static final ShardExecutor DEFAULT = new ShardExecutor(
+			Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * @param threads 最大线程数
+	 */
+	public ShardExecutor(int threads) {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "redis-shard-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	public static ShardExecutor getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 并行执行，返回结果与任务顺序一致
+	 *
+	 * @param tasks
+	 * @return
+	 * @throws RuntimeException 第一个失败任务的异常 (非运行时异常包装为RedisClientException)
+	 */
+	public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+		if (tasks.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (tasks.size() == 1) {
+			return Collections.singletonList(call(tasks.get(0)));
+		}
+		List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size() - 1);
+		for (int i = 1; i < tasks.size(); i++) {
+			futures.add(executor.submit(tasks.get(i)));
+		}
+		List<T> results = new ArrayList<T>(tasks.size());
+		RuntimeException error = null;
+		try {
+			results.add(call(tasks.get(0)));
+		} catch (RuntimeException e) {
+			error = e;
+			results.add(null);
+		}
+		boolean interrupted = false;
+		for (Future<T> future : futures) {
+			while (true) {
+				try {
+					results.add(future.get());
+					break;
+				} catch (InterruptedException e) {
+					// 连接仍被任务使用，必须等待结束
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (error == null) {
+						error = toRuntimeException(e.getCause());
+					}
+					results.add(null);
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (error != null) {
+			throw error;
+		}
+		return results;
+	}
+
+	/**
+	 * 并行执行每个分片的任务，分别收集结果和错误，最多等待 timeoutMillis
+	 * <p>
+	 * 与 invokeAll 不同，超时的任务不再等待而是在后台继续执行，所以任务必须自己借用和关闭连接。
+	 * 没有空闲线程时任务在调用线程执行，这个任务不受超时限制。
+	 *
+	 * @param tasks 分片名 → 任务
+	 * @param timeoutMillis 所有任务总的等待时间
+	 * @return
+	 */
+	public <T> FanOutResult<T> invokeEach(Map<String, ? extends Callable<T>> tasks, long timeoutMillis) {
+		Map<String, Future<T>> futures = new LinkedHashMap<String, Future<T>>();
+		for (Map.Entry<String, ? extends Callable<T>> task : tasks.entrySet()) {
+			futures.put(task.getKey(), executor.submit(task.getValue()));
+		}
+		FanOutResult<T> result = new FanOutResult<T>();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		boolean interrupted = false;
+		for (Map.Entry<String, Future<T>> future : futures.entrySet()) {
+			String shard = future.getKey();
+			try {
+				result.success(shard, future.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+			} catch (TimeoutException e) {
+				result.failure(shard, new RedisClientException("shard " + shard + " timeout after " + timeoutMillis
+						+ "ms"));
+			} catch (InterruptedException e) {
+				// 不再等待其余任务
+				interrupted = true;
+				deadline = System.nanoTime();
+				result.failure(shard, new RedisClientException("interrupted while waiting for shard " + shard, e));
+			} catch (ExecutionException e) {
+				result.failure(shard, toRuntimeException(e.getCause()));
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return result;
+	}
+
+	/**
+	 * 异步执行，没有空闲线程时在调用线程执行
+	 *
+	 * @param task
+	 */
+	public void execute(Runnable task) {
+		executor.execute(task);
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * 按分片分组
+	 * <p>
+	 * 同一个分片上的命令都使用 ShardedJedis 在这个分片的一个连接，不能并行发送。
+	 * 每个分片只能有一个任务，任务内用 partition 拆分后顺序发送。
+	 *
+	 * @param jedis
+	 * @param keys
+	 * @return 每个分片一组
+	 */
+	public static List<List<String>> groupByShard(ShardedJedis jedis, Collection<String> keys) {
+		Map<JedisShardInfo, List<String>> groups = new IdentityHashMap<JedisShardInfo, List<String>>();
+		for (String key : keys) {
+			JedisShardInfo shard = jedis.getShardInfo(key);
+			List<String> group = groups.get(shard);
+			if (group == null) {
+				group = new ArrayList<String>();
+				groups.put(shard, group);
+			}
+			group.add(key);
+		}
+		return new ArrayList<List<String>>(groups.values());
+	}
+
+	/**
+	 * 按分片分组 (二进制key)，与 groupByShard(ShardedJedis, Collection) 相同，每个分片只能有一个任务
+	 *
+	 * @param jedis
+	 * @param keys
+	 * @return 每个分片一组，组内为key在keys中的下标
+	 */
+	public static List<int[]> groupByShard(ShardedJedis jedis, byte[][] keys) {
+		Map<JedisShardInfo, List<Integer>> groups = new IdentityHashMap<JedisShardInfo, List<Integer>>();
+		for (int i = 0; i < keys.length; i++) {
+			JedisShardInfo shard = jedis.getShardInfo(keys[i]);
+			List<Integer> group = groups.get(shard);
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				groups.put(shard, group);
+			}
+			group.add(Integer.valueOf(i));
+		}
+		List<int[]> result = new ArrayList<int[]>(groups.size());
+		for (List<Integer> group : groups.values()) {
+			int[] indexes = new int[group.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = group.get(i).intValue();
+			}
+			result.add(indexes);
+		}
+		return result;
+	}
+
+	/**
+	 * 拆分成最多 MAX_BATCH_SIZE 个元素的子列表
+	 *
+	 * @param group
+	 * @return
+	 */
+	public static <T> List<List<T>> partition(List<T> group) {
+		List<List<T>> result = new ArrayList<List<T>>((group.size() + MAX_BATCH_SIZE - 1) / MAX_BATCH_SIZE);
+		for (int i = 0; i < group.size(); i += MAX_BATCH_SIZE) {
+			result.add(group.subList(i, Math.min(group.size(), i + MAX_BATCH_SIZE)));
+		}
+		return result;
+	}
+
+	/**
+	 * 拆分成最多 MAX_BATCH_SIZE 个下标的子数组
+	 *
+	 * @param group
+	 * @return
+	 */
+	public static List<int[]> partition(int[] group) {
+		List<int[]> result = new ArrayList<int[]>((group.length + MAX_BATCH_SIZE - 1) / MAX_BATCH_SIZE);
+		for (int i = 0; i < group.length; i += MAX_BATCH_SIZE) {
+			result.add(Arrays.copyOfRange(group, i, Math.min(group.length, i + MAX_BATCH_SIZE)));
+		}
+		return result;
+	}
+
+	private static <T> T call(Callable<T> task) {
+		try {
+			return task.call();
+		} catch (Exception e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	private static RuntimeException toRuntimeException(Throwable e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return new RedisClientException(e);
+	}
+}
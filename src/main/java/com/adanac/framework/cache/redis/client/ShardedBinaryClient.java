@@ -1,6 +1,7 @@
 package com.adanac.framework.cache.redis.client;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -594,6 +595,28 @@ public interface ShardedBinaryClient extends JedisCommands {
 	 */
 	<T extends Serializable> List<T> mget(final Serializable... keys);
 
+	/**
+	 * 功能描述: <br>
+	 * 批量获取，按分片分组并行MGET
+	 *
+	 * @param keys
+	 * @return 存在的key和值，按keys的顺序
+	 * @see [相关类/方法](可选)
+	 * @since [产品/模块版本](可选)
+	 */
+	<T extends Serializable> Map<Serializable, T> getAll(final Collection<? extends Serializable> keys);
+
+	/**
+	 * 功能描述: <br>
+	 * 批量设置，按分片分组并行以pipeline写入
+	 *
+	 * @param keyValues
+	 * @param seconds 小于等于0时不过期
+	 * @see [相关类/方法](可选)
+	 * @since [产品/模块版本](可选)
+	 */
+	void setAll(final Map<? extends Serializable, ? extends Serializable> keyValues, final int seconds);
+
 	/**
 	 * 功能描述: <br>
 	 * 批量设置key/value对
@@ -607,7 +630,7 @@ public interface ShardedBinaryClient extends JedisCommands {
 
 	/**
 	 * 功能描述: <br>
-	 * 返回pattern匹配的keys
+	 * 返回pattern匹配的keys (KEYS会阻塞redis，key多时使用scan)
 	 *
 	 * @param pattern
 	 * @return
@@ -616,6 +639,28 @@ public interface ShardedBinaryClient extends JedisCommands {
 	 */
 	<T extends Serializable> Set<T> keys(final Serializable pattern);
 
+	/**
+	 * 功能描述: <br>
+	 * 所有分片并行SCAN，代替阻塞的KEYS；遍历结束或调用close时归还连接
+	 *
+	 * @param pattern 为null时匹配所有key
+	 * @param count 每次SCAN的COUNT
+	 * @return
+	 * @see [相关类/方法](可选)
+	 * @since [产品/模块版本](可选)
+	 */
+	<T extends Serializable> ScanIterator<T> scan(final Serializable pattern, final int count);
+
+	/**
+	 * 功能描述: <br>
+	 * 类型化批量命令 (pipeline)，按分片分组并行发送，值使用当前codec
+	 *
+	 * @return
+	 * @see [相关类/方法](可选)
+	 * @since [产品/模块版本](可选)
+	 */
+	Batch<Serializable> batch();
+
 	/**
 	 * 功能描述: <br>
 	 * Delete all the keys of the currently selected DB. This command never
@@ -626,4 +671,38 @@ public interface ShardedBinaryClient extends JedisCommands {
 	 * @since [产品/模块版本](可选)
 	 */
 	String flushDB();
+
+	/**
+	 * 功能描述: <br>
+	 * 异步GET，在 AsyncExecutor 中执行，可以并行发出多个独立的读
+	 *
+	 * @param key
+	 * @return
+	 * @see [相关类/方法](可选)
+	 * @since [产品/模块版本](可选)
+	 */
+	<T extends Serializable> RedisFuture<T> getAsync(final Serializable key);
+
+	RedisFuture<String> setAsync(final Serializable key, final Serializable value);
+
+	RedisFuture<String> setexAsync(final Serializable key, final int time, final Serializable value);
+
+	RedisFuture<Long> delAsync(final Serializable key);
+
+	RedisFuture<Boolean> existsAsync(final Serializable key);
+
+	<T extends Serializable> RedisFuture<T> hgetAsync(final Serializable key, final Serializable field);
+
+	<T extends Serializable> RedisFuture<List<T>> mgetAsync(final Serializable... keys);
+
+	/**
+	 * 功能描述: <br>
+	 * 异步执行任意命令
+	 *
+	 * @param action
+	 * @return
+	 * @see [相关类/方法](可选)
+	 * @since [产品/模块版本](可选)
+	 */
+	<T> RedisFuture<T> executeAsync(ShardedJedisAction<T> action);
 }
@@ -1,5 +1,6 @@
 package com.adanac.framework.cache.redis.client;
 
+import java.util.List;
 import java.util.Map;
 
 import redis.clients.jedis.JedisCommands;
@@ -25,4 +26,51 @@ public interface ShardedRedisClient extends JedisCommands {
 	 * @return
 	 */
 	public String flushDB();
-}
\ No newline at end of file
+
+	/**
+	 * 所有分片并行SCAN，代替阻塞的KEYS；遍历结束或调用close时归还连接
+	 * @param pattern 为null时匹配所有key
+	 * @param count 每次SCAN的COUNT
+	 * @return
+	 */
+	public ScanIterator<String> scan(String pattern, int count);
+
+	/**
+	 * 类型化批量命令 (pipeline)，按节点分组发送，值使用当前codec
+	 * @return
+	 */
+	public Batch<String> batch();
+
+	/**
+	 * 按分片分组并行MGET
+	 * @param keys
+	 * @return 与keys顺序一致，不存在的key为null
+	 */
+	public List<String> mget(String... keys);
+
+	/**
+	 * 异步GET，在 AsyncExecutor 中执行，可以并行发出多个独立的读
+	 * @param key
+	 * @return
+	 */
+	public RedisFuture<String> getAsync(String key);
+
+	public RedisFuture<String> setAsync(String key, String value);
+
+	public RedisFuture<String> setexAsync(String key, int seconds, String value);
+
+	public RedisFuture<Long> delAsync(String key);
+
+	public RedisFuture<Boolean> existsAsync(String key);
+
+	public RedisFuture<String> hgetAsync(String key, String field);
+
+	public RedisFuture<List<String>> mgetAsync(String... keys);
+
+	/**
+	 * 异步执行任意命令
+	 * @param action
+	 * @return
+	 */
+	public <T> RedisFuture<T> executeAsync(ShardedJedisAction<T> action);
+}
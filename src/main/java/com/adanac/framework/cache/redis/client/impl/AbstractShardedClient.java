@@ -2,34 +2,32 @@ package com.adanac.framework.cache.redis.client.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
-import com.adanac.framework.cache.redis.WarningService;
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.FanOutResult;
+import com.adanac.framework.cache.redis.client.ScanIterator;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.client.ShardedKeyCommand;
+import com.adanac.framework.cache.redis.codec.Codec;
 import com.adanac.framework.cache.redis.exception.RedisClientException;
 import com.adanac.framework.cache.redis.util.ResourceUtils;
 import com.adanac.framework.statistics.VersionStatistics;
@@ -39,9 +37,14 @@ import com.adanac.framework.uniconfig.client.UniconfigListener;
 import com.adanac.framework.uniconfig.client.UniconfigNode;
 import com.adanac.framework.utils.InPutStreamToStr;
 
-import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.ShardedJedis;
 import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.Hashing;
 
 /**
  * 
@@ -52,6 +55,16 @@ public abstract class AbstractShardedClient implements InitializingBean {
 	private static final Logger logger = LoggerFactory.getLogger(AbstractShardedClient.class);
 	protected static final Map<String, ShardedJedisPool> jedisClusterPools = new ConcurrentHashMap<String, ShardedJedisPool>();
 
+	// 由配置创建的连接池 → hash环，连接池被回收后自动移除
+	private static final Map<ShardedJedisPool, ShardRing> shardRings = Collections
+			.synchronizedMap(new WeakHashMap<ShardedJedisPool, ShardRing>());
+
+	// 分片列表变更后正在迁移的 configPath → 迁移
+	private static final Map<String, ShardMigration> shardMigrations = new ConcurrentHashMap<String, ShardMigration>();
+
+	// flushDB 等待所有分片的最长时间 毫秒
+	protected static final long FLUSH_TIMEOUT = 60000L;
+
 	private static final Object MUX = new Object();
 
 	private static final String GLOBAL_WARNING_CONFIG_PATH = "/monitor.warning.service";
@@ -102,31 +115,51 @@ public abstract class AbstractShardedClient implements InitializingBean {
 
 			if (notEqual(oldValue, newValue)) {
 				synchronized (MUX) {
-					Set<HostAndPort> hostAnadPort = new HashSet<HostAndPort>();
-					GenericObjectPoolConfig config = new GenericObjectPoolConfig();
-
-					hostAnadPort = XMLParser.parseHostAndPort(newValue);
-					config = XMLParser.poolConfig(newValue, "");
-
-					final List<JedisShardInfo> shardList = new ArrayList<JedisShardInfo>();
-					for (Iterator it = hostAnadPort.iterator(); it.hasNext();) {
-						HostAndPort hp = (HostAndPort) it.next();
-
-						JedisShardInfo info1 = new JedisShardInfo(hp.getHost(), hp.getPort(), "root");
-						shardList.add(info1);
-					}
-
-					ShardedJedisPool newPool = new ShardedJedisPool(config, shardList);
+					long start = System.nanoTime();
+					RedisClientConfig clientConfig = RedisClientConfig.parse(newValue);
+					ShardedJedisPool newPool = createPool(clientConfig);
+					// 先建立连接再切换，旧池等借出的连接归还后再关闭
+					int warmupFailures = PoolSwap.prewarm(newPool, clientConfig.getInt("poolConfig/minIdle", 0));
 					ShardedJedisPool oldPool = jedisClusterPools.put(configPath, newPool);
+					long swapMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
 
+					ShardMigration previous = shardMigrations.remove(configPath);
+					if (previous != null) {
+						previous.cancel();
+					}
 					if (oldPool != null) {
-						oldPool.destroy();
+						retire(oldPool, newPool, clientConfig, swapMillis, warmupFailures);
 					}
 				}
 			}
 		}
 	};
 
+	/**
+	 * 关闭被替换的连接池；配置了 migration/windowSeconds 且分片有变化时，先在窗口内迁移key
+	 */
+	private void retire(ShardedJedisPool oldPool, ShardedJedisPool newPool, RedisClientConfig clientConfig,
+			long swapMillis, int warmupFailures) {
+		long graceMillis = clientConfig.getInt("swapGraceMillis", PoolSwap.DEFAULT_GRACE_MILLIS);
+		int windowSeconds = clientConfig.getInt("migration/windowSeconds", 0);
+		ShardRing oldRing = getShardRing(oldPool);
+		if (windowSeconds > 0 && oldRing != null) {
+			try {
+				ShardMigration migration = new ShardMigration(configPath, oldPool, oldRing, getShardRing(newPool),
+						windowSeconds * 1000L, clientConfig.getInt("migration/keysPerSecond", 1000),
+						clientConfig.getInt("migration/scanCount", 100), swapMillis, graceMillis);
+				if (migration.hasMovedRanges()) {
+					shardMigrations.put(configPath, migration);
+					migration.start();
+					return;
+				}
+			} catch (RuntimeException e) {
+				logger.warn("Fail to start redis shard migration of " + configPath, e);
+			}
+		}
+		PoolSwap.drain(configPath, swapMillis, warmupFailures, PoolSwap.drainable(oldPool), graceMillis);
+	}
+
 	public void init() {
 		this.init(this.configPath, this.globalConfig);
 	}
@@ -137,25 +170,12 @@ public abstract class AbstractShardedClient implements InitializingBean {
 
 	public void init(String configPath, boolean globalConfig) {
 		this.configPath = configPath;
-		Set<HostAndPort> hostAnadPort = new HashSet<HostAndPort>();
-		GenericObjectPoolConfig config = new GenericObjectPoolConfig();
 		if (this.configPath.endsWith(".xml")) {
 			InputStream inputStream = null;
 			try {
 				inputStream = ResourceUtils.getResourceAsStream(configPath);
 				String redisConfig = InPutStreamToStr.Inputstr2Str_byteArr(inputStream, "utf-8");
-				hostAnadPort = XMLParser.parseHostAndPort(redisConfig);
-				config = XMLParser.poolConfig(redisConfig, "");
-
-				final List<JedisShardInfo> shardList = new ArrayList<JedisShardInfo>();
-				for (Iterator it = hostAnadPort.iterator(); it.hasNext();) {
-					HostAndPort hp = (HostAndPort) it.next();
-
-					JedisShardInfo info1 = new JedisShardInfo(hp.getHost(), hp.getPort(), "root");
-					shardList.add(info1);
-				}
-
-				ShardedJedisPool pool = new ShardedJedisPool(config, shardList);
+				ShardedJedisPool pool = createPool(RedisClientConfig.parse(redisConfig));
 				// MyJedisCluster jc =new MyJedisCluster(hostAnadPort,config);
 				jedisClusterPools.put(this.configPath, pool);
 			} catch (IOException e) {
@@ -203,18 +223,7 @@ public abstract class AbstractShardedClient implements InitializingBean {
 					 * "can't find warningService config or config is empty.");
 					 * }
 					 */
-					final List<JedisShardInfo> shardList = new ArrayList<JedisShardInfo>();
-
-					hostAnadPort = XMLParser.parseHostAndPort(redisConfig);
-					config = XMLParser.poolConfig(redisConfig, "");
-					for (Iterator it = hostAnadPort.iterator(); it.hasNext();) {
-						HostAndPort hp = (HostAndPort) it.next();
-
-						JedisShardInfo info1 = new JedisShardInfo(hp.getHost(), hp.getPort(), "root");
-						shardList.add(info1);
-					}
-
-					ShardedJedisPool pool = new ShardedJedisPool(config, shardList);
+					ShardedJedisPool pool = createPool(RedisClientConfig.parse(redisConfig));
 					// MyJedisCluster jc =new
 					// MyJedisCluster(hostAnadPort,config);
 					jedisClusterPools.put(this.configPath, pool);
@@ -235,6 +244,40 @@ public abstract class AbstractShardedClient implements InitializingBean {
 
 	}
 
+	/**
+	 * 按配置创建分片连接池，配置了 poolConfig/maxConnections 时使用限制连接数的连接池
+	 */
+	private static ShardedJedisPool createPool(RedisClientConfig redisConfig) {
+		GenericObjectPoolConfig config = redisConfig.newPoolConfig();
+		List<JedisShardInfo> shardList = redisConfig.getShardInfos();
+		Hashing algo = redisConfig.getHashing();
+		Pattern keyTagPattern = redisConfig.getKeyTagPattern();
+		ShardedJedisPool pool;
+		int maxConnections = redisConfig.getInt("poolConfig/maxConnections", 0);
+		if (maxConnections > 0) {
+			long maxWaitMillis = redisConfig.getInt("poolConfig/connectionWaitMillis", 200);
+			pool = new LimitedShardedJedisPool(config, shardList, algo, keyTagPattern, maxConnections, maxWaitMillis);
+		} else {
+			pool = new ShardedJedisPool(config, shardList, algo, keyTagPattern);
+		}
+		if (keyTagPattern != null) {
+			// 二进制key也按tag计算分片，还没有创建连接，直接替换内部的连接池
+			pool.initPool(config, new KeyTagShardedJedis.Factory(shardList, algo, keyTagPattern));
+		}
+		shardRings.put(pool, new ShardRing(shardList, algo, keyTagPattern));
+		return pool;
+	}
+
+	/**
+	 * 连接池的hash环，与连接池使用相同的分片信息、hash算法和 keyTagPattern
+	 *
+	 * @param pool
+	 * @return 不是由配置创建的连接池 (直接放入 jedisClusterPools) 为null
+	 */
+	static ShardRing getShardRing(ShardedJedisPool pool) {
+		return shardRings.get(pool);
+	}
+
 	private boolean notEqual(Set<String> setA, Set<String> setB) {
 		List<String> listA = new ArrayList<String>(setA);
 		List<String> listB = new ArrayList<String>(setB);
@@ -271,376 +314,263 @@ public abstract class AbstractShardedClient implements InitializingBean {
 		return jedisClusterPools.get(configPath);
 	}
 
-	protected void destroy() {
-		synchronized (MUX) {
-			ShardedJedisPool pool = getShardedJedisPool();
-			if (pool != null) {
-				pool.destroy();
-			}
-			jedisClusterPools.remove(configPath);
-		}
-
+	/**
+	 * 分片列表变更后正在进行的迁移
+	 *
+	 * @return 没有迁移或迁移窗口已结束时为null
+	 */
+	public ShardMigration getShardMigration() {
+		ShardMigration migration = shardMigrations.get(configPath);
+		return migration != null && migration.isActive() ? migration : null;
 	}
 
-	/*
-	 * public String getPoolStatus() { return
-	 * PoolStatusUtil.getPoolStatus(jedisClusterPools.get(this.configPath)); }
+	/**
+	 * 登记配置路径上的迁移 (测试用，配置变更时由 retire 登记)
 	 */
+	static void putShardMigration(String configPath, ShardMigration migration) {
+		shardMigrations.put(configPath, migration);
+	}
 
-	private static class XMLParser {
-		private static Logger logger = LoggerFactory.getLogger(XMLParser.class);
+	/**
+	 * 迁移窗口内，新分片上读不到的key如果所在区间已迁移，从旧分片再读一次
+	 *
+	 * @param command 只读命令
+	 * @param key
+	 * @param arg
+	 * @param rawKey 计算分片用的key
+	 * @return 没有迁移、key没有迁移或旧分片上也没有时为null
+	 */
+	public <K, A, T> T readMoved(ShardedKeyCommand<K, A, T> command, K key, A arg, byte[] rawKey) {
+		ShardMigration migration = getShardMigration();
+		if (migration == null || !migration.isMoved(rawKey)) {
+			return null;
+		}
+		return migration.read(command, key, arg);
+	}
 
-		private static XPath path;
+	/**
+	 * 同 readMoved，字符串key按 keyTagPattern 计算分片
+	 */
+	public <K, A, T> T readMoved(ShardedKeyCommand<K, A, T> command, K key, A arg, String routingKey) {
+		ShardMigration migration = getShardMigration();
+		if (migration == null || !migration.isMoved(routingKey)) {
+			return null;
+		}
+		return migration.read(command, key, arg);
+	}
 
-		private static Document doc;
+	/**
+	 * 同 readMoved，批量读取时使用：只对所在区间已迁移的key在旧分片上执行一次command
+	 *
+	 * @param command 只读命令，key为已迁移的key
+	 * @param routingKeys 新分片上读不到的key，按 keyTagPattern 计算分片
+	 * @param arg
+	 * @return 没有迁移或这些key都没有迁移时为null
+	 */
+	public <A, T> T readMoved(ShardedKeyCommand<List<String>, A, T> command, Collection<String> routingKeys, A arg) {
+		ShardMigration migration = getShardMigration();
+		if (migration == null) {
+			return null;
+		}
+		List<String> moved = new ArrayList<String>();
+		for (String routingKey : routingKeys) {
+			if (migration.isMoved(routingKey)) {
+				moved.add(routingKey);
+			}
+		}
+		return moved.isEmpty() ? null : migration.read(command, moved, arg);
+	}
 
-		private static String getString(Object node, String expression) throws XPathExpressionException {
-			return (String) path.evaluate(expression, node, XPathConstants.STRING);
+	/**
+	 * 迁移窗口内，删除、覆盖key或设置过期时间之前调用：先删除旧分片上还没迁移的旧值，
+	 * 避免后台迁移把已删除 (或新值过期后) 的旧值搬回新分片
+	 *
+	 * @param rawKeys 计算分片用的key
+	 */
+	public void evictMoved(byte[]... rawKeys) {
+		ShardMigration migration = getShardMigration();
+		if (migration != null) {
+			migration.evict(rawKeys);
 		}
+	}
 
-		private static NodeList getList(Object node, String expression) throws XPathExpressionException {
-			return (NodeList) path.evaluate(expression, node, XPathConstants.NODESET);
+	/**
+	 * 同 evictMoved，字符串key按 keyTagPattern 计算分片
+	 */
+	public void evictMoved(String... routingKeys) {
+		ShardMigration migration = getShardMigration();
+		if (migration != null) {
+			migration.evict(routingKeys);
 		}
+	}
 
-		private static Node getNode(Object node, String expression) throws XPathExpressionException {
-			return (Node) path.evaluate(expression, node, XPathConstants.NODE);
+	/**
+	 * 所有分片上并行SCAN，遍历结束或close时归还连接
+	 */
+	protected abstract class ShardedScanIterator<T> extends ScanIterator<T> {
+		private final ShardedJedisPool pool;
+		private final ShardedJedis jedis;
+
+		protected ShardedScanIterator(ShardedJedisPool pool, ShardedJedis jedis, byte[] pattern, int count,
+				ShardExecutor executor) {
+			super(scanSources(jedis), pattern, count, executor);
+			this.pool = pool;
+			this.jedis = jedis;
 		}
 
-		public static String parse(String redisConfig, String key) {
+		@Override
+		protected void release(RuntimeException error) {
 			try {
-				StringReader reader = new StringReader(redisConfig);
-				InputSource is = new InputSource(reader);
-				DocumentBuilder dbd = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-				doc = dbd.parse(is);
-				path = XPathFactory.newInstance().newXPath();
-				Node rootN = getNode(doc, "config");
-				if (null == rootN) {
-					throw new RedisClientException("Invalid xml format, can't find <config> root node!");
+				if (error instanceof JedisConnectionException) {
+					pool.returnBrokenResource(jedis);
+				} else {
+					pool.returnResource(jedis);
 				}
-				return getString(rootN, key);
 			} catch (Exception ex) {
-				throw new RedisClientException("Fail to parse redis configure file.", ex);
+				logger.warn("Can not return resource.", ex);
 			}
 		}
+	}
 
-		public static GenericObjectPoolConfig poolConfig(String redisConfig, String field) {
-			try {
-				StringReader reader = new StringReader(redisConfig);
-				InputSource is = new InputSource(reader);
-				DocumentBuilder dbd = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-				doc = dbd.parse(is);
-				path = XPathFactory.newInstance().newXPath();
-				Node rootN = getNode(doc, "config");
-				if (null == rootN) {
-					throw new RedisClientException("Invalid xml format, can't find <config> root node!");
-				}
-				String timeOut = getString(rootN, "timeOut");
-				if (null == timeOut || "".equals(timeOut.trim())) {
-					timeOut = "2000";
-				}
-				String password = getString(rootN, "password");
-				if (null == password || "".equals(password.trim())) {
-					password = null;
-				}
-				String dbIndex = getString(rootN, "dbIndex");
-				if (null == dbIndex || "".equals(dbIndex.trim())) {
-					dbIndex = "0";
-				}
-				GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
-				Node poolConfigNode = getNode(rootN, "poolConfig");
-				if (poolConfigNode != null) {
-					poolConfig.setMaxTotal(Integer.MAX_VALUE);
-					poolConfig.setMaxWaitMillis(200);
-					poolConfig.setBlockWhenExhausted(false);
-					String maxIdle = getString(poolConfigNode, "maxIdle");
-					if (null != maxIdle && !"".equals(maxIdle.trim())) {
-						poolConfig.setMaxIdle(Integer.valueOf(maxIdle));
-					}
-					String minIdle = getString(poolConfigNode, "minIdle");
-					if (null != minIdle && !"".equals(minIdle.trim())) {
-						poolConfig.setMinIdle(Integer.valueOf(minIdle));
-					}
-					String lifo = getString(poolConfigNode, "lifo");
-					if (null != lifo && !"".equals(lifo.trim())) {
-						poolConfig.setLifo(Boolean.valueOf(lifo));
-					}
-					String minEvictableIdleTimeMillis = getString(poolConfigNode, "minEvictableIdleTimeMillis");
-					if (null != minEvictableIdleTimeMillis && !"".equals(minEvictableIdleTimeMillis.trim())) {
-						poolConfig.setMinEvictableIdleTimeMillis(Long.valueOf(minEvictableIdleTimeMillis));
-					} else {
-						poolConfig.setMinEvictableIdleTimeMillis(60000L);
-					}
-					String softMinEvictableIdleTimeMillis = getString(poolConfigNode, "softMinEvictableIdleTimeMillis");
-					if (null != softMinEvictableIdleTimeMillis && !"".equals(softMinEvictableIdleTimeMillis.trim())) {
-						poolConfig.setSoftMinEvictableIdleTimeMillis(Long.valueOf(softMinEvictableIdleTimeMillis));
-					}
-					String numTestsPerEvictionRun = getString(poolConfigNode, "numTestsPerEvictionRun");
-					if (null != numTestsPerEvictionRun && !"".equals(numTestsPerEvictionRun.trim())) {
-						poolConfig.setNumTestsPerEvictionRun(Integer.valueOf(numTestsPerEvictionRun));
-					} else {
-						poolConfig.setNumTestsPerEvictionRun(-1);
-					}
-					String evictionPolicyClassName = getString(poolConfigNode, "evictionPolicyClassName");
-					if (null != evictionPolicyClassName && !"".equals(evictionPolicyClassName.trim())) {
-						poolConfig.setEvictionPolicyClassName(evictionPolicyClassName);
-					}
-					String testOnBorrow = getString(poolConfigNode, "testOnBorrow");
-					if (null != testOnBorrow && !"".equals(testOnBorrow.trim())) {
-						// 获取连接池是否检测可用性
-						poolConfig.setTestOnBorrow(Boolean.valueOf(testOnBorrow));
-					}
-					String testOnReturn = getString(poolConfigNode, "testOnReturn");
-					if (null != testOnReturn && !"".equals(testOnReturn.trim())) {
-						// 归还时是否检测可用性
-						poolConfig.setTestOnReturn(Boolean.valueOf(testOnReturn));
-					}
-					String testWhileIdle = getString(poolConfigNode, "testWhileIdle");
-					if (null != testWhileIdle && !"".equals(testWhileIdle.trim())) {
-						// 空闲时是否检测可用性
-						poolConfig.setTestWhileIdle(Boolean.valueOf(testWhileIdle));
-					} else {
-						poolConfig.setTestWhileIdle(true);
-					}
-					String timeBetweenEvictionRunsMillis = getString(poolConfigNode, "timeBetweenEvictionRunsMillis");
-					if (null != timeBetweenEvictionRunsMillis && !"".equals(timeBetweenEvictionRunsMillis.trim())) {
-						poolConfig.setTimeBetweenEvictionRunsMillis(Long.valueOf(timeBetweenEvictionRunsMillis));
-					} else {
-						poolConfig.setTimeBetweenEvictionRunsMillis(30000L);
-					}
-					String jmxEnabled = getString(poolConfigNode, "jmxEnabled");
-					if (null != jmxEnabled && !"".equals(jmxEnabled.trim())) {
-						poolConfig.setJmxEnabled(Boolean.valueOf(jmxEnabled));
-					}
-					String jmxNamePrefix = getString(poolConfigNode, "jmxNamePrefix");
-					if (null != jmxNamePrefix && !"".equals(jmxNamePrefix.trim())) {
-						poolConfig.setJmxNamePrefix(jmxNamePrefix);
-					}
-				}
-				return poolConfig;
-			} catch (Exception ex) {
-				throw new RedisClientException("Fail to parse redis configure file.", ex);
-			}
+	/**
+	 * 按分片分组，各分片并行以pipeline发送
+	 */
+	protected class ShardedBatch<K> extends Batch<K> {
+		private final ShardExecutor executor;
+
+		protected ShardedBatch(KeyCodec<K> keyCodec, Codec codec, ShardExecutor executor) {
+			super(keyCodec, codec);
+			this.executor = executor;
 		}
 
-		public static Set<HostAndPort> parseHostAndPort(String redisConfig) {
+		@Override
+		protected void send(List<Entry<?, ?>> entries) {
+			ShardedJedisPool pool = getShardedJedisPool();
+			ShardedJedis jedis = pool.getResource();
+			boolean broken = false;
 			try {
-				StringReader reader = new StringReader(redisConfig);
-				InputSource is = new InputSource(reader);
-				DocumentBuilder dbd = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-				doc = dbd.parse(is);
-				path = XPathFactory.newInstance().newXPath();
-				Node rootN = getNode(doc, "config");
-				if (null == rootN) {
-					throw new RedisClientException("Invalid xml format, can't find <config> root node!");
+				Map<JedisShardInfo, List<Entry<?, ?>>> groups =
+						new IdentityHashMap<JedisShardInfo, List<Entry<?, ?>>>();
+				for (Entry<?, ?> entry : entries) {
+					JedisShardInfo shard = jedis.getShardInfo(entry.getKey());
+					List<Entry<?, ?>> group = groups.get(shard);
+					if (group == null) {
+						group = new ArrayList<Entry<?, ?>>();
+						groups.put(shard, group);
+					}
+					group.add(entry);
 				}
-
-				Node hostAndPortNodes = getNode(rootN, "hostAndPorts");
-				Set<HostAndPort> hostAndPorts = new HashSet<HostAndPort>();
-				if (hostAndPortNodes != null) {
-					NodeList hostAndPortList = getList(hostAndPortNodes, "hostAndPort");
-					for (int i = 0; i < hostAndPortList.getLength(); i++) {
-						Node hostAndPortNode = hostAndPortList.item(i);
-						String hostAndPort = hostAndPortNode.getTextContent();
-						String[] ipAndPort = hostAndPort.split(":");
-						if (null == ipAndPort[0] || "".equals(ipAndPort[0].trim())) {
-							// throw new RedisClientException("Configuration
-							// error,sentinel host can not be null");
+				List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(groups.size());
+				for (final List<Entry<?, ?>> group : groups.values()) {
+					final Jedis shard = jedis.getShard(group.get(0).getKey());
+					tasks.add(new Callable<Object>() {
+						public Object call() {
+							sendChunked(shard, group);
+							return null;
 						}
-						if (null == ipAndPort[1] || "".equals(ipAndPort[1].trim())) {
-							ipAndPort[1] = "6379";
-						}
-						HostAndPort hap = new HostAndPort(ipAndPort[0].trim(), Integer.parseInt(ipAndPort[1].trim()));
-						hostAndPorts.add(hap);
+					});
+				}
+				executor.invokeAll(tasks);
+			} catch (JedisConnectionException e) {
+				broken = true;
+				throw e;
+			} finally {
+				try {
+					if (broken) {
+						pool.returnBrokenResource(jedis);
+					} else {
+						pool.returnResource(jedis);
 					}
-
+				} catch (Exception ex) {
+					logger.warn("Can not return resource.", ex);
 				}
-				return hostAndPorts;
-			} catch (Exception ex) {
-				throw new RedisClientException("Fail to parse redis configure file.", ex);
 			}
 		}
+	}
 
-		public static List<String> parseMasters(String redisConfig) {
-			try {
-				StringReader reader = new StringReader(redisConfig);
-				InputSource is = new InputSource(reader);
-				DocumentBuilder dbd = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-				doc = dbd.parse(is);
-				path = XPathFactory.newInstance().newXPath();
-				Node rootN = getNode(doc, "config");
-				if (null == rootN) {
-					throw new RedisClientException("Invalid xml format, can't find <config> root node!");
-				}
-				List<String> masters = new ArrayList<String>();
-				Node mastersNode = getNode(rootN, "shards");
-				if (mastersNode != null) {
-					NodeList masterNodes = getList(mastersNode, "shardName");
-					for (int i = 0; i < masterNodes.getLength(); i++) {
-						String master = masterNodes.item(i).getTextContent();
-						masters.add(master);
+	/**
+	 * 所有分片并行FLUSHDB，每个分片使用单独的连接，不改变池中连接的db
+	 *
+	 * @param dbIndex
+	 * @param async 是否使用 FLUSHDB ASYNC
+	 * @param timeoutMillis
+	 * @param executor
+	 * @return 每个分片 (host:port) 的结果和错误
+	 */
+	protected FanOutResult<String> flushShards(final int dbIndex, final boolean async, long timeoutMillis,
+			ShardExecutor executor) {
+		Map<String, Callable<String>> tasks = new LinkedHashMap<String, Callable<String>>();
+		for (final JedisShardInfo shard : getShardInfos()) {
+			tasks.put(shard.getHost() + ":" + shard.getPort(), new Callable<String>() {
+				public String call() {
+					AdminConnection connection = new AdminConnection(shard);
+					try {
+						return connection.flushDB(dbIndex, async);
+					} finally {
+						connection.disconnect();
 					}
 				}
-				return masters;
-			} catch (Exception ex) {
-				throw new RedisClientException("Fail to parse redis configure file.", ex);
-			}
+			});
 		}
+		return executor.invokeEach(tasks, timeoutMillis);
+	}
 
-		public static List<String> forceMasterKeys(String redisConfig) {
+	/**
+	 * 所有分片，不包括虚拟节点的重复
+	 *
+	 * @return
+	 */
+	private Collection<JedisShardInfo> getShardInfos() {
+		ShardedJedisPool pool = getShardedJedisPool();
+		ShardedJedis jedis = pool.getResource();
+		try {
+			Map<JedisShardInfo, Boolean> shards = new IdentityHashMap<JedisShardInfo, Boolean>();
+			for (JedisShardInfo shard : jedis.getAllShardInfo()) {
+				shards.put(shard, Boolean.TRUE);
+			}
+			return shards.keySet();
+		} finally {
 			try {
-				StringReader reader = new StringReader(redisConfig);
-				InputSource is = new InputSource(reader);
-				DocumentBuilder dbd = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-				doc = dbd.parse(is);
-				path = XPathFactory.newInstance().newXPath();
-				Node rootN = getNode(doc, "config");
-				if (null == rootN) {
-					throw new RedisClientException("Invalid xml format, can't find <config> root node!");
-				}
-				List<String> forceMasterKeys = new ArrayList<String>();
-				Node forceMasterKeysNode = getNode(rootN, "forceMasterkeys");
-				if (forceMasterKeysNode != null) {
-					NodeList keyPatternNodes = getList(forceMasterKeysNode, "keyPattern");
-					for (int i = 0; i < keyPatternNodes.getLength(); i++) {
-						String master = keyPatternNodes.item(i).getTextContent();
-						forceMasterKeys.add(master);
-					}
-				}
-				return forceMasterKeys;
+				pool.returnResource(jedis);
 			} catch (Exception ex) {
-				throw new RedisClientException("Fail to parse redis configure file.", ex);
+				logger.warn("Can not return resource.", ex);
 			}
 		}
+	}
 
-		public static MyJedisCluster parse(String redisConfig, WarningService warningService) {
-			try {
-				StringReader reader = new StringReader(redisConfig);
-				InputSource is = new InputSource(reader);
-				DocumentBuilder dbd = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-				doc = dbd.parse(is);
-				path = XPathFactory.newInstance().newXPath();
-				Node rootN = getNode(doc, "config");
-				if (null == rootN) {
-					throw new RedisClientException("Invalid xml format, can't find <config> root node!");
-				}
-				String timeOut = getString(rootN, "timeOut");
-				if (null == timeOut || "".equals(timeOut.trim())) {
-					timeOut = "2000";
-				}
-				String password = getString(rootN, "password");
-				if (null == password || "".equals(password.trim())) {
-					password = null;
-				}
-				String dbIndex = getString(rootN, "dbIndex");
-				if (null == dbIndex || "".equals(dbIndex.trim())) {
-					dbIndex = "0";
-				}
-				GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
-				Node poolConfigNode = getNode(rootN, "poolConfig");
-				if (poolConfigNode != null) {
-					poolConfig.setMaxTotal(Integer.MAX_VALUE);
-					poolConfig.setMaxWaitMillis(200);
-					poolConfig.setBlockWhenExhausted(false);
-					String maxIdle = getString(poolConfigNode, "maxIdle");
-					if (null != maxIdle && !"".equals(maxIdle.trim())) {
-						poolConfig.setMaxIdle(Integer.valueOf(maxIdle));
-					}
-					String minIdle = getString(poolConfigNode, "minIdle");
-					if (null != minIdle && !"".equals(minIdle.trim())) {
-						poolConfig.setMinIdle(Integer.valueOf(minIdle));
-					}
-					String lifo = getString(poolConfigNode, "lifo");
-					if (null != lifo && !"".equals(lifo.trim())) {
-						poolConfig.setLifo(Boolean.valueOf(lifo));
-					}
-					String minEvictableIdleTimeMillis = getString(poolConfigNode, "minEvictableIdleTimeMillis");
-					if (null != minEvictableIdleTimeMillis && !"".equals(minEvictableIdleTimeMillis.trim())) {
-						poolConfig.setMinEvictableIdleTimeMillis(Long.valueOf(minEvictableIdleTimeMillis));
-					} else {
-						poolConfig.setMinEvictableIdleTimeMillis(60000L);
-					}
-					String softMinEvictableIdleTimeMillis = getString(poolConfigNode, "softMinEvictableIdleTimeMillis");
-					if (null != softMinEvictableIdleTimeMillis && !"".equals(softMinEvictableIdleTimeMillis.trim())) {
-						poolConfig.setSoftMinEvictableIdleTimeMillis(Long.valueOf(softMinEvictableIdleTimeMillis));
-					}
-					String numTestsPerEvictionRun = getString(poolConfigNode, "numTestsPerEvictionRun");
-					if (null != numTestsPerEvictionRun && !"".equals(numTestsPerEvictionRun.trim())) {
-						poolConfig.setNumTestsPerEvictionRun(Integer.valueOf(numTestsPerEvictionRun));
-					} else {
-						poolConfig.setNumTestsPerEvictionRun(-1);
-					}
-					String evictionPolicyClassName = getString(poolConfigNode, "evictionPolicyClassName");
-					if (null != evictionPolicyClassName && !"".equals(evictionPolicyClassName.trim())) {
-						poolConfig.setEvictionPolicyClassName(evictionPolicyClassName);
-					}
-					String testOnBorrow = getString(poolConfigNode, "testOnBorrow");
-					if (null != testOnBorrow && !"".equals(testOnBorrow.trim())) {
-						// 获取连接池是否检测可用性
-						poolConfig.setTestOnBorrow(Boolean.valueOf(testOnBorrow));
-					}
-					String testOnReturn = getString(poolConfigNode, "testOnReturn");
-					if (null != testOnReturn && !"".equals(testOnReturn.trim())) {
-						// 归还时是否检测可用性
-						poolConfig.setTestOnReturn(Boolean.valueOf(testOnReturn));
-					}
-					String testWhileIdle = getString(poolConfigNode, "testWhileIdle");
-					if (null != testWhileIdle && !"".equals(testWhileIdle.trim())) {
-						// 空闲时是否检测可用性
-						poolConfig.setTestWhileIdle(Boolean.valueOf(testWhileIdle));
-					} else {
-						poolConfig.setTestWhileIdle(true);
-					}
-					String timeBetweenEvictionRunsMillis = getString(poolConfigNode, "timeBetweenEvictionRunsMillis");
-					if (null != timeBetweenEvictionRunsMillis && !"".equals(timeBetweenEvictionRunsMillis.trim())) {
-						poolConfig.setTimeBetweenEvictionRunsMillis(Long.valueOf(timeBetweenEvictionRunsMillis));
-					} else {
-						poolConfig.setTimeBetweenEvictionRunsMillis(30000L);
-					}
-					String jmxEnabled = getString(poolConfigNode, "jmxEnabled");
-					if (null != jmxEnabled && !"".equals(jmxEnabled.trim())) {
-						poolConfig.setJmxEnabled(Boolean.valueOf(jmxEnabled));
-					}
-					String jmxNamePrefix = getString(poolConfigNode, "jmxNamePrefix");
-					if (null != jmxNamePrefix && !"".equals(jmxNamePrefix.trim())) {
-						poolConfig.setJmxNamePrefix(jmxNamePrefix);
-					}
-				}
-				// redis3.0 hostAndPort
-				Node hostAndPortNodes = getNode(rootN, "hostAndPorts");
-				Set<HostAndPort> hostAndPorts = new HashSet<HostAndPort>();
-				if (hostAndPortNodes != null) {
-					NodeList hostAndPortList = getList(hostAndPortNodes, "hostAndPort");
-					for (int i = 0; i < hostAndPortList.getLength(); i++) {
-						Node hostAndPortNode = hostAndPortList.item(i);
-						String hostAndPort = hostAndPortNode.getTextContent();
-						String[] ipAndPort = hostAndPort.split(":");
-						if (null == ipAndPort[0] || "".equals(ipAndPort[0].trim())) {
-							// throw new RedisClientException("Configuration
-							// error,sentinel host can not be null");
-						}
-						if (null == ipAndPort[1] || "".equals(ipAndPort[1].trim())) {
-							ipAndPort[1] = "26379";
-						}
-						HostAndPort hap = new HostAndPort(ipAndPort[0], Integer.parseInt(ipAndPort[1]));
-						hostAndPorts.add(hap);
-					}
-
+	private static List<ScanIterator.Source> scanSources(ShardedJedis jedis) {
+		List<ScanIterator.Source> sources = new ArrayList<ScanIterator.Source>();
+		for (final Jedis shard : jedis.getAllShards()) {
+			sources.add(new ScanIterator.Source() {
+				@Override
+				public ScanResult<byte[]> scan(byte[] cursor, ScanParams params) {
+					return shard.scan(cursor, params);
 				}
+			});
+		}
+		return sources;
+	}
 
-				String execTimeThreshold = getString(rootN, "execTimeThreshold");
-				if (null == execTimeThreshold || "".equals(execTimeThreshold.trim())) {
-					execTimeThreshold = "20";
-				}
-				return new MyJedisCluster(hostAndPorts, poolConfig);
-			} catch (IOException e) {
-				logger.error("IOException!", e);
-				throw new RedisClientException("IOException!", e);
-			} catch (Exception ex) {
-				throw new RedisClientException("Fail to parse redis configure file.", ex);
+	protected void destroy() {
+		synchronized (MUX) {
+			ShardMigration migration = shardMigrations.remove(configPath);
+			if (migration != null) {
+				migration.cancel();
+			}
+			ShardedJedisPool pool = getShardedJedisPool();
+			if (pool != null) {
+				pool.destroy();
 			}
+			jedisClusterPools.remove(configPath);
 		}
+
 	}
 
+	/*
+	 * public String getPoolStatus() { return
+	 * PoolStatusUtil.getPoolStatus(jedisClusterPools.get(this.configPath)); }
+	 */
+
 	public void afterPropertiesSet() {
 		this.init(this.configPath, this.globalConfig);
 
@@ -0,0 +1,55 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import redis.clients.jedis.Client;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * 管理命令使用的单独连接，不从连接池借用
+ * <p>
+ * 可以切换db而不影响池中的连接，超时后调用方不再等待时由执行任务自己关闭。
+ * 也用于发送 Jedis 2.x 没有提供的命令参数 (FLUSHDB ASYNC)。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+class AdminConnection extends Client {
+
+	private final String password;
+
+	AdminConnection(JedisShardInfo shard) {
+		super(shard.getHost(), shard.getPort());
+		setConnectionTimeout(shard.getConnectionTimeout());
+		setSoTimeout(shard.getSoTimeout());
+		this.password = shard.getPassword();
+	}
+
+	/**
+	 * FLUSHDB
+	 *
+	 * @param dbIndex
+	 * @param async 使用 FLUSHDB ASYNC (redis 4.0+) 在后台线程释放内存，不阻塞redis；服务端不支持时改为同步执行
+	 * @return
+	 */
+	String flushDB(int dbIndex, boolean async) {
+		if (password != null) {
+			auth(password);
+			getStatusCodeReply();
+		}
+		if (dbIndex != 0) {
+			select(dbIndex);
+			getStatusCodeReply();
+		}
+		if (async) {
+			sendCommand(Protocol.Command.FLUSHDB, "ASYNC");
+			try {
+				return getStatusCodeReply();
+			} catch (JedisDataException e) {
+				// 4.0 以前: ERR syntax error
+			}
+		}
+		flushDB();
+		return getStatusCodeReply();
+	}
+}
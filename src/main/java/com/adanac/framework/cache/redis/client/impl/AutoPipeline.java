@@ -0,0 +1,371 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adanac.framework.cache.redis.client.RedisFuture;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * 自动pipeline
+ * <p>
+ * 并发调用的单key命令按分片排队，队列达到batchSize时由提交的线程立即发送，否则在flushDelay后发送。
+ * 每批命令只借用一次连接、一次网络往返。并发调用多时提高吞吐；没有并发时每个命令最多多等待flushDelay。
+ * 不同线程提交的命令之间没有顺序保证，同一线程阻塞等待结果时保持顺序。
+ * 队列属于提交时的分片路由，配置变更替换连接池后，旧路由下还没发送的命令按新的分片重新排队。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class AutoPipeline {
+	private static final Logger logger = LoggerFactory.getLogger(AutoPipeline.class);
+
+	public static final int DEFAULT_BATCH_SIZE = 64;
+
+	public static final long DEFAULT_FLUSH_DELAY_MICROS = 200;
+
+	/**
+	 * 加入pipeline的单key命令，实现不保存状态
+	 */
+	public interface Command<A, T> {
+		Response<T> enqueue(Pipeline pipeline, String key, A arg);
+	}
+
+	public static final Command<Void, String> GET = new Command<Void, String>() {
+		public Response<String> enqueue(Pipeline pipeline, String key, Void arg) {
+			return pipeline.get(key);
+		}
+	};
+
+	public static final Command<String, String> SET = new Command<String, String>() {
+		public Response<String> enqueue(Pipeline pipeline, String key, String value) {
+			return pipeline.set(key, value);
+		}
+	};
+
+	public static final Command<Void, Boolean> EXISTS = new Command<Void, Boolean>() {
+		public Response<Boolean> enqueue(Pipeline pipeline, String key, Void arg) {
+			return pipeline.exists(key);
+		}
+	};
+
+	public static final Command<Void, Long> DEL = new Command<Void, Long>() {
+		public Response<Long> enqueue(Pipeline pipeline, String key, Void arg) {
+			return pipeline.del(key);
+		}
+	};
+
+	public static final Command<Void, Long> INCR = new Command<Void, Long>() {
+		public Response<Long> enqueue(Pipeline pipeline, String key, Void arg) {
+			return pipeline.incr(key);
+		}
+	};
+
+	public static final Command<Void, Long> TTL = new Command<Void, Long>() {
+		public Response<Long> enqueue(Pipeline pipeline, String key, Void arg) {
+			return pipeline.ttl(key);
+		}
+	};
+
+	public static final Command<String, String> HGET = new Command<String, String>() {
+		public Response<String> enqueue(Pipeline pipeline, String key, String field) {
+			return pipeline.hget(key, field);
+		}
+	};
+
+	public static final Command<String, Boolean> SISMEMBER = new Command<String, Boolean>() {
+		public Response<Boolean> enqueue(Pipeline pipeline, String key, String member) {
+			return pipeline.sismember(key, member);
+		}
+	};
+
+	private final AbstractShardedClient client;
+
+	private final int batchSize;
+
+	private final long flushDelayNanos;
+
+	private final ShardExecutor executor;
+
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	private volatile Routing routing;
+
+	private volatile boolean closed;
+
+	/**
+	 * @param client 连接池来源，配置变更替换连接池后自动使用新的连接池
+	 * @param batchSize 每个pipeline最多的命令数
+	 * @param flushDelayMicros 队列没有满时的最长等待时间 微秒
+	 * @param executor 执行到期的发送
+	 */
+	public AutoPipeline(AbstractShardedClient client, int batchSize, long flushDelayMicros, ShardExecutor executor) {
+		this.client = client;
+		this.batchSize = Math.max(1, batchSize);
+		this.flushDelayNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, flushDelayMicros));
+		this.executor = executor;
+		this.scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "redis-auto-pipeline");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * 提交命令
+	 *
+	 * @param key
+	 * @param command
+	 * @param arg 命令参数，没有参数时为null
+	 * @return
+	 */
+	public <A, T> RedisFuture<T> submit(String key, Command<A, T> command, A arg) {
+		if (closed) {
+			throw new RedisClientException("auto pipeline is closed");
+		}
+		Pending<A, T> pending = new Pending<A, T>(key, command, arg);
+		enqueue(pending);
+		return pending.future;
+	}
+
+	/**
+	 * 发送所有排队的命令后停止
+	 */
+	public void close() {
+		closed = true;
+		Routing current = routing;
+		if (current != null) {
+			for (ShardQueue queue : current.queues.values()) {
+				queue.flush();
+			}
+		}
+		scheduler.shutdown();
+	}
+
+	private void enqueue(Pending<?, ?> pending) {
+		ShardQueue queue = currentRouting().queueFor(pending.key);
+		queue.commands.add(pending);
+		if (queue.size.incrementAndGet() >= batchSize) {
+			queue.flush();
+		} else {
+			queue.schedule();
+		}
+	}
+
+	private Routing currentRouting() {
+		ShardedJedisPool pool = client.getShardedJedisPool();
+		Routing current = routing;
+		if (current == null || current.pool != pool) {
+			synchronized (this) {
+				current = routing;
+				if (current == null || current.pool != pool) {
+					// 旧路由的队列不再接收命令，剩余的命令发送时重新排队
+					current = new Routing(pool);
+					routing = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 分片路由，与连接池使用相同的分片信息、hash算法和 keyTagPattern；只计算分片，不建立连接
+	 */
+	private final class Routing {
+		final ShardedJedisPool pool;
+		final ShardRing ring;
+
+		// JedisShardInfo没有重写equals，按实例区分分片
+		final Map<JedisShardInfo, ShardQueue> queues = new ConcurrentHashMap<JedisShardInfo, ShardQueue>();
+
+		Routing(ShardedJedisPool pool) {
+			this.pool = pool;
+			ShardRing configured = AbstractShardedClient.getShardRing(pool);
+			this.ring = configured != null ? configured : defaultRing(pool);
+		}
+
+		ShardQueue queueFor(String key) {
+			JedisShardInfo shard = ring.getShard(key);
+			ShardQueue queue = queues.get(shard);
+			if (queue == null) {
+				synchronized (queues) {
+					queue = queues.get(shard);
+					if (queue == null) {
+						queue = new ShardQueue(this);
+						queues.put(shard, queue);
+					}
+				}
+			}
+			return queue;
+		}
+	}
+
+	// 直接创建的连接池，按默认的hash算法和去重后的分片计算
+	private static ShardRing defaultRing(ShardedJedisPool pool) {
+		ShardedJedis jedis = pool.getResource();
+		try {
+			Map<JedisShardInfo, Boolean> shards = new IdentityHashMap<JedisShardInfo, Boolean>();
+			List<JedisShardInfo> shardList = new ArrayList<JedisShardInfo>();
+			for (JedisShardInfo shard : jedis.getAllShardInfo()) {
+				if (shards.put(shard, Boolean.TRUE) == null) {
+					shardList.add(shard);
+				}
+			}
+			return new ShardRing(shardList);
+		} finally {
+			pool.returnResource(jedis);
+		}
+	}
+
+	private final class ShardQueue implements Runnable {
+		final Routing routing;
+		final Queue<Pending<?, ?>> commands = new ConcurrentLinkedQueue<Pending<?, ?>>();
+		final AtomicInteger size = new AtomicInteger();
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		final ReentrantLock lock = new ReentrantLock();
+
+		private final Runnable flushTask = new Runnable() {
+			@Override
+			public void run() {
+				executor.execute(ShardQueue.this);
+			}
+		};
+
+		ShardQueue(Routing routing) {
+			this.routing = routing;
+		}
+
+		void schedule() {
+			if (closed) {
+				flush();
+			} else if (scheduled.compareAndSet(false, true)) {
+				scheduler.schedule(flushTask, flushDelayNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		@Override
+		public void run() {
+			scheduled.set(false);
+			flush();
+		}
+
+		void flush() {
+			lock.lock();
+			try {
+				do {
+					List<Pending<?, ?>> batch = new ArrayList<Pending<?, ?>>(Math.min(size.get(), batchSize));
+					Pending<?, ?> pending;
+					while (batch.size() < batchSize && (pending = commands.poll()) != null) {
+						size.decrementAndGet();
+						batch.add(pending);
+					}
+					if (batch.isEmpty()) {
+						break;
+					}
+					send(batch);
+				} while (size.get() >= batchSize || (closed && size.get() > 0));
+			} finally {
+				lock.unlock();
+			}
+			// 剩余不满一批的命令等待下一次发送
+			if (size.get() > 0 && !closed) {
+				schedule();
+			}
+		}
+
+		private void send(List<Pending<?, ?>> batch) {
+			ShardedJedisPool pool = routing.pool;
+			if (pool != client.getShardedJedisPool()) {
+				// 配置已变更，按新的分片重新排队
+				for (Pending<?, ?> pending : batch) {
+					enqueue(pending);
+				}
+				return;
+			}
+			ShardedJedis jedis = null;
+			try {
+				jedis = pool.getResource();
+				Pipeline pipeline = jedis.getShard(batch.get(0).key).pipelined();
+				for (Pending<?, ?> pending : batch) {
+					pending.enqueue(pipeline);
+				}
+				pipeline.sync();
+				for (Pending<?, ?> pending : batch) {
+					pending.complete();
+				}
+			} catch (RuntimeException e) {
+				if (e instanceof JedisConnectionException && jedis != null) {
+					try {
+						pool.returnBrokenResource(jedis);
+					} catch (Exception ex) {
+						logger.warn("Can not return broken resource.", ex);
+					}
+					jedis = null;
+				}
+				for (Pending<?, ?> pending : batch) {
+					pending.future.setException(new RedisClientException(e));
+				}
+			} finally {
+				if (jedis != null) {
+					try {
+						pool.returnResource(jedis);
+					} catch (Exception ex) {
+						logger.warn("Can not return resource.", ex);
+					}
+				}
+			}
+		}
+	}
+
+	private static final class Pending<A, T> {
+		final String key;
+		final Command<A, T> command;
+		final A arg;
+		final RedisFuture<T> future = new RedisFuture<T>();
+		Response<T> response;
+
+		Pending(String key, Command<A, T> command, A arg) {
+			this.key = key;
+			this.command = command;
+			this.arg = arg;
+		}
+
+		void enqueue(Pipeline pipeline) {
+			response = command.enqueue(pipeline, key, arg);
+		}
+
+		void complete() {
+			try {
+				future.set(response.get());
+			} catch (RuntimeException e) {
+				// 单个命令的错误回复，不影响同一批的其他命令
+				future.setException(new RedisClientException(e));
+			}
+		}
+	}
+}
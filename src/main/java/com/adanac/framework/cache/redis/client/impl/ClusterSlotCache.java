@@ -0,0 +1,154 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 客户端缓存的 slot→master节点 路由表
+ * <p>
+ * 由 CLUSTER SLOTS 的结果构建，按slot下标 O(1) 查找；收到MOVED时直接修正对应slot。
+ * 同时统计过期路由：请求路径上收到的MOVED/ASK次数，以及每次刷新时owner发生变化的slot数。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ClusterSlotCache {
+
+	// redis cluster 固定的slot数
+	public static final int SLOT_COUNT = 16384;
+
+	private volatile AtomicReferenceArray<HostAndPort> slots = new AtomicReferenceArray<HostAndPort>(SLOT_COUNT);
+
+	private volatile boolean loaded;
+
+	private volatile long lastRefreshTime;
+
+	private final AtomicLong refreshCount = new AtomicLong();
+
+	private final AtomicLong refreshFailureCount = new AtomicLong();
+
+	private final AtomicLong movedSlotCount = new AtomicLong();
+
+	private final AtomicLong redirectionCount = new AtomicLong();
+
+	/**
+	 * slot所在的master节点
+	 *
+	 * @param slot
+	 * @return 还没有加载或者这个slot没有分配时为null
+	 */
+	public HostAndPort getNode(int slot) {
+		return slots.get(slot);
+	}
+
+	/**
+	 * 用 CLUSTER SLOTS 的结果替换整个路由表
+	 *
+	 * @param clusterSlots Jedis.clusterSlots() 的返回值
+	 * @param defaultHost 节点地址为空时使用的host (被查询的节点)
+	 * @return owner发生变化的slot数，第一次加载时为0
+	 */
+	public int update(List<Object> clusterSlots, String defaultHost) {
+		AtomicReferenceArray<HostAndPort> table = new AtomicReferenceArray<HostAndPort>(SLOT_COUNT);
+		for (Object item : clusterSlots) {
+			// [start, end, [host, port, id], [replica]...]
+			List<?> range = (List<?>) item;
+			List<?> master = (List<?>) range.get(2);
+			String host = SafeEncoder.encode((byte[]) master.get(0));
+			HostAndPort node = new HostAndPort(host.length() == 0 ? defaultHost : host,
+					((Long) master.get(1)).intValue());
+			int end = ((Long) range.get(1)).intValue();
+			for (int slot = ((Long) range.get(0)).intValue(); slot <= end; slot++) {
+				table.set(slot, node);
+			}
+		}
+		int moved = 0;
+		if (loaded) {
+			AtomicReferenceArray<HostAndPort> old = slots;
+			for (int slot = 0; slot < SLOT_COUNT; slot++) {
+				HostAndPort before = old.get(slot);
+				if (before == null ? table.get(slot) != null : !before.equals(table.get(slot))) {
+					moved++;
+				}
+			}
+		}
+		slots = table;
+		loaded = true;
+		lastRefreshTime = System.currentTimeMillis();
+		refreshCount.incrementAndGet();
+		movedSlotCount.addAndGet(moved);
+		return moved;
+	}
+
+	/**
+	 * 请求收到MOVED，修正这个slot并计为一次过期路由
+	 *
+	 * @param slot
+	 * @param node 新的owner
+	 */
+	public void moved(int slot, HostAndPort node) {
+		slots.set(slot, node);
+		redirectionCount.incrementAndGet();
+	}
+
+	/**
+	 * 请求收到ASK (slot正在迁移)，只计数，不修改路由表
+	 */
+	public void asked() {
+		redirectionCount.incrementAndGet();
+	}
+
+	void refreshFailed() {
+		refreshFailureCount.incrementAndGet();
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * 最近一次成功刷新的时间 毫秒
+	 *
+	 * @return
+	 */
+	public long getLastRefreshTime() {
+		return lastRefreshTime;
+	}
+
+	public long getRefreshCount() {
+		return refreshCount.get();
+	}
+
+	public long getRefreshFailureCount() {
+		return refreshFailureCount.get();
+	}
+
+	/**
+	 * 刷新时发现owner已变化的slot总数
+	 *
+	 * @return
+	 */
+	public long getMovedSlotCount() {
+		return movedSlotCount.get();
+	}
+
+	/**
+	 * 请求路径上收到的 MOVED/ASK 总数
+	 *
+	 * @return
+	 */
+	public long getRedirectionCount() {
+		return redirectionCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ClusterSlotCache [refreshCount=" + refreshCount + ", refreshFailureCount=" + refreshFailureCount
+				+ ", movedSlotCount=" + movedSlotCount + ", redirectionCount=" + redirectionCount
+				+ ", lastRefreshTime=" + lastRefreshTime + "]";
+	}
+}
@@ -0,0 +1,100 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.util.Hashing;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 二进制key也按 keyTagPattern 计算分片的 ShardedJedis
+ * <p>
+ * ShardedJedis 只对字符串key使用tag，二进制key按整个key计算，MyShardedBinaryClient 中 {user:1}:a 与 {user:1}:b
+ * 会落到不同分片。这里把二进制key按UTF-8解码后匹配tag，使两种客户端写入的同一个tag都在同一个分片，
+ * 多key命令可以直接在一个分片上执行。没有tag的key与 ShardedJedis 相同。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class KeyTagShardedJedis extends ShardedJedis {
+
+	private final Pattern tagPattern;
+
+	public KeyTagShardedJedis(List<JedisShardInfo> shards, Hashing algo, Pattern tagPattern) {
+		super(shards, algo, tagPattern);
+		this.tagPattern = tagPattern;
+	}
+
+	@Override
+	public JedisShardInfo getShardInfo(byte[] key) {
+		Matcher m = tagPattern.matcher(SafeEncoder.encode(key));
+		// 字符串key取出tag后也会经过这里，tag本身一般不再匹配
+		return super.getShardInfo(m.find() ? SafeEncoder.encode(m.group(1)) : key);
+	}
+
+	// BinaryShardedJedis 的这个方法返回原始类型 List，覆盖后返回与 BinaryJedisCommands 一致的泛型
+	@Override
+	public List<byte[]> srandmember(byte[] key, int count) {
+		Jedis j = getShard(key);
+		return j.srandmember(key, count);
+	}
+
+	/**
+	 * 创建 KeyTagShardedJedis 的连接池工厂，与 ShardedJedisPool 内部的工厂相同
+	 */
+	static final class Factory implements PooledObjectFactory<ShardedJedis> {
+		private final List<JedisShardInfo> shards;
+		private final Hashing algo;
+		private final Pattern tagPattern;
+
+		Factory(List<JedisShardInfo> shards, Hashing algo, Pattern tagPattern) {
+			this.shards = shards;
+			this.algo = algo;
+			this.tagPattern = tagPattern;
+		}
+
+		public PooledObject<ShardedJedis> makeObject() {
+			return new DefaultPooledObject<ShardedJedis>(new KeyTagShardedJedis(shards, algo, tagPattern));
+		}
+
+		public void destroyObject(PooledObject<ShardedJedis> p) {
+			for (Jedis jedis : p.getObject().getAllShards()) {
+				try {
+					try {
+						jedis.quit();
+					} catch (Exception ignore) {
+					}
+					jedis.disconnect();
+				} catch (Exception ignore) {
+				}
+			}
+		}
+
+		public boolean validateObject(PooledObject<ShardedJedis> p) {
+			try {
+				for (Jedis shard : p.getObject().getAllShards()) {
+					if (!"PONG".equals(shard.ping())) {
+						return false;
+					}
+				}
+				return true;
+			} catch (Exception ex) {
+				return false;
+			}
+		}
+
+		public void activateObject(PooledObject<ShardedJedis> p) {
+		}
+
+		public void passivateObject(PooledObject<ShardedJedis> p) {
+		}
+	}
+}
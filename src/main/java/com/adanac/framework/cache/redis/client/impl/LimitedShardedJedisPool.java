@@ -0,0 +1,155 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.Hashing;
+
+/**
+ * 限制连接数的分片连接池
+ * <p>
+ * 每个 ShardedJedis 在每个分片上各持有一个连接，借出前先取得公平信号量许可，所以每个分片最多 maxConnections 个连接。
+ * 超出的调用按到达顺序排队等待 (不使用 synchronized，等待的线程不占用载体线程)，而不是不断新建连接。
+ * 等待超时抛出 JedisConnectionException。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class LimitedShardedJedisPool extends ShardedJedisPool {
+
+	private final Semaphore permits;
+
+	private final int maxConnections;
+
+	private final long maxWaitMillis;
+
+	// 已借出的实例，重复归还时不会多释放许可
+	private final Set<ShardedJedis> borrowed = Collections
+			.newSetFromMap(new ConcurrentHashMap<ShardedJedis, Boolean>());
+
+	private final AtomicInteger peakBorrowed = new AtomicInteger();
+
+	/**
+	 * @param poolConfig
+	 * @param shards
+	 * @param maxConnections 每个分片最多的连接数
+	 * @param maxWaitMillis 等待连接的最长时间 毫秒
+	 */
+	public LimitedShardedJedisPool(GenericObjectPoolConfig poolConfig, List<JedisShardInfo> shards,
+			int maxConnections, long maxWaitMillis) {
+		this(poolConfig, shards, Hashing.MURMUR_HASH, null, maxConnections, maxWaitMillis);
+	}
+
+	/**
+	 * @param poolConfig
+	 * @param shards
+	 * @param algo 分片的hash算法
+	 * @param keyTagPattern 可以为null
+	 * @param maxConnections 每个分片最多的连接数
+	 * @param maxWaitMillis 等待连接的最长时间 毫秒
+	 */
+	public LimitedShardedJedisPool(GenericObjectPoolConfig poolConfig, List<JedisShardInfo> shards, Hashing algo,
+			Pattern keyTagPattern, int maxConnections, long maxWaitMillis) {
+		super(poolConfig, shards, algo, keyTagPattern);
+		if (maxConnections <= 0) {
+			throw new IllegalArgumentException("maxConnections must be positive");
+		}
+		this.permits = new Semaphore(maxConnections, true);
+		this.maxConnections = maxConnections;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	@Override
+	public ShardedJedis getResource() {
+		try {
+			if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+				throw new JedisConnectionException("Could not get a resource from the pool, waited " + maxWaitMillis
+						+ "ms for one of " + maxConnections + " connections");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisConnectionException("Interrupted while waiting for a resource from the pool", e);
+		}
+		ShardedJedis jedis;
+		try {
+			jedis = super.getResource();
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+		borrowed.add(jedis);
+		int count = borrowed.size();
+		int peak;
+		while ((peak = peakBorrowed.get()) < count && !peakBorrowed.compareAndSet(peak, count)) {
+			// retry
+		}
+		return jedis;
+	}
+
+	@Override
+	public void returnResource(ShardedJedis resource) {
+		try {
+			super.returnResource(resource);
+		} finally {
+			release(resource);
+		}
+	}
+
+	@Override
+	public void returnBrokenResource(ShardedJedis resource) {
+		try {
+			super.returnBrokenResource(resource);
+		} finally {
+			release(resource);
+		}
+	}
+
+	private void release(ShardedJedis resource) {
+		if (resource != null && borrowed.remove(resource)) {
+			permits.release();
+		}
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * 当前借出的连接数
+	 *
+	 * @return
+	 */
+	public int getBorrowedCount() {
+		return borrowed.size();
+	}
+
+	/**
+	 * 借出连接数的峰值
+	 *
+	 * @return
+	 */
+	public int getPeakBorrowedCount() {
+		return peakBorrowed.get();
+	}
+
+	/**
+	 * 正在等待连接的线程数 (估计值)
+	 *
+	 * @return
+	 */
+	public int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+}
@@ -1,11 +1,21 @@
 package com.adanac.framework.cache.redis.client.impl;
 
+import java.io.Serializable;
+
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.codec.Codec;
+import com.adanac.framework.cache.redis.codec.SerializableCodec;
+
 /**
  * 
  * @author adanac
  * @version 1.0
  */
 public class MyBinaryJedisClusterClient extends AbstractClient {
+	// 值编解码
+	private Codec codec = SerializableCodec.INSTANCE;
+
 	public MyJedisCluster getJedisCluster() {
 		return jedisClusterPools.get(this.configPath);
 	}
@@ -22,4 +32,42 @@ public class MyBinaryJedisClusterClient extends AbstractClient {
 		super(configPath, globalConfig);
 	}
 
+	public Codec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * 设置值编解码，默认 SerializableCodec
+	 * @param codec
+	 */
+	public void setCodec(Codec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * 类型化批量命令 (pipeline)，按slot分组并行发送，值使用当前codec
+	 * @return
+	 */
+	public Batch<Serializable> batch() {
+		return getJedisCluster().batch(Batch.SERIALIZABLE_KEYS, codec, ShardExecutor.getDefault());
+	}
+
+	/**
+	 * 按当前codec编码值
+	 * @param value
+	 * @return
+	 */
+	public byte[] encodeValue(Object value) {
+		return codec.encode(value);
+	}
+
+	/**
+	 * 按当前codec解码值
+	 * @param bytes
+	 * @return bytes为null时返回null
+	 */
+	public Object decodeValue(byte[] bytes) {
+		return bytes == null ? null : codec.decode(bytes);
+	}
+
 }
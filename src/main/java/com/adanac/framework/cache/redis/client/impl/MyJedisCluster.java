@@ -1,19 +1,49 @@
 package com.adanac.framework.cache.redis.client.impl;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.BatchResponse;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.codec.Codec;
+import com.adanac.framework.cache.redis.codec.RawCodec;
+import com.adanac.framework.cache.redis.exception.RedisClientException;
 
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
 import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisClusterCommand;
-import redis.clients.jedis.JedisClusterConnectionHandler;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisSlotBasedConnectionHandler;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterMaxRedirectionsException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.JedisClusterCRC16;
 import redis.clients.util.SafeEncoder;
 
 /**
@@ -26,13 +56,27 @@ public class MyJedisCluster extends JedisCluster {
 	protected static final int DEFAULT_TIMEOUT = 2000;
 	protected static final int DEFAULT_MAX_REDIRECTIONS = 5;
 
+	private static final Logger logger = LoggerFactory.getLogger(MyJedisCluster.class);
+
+	private static final ScheduledExecutorService TOPOLOGY_REFRESHER = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "redis-cluster-topology");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
 	public static enum Reset {
 		SOFT, HARD
 	}
 
-	protected int maxRedirections;
+	private final ClusterSlotCache slotCache = new ClusterSlotCache();
 
-	protected JedisClusterConnectionHandler connectionHandler;
+	// 已安排但还没有执行的刷新，合并同时到来的多个刷新请求
+	private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+	private volatile ScheduledFuture<?> refreshTask;
 
 	public MyJedisCluster(Set<HostAndPort> hostAndPort) {
 		super(hostAndPort);
@@ -77,6 +121,378 @@ public class MyJedisCluster extends JedisCluster {
 		}.run(key);
 	}
 
+	/**
+	 * MGET，所有key必须在同一个slot
+	 * @param keys
+	 * @return
+	 */
+	public List<byte[]> mgetBytes(final String... keys) {
+		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxRedirections) {
+
+			public List<byte[]> execute(Jedis connection) {
+				return connection.mget(SafeEncoder.encodeMany(keys));
+			}
+		}.run(keys[0]);
+	}
+
+	/**
+	 * 以pipeline批量SET/SETEX，所有key必须在同一个slot
+	 * @param values
+	 * @param seconds 小于等于0时不过期
+	 */
+	public void setBytes(final Map<String, byte[]> values, final int seconds) {
+		new JedisClusterCommand<Object>(connectionHandler, maxRedirections) {
+
+			public Object execute(Jedis connection) {
+				Pipeline pipeline = connection.pipelined();
+				for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+					byte[] key = SafeEncoder.encode(entry.getKey());
+					if (seconds <= 0) {
+						pipeline.set(key, entry.getValue());
+					} else {
+						pipeline.setex(key, seconds, entry.getValue());
+					}
+				}
+				pipeline.sync();
+				return null;
+			}
+		}.run(values.keySet().iterator().next());
+	}
+
+	/**
+	 * 类型化批量命令，按节点分组，各节点并行以pipeline发送，MOVED/ASK的命令自动重试
+	 * @param keyCodec
+	 * @param codec 值编解码
+	 * @param executor
+	 * @return
+	 */
+	public <K> Batch<K> batch(Batch.KeyCodec<K> keyCodec, Codec codec, ShardExecutor executor) {
+		return new ClusterBatch<K>(keyCodec, codec, executor);
+	}
+
+	/**
+	 * 跨slot的MGET，按节点以pipeline并行读取
+	 * @param keys
+	 * @param executor
+	 * @return 与keys顺序一致，不存在的key为null
+	 */
+	public List<byte[]> mgetBytes(Collection<String> keys, ShardExecutor executor) {
+		Batch<String> batch = batch(Batch.STRING_KEYS, RawCodec.INSTANCE, executor);
+		List<BatchResponse<byte[]>> responses = new ArrayList<BatchResponse<byte[]>>(keys.size());
+		for (String key : keys) {
+			responses.add(batch.<byte[]> get(key));
+		}
+		batch.execute();
+		List<byte[]> values = new ArrayList<byte[]>(responses.size());
+		for (BatchResponse<byte[]> response : responses) {
+			values.add(response.get());
+		}
+		return values;
+	}
+
+	/**
+	 * 跨slot的批量SET/SETEX，按节点以pipeline并行写入
+	 * @param values
+	 * @param seconds 小于等于0时不过期
+	 * @param executor
+	 */
+	public void msetBytes(Map<String, byte[]> values, int seconds, ShardExecutor executor) {
+		Batch<String> batch = batch(Batch.STRING_KEYS, RawCodec.INSTANCE, executor);
+		List<BatchResponse<String>> responses = new ArrayList<BatchResponse<String>>(values.size());
+		for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+			responses.add(seconds <= 0 ? batch.set(entry.getKey(), entry.getValue())
+					: batch.setex(entry.getKey(), seconds, entry.getValue()));
+		}
+		batch.execute();
+		for (BatchResponse<String> response : responses) {
+			// 有命令失败时抛出
+			response.get();
+		}
+	}
+
+	/**
+	 * 集群Batch
+	 * <p>
+	 * 先按slot分组，再按slot所在节点 (本地路由表) 合并，每个节点借一个连接并行发送。收到MOVED的命令修正路由表、
+	 * 刷新slot缓存后重新分组发送，
+	 * 收到ASK的命令先发ASKING再单独发往目标节点 (只在迁移中出现)。连接失败时先同步刷新路由表再重试，
+	 * 刷新失败时重试不使用本地路由表，由Jedis的slot缓存选择连接。最多重试 maxRedirections 次。同一个key的命令总在同一组内，保持登记顺序。
+	 */
+	private class ClusterBatch<K> extends Batch<K> {
+
+		private final ShardExecutor executor;
+
+		ClusterBatch(KeyCodec<K> keyCodec, Codec codec, ShardExecutor executor) {
+			super(keyCodec, codec);
+			this.executor = executor;
+		}
+
+		@Override
+		protected void send(List<Entry<?, ?>> entries) {
+			List<Entry<?, ?>> routed = entries;
+			List<Entry<?, ?>> asked = Collections.emptyList();
+			boolean useSlotCache = true;
+			for (int attempt = 0;; attempt++) {
+				JedisConnectionException error = null;
+				try {
+					sendToNodes(routed, useSlotCache);
+					for (Entry<?, ?> entry : asked) {
+						sendAsking(entry);
+					}
+				} catch (JedisConnectionException e) {
+					error = e;
+				}
+				List<Entry<?, ?>> retry = new ArrayList<Entry<?, ?>>();
+				List<Entry<?, ?>> retryAsked = new ArrayList<Entry<?, ?>>();
+				boolean moved = false;
+				for (List<Entry<?, ?>> sent : Arrays.asList(routed, asked)) {
+					for (Entry<?, ?> entry : sent) {
+						if (entry.isDone()) {
+							continue;
+						}
+						JedisRedirectionException redirection = entry.getRedirection();
+						if (redirection instanceof JedisAskDataException) {
+							slotCache.asked();
+							retryAsked.add(entry);
+						} else {
+							if (redirection != null) {
+								slotCache.moved(redirection.getSlot(), redirection.getTargetNode());
+								moved = true;
+							}
+							retry.add(entry);
+						}
+					}
+				}
+				if (retry.isEmpty() && retryAsked.isEmpty()) {
+					return;
+				}
+				if (attempt >= maxRedirections) {
+					if (error != null) {
+						throw error;
+					}
+					throw new JedisClusterMaxRedirectionsException("Too many Cluster redirections?");
+				}
+				if (!retry.isEmpty()) {
+					connectionHandler.renewSlotCache();
+				}
+				if (error != null) {
+					// 本地路由表仍指向连接失败的节点，异步刷新时重试还会发往这个节点
+					useSlotCache = refreshTopologyQuietly();
+				} else if (moved) {
+					refreshTopologyLater();
+				}
+				routed = retry;
+				asked = retryAsked;
+			}
+		}
+
+		private void sendToNodes(List<Entry<?, ?>> entries, boolean useSlotCache) {
+			if (entries.isEmpty()) {
+				return;
+			}
+			Map<Integer, List<Entry<?, ?>>> slots = new LinkedHashMap<Integer, List<Entry<?, ?>>>();
+			for (Entry<?, ?> entry : entries) {
+				Integer slot = Integer.valueOf(JedisClusterCRC16.getSlot(entry.getKey()));
+				List<Entry<?, ?>> group = slots.get(slot);
+				if (group == null) {
+					group = new ArrayList<Entry<?, ?>>();
+					slots.put(slot, group);
+				}
+				group.add(entry);
+			}
+			Map<HostAndPort, Jedis> connections = new LinkedHashMap<HostAndPort, Jedis>();
+			Map<HostAndPort, List<Entry<?, ?>>> groups = new HashMap<HostAndPort, List<Entry<?, ?>>>();
+			try {
+				for (Map.Entry<Integer, List<Entry<?, ?>>> slot : slots.entrySet()) {
+					// 优先使用本地路由表，还没有加载时由Jedis的slot缓存选择连接
+					HostAndPort node = useSlotCache ? slotCache.getNode(slot.getKey().intValue()) : null;
+					Jedis connection = null;
+					if (node == null) {
+						connection = ((JedisSlotBasedConnectionHandler) connectionHandler)
+								.getConnectionFromSlot(slot.getKey().intValue());
+						node = new HostAndPort(connection.getClient().getHost(), connection.getClient().getPort());
+					}
+					List<Entry<?, ?>> group = groups.get(node);
+					if (group == null) {
+						if (connection == null) {
+							connection = connectionHandler.getConnectionFromNode(node);
+						}
+						group = new ArrayList<Entry<?, ?>>();
+						groups.put(node, group);
+						connections.put(node, connection);
+					} else if (connection != null) {
+						connection.close();
+					}
+					group.addAll(slot.getValue());
+				}
+				List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(connections.size());
+				for (final Map.Entry<HostAndPort, Jedis> node : connections.entrySet()) {
+					final List<Entry<?, ?>> group = groups.get(node.getKey());
+					tasks.add(new Callable<Object>() {
+						public Object call() {
+							sendChunked(node.getValue(), group);
+							return null;
+						}
+					});
+				}
+				executor.invokeAll(tasks);
+			} finally {
+				// invokeAll 返回时所有任务都已结束；断开的连接 close() 时作为broken归还
+				for (Jedis connection : connections.values()) {
+					connection.close();
+				}
+			}
+		}
+
+		private void sendAsking(Entry<?, ?> entry) {
+			Jedis connection = connectionHandler.getConnectionFromNode(entry.getRedirection().getTargetNode());
+			try {
+				connection.asking();
+				sendChunked(connection, Collections.<Entry<?, ?>> singletonList(entry));
+			} finally {
+				connection.close();
+			}
+		}
+	}
+
+	/**
+	 * 本地slot路由表及过期路由统计
+	 * @return
+	 */
+	public ClusterSlotCache getSlotCache() {
+		return slotCache;
+	}
+
+	/**
+	 * 在后台定时刷新slot路由表 (立即执行第一次)
+	 * @param periodMillis 刷新间隔 毫秒
+	 */
+	public synchronized void startTopologyRefresh(long periodMillis) {
+		stopTopologyRefresh();
+		refreshTask = TOPOLOGY_REFRESHER.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				refreshTopologyQuietly();
+			}
+		}, 0, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stopTopologyRefresh() {
+		if (refreshTask != null) {
+			refreshTask.cancel(false);
+			refreshTask = null;
+		}
+	}
+
+	/**
+	 * 从任一可用节点读取 CLUSTER SLOTS 更新路由表；有slot换了节点时同时刷新Jedis的slot缓存
+	 * @return owner发生变化的slot数
+	 */
+	public int refreshTopology() {
+		RuntimeException error = null;
+		for (JedisPool pool : getClusterNodes().values()) {
+			Jedis jedis = null;
+			List<Object> clusterSlots;
+			String host;
+			try {
+				jedis = pool.getResource();
+				clusterSlots = jedis.clusterSlots();
+				host = jedis.getClient().getHost();
+			} catch (RuntimeException e) {
+				error = e;
+				continue;
+			} finally {
+				if (jedis != null) {
+					jedis.close();
+				}
+			}
+			int moved = slotCache.update(clusterSlots, host);
+			if (moved > 0) {
+				connectionHandler.renewSlotCache();
+				logger.info("redis cluster topology changed, " + moved + " slots moved, " + slotCache);
+			}
+			return moved;
+		}
+		slotCache.refreshFailed();
+		throw new RedisClientException("no cluster node available", error);
+	}
+
+	/**
+	 * 请求路径上发现路由过期时调用，在后台线程刷新一次，不阻塞请求
+	 */
+	void refreshTopologyLater() {
+		if (refreshPending.compareAndSet(false, true)) {
+			TOPOLOGY_REFRESHER.execute(new Runnable() {
+				public void run() {
+					refreshPending.set(false);
+					refreshTopologyQuietly();
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return 是否刷新成功
+	 */
+	private boolean refreshTopologyQuietly() {
+		try {
+			refreshTopology();
+			return true;
+		} catch (RuntimeException e) {
+			logger.warn("Fail to refresh redis cluster topology", e);
+			return false;
+		}
+	}
+
+	@Override
+	public void close() {
+		stopTopologyRefresh();
+		try {
+			super.close();
+		} catch (IOException e) {
+			throw new RedisClientException(e);
+		}
+	}
+
+	/**
+	 * 负责slot的master节点，从任一节点的CLUSTER NODES获取
+	 * @return
+	 */
+	public List<JedisPool> getMasterPools() {
+		Map<String, JedisPool> nodes = getClusterNodes();
+		RuntimeException error = null;
+		for (JedisPool pool : nodes.values()) {
+			String clusterNodes;
+			Jedis jedis = null;
+			try {
+				jedis = pool.getResource();
+				clusterNodes = jedis.clusterNodes();
+			} catch (RuntimeException e) {
+				error = e;
+				continue;
+			} finally {
+				if (jedis != null) {
+					jedis.close();
+				}
+			}
+			List<JedisPool> masters = new ArrayList<JedisPool>();
+			for (String line : clusterNodes.split("\n")) {
+				// <id> <ip:port[@cport]> <flags> <master> <ping-sent> <pong-recv> <config-epoch> <link-state> <slot> ...
+				String[] fields = line.trim().split(" ");
+				if (fields.length > 8 && fields[2].contains("master")) {
+					String address = fields[1];
+					int at = address.indexOf('@');
+					JedisPool master = nodes.get(at < 0 ? address : address.substring(0, at));
+					if (master == null) {
+						throw new RedisClientException("master " + address + " is not in the cluster slot cache");
+					}
+					masters.add(master);
+				}
+			}
+			return masters;
+		}
+		throw new RedisClientException("no cluster node available", error);
+	}
+
 	public Boolean setbit(final String key, final long offset, final byte[] value) {
 		return new JedisClusterCommand<Boolean>(connectionHandler, maxRedirections) {
 
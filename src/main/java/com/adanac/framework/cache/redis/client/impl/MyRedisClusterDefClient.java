@@ -1,23 +1,36 @@
 package com.adanac.framework.cache.redis.client.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adanac.framework.cache.redis.client.AsyncExecutor;
+import com.adanac.framework.cache.redis.client.Batch;
 import com.adanac.framework.cache.redis.client.JedisClusterAction;
 import com.adanac.framework.cache.redis.client.JedisClusterClient;
+import com.adanac.framework.cache.redis.client.JedisClusterKeyCommand;
+import com.adanac.framework.cache.redis.client.RedisFuture;
+import com.adanac.framework.cache.redis.client.ScanIterator;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.codec.StringCodec;
 import com.adanac.framework.cache.redis.exception.RedisClientException;
 
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.SortingParams;
 import redis.clients.jedis.Tuple;
-import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
 
 /**
  * 
@@ -27,6 +40,12 @@ import redis.clients.jedis.exceptions.JedisConnectionException;
 public class MyRedisClusterDefClient extends AbstractClient implements JedisClusterClient, JedisClusterAction {
 	private static final Logger logger = LoggerFactory.getLogger(MyRedisClusterDefClient.class);
 
+	// scan按master并行执行
+	private ShardExecutor shardExecutor = ShardExecutor.getDefault();
+
+	// xxxAsync方法的执行线程池
+	private AsyncExecutor asyncExecutor = AsyncExecutor.getDefault();
+
 	public MyRedisClusterDefClient() {
 		super();
 	}
@@ -39,6 +58,14 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		super(configPath, globalConfig);
 	}
 
+	public void setShardExecutor(ShardExecutor shardExecutor) {
+		this.shardExecutor = shardExecutor;
+	}
+
+	public void setAsyncExecutor(AsyncExecutor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
 	@Override
 	public void destroy() {
 		super.destroy();
@@ -46,111 +73,224 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 
 	@Override
 	public <T> T execute(JedisClusterAction<T> action) {
-		MyJedisCluster jedis = null;
-
+		// MyJedisCluster为共享实例，连接由其内部按命令借还，这里不能close
 		try {
-			jedis = getRedisClusterPool();
-			return action.doAction(jedis);
+			return action.doAction(getRedisClusterPool());
 		} catch (RuntimeException e) {
-			if (e instanceof JedisConnectionException) {
-				if (jedis != null) {
-					try {
-						jedis.close();
-					} catch (Exception ex) {
-						logger.warn("Can not return broken resource.", ex);
-					}
-					jedis = null;
-				}
-			}
 			throw new RedisClientException(e);
-		} finally {
-			if (jedis != null) {
-				try {
-					jedis.close();
-				} catch (Exception ex) {
-					logger.warn("Can not return resource.", ex);
-				}
-			}
 		}
 	}
 
-	public String flushDB() {
-		MyJedisCluster jedis = null;
+	/**
+	 * 执行单key命令，command为可复用的无状态实例，调用时不创建对象
+	 */
+	public <K, T> T execute(JedisClusterKeyCommand<K, Void, T> command, K key) {
+		return execute(command, key, null);
+	}
 
+	/**
+	 * 执行单key命令，command为可复用的无状态实例，调用时不创建对象
+	 */
+	public <K, A, T> T execute(JedisClusterKeyCommand<K, A, T> command, K key, A arg) {
 		try {
-			jedis = getRedisClusterPool();
-			return jedis.flushDB();
+			return command.doAction(getRedisClusterPool(), key, arg);
 		} catch (RuntimeException e) {
-			if (e instanceof JedisConnectionException) {
-				if (jedis != null) {
+			throw new RedisClientException(e);
+		}
+	}
+
+	@Override
+	public ScanIterator<String> scan(String pattern, int count) {
+		List<ScanIterator.Source> sources = new ArrayList<ScanIterator.Source>();
+		for (final JedisPool pool : getRedisClusterPool().getMasterPools()) {
+			sources.add(new ScanIterator.Source() {
+				@Override
+				public ScanResult<byte[]> scan(byte[] cursor, ScanParams params) {
+					Jedis jedis = pool.getResource();
 					try {
+						return jedis.scan(cursor, params);
+					} finally {
 						jedis.close();
-					} catch (Exception ex) {
-						logger.warn("Can not return broken resource.", ex);
 					}
-					jedis = null;
-				}
-			}
-			throw new RedisClientException(e);
-		} finally {
-			if (jedis != null) {
-				try {
-					jedis.close();
-				} catch (Exception ex) {
-					logger.warn("Can not return resource.", ex);
 				}
+			});
+		}
+		return new ScanIterator<String>(sources, pattern == null ? null : SafeEncoder.encode(pattern), count,
+				shardExecutor) {
+			@Override
+			protected String decode(byte[] key) {
+				return SafeEncoder.encode(key);
 			}
+		};
+	}
+
+	@Override
+	public Batch<String> batch() {
+		return getRedisClusterPool().batch(Batch.STRING_KEYS, StringCodec.INSTANCE, shardExecutor);
+	}
+
+	/**
+	 * 按节点分组，各节点并行以pipeline读取
+	 */
+	@Override
+	public List<String> mget(final String... keys) {
+		if (keys == null || keys.length == 0) {
+			return new ArrayList<String>(0);
+		}
+		List<byte[]> values;
+		try {
+			values = getRedisClusterPool().mgetBytes(Arrays.asList(keys), shardExecutor);
+		} catch (RuntimeException e) {
+			throw e instanceof RedisClientException ? e : new RedisClientException(e);
+		}
+		List<String> list = new ArrayList<String>(keys.length);
+		for (byte[] value : values) {
+			list.add(value == null ? null : SafeEncoder.encode(value));
 		}
+		return list;
 	}
 
-	// JedisCommands
 	@Override
-	public String set(final String key, final String value) {
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.set(key, value);
+	public RedisFuture<String> getAsync(final String key) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return get(key);
 			}
 		});
 	}
 
 	@Override
-	public String get(final String key) {
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.get(key);
+	public RedisFuture<String> setAsync(final String key, final String value) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return set(key, value);
 			}
 		});
 	}
 
 	@Override
-	public Boolean exists(final String key) {
-		return this.execute(new JedisClusterAction<Boolean>() {
-			public Boolean doAction(MyJedisCluster jedis) {
-				return jedis.exists(key);
+	public RedisFuture<String> setexAsync(final String key, final int seconds, final String value) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return setex(key, seconds, value);
 			}
 		});
 	}
 
 	@Override
-	public Long persist(final String key) {
+	public RedisFuture<Long> delAsync(final String key) {
+		return asyncExecutor.submit(new Callable<Long>() {
+			public Long call() {
+				return del(key);
+			}
+		});
+	}
 
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.persist(key);
+	@Override
+	public RedisFuture<Boolean> existsAsync(final String key) {
+		return asyncExecutor.submit(new Callable<Boolean>() {
+			public Boolean call() {
+				return exists(key);
 			}
 		});
 	}
 
 	@Override
-	public String type(final String key) {
+	public RedisFuture<String> hgetAsync(final String key, final String field) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return hget(key, field);
+			}
+		});
+	}
 
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.type(key);
+	@Override
+	public RedisFuture<List<String>> mgetAsync(final String... keys) {
+		return asyncExecutor.submit(new Callable<List<String>>() {
+			public List<String> call() {
+				return mget(keys);
 			}
 		});
 	}
 
+	@Override
+	public <T> RedisFuture<T> executeAsync(final JedisClusterAction<T> action) {
+		return asyncExecutor.submit(new Callable<T>() {
+			public T call() {
+				return execute(action);
+			}
+		});
+	}
+
+	public String flushDB() {
+		try {
+			return getRedisClusterPool().flushDB();
+		} catch (RuntimeException e) {
+			throw new RedisClientException(e);
+		}
+	}
+
+	// JedisCommands
+	private static final JedisClusterKeyCommand<String, String, String> SET =
+			new JedisClusterKeyCommand<String, String, String>() {
+				public String doAction(MyJedisCluster jedis, String key, String value) {
+					return jedis.set(key, value);
+				}
+			};
+
+	@Override
+	public String set(final String key, final String value) {
+		return this.execute(SET, key, value);
+	}
+
+	private static final JedisClusterKeyCommand<String, Void, String> GET =
+			new JedisClusterKeyCommand<String, Void, String>() {
+				public String doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.get(key);
+				}
+			};
+
+	@Override
+	public String get(final String key) {
+		return this.execute(GET, key);
+	}
+
+	private static final JedisClusterKeyCommand<String, Void, Boolean> EXISTS =
+			new JedisClusterKeyCommand<String, Void, Boolean>() {
+				public Boolean doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.exists(key);
+				}
+			};
+
+	@Override
+	public Boolean exists(final String key) {
+		return this.execute(EXISTS, key);
+	}
+
+	private static final JedisClusterKeyCommand<String, Void, Long> PERSIST =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.persist(key);
+				}
+			};
+
+	@Override
+	public Long persist(final String key) {
+		return this.execute(PERSIST, key);
+	}
+
+	private static final JedisClusterKeyCommand<String, Void, String> TYPE =
+			new JedisClusterKeyCommand<String, Void, String>() {
+				public String doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.type(key);
+				}
+			};
+
+	@Override
+	public String type(final String key) {
+		return this.execute(TYPE, key);
+	}
+
 	@Override
 	public Long expire(final String key, final int seconds) {
 
@@ -171,14 +311,16 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> TTL =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.ttl(key);
+				}
+			};
+
 	@Override
 	public Long ttl(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.ttl(key);
-			}
-		});
+		return this.execute(TTL, key);
 	}
 
 	@Override
@@ -231,24 +373,28 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String, String> GET_SET =
+			new JedisClusterKeyCommand<String, String, String>() {
+				public String doAction(MyJedisCluster jedis, String key, String value) {
+					return jedis.getSet(key, value);
+				}
+			};
+
 	@Override
 	public String getSet(final String key, final String value) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.getSet(key, value);
-			}
-		});
+		return this.execute(GET_SET, key, value);
 	}
 
+	private static final JedisClusterKeyCommand<String, String, Long> SETNX =
+			new JedisClusterKeyCommand<String, String, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String value) {
+					return jedis.setnx(key, value);
+				}
+			};
+
 	@Override
 	public Long setnx(final String key, final String value) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.setnx(key, value);
-			}
-		});
+		return this.execute(SETNX, key, value);
 	}
 
 	@Override
@@ -271,14 +417,16 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> DECR =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.decr(key);
+				}
+			};
+
 	@Override
 	public Long decr(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.decr(key);
-			}
-		});
+		return this.execute(DECR, key);
 	}
 
 	@Override
@@ -291,24 +439,28 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> INCR =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.incr(key);
+				}
+			};
+
 	@Override
 	public Long incr(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.incr(key);
-			}
-		});
+		return this.execute(INCR, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, String, Long> APPEND =
+			new JedisClusterKeyCommand<String, String, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String value) {
+					return jedis.append(key, value);
+				}
+			};
+
 	@Override
 	public Long append(final String key, final String value) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.append(key, value);
-			}
-		});
+		return this.execute(APPEND, key, value);
 	}
 
 	@Override
@@ -331,14 +483,16 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String, String> HGET =
+			new JedisClusterKeyCommand<String, String, String>() {
+				public String doAction(MyJedisCluster jedis, String key, String field) {
+					return jedis.hget(key, field);
+				}
+			};
+
 	@Override
 	public String hget(final String key, final String field) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.hget(key, field);
-			}
-		});
+		return this.execute(HGET, key, field);
 	}
 
 	@Override
@@ -351,24 +505,28 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Map<String, String>, String> HMSET =
+			new JedisClusterKeyCommand<String, Map<String, String>, String>() {
+				public String doAction(MyJedisCluster jedis, String key, Map<String, String> hash) {
+					return jedis.hmset(key, hash);
+				}
+			};
+
 	@Override
 	public String hmset(final String key, final Map<String, String> hash) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.hmset(key, hash);
-			}
-		});
+		return this.execute(HMSET, key, hash);
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], List<String>> HMGET =
+			new JedisClusterKeyCommand<String, String[], List<String>>() {
+				public List<String> doAction(MyJedisCluster jedis, String key, String[] fields) {
+					return jedis.hmget(key, fields);
+				}
+			};
+
 	@Override
 	public List<String> hmget(final String key, final String... fields) {
-
-		return this.execute(new JedisClusterAction<List<String>>() {
-			public List<String> doAction(MyJedisCluster jedis) {
-				return jedis.hmget(key, fields);
-			}
-		});
+		return this.execute(HMGET, key, fields);
 	}
 
 	@Override
@@ -381,94 +539,112 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String, Boolean> HEXISTS =
+			new JedisClusterKeyCommand<String, String, Boolean>() {
+				public Boolean doAction(MyJedisCluster jedis, String key, String field) {
+					return jedis.hexists(key, field);
+				}
+			};
+
 	@Override
 	public Boolean hexists(final String key, final String field) {
-
-		return this.execute(new JedisClusterAction<Boolean>() {
-			public Boolean doAction(MyJedisCluster jedis) {
-				return jedis.hexists(key, field);
-			}
-		});
+		return this.execute(HEXISTS, key, field);
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> HDEL =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] fields) {
+					return jedis.hdel(key, fields);
+				}
+			};
+
 	@Override
 	public Long hdel(final String key, final String... fields) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.hdel(key, fields);
-			}
-		});
+		return this.execute(HDEL, key, fields);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> HLEN =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.hlen(key);
+				}
+			};
+
 	@Override
 	public Long hlen(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.hlen(key);
-			}
-		});
+		return this.execute(HLEN, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Set<String>> HKEYS =
+			new JedisClusterKeyCommand<String, Void, Set<String>>() {
+				public Set<String> doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.hkeys(key);
+				}
+			};
+
 	@Override
 	public Set<String> hkeys(final String key) {
-
-		return this.execute(new JedisClusterAction<Set<String>>() {
-			public Set<String> doAction(MyJedisCluster jedis) {
-				return jedis.hkeys(key);
-			}
-		});
+		return this.execute(HKEYS, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, List<String>> HVALS =
+			new JedisClusterKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.hvals(key);
+				}
+			};
+
 	@Override
 	public List<String> hvals(final String key) {
-
-		return this.execute(new JedisClusterAction<List<String>>() {
-			public List<String> doAction(MyJedisCluster jedis) {
-				return jedis.hvals(key);
-			}
-		});
+		return this.execute(HVALS, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Map<String, String>> HGET_ALL =
+			new JedisClusterKeyCommand<String, Void, Map<String, String>>() {
+				public Map<String, String> doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.hgetAll(key);
+				}
+			};
+
 	@Override
 	public Map<String, String> hgetAll(final String key) {
-
-		return this.execute(new JedisClusterAction<Map<String, String>>() {
-			public Map<String, String> doAction(MyJedisCluster jedis) {
-				return jedis.hgetAll(key);
-			}
-		});
+		return this.execute(HGET_ALL, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> RPUSH =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] values) {
+					return jedis.rpush(key, values);
+				}
+			};
+
 	@Override
 	public Long rpush(final String key, final String... values) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.rpush(key, values);
-			}
-		});
+		return this.execute(RPUSH, key, values);
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> LPUSH =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] values) {
+					return jedis.lpush(key, values);
+				}
+			};
+
 	@Override
 	public Long lpush(final String key, final String... values) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.lpush(key, values);
-			}
-		});
+		return this.execute(LPUSH, key, values);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> LLEN =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.llen(key);
+				}
+			};
+
 	@Override
 	public Long llen(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.llen(key);
-			}
-		});
+		return this.execute(LLEN, key);
 	}
 
 	@Override
@@ -521,104 +697,124 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, String> LPOP =
+			new JedisClusterKeyCommand<String, Void, String>() {
+				public String doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.lpop(key);
+				}
+			};
+
 	@Override
 	public String lpop(final String key) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.lpop(key);
-			}
-		});
+		return this.execute(LPOP, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, String> RPOP =
+			new JedisClusterKeyCommand<String, Void, String>() {
+				public String doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.rpop(key);
+				}
+			};
+
 	@Override
 	public String rpop(final String key) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.rpop(key);
-			}
-		});
+		return this.execute(RPOP, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> SADD =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] members) {
+					return jedis.sadd(key, members);
+				}
+			};
+
 	@Override
 	public Long sadd(final String key, final String... members) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.sadd(key, members);
-			}
-		});
+		return this.execute(SADD, key, members);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Set<String>> SMEMBERS =
+			new JedisClusterKeyCommand<String, Void, Set<String>>() {
+				public Set<String> doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.smembers(key);
+				}
+			};
+
 	@Override
 	public Set<String> smembers(final String key) {
-
-		return this.execute(new JedisClusterAction<Set<String>>() {
-			public Set<String> doAction(MyJedisCluster jedis) {
-				return jedis.smembers(key);
-			}
-		});
+		return this.execute(SMEMBERS, key);
 	}
 
-	@Override
-	public Long srem(final String key, final String... members) {
+	private static final JedisClusterKeyCommand<String, String[], Long> SREM =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] members) {
+					return jedis.srem(key, members);
+				}
+			};
 
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.srem(key, members);
-			}
-		});
+	@Override
+	public Long srem(final String key, final String... members) {
+		return this.execute(SREM, key, members);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, String> SPOP =
+			new JedisClusterKeyCommand<String, Void, String>() {
+				public String doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.spop(key);
+				}
+			};
+
 	@Override
 	public String spop(final String key) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.spop(key);
-			}
-		});
+		return this.execute(SPOP, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> SCARD =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.scard(key);
+				}
+			};
+
 	@Override
 	public Long scard(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.scard(key);
-			}
-		});
+		return this.execute(SCARD, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, String, Boolean> SISMEMBER =
+			new JedisClusterKeyCommand<String, String, Boolean>() {
+				public Boolean doAction(MyJedisCluster jedis, String key, String member) {
+					return jedis.sismember(key, member);
+				}
+			};
+
 	@Override
 	public Boolean sismember(final String key, final String member) {
-
-		return this.execute(new JedisClusterAction<Boolean>() {
-			public Boolean doAction(MyJedisCluster jedis) {
-				return jedis.sismember(key, member);
-			}
-		});
+		return this.execute(SISMEMBER, key, member);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, String> SRANDMEMBER =
+			new JedisClusterKeyCommand<String, Void, String>() {
+				public String doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.srandmember(key);
+				}
+			};
+
 	@Override
 	public String srandmember(final String key) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.srandmember(key);
-			}
-		});
+		return this.execute(SRANDMEMBER, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> STRLEN =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.strlen(key);
+				}
+			};
+
 	@Override
 	public Long strlen(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.strlen(key);
-			}
-		});
+		return this.execute(STRLEN, key);
 	}
 
 	@Override
@@ -631,14 +827,16 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Map<String, Double>, Long> ZADD =
+			new JedisClusterKeyCommand<String, Map<String, Double>, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Map<String, Double> scoreMembers) {
+					return jedis.zadd(key, scoreMembers);
+				}
+			};
+
 	@Override
 	public Long zadd(final String key, final Map<String, Double> scoreMembers) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.zadd(key, scoreMembers);
-			}
-		});
+		return this.execute(ZADD, key, scoreMembers);
 	}
 
 	@Override
@@ -651,14 +849,16 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> ZREM =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] members) {
+					return jedis.zrem(key, members);
+				}
+			};
+
 	@Override
 	public Long zrem(final String key, final String... members) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.zrem(key, members);
-			}
-		});
+		return this.execute(ZREM, key, members);
 	}
 
 	@Override
@@ -671,24 +871,28 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String, Long> ZRANK =
+			new JedisClusterKeyCommand<String, String, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String member) {
+					return jedis.zrank(key, member);
+				}
+			};
+
 	@Override
 	public Long zrank(final String key, final String member) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.zrank(key, member);
-			}
-		});
+		return this.execute(ZRANK, key, member);
 	}
 
+	private static final JedisClusterKeyCommand<String, String, Long> ZREVRANK =
+			new JedisClusterKeyCommand<String, String, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String member) {
+					return jedis.zrevrank(key, member);
+				}
+			};
+
 	@Override
 	public Long zrevrank(final String key, final String member) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.zrevrank(key, member);
-			}
-		});
+		return this.execute(ZREVRANK, key, member);
 	}
 
 	@Override
@@ -721,44 +925,52 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> ZCARD =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.zcard(key);
+				}
+			};
+
 	@Override
 	public Long zcard(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.zcard(key);
-			}
-		});
+		return this.execute(ZCARD, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, String, Double> ZSCORE =
+			new JedisClusterKeyCommand<String, String, Double>() {
+				public Double doAction(MyJedisCluster jedis, String key, String member) {
+					return jedis.zscore(key, member);
+				}
+			};
+
 	@Override
 	public Double zscore(final String key, final String member) {
-
-		return this.execute(new JedisClusterAction<Double>() {
-			public Double doAction(MyJedisCluster jedis) {
-				return jedis.zscore(key, member);
-			}
-		});
+		return this.execute(ZSCORE, key, member);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, List<String>> SORT =
+			new JedisClusterKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.sort(key);
+				}
+			};
+
 	@Override
 	public List<String> sort(final String key) {
-
-		return this.execute(new JedisClusterAction<List<String>>() {
-			public List<String> doAction(MyJedisCluster jedis) {
-				return jedis.sort(key);
-			}
-		});
+		return this.execute(SORT, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, SortingParams, List<String>> SORT_SORTING_PARAMETERS =
+			new JedisClusterKeyCommand<String, SortingParams, List<String>>() {
+				public List<String> doAction(MyJedisCluster jedis, String key, SortingParams sortingParameters) {
+					return jedis.sort(key, sortingParameters);
+				}
+			};
+
 	@Override
 	public List<String> sort(final String key, final SortingParams sortingParameters) {
-
-		return this.execute(new JedisClusterAction<List<String>>() {
-			public List<String> doAction(MyJedisCluster jedis) {
-				return jedis.sort(key, sortingParameters);
-			}
-		});
+		return this.execute(SORT_SORTING_PARAMETERS, key, sortingParameters);
 	}
 
 	@Override
@@ -990,64 +1202,76 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> LPUSHX =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] strings) {
+					return jedis.lpushx(key, strings);
+				}
+			};
+
 	@Override
 	public Long lpushx(final String key, final String... strings) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.lpushx(key, strings);
-			}
-		});
+		return this.execute(LPUSHX, key, strings);
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> RPUSHX =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] strings) {
+					return jedis.rpushx(key, strings);
+				}
+			};
+
 	@Override
 	public Long rpushx(final String key, final String... strings) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.rpushx(key, strings);
-			}
-		});
+		return this.execute(RPUSHX, key, strings);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, List<String>> BLPOP =
+			new JedisClusterKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.blpop(key);
+				}
+			};
+
 	@Override
 	public List<String> blpop(final String key) {
-
-		return this.execute(new JedisClusterAction<List<String>>() {
-			public List<String> doAction(MyJedisCluster jedis) {
-				return jedis.blpop(key);
-			}
-		});
+		return this.execute(BLPOP, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, List<String>> BRPOP =
+			new JedisClusterKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.brpop(key);
+				}
+			};
+
 	@Override
 	public List<String> brpop(final String key) {
-
-		return this.execute(new JedisClusterAction<List<String>>() {
-			public List<String> doAction(MyJedisCluster jedis) {
-				return jedis.brpop(key);
-			}
-		});
+		return this.execute(BRPOP, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> DEL =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.del(key);
+				}
+			};
+
 	@Override
 	public Long del(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.del(key);
-			}
-		});
+		return this.execute(DEL, key);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, String> ECHO =
+			new JedisClusterKeyCommand<String, Void, String>() {
+				public String doAction(MyJedisCluster jedis, String message, Void arg) {
+					return jedis.echo(message);
+				}
+			};
+
 	@Override
 	public String echo(final String message) {
-
-		return this.execute(new JedisClusterAction<String>() {
-			public String doAction(MyJedisCluster jedis) {
-				return jedis.echo(message);
-			}
-		});
+		return this.execute(ECHO, message);
 	}
 
 	@Override
@@ -1060,14 +1284,16 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> BITCOUNT =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.bitcount(key);
+				}
+			};
+
 	@Override
 	public Long bitcount(final String key) {
-
-		return this.execute(new JedisClusterAction<Long>() {
-			public Long doAction(MyJedisCluster jedis) {
-				return jedis.bitcount(key);
-			}
-		});
+		return this.execute(BITCOUNT, key);
 	}
 
 	@Override
@@ -1113,34 +1339,40 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String, ScanResult<Entry<String, String>>> HSCAN =
+			new JedisClusterKeyCommand<String, String, ScanResult<Entry<String, String>>>() {
+				public ScanResult<Entry<String, String>> doAction(MyJedisCluster jedis, String key, String cursor) {
+					return jedis.hscan(key, cursor);
+				}
+			};
+
 	@Override
 	public ScanResult<Entry<String, String>> hscan(final String key, final String cursor) {
-
-		return this.execute(new JedisClusterAction<ScanResult<Entry<String, String>>>() {
-			public ScanResult<Entry<String, String>> doAction(MyJedisCluster jedis) {
-				return jedis.hscan(key, cursor);
-			}
-		});
+		return this.execute(HSCAN, key, cursor);
 	}
 
+	private static final JedisClusterKeyCommand<String, String, ScanResult<String>> SSCAN =
+			new JedisClusterKeyCommand<String, String, ScanResult<String>>() {
+				public ScanResult<String> doAction(MyJedisCluster jedis, String key, String cursor) {
+					return jedis.sscan(key, cursor);
+				}
+			};
+
 	@Override
 	public ScanResult<String> sscan(final String key, final String cursor) {
-
-		return this.execute(new JedisClusterAction<ScanResult<String>>() {
-			public ScanResult<String> doAction(MyJedisCluster jedis) {
-				return jedis.sscan(key, cursor);
-			}
-		});
+		return this.execute(SSCAN, key, cursor);
 	}
 
+	private static final JedisClusterKeyCommand<String, String, ScanResult<Tuple>> ZSCAN =
+			new JedisClusterKeyCommand<String, String, ScanResult<Tuple>>() {
+				public ScanResult<Tuple> doAction(MyJedisCluster jedis, String key, String cursor) {
+					return jedis.zscan(key, cursor);
+				}
+			};
+
 	@Override
 	public ScanResult<Tuple> zscan(final String key, final String cursor) {
-
-		return this.execute(new JedisClusterAction<ScanResult<Tuple>>() {
-			public ScanResult<Tuple> doAction(MyJedisCluster jedis) {
-				return jedis.zscan(key, cursor);
-			}
-		});
+		return this.execute(ZSCAN, key, cursor);
 	}
 
 	private static String[] mapToArray(Map<String, String> map) {
@@ -1159,99 +1391,153 @@ public class MyRedisClusterDefClient extends AbstractClient implements JedisClus
 	}
 
 	@Override
-	public String set(String key, String value, String nxxx, String expx, long time) {
-		// TODO Auto-generated method stub
-		return null;
+	public String set(final String key, final String value, final String nxxx, final String expx, final long time) {
+		return this.execute(new JedisClusterAction<String>() {
+			public String doAction(MyJedisCluster jedis) {
+				return jedis.set(key, value, nxxx, expx, time);
+			}
+		});
 	}
 
 	@Override
-	public Long pexpire(String key, long milliseconds) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pexpire(final String key, final long milliseconds) {
+		return this.execute(new JedisClusterAction<Long>() {
+			public Long doAction(MyJedisCluster jedis) {
+				return jedis.pexpire(key, milliseconds);
+			}
+		});
 	}
 
 	@Override
-	public Long pexpireAt(String key, long millisecondsTimestamp) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pexpireAt(final String key, final long millisecondsTimestamp) {
+		return this.execute(new JedisClusterAction<Long>() {
+			public Long doAction(MyJedisCluster jedis) {
+				return jedis.pexpireAt(key, millisecondsTimestamp);
+			}
+		});
 	}
 
 	@Override
-	public Double incrByFloat(String key, double value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Double incrByFloat(final String key, final double value) {
+		return this.execute(new JedisClusterAction<Double>() {
+			public Double doAction(MyJedisCluster jedis) {
+				return jedis.incrByFloat(key, value);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> spop(String key, long count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> spop(final String key, final long count) {
+		return this.execute(new JedisClusterAction<Set<String>>() {
+			public Set<String> doAction(MyJedisCluster jedis) {
+				return jedis.spop(key, count);
+			}
+		});
 	}
 
 	@Override
-	public List<String> srandmember(String key, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> srandmember(final String key, final int count) {
+		return this.execute(new JedisClusterAction<List<String>>() {
+			public List<String> doAction(MyJedisCluster jedis) {
+				return jedis.srandmember(key, count);
+			}
+		});
 	}
 
 	@Override
-	public Long zlexcount(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zlexcount(final String key, final String min, final String max) {
+		return this.execute(new JedisClusterAction<Long>() {
+			public Long doAction(MyJedisCluster jedis) {
+				return jedis.zlexcount(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByLex(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByLex(final String key, final String min, final String max) {
+		return this.execute(new JedisClusterAction<Set<String>>() {
+			public Set<String> doAction(MyJedisCluster jedis) {
+				return jedis.zrangeByLex(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByLex(String key, String min, String max, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByLex(final String key, final String min, final String max, final int offset, final int count) {
+		return this.execute(new JedisClusterAction<Set<String>>() {
+			public Set<String> doAction(MyJedisCluster jedis) {
+				return jedis.zrangeByLex(key, min, max, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByLex(String key, String max, String min) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByLex(final String key, final String max, final String min) {
+		return this.execute(new JedisClusterAction<Set<String>>() {
+			public Set<String> doAction(MyJedisCluster jedis) {
+				return jedis.zrevrangeByLex(key, max, min);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByLex(final String key, final String max, final String min, final int offset, final int count) {
+		return this.execute(new JedisClusterAction<Set<String>>() {
+			public Set<String> doAction(MyJedisCluster jedis) {
+				return jedis.zrevrangeByLex(key, max, min, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Long zremrangeByLex(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zremrangeByLex(final String key, final String min, final String max) {
+		return this.execute(new JedisClusterAction<Long>() {
+			public Long doAction(MyJedisCluster jedis) {
+				return jedis.zremrangeByLex(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public List<String> blpop(int timeout, String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> blpop(final int timeout, final String key) {
+		return this.execute(new JedisClusterAction<List<String>>() {
+			public List<String> doAction(MyJedisCluster jedis) {
+				return jedis.blpop(timeout, key);
+			}
+		});
 	}
 
 	@Override
-	public List<String> brpop(int timeout, String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> brpop(final int timeout, final String key) {
+		return this.execute(new JedisClusterAction<List<String>>() {
+			public List<String> doAction(MyJedisCluster jedis) {
+				return jedis.brpop(timeout, key);
+			}
+		});
 	}
 
+	private static final JedisClusterKeyCommand<String, String[], Long> PFADD =
+			new JedisClusterKeyCommand<String, String[], Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, String[] elements) {
+					return jedis.pfadd(key, elements);
+				}
+			};
+
 	@Override
-	public Long pfadd(String key, String... elements) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pfadd(final String key, final String... elements) {
+		return this.execute(PFADD, key, elements);
 	}
 
+	private static final JedisClusterKeyCommand<String, Void, Long> PFCOUNT =
+			new JedisClusterKeyCommand<String, Void, Long>() {
+				public Long doAction(MyJedisCluster jedis, String key, Void arg) {
+					return jedis.pfcount(key);
+				}
+			};
+
 	@Override
-	public long pfcount(String key) {
-		// TODO Auto-generated method stub
-		return 0;
+	public long pfcount(final String key) {
+		return this.execute(PFCOUNT, key);
 	}
 
 	@Override
@@ -1,7 +1,9 @@
 package com.adanac.framework.cache.redis.client.impl;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -10,20 +12,32 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adanac.framework.cache.redis.client.AsyncExecutor;
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.RedisFuture;
+import com.adanac.framework.cache.redis.client.ScanIterator;
+import com.adanac.framework.cache.redis.client.FanOutResult;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
 import com.adanac.framework.cache.redis.client.ShardedBinaryClient;
 import com.adanac.framework.cache.redis.client.ShardedJedisAction;
+import com.adanac.framework.cache.redis.client.ShardedKeyCommand;
 import com.adanac.framework.cache.redis.client.ShardedJedisPipelineAction;
+import com.adanac.framework.cache.redis.codec.Codec;
+import com.adanac.framework.cache.redis.codec.SerializableCodec;
 import com.adanac.framework.cache.redis.exception.RedisClientException;
 import com.adanac.framework.cache.redis.util.Serializer;
 
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.MultiKeyBinaryCommands;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.ShardedJedis;
 import redis.clients.jedis.ShardedJedisPipeline;
@@ -32,6 +46,7 @@ import redis.clients.jedis.SortingParams;
 import redis.clients.jedis.Tuple;
 import redis.clients.jedis.ZParams;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
 
 /**
  * 
@@ -45,6 +60,21 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	private String shardName;
 
+	// 值编解码，key和hash field固定使用Serializer
+	private Codec codec = SerializableCodec.INSTANCE;
+
+	// 批量命令按分片并行执行
+	private ShardExecutor shardExecutor = ShardExecutor.getDefault();
+
+	// xxxAsync方法的执行线程池
+	private AsyncExecutor asyncExecutor = AsyncExecutor.getDefault();
+
+	private static final int SET_INTER = 0;
+	private static final int SET_UNION = 1;
+	private static final int SET_DIFF = 2;
+
+	private static final ScanParams SCAN_PARAMS = new ScanParams().count(1000);
+
 	public MyShardedBinaryClient() {
 		super();
 
@@ -64,6 +94,42 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 		super.destroy();
 	}
 
+	public Codec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * 设置值编解码，默认 SerializableCodec
+	 * @param codec
+	 */
+	public void setCodec(Codec codec) {
+		this.codec = codec;
+	}
+
+	public void setShardExecutor(ShardExecutor shardExecutor) {
+		this.shardExecutor = shardExecutor;
+	}
+
+	public void setAsyncExecutor(AsyncExecutor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * 共享连接池、使用指定值编解码的客户端
+	 * @param codec
+	 * @return
+	 */
+	public MyShardedBinaryClient withCodec(Codec codec) {
+		MyShardedBinaryClient client = new MyShardedBinaryClient();
+		client.configPath = this.configPath;
+		client.globalConfig = this.globalConfig;
+		client.redisConfigNode = this.redisConfigNode;
+		client.setCodec(codec);
+		client.setShardExecutor(shardExecutor);
+		client.setAsyncExecutor(asyncExecutor);
+		return client;
+	}
+
 	public ShardedJedis getShardedJedis() {
 		ShardedJedisPool pool = getShardedJedisPool();
 		ShardedJedis jedis = null;
@@ -102,24 +168,36 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 		}
 	}
 
-	public ShardedJedisPipeline getPipeline() {
-		ShardedJedisPipeline pipeline = getShardedJedis().pipelined();
-		return pipeline;
+	/**
+	 * 执行单key命令，command为可复用的无状态实例，调用时不创建对象
+	 */
+	public <K, T> T execute(ShardedKeyCommand<K, Void, T> command, K key) {
+		return execute(command, key, null);
 	}
 
 	/**
-	 * 功能描述: <br>  PIPELINE处理
-	 * 
+	 * 执行单key命令，command为可复用的无状态实例，调用时不创建对象
 	 */
-	public <T> List<T> execute(Object inParam, ShardedJedisPipelineAction<T> action) {
-		ShardedJedisPool pool = getShardedJedisPool();
+	public <K, A, T> T execute(ShardedKeyCommand<K, A, T> command, K key, A arg) {
+		T result = execute(getShardedJedisPool(), command, key, arg);
+		if (result == null) {
+			// 分片迁移窗口内，只读命令从旧分片再读一次
+			if (command == getCommand || command == hgetCommand) {
+				return readMoved(command, key, arg, encode((Serializable) key));
+			}
+			if (command == GET_STRING || command == HGET_STRING) {
+				return readMoved(command, key, arg, (String) key);
+			}
+		}
+		return result;
+	}
+
+	private <K, A, T> T execute(ShardedJedisPool pool, ShardedKeyCommand<K, A, T> command, K key, A arg) {
 		ShardedJedis jedis = null;
-		ShardedJedisPipeline pipeline;
+
 		try {
 			jedis = pool.getResource();
-			pipeline = jedis.pipelined();
-			return action.doAction(pipeline, inParam);
-
+			return command.doAction(jedis, key, arg);
 		} catch (RuntimeException e) {
 			if (e instanceof JedisConnectionException) {
 				if (jedis != null) {
@@ -143,46 +221,40 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 		}
 	}
 
-	public String flushDB() {
-		ShardedJedisPool pool = getShardedJedisPool();
-		ShardedJedis shardedJedis = null;
+	public ShardedJedisPipeline getPipeline() {
+		ShardedJedisPipeline pipeline = getShardedJedis().pipelined();
+		return pipeline;
+	}
 
+	/**
+	 * 功能描述: <br>  PIPELINE处理
+	 * 
+	 */
+	public <T> List<T> execute(Object inParam, ShardedJedisPipelineAction<T> action) {
+		ShardedJedisPool pool = getShardedJedisPool();
+		ShardedJedis jedis = null;
+		ShardedJedisPipeline pipeline;
 		try {
-			shardedJedis = pool.getResource();
-			Collection<Jedis> allShards = shardedJedis.getAllShards();
-			final CountDownLatch endSignal = new CountDownLatch(allShards.size());
-			for (final Jedis jedis : allShards) {
-				// 多线程同时flushDB 提高效率
-				new Thread(new Runnable() {
-					@Override
-					public void run() {
-						jedis.flushDB();
-						endSignal.countDown();
-					}
-				}).start();
-			}
-			try {
-				endSignal.await();
-			} catch (InterruptedException e) {
-				throw new RedisClientException(e);
-			}
-			return "OK";
+			jedis = pool.getResource();
+			pipeline = jedis.pipelined();
+			return action.doAction(pipeline, inParam);
+
 		} catch (RuntimeException e) {
 			if (e instanceof JedisConnectionException) {
-				if (shardedJedis != null) {
+				if (jedis != null) {
 					try {
-						pool.returnBrokenResource(shardedJedis);
+						pool.returnBrokenResource(jedis);
 					} catch (Exception ex) {
-						throw new RedisClientException(ex);
+						logger.warn("Can not return broken resource.", ex);
 					}
-					shardedJedis = null;
+					jedis = null;
 				}
 			}
 			throw new RedisClientException(e);
 		} finally {
-			if (shardedJedis != null) {
+			if (jedis != null) {
 				try {
-					pool.returnResource(shardedJedis);
+					pool.returnResource(jedis);
 				} catch (Exception ex) {
 					logger.warn("Can not return resource.", ex);
 				}
@@ -190,46 +262,81 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 		}
 	}
 
+	/**
+	 * 所有分片并行 FLUSHDB ASYNC (redis 4.0 以前为FLUSHDB)
+	 */
+	public String flushDB() {
+		return flushDB(0);
+	}
+
+	public String flushDB(int dbIndex) {
+		flushDB(dbIndex, FLUSH_TIMEOUT).getOrThrow();
+		return "OK";
+	}
+
+	/**
+	 * 所有分片并行 FLUSHDB ASYNC，返回每个分片的结果和错误，不抛出单个分片的异常
+	 *
+	 * @param dbIndex
+	 * @param timeoutMillis 超时后不再等待，未完成的分片记为超时错误
+	 * @return
+	 */
+	public FanOutResult<String> flushDB(int dbIndex, long timeoutMillis) {
+		try {
+			return flushShards(dbIndex, true, timeoutMillis, shardExecutor);
+		} catch (RuntimeException e) {
+			throw e instanceof RedisClientException ? e : new RedisClientException(e);
+		}
+	}
+
+	private final ShardedKeyCommand<Serializable, Serializable, String> setCommand =
+			new ShardedKeyCommand<Serializable, Serializable, String>() {
+				public String doAction(ShardedJedis jedis, Serializable key, Serializable value) {
+					return jedis.set(encode(key), encodeValue(value));
+				}
+			};
+
 	@Override
 	public String set(final Serializable key, final Serializable value) {
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.set(encode(key), encode(value));
-			}
-		});
-
+		evictMoved(encode(key));
+		return this.execute(setCommand, key, value);
 	}
 
 	@Override
 	public String setex(final Serializable key, final int time, final Serializable value) {
+		evictMoved(encode(key));
 		return this.execute(new ShardedJedisAction<String>() {
 			public String doAction(ShardedJedis jedis) {
-				return jedis.setex(encode(key), time, encode(value));
+				return jedis.setex(encode(key), time, encodeValue(value));
 			}
 		});
 
 	}
 
+	private final ShardedKeyCommand<Serializable, Void, Object> getCommand =
+			new ShardedKeyCommand<Serializable, Void, Object>() {
+				public Object doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					byte[] result = jedis.get(encode(key));
+					return decodeValue(result);
+				}
+			};
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends Serializable> T get(final Serializable key) {
-		return this.execute(new ShardedJedisAction<T>() {
-			public T doAction(ShardedJedis jedis) {
-				byte[] result = jedis.get(encode(key));
-				return (T) convertType(result);
-			}
-		});
-
+		return (T) this.execute(getCommand, key);
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Long> DECR =
+			new ShardedKeyCommand<Serializable, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.decr(encode(key));
+				}
+			};
+
 	@Override
 	public Long decr(final Serializable key) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.decr(encode(key));
-			}
-		});
-
+		return this.execute(DECR, key);
 	}
 
 	@Override
@@ -242,14 +349,16 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Long> INCR =
+			new ShardedKeyCommand<Serializable, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.incr(encode(key));
+				}
+			};
+
 	@Override
 	public Long incr(final Serializable key) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.incr(encode(key));
-			}
-		});
-
+		return this.execute(INCR, key);
 	}
 
 	@Override
@@ -262,22 +371,23 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Boolean> EXISTS =
+			new ShardedKeyCommand<Serializable, Void, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.exists(encode(key));
+				}
+			};
+
 	@Override
 	public boolean exists(final Serializable key) {
-
-		return this.execute(new ShardedJedisAction<Boolean>() {
-			public Boolean doAction(ShardedJedis jedis) {
-				return jedis.exists(encode(key));
-			}
-		});
-
+		return this.execute(EXISTS, key);
 	}
 
 	@Override
 	public Long hset(final Serializable key, final Serializable field, final Serializable value) {
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
-				return jedis.hset(encode(key), encode(field), encode(value));
+				return jedis.hset(encode(key), encode(field), encodeValue(value));
 			}
 		});
 
@@ -287,38 +397,42 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 	public Long hsetnx(final Serializable key, final Serializable field, final Serializable value) {
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
-				return jedis.hsetnx(encode(key), encode(field), encode(value));
+				return jedis.hsetnx(encode(key), encode(field), encodeValue(value));
 			}
 		});
 
 	}
 
+	private final ShardedKeyCommand<Serializable, Serializable, Object> hgetCommand =
+			new ShardedKeyCommand<Serializable, Serializable, Object>() {
+				public Object doAction(ShardedJedis jedis, Serializable key, Serializable field) {
+					byte[] result = jedis.hget(encode(key), encode(field));
+					return decodeValue(result);
+				}
+			};
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends Serializable> T hget(final Serializable key, final Serializable field) {
-		return this.execute(new ShardedJedisAction<T>() {
-			public T doAction(ShardedJedis jedis) {
-				byte[] result = jedis.hget(encode(key), encode(field));
-				return (T) convertType(result);
-			}
-		});
-
+		return (T) this.execute(hgetCommand, key, field);
 	}
 
-	@Override
-	public String hmset(final Serializable key, final Map<Serializable, Serializable> hash) {
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				Map<byte[], byte[]> values = new LinkedHashMap<byte[], byte[]>();
-				Iterator<Map.Entry<Serializable, Serializable>> it = hash.entrySet().iterator();
-				while (it.hasNext()) {
-					Map.Entry<Serializable, Serializable> entry = it.next();
-					values.put(encode(entry.getKey()), encode(entry.getValue()));
+	private final ShardedKeyCommand<Serializable, Map<Serializable, Serializable>, String> hmsetCommand =
+			new ShardedKeyCommand<Serializable, Map<Serializable, Serializable>, String>() {
+				public String doAction(ShardedJedis jedis, Serializable key, Map<Serializable, Serializable> hash) {
+					Map<byte[], byte[]> values = new LinkedHashMap<byte[], byte[]>();
+					Iterator<Map.Entry<Serializable, Serializable>> it = hash.entrySet().iterator();
+					while (it.hasNext()) {
+						Map.Entry<Serializable, Serializable> entry = it.next();
+						values.put(encode(entry.getKey()), encodeValue(entry.getValue()));
+					}
+					return jedis.hmset(encode(key), values);
 				}
-				return jedis.hmset(encode(key), values);
-			}
-		});
+			};
 
+	@Override
+	public String hmset(final Serializable key, final Map<Serializable, Serializable> hash) {
+		return this.execute(hmsetCommand, key, hash);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -333,7 +447,7 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				}
 				List<byte[]> result = jedis.hmget(encode(key), paramByte);
 				for (byte[] bs : result) {
-					resultList.add((T) convertType(bs));
+					resultList.add((T) decodeValue(bs));
 				}
 				return resultList;
 			}
@@ -351,24 +465,28 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
+	private static final ShardedKeyCommand<Serializable, Serializable, Boolean> HEXISTS =
+			new ShardedKeyCommand<Serializable, Serializable, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, Serializable key, Serializable field) {
+					return jedis.hexists(encode(key), encode(field));
+				}
+			};
+
 	@Override
 	public Boolean hexists(final Serializable key, final Serializable field) {
-		return this.execute(new ShardedJedisAction<Boolean>() {
-			public Boolean doAction(ShardedJedis jedis) {
-				return jedis.hexists(encode(key), encode(field));
-			}
-		});
-
+		return this.execute(HEXISTS, key, field);
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Long> HLEN =
+			new ShardedKeyCommand<Serializable, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.hlen(encode(key));
+				}
+			};
+
 	@Override
 	public Long hlen(final Serializable key) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.hlen(encode(key));
-			}
-		});
-
+		return this.execute(HLEN, key);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -379,7 +497,7 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				List<T> resultList = new ArrayList<T>();
 				Collection<byte[]> results = jedis.hvals(encode(key));
 				for (byte[] b : results) {
-					resultList.add((T) convertType(b));
+					resultList.add((T) decodeValue(b));
 				}
 				return resultList;
 			}
@@ -413,7 +531,7 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				Iterator<Map.Entry<byte[], byte[]>> it = results.entrySet().iterator();
 				while (it.hasNext()) {
 					Map.Entry<byte[], byte[]> entry = it.next();
-					resultMap.put((T) convertType(entry.getKey()), (T) convertType(entry.getValue()));
+					resultMap.put((T) convertType(entry.getKey()), (T) decodeValue(entry.getValue()));
 				}
 				return resultMap;
 			}
@@ -421,32 +539,37 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
+	private static final ShardedKeyCommand<Serializable, Serializable, Long> HDEL =
+			new ShardedKeyCommand<Serializable, Serializable, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Serializable field) {
+					return jedis.hdel(encode(key), encode(field));
+				}
+			};
+
 	@Override
 	public Long hdel(final Serializable key, final Serializable field) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.hdel(encode(key), encode(field));
-			}
-		});
-
+		return this.execute(HDEL, key, field);
 	}
 
-	@Override
-	public Long hdel(final Serializable key, final Serializable... field) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(field);
-				if (paramByte == null) {
-					return null;
+	private static final ShardedKeyCommand<Serializable, Serializable[], Long> HDEL_MULTI =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Serializable[] field) {
+					final byte[][] paramByte = listToArray(field);
+					if (paramByte == null) {
+						return null;
+					}
+					return jedis.hdel(encode(key), paramByte);
 				}
-				return jedis.hdel(encode(key), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long hdel(final Serializable key, final Serializable... field) {
+		return this.execute(HDEL_MULTI, key, field);
 	}
 
 	@Override
 	public Long expire(final Serializable key, final int seconds) {
+		evictMoved(encode(key));
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
 				return jedis.expire(encode(key), seconds);
@@ -457,6 +580,7 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	@Override
 	public Long expireAt(final Serializable key, final long unixTime) {
+		evictMoved(encode(key));
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
 				return jedis.expireAt(encode(key), unixTime);
@@ -473,7 +597,7 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				List<T> resultList = new ArrayList<T>();
 				List<byte[]> results = jedis.lrange(encode(key), startIndex, endIndex);
 				for (byte[] b : results) {
-					resultList.add((T) convertType(b));
+					resultList.add((T) decodeValue(b));
 				}
 				return resultList;
 			}
@@ -481,90 +605,102 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
-	@Override
-	public Long lpush(final Serializable key, final Serializable... fields) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				long r = 0;
-				for (Serializable field : fields) {
-					r = jedis.lpush(encode(key), encode(field));
+	private final ShardedKeyCommand<Serializable, Serializable[], Long> lpushCommand =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Serializable[] fields) {
+					long r = 0;
+					for (Serializable field : fields) {
+						r = jedis.lpush(encode(key), encodeValue(field));
+					}
+					return r;
 				}
-				return r;
-			}
-		});
+			};
 
+	@Override
+	public Long lpush(final Serializable key, final Serializable... fields) {
+		return this.execute(lpushCommand, key, fields);
 	}
 
-	@Override
-	public Long rpush(final Serializable key, final Serializable... fields) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				long r = 0;
-				for (Serializable field : fields) {
-					r = jedis.rpush(encode(key), encode(field));
+	private final ShardedKeyCommand<Serializable, Serializable[], Long> rpushCommand =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Serializable[] fields) {
+					long r = 0;
+					for (Serializable field : fields) {
+						r = jedis.rpush(encode(key), encodeValue(field));
+					}
+					return r;
 				}
-				return r;
-			}
-		});
+			};
 
+	@Override
+	public Long rpush(final Serializable key, final Serializable... fields) {
+		return this.execute(rpushCommand, key, fields);
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Long> LLEN =
+			new ShardedKeyCommand<Serializable, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.llen(encode(key));
+				}
+			};
+
 	@Override
 	public Long llen(final Serializable key) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.llen(encode(key));
-			}
-		});
-
+		return this.execute(LLEN, key);
 	}
 
 	@Override
 	public Long lrem(final Serializable key, final int count, final Serializable value) {
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
-				return jedis.lrem(encode(key), count, encode(value));
+				return jedis.lrem(encode(key), count, encodeValue(value));
 			}
 		});
 
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Long> TTL =
+			new ShardedKeyCommand<Serializable, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.ttl(encode(key));
+				}
+			};
+
 	@Override
 	public Long ttl(final Serializable key) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.ttl(encode(key));
-			}
-		});
-
+		return this.execute(TTL, key);
 	}
 
-	@Override
-	public Long sadd(final Serializable key, final Serializable... members) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(members);
-				if (paramByte == null) {
-					return null;
+	private final ShardedKeyCommand<Serializable, Serializable[], Long> saddCommand =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Serializable[] members) {
+					final byte[][] paramByte = valuesToArray(members);
+					if (paramByte == null) {
+						return null;
+					}
+					return jedis.sadd(encode(key), paramByte);
 				}
-				return jedis.sadd(encode(key), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long sadd(final Serializable key, final Serializable... members) {
+		return this.execute(saddCommand, key, members);
 	}
 
-	@Override
-	public Long srem(final Serializable key, final Serializable... members) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(members);
-				if (paramByte == null) {
-					return null;
+	private final ShardedKeyCommand<Serializable, Serializable[], Long> sremCommand =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Serializable[] members) {
+					final byte[][] paramByte = valuesToArray(members);
+					if (paramByte == null) {
+						return null;
+					}
+					return jedis.srem(encode(key), paramByte);
 				}
-				return jedis.srem(encode(key), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long srem(final Serializable key, final Serializable... members) {
+		return this.execute(sremCommand, key, members);
 	}
 
 	@Override
@@ -575,7 +711,7 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				Set<T> resultList = new LinkedHashSet<T>();
 				Collection<byte[]> results = jedis.smembers(encode(key));
 				for (byte[] b : results) {
-					resultList.add((T) convertType(b));
+					resultList.add((T) decodeValue(b));
 				}
 				return resultList;
 			}
@@ -593,10 +729,11 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				if (paramByte == null) {
 					return null;
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				Collection<byte[]> results = shardedjedis.sinter(paramByte);
+				Jedis shard = sameShard(jedis, paramByte);
+				Collection<byte[]> results = shard != null ? shard.sinter(paramByte)
+						: mergeSets(jedis, SET_INTER, paramByte);
 				for (byte[] b : results) {
-					resultSet.add((T) convertType(b));
+					resultSet.add((T) decodeValue(b));
 				}
 				return resultSet;
 			}
@@ -604,19 +741,25 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
-	@Override
-	public Long sinterstore(final Serializable dstkey, final Serializable... keys) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(keys);
-				if (paramByte == null) {
-					return null;
+	private static final ShardedKeyCommand<Serializable, Serializable[], Long> SINTERSTORE =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable dstkey, Serializable[] keys) {
+					final byte[][] paramByte = listToArray(keys);
+					if (paramByte == null) {
+						return null;
+					}
+					byte[] dst = encode(dstkey);
+					Jedis shard = storeShard(jedis, dst, paramByte);
+					if (shard != null) {
+						return shard.sinterstore(dst, paramByte);
+					}
+					return storeSet(jedis, dst, mergeSets(jedis, SET_INTER, paramByte));
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.sinterstore(encode(dstkey), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long sinterstore(final Serializable dstkey, final Serializable... keys) {
+		return this.execute(SINTERSTORE, dstkey, keys);
 	}
 
 	@Override
@@ -629,10 +772,11 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				if (paramByte == null) {
 					return null;
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				Collection<byte[]> results = shardedjedis.sunion(paramByte);
+				Jedis shard = sameShard(jedis, paramByte);
+				Collection<byte[]> results = shard != null ? shard.sunion(paramByte)
+						: mergeSets(jedis, SET_UNION, paramByte);
 				for (byte[] b : results) {
-					resultSet.add((T) convertType(b));
+					resultSet.add((T) decodeValue(b));
 				}
 				return resultSet;
 			}
@@ -640,37 +784,42 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
-	@Override
-	public Long sunionstore(final Serializable dstkey, final Serializable... keys) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(keys);
-				if (paramByte == null) {
-					return null;
+	private static final ShardedKeyCommand<Serializable, Serializable[], Long> SUNIONSTORE =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable dstkey, Serializable[] keys) {
+					final byte[][] paramByte = listToArray(keys);
+					if (paramByte == null) {
+						return null;
+					}
+					byte[] dst = encode(dstkey);
+					Jedis shard = storeShard(jedis, dst, paramByte);
+					if (shard != null) {
+						return shard.sunionstore(dst, paramByte);
+					}
+					return storeSet(jedis, dst, mergeSets(jedis, SET_UNION, paramByte));
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.sunionstore(encode(dstkey), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long sunionstore(final Serializable dstkey, final Serializable... keys) {
+		return this.execute(SUNIONSTORE, dstkey, keys);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T extends Serializable> Set<T> sdiff(final Serializable... keys) {
 		return this.execute(new ShardedJedisAction<Set<T>>() {
-
 			public Set<T> doAction(ShardedJedis jedis) {
 				Set<T> resultSet = new LinkedHashSet<T>();
 				final byte[][] paramByte = listToArray(keys);
 				if (paramByte == null) {
 					return null;
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				Collection<byte[]> results = shardedjedis.sdiff(paramByte);
+				Jedis shard = sameShard(jedis, paramByte);
+				Collection<byte[]> results = shard != null ? shard.sdiff(paramByte)
+						: mergeSets(jedis, SET_DIFF, paramByte);
 				for (byte[] b : results) {
-					resultSet.add((T) convertType(b));
+					resultSet.add((T) decodeValue(b));
 				}
 				return resultSet;
 			}
@@ -678,26 +827,32 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
+	private static final ShardedKeyCommand<Serializable, Serializable[], Long> SDIFFSTORE =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable dstkey, Serializable[] keys) {
+					final byte[][] paramByte = listToArray(keys);
+					if (paramByte == null) {
+						return null;
+					}
+					byte[] dst = encode(dstkey);
+					Jedis shard = storeShard(jedis, dst, paramByte);
+					if (shard != null) {
+						return shard.sdiffstore(dst, paramByte);
+					}
+					return storeSet(jedis, dst, mergeSets(jedis, SET_DIFF, paramByte));
+				}
+			};
+
 	@Override
 	public Long sdiffstore(final Serializable dstkey, final Serializable... keys) {
+		return this.execute(SDIFFSTORE, dstkey, keys);
+	}
+
+	@Override
+	public Long zadd(final Serializable key, final double score, final Serializable member) {
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(keys);
-				if (paramByte == null) {
-					return null;
-				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.sdiffstore(encode(dstkey), paramByte);
-			}
-		});
-
-	}
-
-	@Override
-	public Long zadd(final Serializable key, final double score, final Serializable member) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.zadd(encode(key), score, encode(member));
+				return jedis.zadd(encode(key), score, encodeValue(member));
 			}
 		});
 
@@ -711,7 +866,7 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				Set<T> resultList = new LinkedHashSet<T>();
 				Set<byte[]> results = jedis.zrange(encode(key), start, end);
 				for (byte[] b : results) {
-					resultList.add((T) convertType(b));
+					resultList.add((T) decodeValue(b));
 				}
 				return resultList;
 			}
@@ -719,43 +874,53 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
-	@Override
-	public Long zrem(final Serializable key, final Serializable... members) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(members);
-				if (paramByte == null) {
-					return null;
+	private final ShardedKeyCommand<Serializable, Serializable[], Long> zremCommand =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Serializable[] members) {
+					final byte[][] paramByte = valuesToArray(members);
+					if (paramByte == null) {
+						return null;
+					}
+					return jedis.zrem(encode(key), paramByte);
 				}
-				return jedis.zrem(encode(key), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long zrem(final Serializable key, final Serializable... members) {
+		return this.execute(zremCommand, key, members);
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Long> ZCARD =
+			new ShardedKeyCommand<Serializable, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.zcard(encode(key));
+				}
+			};
+
 	@Override
 	public Long zcard(final Serializable key) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.zcard(encode(key));
-			}
-		});
-
+		return this.execute(ZCARD, key);
 	}
 
-	@Override
-	public Long zinterstore(final Serializable dstkey, final Serializable... sets) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(sets);
-				if (paramByte == null) {
-					return null;
+	private static final ShardedKeyCommand<Serializable, Serializable[], Long> ZINTERSTORE =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable dstkey, Serializable[] sets) {
+					final byte[][] paramByte = listToArray(sets);
+					if (paramByte == null) {
+						return null;
+					}
+					byte[] dst = encode(dstkey);
+					Jedis shard = storeShard(jedis, dst, paramByte);
+					if (shard != null) {
+						return shard.zinterstore(dst, paramByte);
+					}
+					return storeSortedSet(jedis, dst, mergeSortedSets(jedis, false, null, paramByte));
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.zinterstore(encode(dstkey), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long zinterstore(final Serializable dstkey, final Serializable... sets) {
+		return this.execute(ZINTERSTORE, dstkey, sets);
 	}
 
 	@Override
@@ -766,26 +931,36 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				if (paramByte == null) {
 					return null;
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.zinterstore(encode(dstkey), params, paramByte);
+				byte[] dst = encode(dstkey);
+				Jedis shard = storeShard(jedis, dst, paramByte);
+				if (shard != null) {
+					return shard.zinterstore(dst, params, paramByte);
+				}
+				return storeSortedSet(jedis, dst, mergeSortedSets(jedis, false, params, paramByte));
 			}
 		});
 
 	}
 
-	@Override
-	public Long zunionstore(final Serializable dstkey, final Serializable... sets) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				final byte[][] paramByte = listToArray(sets);
-				if (paramByte == null) {
-					return null;
+	private static final ShardedKeyCommand<Serializable, Serializable[], Long> ZUNIONSTORE =
+			new ShardedKeyCommand<Serializable, Serializable[], Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable dstkey, Serializable[] sets) {
+					final byte[][] paramByte = listToArray(sets);
+					if (paramByte == null) {
+						return null;
+					}
+					byte[] dst = encode(dstkey);
+					Jedis shard = storeShard(jedis, dst, paramByte);
+					if (shard != null) {
+						return shard.zunionstore(dst, paramByte);
+					}
+					return storeSortedSet(jedis, dst, mergeSortedSets(jedis, true, null, paramByte));
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.zunionstore(encode(dstkey), paramByte);
-			}
-		});
+			};
 
+	@Override
+	public Long zunionstore(final Serializable dstkey, final Serializable... sets) {
+		return this.execute(ZUNIONSTORE, dstkey, sets);
 	}
 
 	@Override
@@ -796,31 +971,40 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				if (paramByte == null) {
 					return null;
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.zunionstore(encode(dstkey), params, paramByte);
+				byte[] dst = encode(dstkey);
+				Jedis shard = storeShard(jedis, dst, paramByte);
+				if (shard != null) {
+					return shard.zunionstore(dst, params, paramByte);
+				}
+				return storeSortedSet(jedis, dst, mergeSortedSets(jedis, true, params, paramByte));
 			}
 		});
 
 	}
 
+	private final ShardedKeyCommand<Serializable, Serializable, Double> zscoreCommand =
+			new ShardedKeyCommand<Serializable, Serializable, Double>() {
+				public Double doAction(ShardedJedis jedis, Serializable key, Serializable member) {
+					return jedis.zscore(encode(key), encodeValue(member));
+				}
+			};
+
 	@Override
 	public Double zscore(final Serializable key, final Serializable member) {
-		return this.execute(new ShardedJedisAction<Double>() {
-			public Double doAction(ShardedJedis jedis) {
-				return jedis.zscore(encode(key), encode(member));
-			}
-		});
-
+		return this.execute(zscoreCommand, key, member);
 	}
 
+	private static final ShardedKeyCommand<Serializable, Void, Long> DEL =
+			new ShardedKeyCommand<Serializable, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, Serializable key, Void arg) {
+					return jedis.del(encode(key));
+				}
+			};
+
 	@Override
 	public Long del(final Serializable key) {
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.del(encode(key));
-			}
-		});
-
+		evictMoved(encode(key));
+		return this.execute(DEL, key);
 	}
 
 	@Override
@@ -831,8 +1015,17 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				if (paramByte == null) {
 					return null;
 				}
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				return shardedjedis.del(paramByte);
+				evictMoved(paramByte);
+				List<Long> counts = scatter(jedis, paramByte, new ShardCommand<Long>() {
+					public Long execute(Jedis shard, int[] group) {
+						return shard.del(select(paramByte, group));
+					}
+				});
+				long count = 0;
+				for (Long c : counts) {
+					count += c.longValue();
+				}
+				return count;
 			}
 		});
 
@@ -847,11 +1040,10 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 				if (paramByte == null) {
 					return null;
 				}
-				List<T> resultList = new ArrayList<T>();
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				List<byte[]> result = shardedjedis.mget(listToArray(keys));
-				for (byte[] b : result) {
-					resultList.add((T) convertType(b));
+				byte[][] values = mgetBytes(jedis, paramByte);
+				List<T> resultList = new ArrayList<T>(values.length);
+				for (byte[] b : values) {
+					resultList.add((T) decodeValue(b));
 				}
 				return resultList;
 			}
@@ -859,20 +1051,61 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
-	/*
-	 * @Override public String mset(final Map<Serializable, Serializable>
-	 * keyValues) { return this.execute(new ShardedJedisAction<String>() {
-	 * public String doAction(ShardedJedis jedis) { if (keyValues == null ||
-	 * keyValues.isEmpty()) { return "OK"; } Map<byte[], byte[]> values = new
-	 * HashMap<byte[], byte[]>(); Iterator<Entry<Serializable, Serializable>>
-	 * iterator = keyValues.entrySet().iterator(); while (iterator.hasNext()) {
-	 * Entry<Serializable, Serializable> entry = iterator.next();
-	 * values.put(encode(entry.getKey()), encode(entry.getValue())); }
-	 * MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-	 * return shardedjedis.mset(mapToArray(values)); } });
-	 * 
-	 * }
-	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T extends Serializable> Map<Serializable, T> getAll(final Collection<? extends Serializable> keys) {
+		final Serializable[] keyArray = keys.toArray(new Serializable[keys.size()]);
+		byte[][] values = new byte[0][];
+		if (keyArray.length > 0) {
+			values = this.execute(new ShardedJedisAction<byte[][]>() {
+				public byte[][] doAction(ShardedJedis jedis) {
+					return mgetBytes(jedis, listToArray(keyArray));
+				}
+			});
+		}
+		Map<Serializable, T> result = new LinkedHashMap<Serializable, T>();
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				result.put(keyArray[i], (T) decodeValue(values[i]));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void setAll(final Map<? extends Serializable, ? extends Serializable> keyValues, final int seconds) {
+		if (keyValues.isEmpty()) {
+			return;
+		}
+		final byte[][] keys = new byte[keyValues.size()][];
+		final byte[][] values = new byte[keyValues.size()][];
+		int index = 0;
+		for (Map.Entry<? extends Serializable, ? extends Serializable> entry : keyValues.entrySet()) {
+			keys[index] = encode(entry.getKey());
+			values[index] = encodeValue(entry.getValue());
+			index++;
+		}
+		evictMoved(keys);
+		this.execute(new ShardedJedisAction<Object>() {
+			public Object doAction(ShardedJedis jedis) {
+				scatter(jedis, keys, new ShardCommand<Object>() {
+					public Object execute(Jedis shard, int[] group) {
+						Pipeline pipeline = shard.pipelined();
+						for (int i : group) {
+							if (seconds <= 0) {
+								pipeline.set(keys[i], values[i]);
+							} else {
+								pipeline.setex(keys[i], seconds, values[i]);
+							}
+						}
+						pipeline.sync();
+						return null;
+					}
+				});
+				return null;
+			}
+		});
+	}
 
 	@Override
 	@SuppressWarnings("unchecked")
@@ -880,11 +1113,20 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 		return this.execute(new ShardedJedisAction<Set<T>>() {
 
 			public Set<T> doAction(ShardedJedis jedis) {
+				final byte[] encodedPattern = encode(pattern);
+				List<Callable<Set<byte[]>>> tasks = new ArrayList<Callable<Set<byte[]>>>();
+				for (final Jedis shard : jedis.getAllShards()) {
+					tasks.add(new Callable<Set<byte[]>>() {
+						public Set<byte[]> call() {
+							return shard.keys(encodedPattern);
+						}
+					});
+				}
 				Set<T> resultList = new LinkedHashSet<T>();
-				MultiKeyBinaryCommands shardedjedis = (MultiKeyBinaryCommands) jedis;
-				Collection<byte[]> results = shardedjedis.keys(encode(pattern));
-				for (byte[] b : results) {
-					resultList.add((T) convertType(b));
+				for (Set<byte[]> results : shardExecutor.invokeAll(tasks)) {
+					for (byte[] b : results) {
+						resultList.add((T) convertType(b));
+					}
 				}
 				return resultList;
 			}
@@ -892,752 +1134,1704 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 
 	}
 
-	private static byte[] encode(Serializable object) {
-		return Serializer.encode(object);
+	@Override
+	public <T extends Serializable> ScanIterator<T> scan(final Serializable pattern, final int count) {
+		ShardedJedisPool pool = getShardedJedisPool();
+		return new ShardedScanIterator<T>(pool, pool.getResource(), pattern == null ? null : encode(pattern), count,
+				shardExecutor) {
+			@Override
+			@SuppressWarnings("unchecked")
+			protected T decode(byte[] key) {
+				return (T) convertType(key);
+			}
+		};
 	}
 
-	private static Serializable convertType(byte[] bytes) {
-		return Serializer.decode(bytes);
+	@Override
+	public Batch<Serializable> batch() {
+		return new ShardedBatch<Serializable>(Batch.SERIALIZABLE_KEYS, codec, shardExecutor);
 	}
 
-	private static byte[][] listToArray(Serializable... serializables) {
-		byte[][] paramByte = null;
-		if (serializables != null && serializables.length > 0) {
-			paramByte = new byte[serializables.length][0];
-			for (int i = 0; i < serializables.length; i++) {
-				paramByte[i] = encode(serializables[i]);
+	@Override
+	public <T extends Serializable> RedisFuture<T> getAsync(final Serializable key) {
+		return asyncExecutor.submit(new Callable<T>() {
+			public T call() {
+				return MyShardedBinaryClient.this.<T> get(key);
 			}
-		}
-		return paramByte;
+		});
 	}
 
-	private static byte[][] mapToArray(Map<byte[], byte[]> map) {
-		byte[][] paramByte = null;
-		if (map != null && map.size() > 0) {
-			paramByte = new byte[map.size() * 2][0];
-			Iterator<Entry<byte[], byte[]>> it = map.entrySet().iterator();
-			int index = 0;
-			while (it.hasNext()) {
-				Entry<byte[], byte[]> entry = it.next();
-				paramByte[index++] = entry.getKey();
-				paramByte[index++] = entry.getValue();
+	@Override
+	public RedisFuture<String> setAsync(final Serializable key, final Serializable value) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return set(key, value);
 			}
-		}
-		return paramByte;
+		});
 	}
 
 	@Override
-	public String set(String key, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public RedisFuture<String> setexAsync(final Serializable key, final int time, final Serializable value) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return setex(key, time, value);
+			}
+		});
 	}
 
 	@Override
-	public String set(String key, String value, String nxxx, String expx, long time) {
-		// TODO Auto-generated method stub
-		return null;
+	public RedisFuture<Long> delAsync(final Serializable key) {
+		return asyncExecutor.submit(new Callable<Long>() {
+			public Long call() {
+				return del(key);
+			}
+		});
 	}
 
 	@Override
-	public String get(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public RedisFuture<Boolean> existsAsync(final Serializable key) {
+		return asyncExecutor.submit(new Callable<Boolean>() {
+			public Boolean call() {
+				return Boolean.valueOf(exists(key));
+			}
+		});
 	}
 
 	@Override
-	public Boolean exists(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public <T extends Serializable> RedisFuture<T> hgetAsync(final Serializable key, final Serializable field) {
+		return asyncExecutor.submit(new Callable<T>() {
+			public T call() {
+				return MyShardedBinaryClient.this.<T> hget(key, field);
+			}
+		});
 	}
 
 	@Override
-	public Long persist(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public <T extends Serializable> RedisFuture<List<T>> mgetAsync(final Serializable... keys) {
+		return asyncExecutor.submit(new Callable<List<T>>() {
+			public List<T> call() {
+				return MyShardedBinaryClient.this.<T> mget(keys);
+			}
+		});
 	}
 
 	@Override
-	public String type(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public <T> RedisFuture<T> executeAsync(final ShardedJedisAction<T> action) {
+		return asyncExecutor.submit(new Callable<T>() {
+			public T call() {
+				return execute(action);
+			}
+		});
 	}
 
-	@Override
-	public Long expire(String key, int seconds) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 按分片分组，各分片并行执行。同一个分片共用一个连接，分片内每批最多 MAX_BATCH_SIZE 个key顺序执行
+	 * @param jedis
+	 * @param keys 全部key
+	 * @param command
+	 * @return 每一批的结果
+	 */
+	private <T> List<T> scatter(final ShardedJedis jedis, final byte[][] keys, final ShardCommand<T> command) {
+		List<int[]> groups = ShardExecutor.groupByShard(jedis, keys);
+		List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>(groups.size());
+		for (final int[] group : groups) {
+			tasks.add(new Callable<List<T>>() {
+				public List<T> call() {
+					Jedis shard = jedis.getShard(keys[group[0]]);
+					List<T> results = new ArrayList<T>();
+					for (int[] batch : ShardExecutor.partition(group)) {
+						results.add(command.execute(shard, batch));
+					}
+					return results;
+				}
+			});
+		}
+		List<T> results = new ArrayList<T>();
+		for (List<T> shardResults : shardExecutor.invokeAll(tasks)) {
+			results.addAll(shardResults);
+		}
+		return results;
 	}
 
-	@Override
-	public Long pexpire(String key, long milliseconds) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 在一个分片上执行的命令，group为一批key的下标
+	 */
+	private interface ShardCommand<T> {
+		T execute(Jedis shard, int[] group);
 	}
 
-	@Override
-	public Long expireAt(String key, long unixTime) {
-		// TODO Auto-generated method stub
-		return null;
+	private static byte[][] select(byte[][] keys, int[] group) {
+		byte[][] selected = new byte[group.length][];
+		for (int i = 0; i < group.length; i++) {
+			selected[i] = keys[group[i]];
+		}
+		return selected;
 	}
 
-	@Override
-	public Long pexpireAt(String key, long millisecondsTimestamp) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 按分片并行MGET
+	 * @return 与keys顺序一致的值，不存在为null
+	 */
+	private byte[][] mgetBytes(ShardedJedis jedis, final byte[][] keys) {
+		final byte[][] values = new byte[keys.length][];
+		// 每个下标只属于一批，invokeAll 返回后结果对调用线程可见
+		scatter(jedis, keys, new ShardCommand<Object>() {
+			public Object execute(Jedis shard, int[] group) {
+				List<byte[]> reply = shard.mget(select(keys, group));
+				for (int i = 0; i < group.length; i++) {
+					values[group[i]] = reply.get(i);
+				}
+				return null;
+			}
+		});
+		return values;
 	}
 
-	@Override
-	public Long ttl(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 所有key在同一个分片时返回该分片，否则返回null
+	 */
+	private static Jedis sameShard(ShardedJedis jedis, byte[]... keys) {
+		JedisShardInfo shard = jedis.getShardInfo(keys[0]);
+		for (int i = 1; i < keys.length; i++) {
+			if (jedis.getShardInfo(keys[i]) != shard) {
+				return null;
+			}
+		}
+		return jedis.getShard(keys[0]);
 	}
 
-	@Override
-	public Boolean setbit(String key, long offset, boolean value) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 目标key和所有key在同一个分片时返回该分片 (可以直接发送原生的 *STORE 命令)，否则返回null。
+	 * 配置了 keyTagPattern 时，tag相同的key总是在同一个分片
+	 */
+	private static Jedis storeShard(ShardedJedis jedis, byte[] dstkey, byte[][] keys) {
+		Jedis shard = sameShard(jedis, keys);
+		return shard != null && jedis.getShardInfo(dstkey) == jedis.getShardInfo(keys[0]) ? shard : null;
 	}
 
-	@Override
-	public Boolean setbit(String key, long offset, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 跨分片的集合运算：以SSCAN分页读取，交集和差集逐页用pipeline SISMEMBER到其他集合所在分片过滤，
+	 * 不需要一次读入全部集合
+	 * @param jedis
+	 * @param operation SET_INTER SET_UNION SET_DIFF
+	 * @param keys
+	 * @return
+	 */
+	private static Collection<byte[]> mergeSets(ShardedJedis jedis, int operation, byte[][] keys) {
+		Map<ByteBuffer, byte[]> result = new LinkedHashMap<ByteBuffer, byte[]>();
+		if (operation == SET_UNION) {
+			for (byte[] key : keys) {
+				Jedis shard = jedis.getShard(key);
+				byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+				do {
+					ScanResult<byte[]> page = shard.sscan(key, cursor, SCAN_PARAMS);
+					for (byte[] member : page.getResult()) {
+						result.put(ByteBuffer.wrap(member), member);
+					}
+					cursor = page.getCursorAsBytes();
+				} while (!isScanFinished(cursor));
+			}
+			return result.values();
+		}
+
+		byte[] source = keys[0];
+		List<byte[]> others = new ArrayList<byte[]>(Arrays.asList(keys).subList(1, keys.length));
+		if (operation == SET_INTER) {
+			// 从最小的集合开始遍历
+			long smallest = Long.MAX_VALUE;
+			for (byte[] key : keys) {
+				long card = jedis.getShard(key).scard(key).longValue();
+				if (card == 0) {
+					return result.values();
+				}
+				if (card < smallest) {
+					smallest = card;
+					source = key;
+				}
+			}
+			others = new ArrayList<byte[]>(keys.length - 1);
+			for (byte[] key : keys) {
+				if (key != source) {
+					others.add(key);
+				}
+			}
+		}
+		Jedis sourceShard = jedis.getShard(source);
+		byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+		do {
+			ScanResult<byte[]> page = sourceShard.sscan(source, cursor, SCAN_PARAMS);
+			List<byte[]> candidates = page.getResult();
+			for (byte[] other : others) {
+				if (candidates.isEmpty()) {
+					break;
+				}
+				Pipeline pipeline = jedis.getShard(other).pipelined();
+				List<Response<Boolean>> memberships = new ArrayList<Response<Boolean>>(candidates.size());
+				for (byte[] member : candidates) {
+					memberships.add(pipeline.sismember(other, member));
+				}
+				pipeline.sync();
+				List<byte[]> kept = new ArrayList<byte[]>(candidates.size());
+				for (int i = 0; i < candidates.size(); i++) {
+					// 交集保留在其他集合中的成员，差集保留不在的成员
+					if (memberships.get(i).get().booleanValue() == (operation == SET_INTER)) {
+						kept.add(candidates.get(i));
+					}
+				}
+				candidates = kept;
+			}
+			for (byte[] member : candidates) {
+				result.put(ByteBuffer.wrap(member), member);
+			}
+			cursor = page.getCursorAsBytes();
+		} while (!isScanFinished(cursor));
+		return result.values();
 	}
 
-	@Override
-	public Boolean getbit(String key, long offset) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 跨分片的有序集合运算，WEIGHTS 和 AGGREGATE 与 ZUNIONSTORE/ZINTERSTORE 相同：
+	 * 并集以ZSCAN读取所有集合；交集从最小的集合ZSCAN，逐页用pipeline ZSCORE到其他集合所在分片过滤
+	 * @param jedis
+	 * @param union true为并集，false为交集
+	 * @param params 可以为null
+	 * @param keys
+	 * @return 成员 → 分数
+	 */
+	private static Map<ByteBuffer, Double> mergeSortedSets(ShardedJedis jedis, boolean union, ZParams params,
+			byte[][] keys) {
+		double[] weights = new double[keys.length];
+		Arrays.fill(weights, 1.0);
+		String aggregate = "SUM";
+		if (params != null) {
+			Iterator<byte[]> it = params.getParams().iterator();
+			while (it.hasNext()) {
+				String name = SafeEncoder.encode(it.next());
+				if ("WEIGHTS".equalsIgnoreCase(name)) {
+					for (int i = 0; i < keys.length && it.hasNext(); i++) {
+						weights[i] = Double.parseDouble(SafeEncoder.encode(it.next()));
+					}
+				} else if ("AGGREGATE".equalsIgnoreCase(name) && it.hasNext()) {
+					aggregate = SafeEncoder.encode(it.next()).toUpperCase();
+				}
+			}
+		}
+
+		Map<ByteBuffer, Double> result = new LinkedHashMap<ByteBuffer, Double>();
+		if (union) {
+			for (int i = 0; i < keys.length; i++) {
+				// ZSCAN可能重复返回同一个成员，每个集合先去重再合并
+				Map<ByteBuffer, Double> scores = new LinkedHashMap<ByteBuffer, Double>();
+				Jedis shard = jedis.getShard(keys[i]);
+				byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+				do {
+					ScanResult<Tuple> page = shard.zscan(keys[i], cursor, SCAN_PARAMS);
+					for (Tuple tuple : page.getResult()) {
+						scores.put(ByteBuffer.wrap(tuple.getBinaryElement()), tuple.getScore());
+					}
+					cursor = page.getCursorAsBytes();
+				} while (!isScanFinished(cursor));
+				for (Map.Entry<ByteBuffer, Double> member : scores.entrySet()) {
+					double score = member.getValue() * weights[i];
+					Double current = result.get(member.getKey());
+					result.put(member.getKey(), current == null ? score : aggregate(aggregate, current, score));
+				}
+			}
+			return result;
+		}
+
+		// 从最小的集合开始遍历
+		int source = 0;
+		long smallest = Long.MAX_VALUE;
+		for (int i = 0; i < keys.length; i++) {
+			long card = jedis.getShard(keys[i]).zcard(keys[i]).longValue();
+			if (card == 0) {
+				return result;
+			}
+			if (card < smallest) {
+				smallest = card;
+				source = i;
+			}
+		}
+		Jedis sourceShard = jedis.getShard(keys[source]);
+		byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+		do {
+			ScanResult<Tuple> page = sourceShard.zscan(keys[source], cursor, SCAN_PARAMS);
+			List<byte[]> candidates = new ArrayList<byte[]>(page.getResult().size());
+			List<Double> scores = new ArrayList<Double>(page.getResult().size());
+			for (Tuple tuple : page.getResult()) {
+				candidates.add(tuple.getBinaryElement());
+				scores.add(tuple.getScore() * weights[source]);
+			}
+			for (int i = 0; i < keys.length && !candidates.isEmpty(); i++) {
+				if (i == source) {
+					continue;
+				}
+				Pipeline pipeline = jedis.getShard(keys[i]).pipelined();
+				List<Response<Double>> others = new ArrayList<Response<Double>>(candidates.size());
+				for (byte[] member : candidates) {
+					others.add(pipeline.zscore(keys[i], member));
+				}
+				pipeline.sync();
+				List<byte[]> kept = new ArrayList<byte[]>(candidates.size());
+				List<Double> keptScores = new ArrayList<Double>(candidates.size());
+				for (int j = 0; j < candidates.size(); j++) {
+					Double other = others.get(j).get();
+					if (other != null) {
+						kept.add(candidates.get(j));
+						keptScores.add(aggregate(aggregate, scores.get(j), other * weights[i]));
+					}
+				}
+				candidates = kept;
+				scores = keptScores;
+			}
+			for (int j = 0; j < candidates.size(); j++) {
+				result.put(ByteBuffer.wrap(candidates.get(j)), scores.get(j));
+			}
+			cursor = page.getCursorAsBytes();
+		} while (!isScanFinished(cursor));
+		return result;
 	}
 
-	@Override
-	public Long setrange(String key, long offset, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	private static double aggregate(String aggregate, double a, double b) {
+		if ("MIN".equals(aggregate)) {
+			return Math.min(a, b);
+		}
+		if ("MAX".equals(aggregate)) {
+			return Math.max(a, b);
+		}
+		return a + b;
 	}
 
-	@Override
-	public String getrange(String key, long startOffset, long endOffset) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 跨分片有序集合运算结果写入目标key (MULTI/EXEC中先DEL再分批ZADD)
+	 * @return 结果集合的元素数量
+	 */
+	private static Long storeSortedSet(ShardedJedis jedis, byte[] dstkey, Map<ByteBuffer, Double> members) {
+		Pipeline pipeline = jedis.getShard(dstkey).pipelined();
+		pipeline.multi();
+		pipeline.del(dstkey);
+		Map<byte[], Double> batch = new LinkedHashMap<byte[], Double>();
+		for (Map.Entry<ByteBuffer, Double> member : members.entrySet()) {
+			batch.put(member.getKey().array(), member.getValue());
+			if (batch.size() == ShardExecutor.MAX_BATCH_SIZE) {
+				pipeline.zadd(dstkey, batch);
+				batch = new LinkedHashMap<byte[], Double>();
+			}
+		}
+		if (!batch.isEmpty()) {
+			pipeline.zadd(dstkey, batch);
+		}
+		pipeline.exec();
+		pipeline.sync();
+		return Long.valueOf(members.size());
 	}
 
-	@Override
-	public String getSet(String key, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	private static boolean isScanFinished(byte[] cursor) {
+		return cursor.length == 1 && cursor[0] == '0';
 	}
 
-	@Override
-	public Long setnx(String key, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * 跨分片集合运算结果写入目标key (MULTI/EXEC中先DEL再分批SADD)
+	 * @return 结果集合的元素数量
+	 */
+	private static Long storeSet(ShardedJedis jedis, byte[] dstkey, Collection<byte[]> members) {
+		Pipeline pipeline = jedis.getShard(dstkey).pipelined();
+		pipeline.multi();
+		pipeline.del(dstkey);
+		List<byte[]> batch = new ArrayList<byte[]>(ShardExecutor.MAX_BATCH_SIZE);
+		for (byte[] member : members) {
+			batch.add(member);
+			if (batch.size() == ShardExecutor.MAX_BATCH_SIZE) {
+				pipeline.sadd(dstkey, batch.toArray(new byte[batch.size()][]));
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			pipeline.sadd(dstkey, batch.toArray(new byte[batch.size()][]));
+		}
+		pipeline.exec();
+		pipeline.sync();
+		return Long.valueOf(members.size());
+	}
+
+	private static byte[] encode(Serializable object) {
+		return Serializer.encode(object);
+	}
+
+	private static Serializable convertType(byte[] bytes) {
+		return Serializer.decode(bytes);
+	}
+
+	private byte[] encodeValue(Serializable value) {
+		return codec.encode(value);
+	}
+
+	private Object decodeValue(byte[] bytes) {
+		return bytes == null ? null : codec.decode(bytes);
 	}
 
+	private byte[][] valuesToArray(Serializable... serializables) {
+		byte[][] paramByte = null;
+		if (serializables != null && serializables.length > 0) {
+			paramByte = new byte[serializables.length][0];
+			for (int i = 0; i < serializables.length; i++) {
+				paramByte[i] = encodeValue(serializables[i]);
+			}
+		}
+		return paramByte;
+	}
+
+	private static byte[][] listToArray(Serializable... serializables) {
+		byte[][] paramByte = null;
+		if (serializables != null && serializables.length > 0) {
+			paramByte = new byte[serializables.length][0];
+			for (int i = 0; i < serializables.length; i++) {
+				paramByte[i] = encode(serializables[i]);
+			}
+		}
+		return paramByte;
+	}
+
+	private static byte[][] mapToArray(Map<byte[], byte[]> map) {
+		byte[][] paramByte = null;
+		if (map != null && map.size() > 0) {
+			paramByte = new byte[map.size() * 2][0];
+			Iterator<Entry<byte[], byte[]>> it = map.entrySet().iterator();
+			int index = 0;
+			while (it.hasNext()) {
+				Entry<byte[], byte[]> entry = it.next();
+				paramByte[index++] = entry.getKey();
+				paramByte[index++] = entry.getValue();
+			}
+		}
+		return paramByte;
+	}
+
+	private static final ShardedKeyCommand<String, String, String> SET_STRING =
+			new ShardedKeyCommand<String, String, String>() {
+				public String doAction(ShardedJedis jedis, String key, String value) {
+					return jedis.set(key, value);
+				}
+			};
+
 	@Override
-	public String setex(String key, int seconds, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public String set(final String key, final String value) {
+		evictMoved(key);
+		return this.execute(SET_STRING, key, value);
 	}
 
 	@Override
-	public Long decrBy(String key, long integer) {
-		// TODO Auto-generated method stub
-		return null;
+	public String set(final String key, final String value, final String nxxx, final String expx, final long time) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.set(key, value, nxxx, expx, time);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> GET_STRING =
+			new ShardedKeyCommand<String, Void, String>() {
+				public String doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.get(key);
+				}
+			};
+
 	@Override
-	public Long decr(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public String get(final String key) {
+		return this.execute(GET_STRING, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Boolean> EXISTS_STRING =
+			new ShardedKeyCommand<String, Void, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.exists(key);
+				}
+			};
+
 	@Override
-	public Long incrBy(String key, long integer) {
-		// TODO Auto-generated method stub
-		return null;
+	public Boolean exists(final String key) {
+		return this.execute(EXISTS_STRING, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> PERSIST = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.persist(key);
+		}
+	};
+
 	@Override
-	public Double incrByFloat(String key, double value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long persist(final String key) {
+		return this.execute(PERSIST, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> TYPE = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.type(key);
+		}
+	};
+
 	@Override
-	public Long incr(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public String type(final String key) {
+		return this.execute(TYPE, key);
 	}
 
 	@Override
-	public Long append(String key, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long expire(final String key, final int seconds) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.expire(key, seconds);
+			}
+		});
 	}
 
 	@Override
-	public String substr(String key, int start, int end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pexpire(final String key, final long milliseconds) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.pexpire(key, milliseconds);
+			}
+		});
 	}
 
 	@Override
-	public Long hset(String key, String field, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long expireAt(final String key, final long unixTime) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.expireAt(key, unixTime);
+			}
+		});
 	}
 
 	@Override
-	public String hget(String key, String field) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pexpireAt(final String key, final long millisecondsTimestamp) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.pexpireAt(key, millisecondsTimestamp);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> TTL_STRING =
+			new ShardedKeyCommand<String, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.ttl(key);
+				}
+			};
+
 	@Override
-	public Long hsetnx(String key, String field, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long ttl(final String key) {
+		return this.execute(TTL_STRING, key);
 	}
 
 	@Override
-	public String hmset(String key, Map<String, String> hash) {
-		// TODO Auto-generated method stub
-		return null;
+	public Boolean setbit(final String key, final long offset, final boolean value) {
+		return this.execute(new ShardedJedisAction<Boolean>() {
+			public Boolean doAction(ShardedJedis jedis) {
+				return jedis.setbit(key, offset, value);
+			}
+		});
 	}
 
 	@Override
-	public List<String> hmget(String key, String... fields) {
-		// TODO Auto-generated method stub
-		return null;
+	public Boolean setbit(final String key, final long offset, final String value) {
+		return this.execute(new ShardedJedisAction<Boolean>() {
+			public Boolean doAction(ShardedJedis jedis) {
+				return jedis.setbit(key, offset, value);
+			}
+		});
 	}
 
 	@Override
-	public Long hincrBy(String key, String field, long value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Boolean getbit(final String key, final long offset) {
+		return this.execute(new ShardedJedisAction<Boolean>() {
+			public Boolean doAction(ShardedJedis jedis) {
+				return jedis.getbit(key, offset);
+			}
+		});
 	}
 
 	@Override
-	public Boolean hexists(String key, String field) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long setrange(final String key, final long offset, final String value) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.setrange(key, offset, value);
+			}
+		});
 	}
 
 	@Override
-	public Long hdel(String key, String... field) {
-		// TODO Auto-generated method stub
-		return null;
+	public String getrange(final String key, final long startOffset, final long endOffset) {
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.getrange(key, startOffset, endOffset);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, String, String> GET_SET =
+			new ShardedKeyCommand<String, String, String>() {
+				public String doAction(ShardedJedis jedis, String key, String value) {
+					return jedis.getSet(key, value);
+				}
+			};
+
 	@Override
-	public Long hlen(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public String getSet(final String key, final String value) {
+		evictMoved(key);
+		return this.execute(GET_SET, key, value);
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> SETNX = new ShardedKeyCommand<String, String, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, String value) {
+			return jedis.setnx(key, value);
+		}
+	};
+
 	@Override
-	public Set<String> hkeys(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long setnx(final String key, final String value) {
+		return this.execute(SETNX, key, value);
 	}
 
 	@Override
-	public List<String> hvals(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public String setex(final String key, final int seconds, final String value) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.setex(key, seconds, value);
+			}
+		});
 	}
 
 	@Override
-	public Map<String, String> hgetAll(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long decrBy(final String key, final long integer) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.decrBy(key, integer);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> DECR_STRING =
+			new ShardedKeyCommand<String, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.decr(key);
+				}
+			};
+
 	@Override
-	public Long rpush(String key, String... string) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long decr(final String key) {
+		return this.execute(DECR_STRING, key);
 	}
 
 	@Override
-	public Long lpush(String key, String... string) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long incrBy(final String key, final long integer) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.incrBy(key, integer);
+			}
+		});
 	}
 
 	@Override
-	public Long llen(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Double incrByFloat(final String key, final double value) {
+		return this.execute(new ShardedJedisAction<Double>() {
+			public Double doAction(ShardedJedis jedis) {
+				return jedis.incrByFloat(key, value);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> INCR_STRING =
+			new ShardedKeyCommand<String, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.incr(key);
+				}
+			};
+
 	@Override
-	public List<String> lrange(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long incr(final String key) {
+		return this.execute(INCR_STRING, key);
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> APPEND =
+			new ShardedKeyCommand<String, String, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String value) {
+					return jedis.append(key, value);
+				}
+			};
+
 	@Override
-	public String ltrim(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long append(final String key, final String value) {
+		return this.execute(APPEND, key, value);
 	}
 
 	@Override
-	public String lindex(String key, long index) {
-		// TODO Auto-generated method stub
-		return null;
+	public String substr(final String key, final int start, final int end) {
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.substr(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public String lset(String key, long index, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long hset(final String key, final String field, final String value) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.hset(key, field, value);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, String, String> HGET_STRING =
+			new ShardedKeyCommand<String, String, String>() {
+				public String doAction(ShardedJedis jedis, String key, String field) {
+					return jedis.hget(key, field);
+				}
+			};
+
 	@Override
-	public Long lrem(String key, long count, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public String hget(final String key, final String field) {
+		return this.execute(HGET_STRING, key, field);
 	}
 
 	@Override
-	public String lpop(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long hsetnx(final String key, final String field, final String value) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.hsetnx(key, field, value);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Map<String, String>, String> HMSET_STRING =
+			new ShardedKeyCommand<String, Map<String, String>, String>() {
+				public String doAction(ShardedJedis jedis, String key, Map<String, String> hash) {
+					return jedis.hmset(key, hash);
+				}
+			};
+
 	@Override
-	public String rpop(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public String hmset(final String key, final Map<String, String> hash) {
+		return this.execute(HMSET_STRING, key, hash);
 	}
 
+	private static final ShardedKeyCommand<String, String[], List<String>> HMGET =
+			new ShardedKeyCommand<String, String[], List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, String[] fields) {
+					return jedis.hmget(key, fields);
+				}
+			};
+
 	@Override
-	public Long sadd(String key, String... member) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> hmget(final String key, final String... fields) {
+		return this.execute(HMGET, key, fields);
 	}
 
 	@Override
-	public Set<String> smembers(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long hincrBy(final String key, final String field, final long value) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.hincrBy(key, field, value);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, String, Boolean> HEXISTS_STRING =
+			new ShardedKeyCommand<String, String, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, String key, String field) {
+					return jedis.hexists(key, field);
+				}
+			};
+
 	@Override
-	public Long srem(String key, String... member) {
-		// TODO Auto-generated method stub
-		return null;
+	public Boolean hexists(final String key, final String field) {
+		return this.execute(HEXISTS_STRING, key, field);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> HDEL_STRING =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] field) {
+					return jedis.hdel(key, field);
+				}
+			};
+
 	@Override
-	public String spop(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long hdel(final String key, final String... field) {
+		return this.execute(HDEL_STRING, key, field);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> HLEN_STRING =
+			new ShardedKeyCommand<String, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.hlen(key);
+				}
+			};
+
 	@Override
-	public Set<String> spop(String key, long count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long hlen(final String key) {
+		return this.execute(HLEN_STRING, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Set<String>> HKEYS =
+			new ShardedKeyCommand<String, Void, Set<String>>() {
+				public Set<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.hkeys(key);
+				}
+			};
+
 	@Override
-	public Long scard(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> hkeys(final String key) {
+		return this.execute(HKEYS, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, List<String>> HVALS =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.hvals(key);
+				}
+			};
+
 	@Override
-	public Boolean sismember(String key, String member) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> hvals(final String key) {
+		return this.execute(HVALS, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Map<String, String>> HGET_ALL =
+			new ShardedKeyCommand<String, Void, Map<String, String>>() {
+				public Map<String, String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.hgetAll(key);
+				}
+			};
+
 	@Override
-	public String srandmember(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Map<String, String> hgetAll(final String key) {
+		return this.execute(HGET_ALL, key);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> RPUSH_STRING =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] string) {
+					return jedis.rpush(key, string);
+				}
+			};
+
 	@Override
-	public List<String> srandmember(String key, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long rpush(final String key, final String... string) {
+		return this.execute(RPUSH_STRING, key, string);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> LPUSH_STRING =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] string) {
+					return jedis.lpush(key, string);
+				}
+			};
+
 	@Override
-	public Long strlen(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long lpush(final String key, final String... string) {
+		return this.execute(LPUSH_STRING, key, string);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> LLEN_STRING =
+			new ShardedKeyCommand<String, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.llen(key);
+				}
+			};
+
 	@Override
-	public Long zadd(String key, double score, String member) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long llen(final String key) {
+		return this.execute(LLEN_STRING, key);
 	}
 
 	@Override
-	public Long zadd(String key, Map<String, Double> scoreMembers) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> lrange(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(ShardedJedis jedis) {
+				return jedis.lrange(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrange(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public String ltrim(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.ltrim(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public Long zrem(String key, String... member) {
-		// TODO Auto-generated method stub
-		return null;
+	public String lindex(final String key, final long index) {
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.lindex(key, index);
+			}
+		});
 	}
 
 	@Override
-	public Double zincrby(String key, double score, String member) {
-		// TODO Auto-generated method stub
-		return null;
+	public String lset(final String key, final long index, final String value) {
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.lset(key, index, value);
+			}
+		});
+	}
+
+	@Override
+	public Long lrem(final String key, final long count, final String value) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.lrem(key, count, value);
+			}
+		});
+	}
+
+	private static final ShardedKeyCommand<String, Void, String> LPOP = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.lpop(key);
+		}
+	};
+
+	@Override
+	public String lpop(final String key) {
+		return this.execute(LPOP, key);
+	}
+
+	private static final ShardedKeyCommand<String, Void, String> RPOP = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.rpop(key);
+		}
+	};
+
+	@Override
+	public String rpop(final String key) {
+		return this.execute(RPOP, key);
+	}
+
+	private static final ShardedKeyCommand<String, String[], Long> SADD_STRING =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] member) {
+					return jedis.sadd(key, member);
+				}
+			};
+
+	@Override
+	public Long sadd(final String key, final String... member) {
+		return this.execute(SADD_STRING, key, member);
+	}
+
+	private static final ShardedKeyCommand<String, Void, Set<String>> SMEMBERS =
+			new ShardedKeyCommand<String, Void, Set<String>>() {
+				public Set<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.smembers(key);
+				}
+			};
+
+	@Override
+	public Set<String> smembers(final String key) {
+		return this.execute(SMEMBERS, key);
+	}
+
+	private static final ShardedKeyCommand<String, String[], Long> SREM_STRING =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] member) {
+					return jedis.srem(key, member);
+				}
+			};
+
+	@Override
+	public Long srem(final String key, final String... member) {
+		return this.execute(SREM_STRING, key, member);
+	}
+
+	private static final ShardedKeyCommand<String, Void, String> SPOP = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.spop(key);
+		}
+	};
+
+	@Override
+	public String spop(final String key) {
+		return this.execute(SPOP, key);
+	}
+
+	@Override
+	public Set<String> spop(final String key, final long count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.spop(key, count);
+			}
+		});
+	}
+
+	private static final ShardedKeyCommand<String, Void, Long> SCARD = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.scard(key);
+		}
+	};
+
+	@Override
+	public Long scard(final String key) {
+		return this.execute(SCARD, key);
+	}
+
+	private static final ShardedKeyCommand<String, String, Boolean> SISMEMBER =
+			new ShardedKeyCommand<String, String, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, String key, String member) {
+					return jedis.sismember(key, member);
+				}
+			};
+
+	@Override
+	public Boolean sismember(final String key, final String member) {
+		return this.execute(SISMEMBER, key, member);
+	}
+
+	private static final ShardedKeyCommand<String, Void, String> SRANDMEMBER =
+			new ShardedKeyCommand<String, Void, String>() {
+				public String doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.srandmember(key);
+				}
+			};
+
+	@Override
+	public String srandmember(final String key) {
+		return this.execute(SRANDMEMBER, key);
+	}
+
+	@Override
+	public List<String> srandmember(final String key, final int count) {
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(ShardedJedis jedis) {
+				return jedis.srandmember(key, count);
+			}
+		});
+	}
+
+	private static final ShardedKeyCommand<String, Void, Long> STRLEN = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.strlen(key);
+		}
+	};
+
+	@Override
+	public Long strlen(final String key) {
+		return this.execute(STRLEN, key);
+	}
+
+	@Override
+	public Long zadd(final String key, final double score, final String member) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zadd(key, score, member);
+			}
+		});
+	}
+
+	private static final ShardedKeyCommand<String, Map<String, Double>, Long> ZADD =
+			new ShardedKeyCommand<String, Map<String, Double>, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Map<String, Double> scoreMembers) {
+					return jedis.zadd(key, scoreMembers);
+				}
+			};
+
+	@Override
+	public Long zadd(final String key, final Map<String, Double> scoreMembers) {
+		return this.execute(ZADD, key, scoreMembers);
+	}
+
+	@Override
+	public Set<String> zrange(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrange(key, start, end);
+			}
+		});
+	}
+
+	private static final ShardedKeyCommand<String, String[], Long> ZREM_STRING =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] member) {
+					return jedis.zrem(key, member);
+				}
+			};
+
+	@Override
+	public Long zrem(final String key, final String... member) {
+		return this.execute(ZREM_STRING, key, member);
+	}
+
+	@Override
+	public Double zincrby(final String key, final double score, final String member) {
+		return this.execute(new ShardedJedisAction<Double>() {
+			public Double doAction(ShardedJedis jedis) {
+				return jedis.zincrby(key, score, member);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> ZRANK = new ShardedKeyCommand<String, String, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, String member) {
+			return jedis.zrank(key, member);
+		}
+	};
+
 	@Override
-	public Long zrank(String key, String member) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zrank(final String key, final String member) {
+		return this.execute(ZRANK, key, member);
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> ZREVRANK =
+			new ShardedKeyCommand<String, String, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String member) {
+					return jedis.zrevrank(key, member);
+				}
+			};
+
 	@Override
-	public Long zrevrank(String key, String member) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zrevrank(final String key, final String member) {
+		return this.execute(ZREVRANK, key, member);
 	}
 
 	@Override
-	public Set<String> zrevrange(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrange(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrange(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrangeWithScores(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrangeWithScores(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrangeWithScores(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrevrangeWithScores(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrevrangeWithScores(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeWithScores(key, start, end);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> ZCARD_STRING =
+			new ShardedKeyCommand<String, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.zcard(key);
+				}
+			};
+
 	@Override
-	public Long zcard(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zcard(final String key) {
+		return this.execute(ZCARD_STRING, key);
 	}
 
+	private static final ShardedKeyCommand<String, String, Double> ZSCORE_STRING =
+			new ShardedKeyCommand<String, String, Double>() {
+				public Double doAction(ShardedJedis jedis, String key, String member) {
+					return jedis.zscore(key, member);
+				}
+			};
+
 	@Override
-	public Double zscore(String key, String member) {
-		// TODO Auto-generated method stub
-		return null;
+	public Double zscore(final String key, final String member) {
+		return this.execute(ZSCORE_STRING, key, member);
 	}
 
+	private static final ShardedKeyCommand<String, Void, List<String>> SORT =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.sort(key);
+				}
+			};
+
 	@Override
-	public List<String> sort(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> sort(final String key) {
+		return this.execute(SORT, key);
 	}
 
+	private static final ShardedKeyCommand<String, SortingParams, List<String>> SORT_SORTING_PARAMETERS =
+			new ShardedKeyCommand<String, SortingParams, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, SortingParams sortingParameters) {
+					return jedis.sort(key, sortingParameters);
+				}
+			};
+
 	@Override
-	public List<String> sort(String key, SortingParams sortingParameters) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> sort(final String key, final SortingParams sortingParameters) {
+		return this.execute(SORT_SORTING_PARAMETERS, key, sortingParameters);
 	}
 
 	@Override
-	public Long zcount(String key, double min, double max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zcount(final String key, final double min, final double max) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zcount(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Long zcount(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zcount(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zcount(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByScore(String key, double min, double max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByScore(final String key, final double min, final double max) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScore(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByScore(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByScore(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScore(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByScore(String key, double max, double min) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByScore(final String key, final double max, final double min) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScore(key, max, min);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByScore(String key, double min, double max, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByScore(final String key, final double min, final double max, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScore(key, min, max, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByScore(String key, String max, String min) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByScore(final String key, final String max, final String min) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScore(key, max, min);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByScore(String key, String min, String max, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByScore(final String key, final String min, final String max, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScore(key, min, max, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByScore(String key, double max, double min, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScore(key, max, min, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrangeByScoreWithScores(String key, double min, double max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScoreWithScores(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScoreWithScores(key, max, min);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrangeByScoreWithScores(String key, double min, double max, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScoreWithScores(key, min, max, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByScore(String key, String max, String min, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByScore(final String key, final String max, final String min, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScore(key, max, min, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrangeByScoreWithScores(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScoreWithScores(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScoreWithScores(key, max, min);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrangeByScoreWithScores(String key, String min, String max, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByScoreWithScores(key, min, max, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScoreWithScores(key, max, min, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<Tuple>>() {
+			public Set<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByScoreWithScores(key, max, min, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Long zremrangeByRank(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zremrangeByRank(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zremrangeByRank(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public Long zremrangeByScore(String key, double start, double end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zremrangeByScore(final String key, final double start, final double end) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zremrangeByScore(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public Long zremrangeByScore(String key, String start, String end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zremrangeByScore(final String key, final String start, final String end) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zremrangeByScore(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public Long zlexcount(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zlexcount(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zlexcount(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByLex(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByLex(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByLex(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByLex(String key, String min, String max, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByLex(final String key, final String min, final String max, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByLex(key, min, max, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByLex(String key, String max, String min) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByLex(final String key, final String max, final String min) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByLex(key, max, min);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByLex(final String key, final String max, final String min, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByLex(key, max, min, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Long zremrangeByLex(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zremrangeByLex(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zremrangeByLex(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Long linsert(String key, LIST_POSITION where, String pivot, String value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long linsert(final String key, final LIST_POSITION where, final String pivot, final String value) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.linsert(key, where, pivot, value);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> LPUSHX =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] string) {
+					return jedis.lpushx(key, string);
+				}
+			};
+
 	@Override
-	public Long lpushx(String key, String... string) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long lpushx(final String key, final String... string) {
+		return this.execute(LPUSHX, key, string);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> RPUSHX =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] string) {
+					return jedis.rpushx(key, string);
+				}
+			};
+
 	@Override
-	public Long rpushx(String key, String... string) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long rpushx(final String key, final String... string) {
+		return this.execute(RPUSHX, key, string);
 	}
 
+	private static final ShardedKeyCommand<String, Void, List<String>> BLPOP =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.blpop(key);
+				}
+			};
+
 	@Override
-	public List<String> blpop(String arg) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> blpop(final String arg) {
+		return this.execute(BLPOP, arg);
 	}
 
 	@Override
-	public List<String> blpop(int timeout, String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> blpop(final int timeout, final String key) {
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(ShardedJedis jedis) {
+				return jedis.blpop(timeout, key);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, List<String>> BRPOP =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.brpop(key);
+				}
+			};
+
 	@Override
-	public List<String> brpop(String arg) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> brpop(final String arg) {
+		return this.execute(BRPOP, arg);
 	}
 
 	@Override
-	public List<String> brpop(int timeout, String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> brpop(final int timeout, final String key) {
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(ShardedJedis jedis) {
+				return jedis.brpop(timeout, key);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> DEL_STRING =
+			new ShardedKeyCommand<String, Void, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.del(key);
+				}
+			};
+
 	@Override
-	public Long del(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long del(final String key) {
+		evictMoved(key);
+		return this.execute(DEL_STRING, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> ECHO = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String string, Void arg) {
+			return jedis.echo(string);
+		}
+	};
+
 	@Override
-	public String echo(String string) {
-		// TODO Auto-generated method stub
-		return null;
+	public String echo(final String string) {
+		return this.execute(ECHO, string);
 	}
 
 	@Override
-	public Long move(String key, int dbIndex) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long move(final String key, final int dbIndex) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.move(key, dbIndex);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> BITCOUNT = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.bitcount(key);
+		}
+	};
+
 	@Override
-	public Long bitcount(String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long bitcount(final String key) {
+		return this.execute(BITCOUNT, key);
 	}
 
 	@Override
-	public Long bitcount(String key, long start, long end) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long bitcount(final String key, final long start, final long end) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.bitcount(key, start, end);
+			}
+		});
 	}
 
 	@Override
-	public ScanResult<Entry<String, String>> hscan(String key, int cursor) {
-		// TODO Auto-generated method stub
-		return null;
+	public ScanResult<Entry<String, String>> hscan(final String key, final int cursor) {
+		return this.execute(new ShardedJedisAction<ScanResult<Entry<String, String>>>() {
+			public ScanResult<Entry<String, String>> doAction(ShardedJedis jedis) {
+				return jedis.hscan(key, cursor);
+			}
+		});
 	}
 
 	@Override
-	public ScanResult<String> sscan(String key, int cursor) {
-		// TODO Auto-generated method stub
-		return null;
+	public ScanResult<String> sscan(final String key, final int cursor) {
+		return this.execute(new ShardedJedisAction<ScanResult<String>>() {
+			public ScanResult<String> doAction(ShardedJedis jedis) {
+				return jedis.sscan(key, cursor);
+			}
+		});
 	}
 
 	@Override
-	public ScanResult<Tuple> zscan(String key, int cursor) {
-		// TODO Auto-generated method stub
-		return null;
+	public ScanResult<Tuple> zscan(final String key, final int cursor) {
+		return this.execute(new ShardedJedisAction<ScanResult<Tuple>>() {
+			public ScanResult<Tuple> doAction(ShardedJedis jedis) {
+				return jedis.zscan(key, cursor);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, String, ScanResult<Entry<String, String>>> HSCAN =
+			new ShardedKeyCommand<String, String, ScanResult<Entry<String, String>>>() {
+				public ScanResult<Entry<String, String>> doAction(ShardedJedis jedis, String key, String cursor) {
+					return jedis.hscan(key, cursor);
+				}
+			};
+
 	@Override
-	public ScanResult<Entry<String, String>> hscan(String key, String cursor) {
-		// TODO Auto-generated method stub
-		return null;
+	public ScanResult<Entry<String, String>> hscan(final String key, final String cursor) {
+		return this.execute(HSCAN, key, cursor);
 	}
 
+	private static final ShardedKeyCommand<String, String, ScanResult<String>> SSCAN =
+			new ShardedKeyCommand<String, String, ScanResult<String>>() {
+				public ScanResult<String> doAction(ShardedJedis jedis, String key, String cursor) {
+					return jedis.sscan(key, cursor);
+				}
+			};
+
 	@Override
-	public ScanResult<String> sscan(String key, String cursor) {
-		// TODO Auto-generated method stub
-		return null;
+	public ScanResult<String> sscan(final String key, final String cursor) {
+		return this.execute(SSCAN, key, cursor);
 	}
 
+	private static final ShardedKeyCommand<String, String, ScanResult<Tuple>> ZSCAN =
+			new ShardedKeyCommand<String, String, ScanResult<Tuple>>() {
+				public ScanResult<Tuple> doAction(ShardedJedis jedis, String key, String cursor) {
+					return jedis.zscan(key, cursor);
+				}
+			};
+
 	@Override
-	public ScanResult<Tuple> zscan(String key, String cursor) {
-		// TODO Auto-generated method stub
-		return null;
+	public ScanResult<Tuple> zscan(final String key, final String cursor) {
+		return this.execute(ZSCAN, key, cursor);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> PFADD =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] elements) {
+					return jedis.pfadd(key, elements);
+				}
+			};
+
 	@Override
-	public Long pfadd(String key, String... elements) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pfadd(final String key, final String... elements) {
+		return this.execute(PFADD, key, elements);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> PFCOUNT = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.pfcount(key);
+		}
+	};
+
 	@Override
-	public long pfcount(String key) {
-		// TODO Auto-generated method stub
-		return 0;
+	public long pfcount(final String key) {
+		return this.execute(PFCOUNT, key);
 	}
 
 	@Override
@@ -1646,9 +2840,37 @@ public class MyShardedBinaryClient extends AbstractShardedClient implements Shar
 		return null;
 	}
 
+	/**
+	 * 按分片分组，每个分片一个MSET并行执行 (各分片之间不保证原子性)
+	 */
 	@Override
-	public String mset(Map<Serializable, Serializable> keyValues) {
-		// TODO Auto-generated method stub
-		return null;
+	public String mset(final Map<Serializable, Serializable> keyValues) {
+		if (keyValues == null || keyValues.isEmpty()) {
+			return "OK";
+		}
+		final byte[][] keys = new byte[keyValues.size()][];
+		final byte[][] values = new byte[keyValues.size()][];
+		int index = 0;
+		for (Map.Entry<Serializable, Serializable> entry : keyValues.entrySet()) {
+			keys[index] = encode(entry.getKey());
+			values[index] = encodeValue(entry.getValue());
+			index++;
+		}
+		evictMoved(keys);
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				scatter(jedis, keys, new ShardCommand<String>() {
+					public String execute(Jedis shard, int[] group) {
+						byte[][] keysValues = new byte[group.length * 2][];
+						for (int i = 0; i < group.length; i++) {
+							keysValues[2 * i] = keys[group[i]];
+							keysValues[2 * i + 1] = values[group[i]];
+						}
+						return shard.mset(keysValues);
+					}
+				});
+				return "OK";
+			}
+		});
 	}
 }
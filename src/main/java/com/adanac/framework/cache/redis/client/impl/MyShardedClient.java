@@ -1,25 +1,36 @@
 package com.adanac.framework.cache.redis.client.impl;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adanac.framework.cache.redis.client.AsyncExecutor;
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.RedisFuture;
+import com.adanac.framework.cache.redis.client.ScanIterator;
+import com.adanac.framework.cache.redis.client.FanOutResult;
+import com.adanac.framework.cache.redis.client.ShardExecutor;
 import com.adanac.framework.cache.redis.client.ShardedJedisAction;
+import com.adanac.framework.cache.redis.client.ShardedKeyCommand;
 import com.adanac.framework.cache.redis.client.ShardedJedisPipelineAction;
 import com.adanac.framework.cache.redis.client.ShardedRedisClient;
+import com.adanac.framework.cache.redis.codec.StringCodec;
 import com.adanac.framework.cache.redis.exception.RedisClientException;
 
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.ShardedJedis;
 import redis.clients.jedis.ShardedJedisPipeline;
@@ -27,11 +38,21 @@ import redis.clients.jedis.ShardedJedisPool;
 import redis.clients.jedis.SortingParams;
 import redis.clients.jedis.Tuple;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
 
 public class MyShardedClient extends AbstractShardedClient implements ShardedRedisClient, ShardedJedisAction {
 
 	private static final Logger logger = LoggerFactory.getLogger(MyShardedClient.class);
 
+	// 批量命令按分片并行执行
+	private ShardExecutor shardExecutor = ShardExecutor.getDefault();
+
+	// xxxAsync方法的执行线程池
+	private AsyncExecutor asyncExecutor = AsyncExecutor.getDefault();
+
+	// 开启自动pipeline时不为null
+	private volatile AutoPipeline autoPipeline;
+
 	public MyShardedClient() {
 		super();
 
@@ -46,8 +67,49 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		super(configPath, globalConfig);
 	}
 
+	public void setShardExecutor(ShardExecutor shardExecutor) {
+		this.shardExecutor = shardExecutor;
+	}
+
+	public void setAsyncExecutor(AsyncExecutor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * 开启自动pipeline：并发调用的 get/set/exists/del/incr/ttl/hget/sismember 按分片合并为pipeline发送，
+	 * 接口不变，调用仍然阻塞等待结果
+	 *
+	 * @param batchSize 每个pipeline最多的命令数
+	 * @param flushDelayMicros 不满一批时最长等待时间 微秒，通常小于1毫秒
+	 */
+	public synchronized void enableAutoPipeline(int batchSize, long flushDelayMicros) {
+		disableAutoPipeline();
+		autoPipeline = new AutoPipeline(this, batchSize, flushDelayMicros, shardExecutor);
+	}
+
+	/**
+	 * 关闭自动pipeline，已排队的命令会发送完
+	 */
+	public synchronized void disableAutoPipeline() {
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			autoPipeline = null;
+			pipeline.close();
+		}
+	}
+
+	/**
+	 * 自动pipeline，未开启时为null；可以直接提交命令取得 RedisFuture
+	 *
+	 * @return
+	 */
+	public AutoPipeline getAutoPipeline() {
+		return autoPipeline;
+	}
+
 	@Override
 	public void destroy() {
+		disableAutoPipeline();
 		super.destroy();
 	}
 
@@ -90,24 +152,29 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 	}
 
 	/**
-	 * 功能描述: <br>
-	 * PIPELINE处理
-	 * 
+	 * 执行单key命令，command为可复用的无状态实例，调用时不创建对象
 	 */
-	public ShardedJedisPipeline getPipeline() {
-		ShardedJedisPipeline pipeline = getShardedJedis().pipelined();
-		return pipeline;
+	public <K, T> T execute(ShardedKeyCommand<K, Void, T> command, K key) {
+		return execute(command, key, null);
 	}
 
-	public <T> List<T> execute(Object inParam, ShardedJedisPipelineAction<T> action) {
-		ShardedJedisPool pool = getShardedJedisPool();
+	/**
+	 * 执行单key命令，command为可复用的无状态实例，调用时不创建对象
+	 */
+	public <K, A, T> T execute(ShardedKeyCommand<K, A, T> command, K key, A arg) {
+		T result = execute(getShardedJedisPool(), command, key, arg);
+		if (result == null && FALLBACK_READS.contains(command)) {
+			return readMoved(command, key, arg, (String) key);
+		}
+		return result;
+	}
+
+	private <K, A, T> T execute(ShardedJedisPool pool, ShardedKeyCommand<K, A, T> command, K key, A arg) {
 		ShardedJedis jedis = null;
-		ShardedJedisPipeline pipeline;
+
 		try {
 			jedis = pool.getResource();
-			pipeline = jedis.pipelined();
-			return action.doAction(pipeline, inParam);
-
+			return command.doAction(jedis, key, arg);
 		} catch (RuntimeException e) {
 			if (e instanceof JedisConnectionException) {
 				if (jedis != null) {
@@ -131,46 +198,41 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		}
 	}
 
-	public String flushDB() {
-		ShardedJedisPool pool = getShardedJedisPool();
-		ShardedJedis shardedJedis = null;
+	/**
+	 * 功能描述: <br>
+	 * PIPELINE处理
+	 * 
+	 */
+	public ShardedJedisPipeline getPipeline() {
+		ShardedJedisPipeline pipeline = getShardedJedis().pipelined();
+		return pipeline;
+	}
 
+	public <T> List<T> execute(Object inParam, ShardedJedisPipelineAction<T> action) {
+		ShardedJedisPool pool = getShardedJedisPool();
+		ShardedJedis jedis = null;
+		ShardedJedisPipeline pipeline;
 		try {
-			shardedJedis = pool.getResource();
-			Collection<Jedis> allShards = shardedJedis.getAllShards();
-			final CountDownLatch endSignal = new CountDownLatch(allShards.size());
-			for (final Jedis jedis : allShards) {
-				// 多线程同时flushDB 提高效率
-				new Thread(new Runnable() {
-					@Override
-					public void run() {
-						jedis.flushDB();
-						endSignal.countDown();
-					}
-				}).start();
-			}
-			try {
-				endSignal.await();
-			} catch (InterruptedException e) {
-				throw new RedisClientException(e);
-			}
-			return "OK";
+			jedis = pool.getResource();
+			pipeline = jedis.pipelined();
+			return action.doAction(pipeline, inParam);
+
 		} catch (RuntimeException e) {
 			if (e instanceof JedisConnectionException) {
-				if (shardedJedis != null) {
+				if (jedis != null) {
 					try {
-						pool.returnBrokenResource(shardedJedis);
+						pool.returnBrokenResource(jedis);
 					} catch (Exception ex) {
-						throw new RedisClientException(ex);
+						logger.warn("Can not return broken resource.", ex);
 					}
-					shardedJedis = null;
+					jedis = null;
 				}
 			}
 			throw new RedisClientException(e);
 		} finally {
-			if (shardedJedis != null) {
+			if (jedis != null) {
 				try {
-					pool.returnResource(shardedJedis);
+					pool.returnResource(jedis);
 				} catch (Exception ex) {
 					logger.warn("Can not return resource.", ex);
 				}
@@ -178,105 +240,108 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		}
 	}
 
-	public String flushDB(final int dbIndex) {
-		ShardedJedisPool pool = getShardedJedisPool();
-		ShardedJedis shardedJedis = null;
+	/**
+	 * 所有分片并行 FLUSHDB ASYNC (redis 4.0 以前为FLUSHDB)
+	 */
+	public String flushDB() {
+		return flushDB(0);
+	}
 
+	public String flushDB(int dbIndex) {
+		flushDB(dbIndex, FLUSH_TIMEOUT).getOrThrow();
+		return "OK";
+	}
+
+	/**
+	 * 所有分片并行 FLUSHDB ASYNC，返回每个分片的结果和错误，不抛出单个分片的异常
+	 *
+	 * @param dbIndex
+	 * @param timeoutMillis 超时后不再等待，未完成的分片记为超时错误
+	 * @return
+	 */
+	public FanOutResult<String> flushDB(int dbIndex, long timeoutMillis) {
 		try {
-			shardedJedis = pool.getResource();
-			Collection<Jedis> allShards = shardedJedis.getAllShards();
-			final CountDownLatch endSignal = new CountDownLatch(allShards.size());
-			for (final Jedis jedis : allShards) {
-				// 多线程同时flushDB 提高效率
-				new Thread(new Runnable() {
-					@Override
-					public void run() {
-						jedis.select(dbIndex);
-						jedis.flushDB();
-						endSignal.countDown();
-					}
-				}).start();
-			}
-			try {
-				endSignal.await();
-			} catch (InterruptedException e) {
-				throw new RedisClientException(e);
-			}
-			return "OK";
+			return flushShards(dbIndex, true, timeoutMillis, shardExecutor);
 		} catch (RuntimeException e) {
-			if (e instanceof JedisConnectionException) {
-				if (shardedJedis != null) {
-					try {
-						pool.returnBrokenResource(shardedJedis);
-					} catch (Exception ex) {
-						throw new RedisClientException(ex);
-					}
-					shardedJedis = null;
-				}
-			}
-			throw new RedisClientException(e);
-		} finally {
-			if (shardedJedis != null) {
-				try {
-					pool.returnResource(shardedJedis);
-				} catch (Exception ex) {
-					logger.warn("Can not return resource.", ex);
-				}
-			}
+			throw e instanceof RedisClientException ? e : new RedisClientException(e);
 		}
 	}
 
 	// JedisCommands
+	private static final ShardedKeyCommand<String, String, String> SET =
+			new ShardedKeyCommand<String, String, String>() {
+				public String doAction(ShardedJedis jedis, String key, String value) {
+					return jedis.set(key, value);
+				}
+			};
+
 	@Override
 	public String set(final String key, final String value) {
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.set(key, value);
-			}
-		});
+		evictMoved(key);
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			return pipeline.submit(key, AutoPipeline.SET, value).join();
+		}
+		return this.execute(SET, key, value);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> GET = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.get(key);
+		}
+	};
+
 	@Override
 	public String get(final String key) {
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.get(key);
-			}
-		});
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			String value = pipeline.submit(key, AutoPipeline.GET, null).join();
+			return value != null ? value : readMoved(GET, key, null, key);
+		}
+		return this.execute(GET, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Boolean> EXISTS =
+			new ShardedKeyCommand<String, Void, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.exists(key);
+				}
+			};
+
 	@Override
 	public Boolean exists(final String key) {
-		return this.execute(new ShardedJedisAction<Boolean>() {
-			public Boolean doAction(ShardedJedis jedis) {
-				return jedis.exists(key);
-			}
-		});
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			return pipeline.submit(key, AutoPipeline.EXISTS, null).join();
+		}
+		return this.execute(EXISTS, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> PERSIST = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.persist(key);
+		}
+	};
+
 	@Override
 	public Long persist(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.persist(key);
-			}
-		});
+		return this.execute(PERSIST, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> TYPE = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.type(key);
+		}
+	};
+
 	@Override
 	public String type(final String key) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.type(key);
-			}
-		});
+		return this.execute(TYPE, key);
 	}
 
 	@Override
 	public Long expire(final String key, final int seconds) {
-
+		evictMoved(key);
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
 				return jedis.expire(key, seconds);
@@ -286,7 +351,7 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 
 	@Override
 	public Long expireAt(final String key, final long unixTime) {
-
+		evictMoved(key);
 		return this.execute(new ShardedJedisAction<Long>() {
 			public Long doAction(ShardedJedis jedis) {
 				return jedis.expireAt(key, unixTime);
@@ -294,14 +359,19 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> TTL = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.ttl(key);
+		}
+	};
+
 	@Override
 	public Long ttl(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.ttl(key);
-			}
-		});
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			return pipeline.submit(key, AutoPipeline.TTL, null).join();
+		}
+		return this.execute(TTL, key);
 	}
 
 	@Override
@@ -354,29 +424,33 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, String, String> GET_SET =
+			new ShardedKeyCommand<String, String, String>() {
+				public String doAction(ShardedJedis jedis, String key, String value) {
+					return jedis.getSet(key, value);
+				}
+			};
+
 	@Override
 	public String getSet(final String key, final String value) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.getSet(key, value);
-			}
-		});
+		evictMoved(key);
+		return this.execute(GET_SET, key, value);
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> SETNX = new ShardedKeyCommand<String, String, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, String value) {
+			return jedis.setnx(key, value);
+		}
+	};
+
 	@Override
 	public Long setnx(final String key, final String value) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.setnx(key, value);
-			}
-		});
+		return this.execute(SETNX, key, value);
 	}
 
 	@Override
 	public String setex(final String key, final int seconds, final String value) {
-
+		evictMoved(key);
 		return this.execute(new ShardedJedisAction<String>() {
 			public String doAction(ShardedJedis jedis) {
 				return jedis.setex(key, seconds, value);
@@ -394,14 +468,15 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> DECR = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.decr(key);
+		}
+	};
+
 	@Override
 	public Long decr(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.decr(key);
-			}
-		});
+		return this.execute(DECR, key);
 	}
 
 	@Override
@@ -414,24 +489,31 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> INCR = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.incr(key);
+		}
+	};
+
 	@Override
 	public Long incr(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.incr(key);
-			}
-		});
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			return pipeline.submit(key, AutoPipeline.INCR, null).join();
+		}
+		return this.execute(INCR, key);
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> APPEND =
+			new ShardedKeyCommand<String, String, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String value) {
+					return jedis.append(key, value);
+				}
+			};
+
 	@Override
 	public Long append(final String key, final String value) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.append(key, value);
-			}
-		});
+		return this.execute(APPEND, key, value);
 	}
 
 	@Override
@@ -454,14 +536,21 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, String, String> HGET =
+			new ShardedKeyCommand<String, String, String>() {
+				public String doAction(ShardedJedis jedis, String key, String field) {
+					return jedis.hget(key, field);
+				}
+			};
+
 	@Override
 	public String hget(final String key, final String field) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.hget(key, field);
-			}
-		});
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			String value = pipeline.submit(key, AutoPipeline.HGET, field).join();
+			return value != null ? value : readMoved(HGET, key, field, key);
+		}
+		return this.execute(HGET, key, field);
 	}
 
 	@Override
@@ -474,24 +563,28 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Map<String, String>, String> HMSET =
+			new ShardedKeyCommand<String, Map<String, String>, String>() {
+				public String doAction(ShardedJedis jedis, String key, Map<String, String> hash) {
+					return jedis.hmset(key, hash);
+				}
+			};
+
 	@Override
 	public String hmset(final String key, final Map<String, String> hash) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.hmset(key, hash);
-			}
-		});
+		return this.execute(HMSET, key, hash);
 	}
 
+	private static final ShardedKeyCommand<String, String[], List<String>> HMGET =
+			new ShardedKeyCommand<String, String[], List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, String[] fields) {
+					return jedis.hmget(key, fields);
+				}
+			};
+
 	@Override
 	public List<String> hmget(final String key, final String... fields) {
-
-		return this.execute(new ShardedJedisAction<List<String>>() {
-			public List<String> doAction(ShardedJedis jedis) {
-				return jedis.hmget(key, fields);
-			}
-		});
+		return this.execute(HMGET, key, fields);
 	}
 
 	@Override
@@ -504,94 +597,110 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, String, Boolean> HEXISTS =
+			new ShardedKeyCommand<String, String, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, String key, String field) {
+					return jedis.hexists(key, field);
+				}
+			};
+
 	@Override
 	public Boolean hexists(final String key, final String field) {
-
-		return this.execute(new ShardedJedisAction<Boolean>() {
-			public Boolean doAction(ShardedJedis jedis) {
-				return jedis.hexists(key, field);
-			}
-		});
+		return this.execute(HEXISTS, key, field);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> HDEL =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] fields) {
+					return jedis.hdel(key, fields);
+				}
+			};
+
 	@Override
 	public Long hdel(final String key, final String... fields) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.hdel(key, fields);
-			}
-		});
+		return this.execute(HDEL, key, fields);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> HLEN = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.hlen(key);
+		}
+	};
+
 	@Override
 	public Long hlen(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.hlen(key);
-			}
-		});
+		return this.execute(HLEN, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Set<String>> HKEYS =
+			new ShardedKeyCommand<String, Void, Set<String>>() {
+				public Set<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.hkeys(key);
+				}
+			};
+
 	@Override
 	public Set<String> hkeys(final String key) {
-
-		return this.execute(new ShardedJedisAction<Set<String>>() {
-			public Set<String> doAction(ShardedJedis jedis) {
-				return jedis.hkeys(key);
-			}
-		});
+		return this.execute(HKEYS, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, List<String>> HVALS =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.hvals(key);
+				}
+			};
+
 	@Override
 	public List<String> hvals(final String key) {
-
-		return this.execute(new ShardedJedisAction<List<String>>() {
-			public List<String> doAction(ShardedJedis jedis) {
-				return jedis.hvals(key);
-			}
-		});
+		return this.execute(HVALS, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Map<String, String>> HGET_ALL =
+			new ShardedKeyCommand<String, Void, Map<String, String>>() {
+				public Map<String, String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.hgetAll(key);
+				}
+			};
+
 	@Override
 	public Map<String, String> hgetAll(final String key) {
-
-		return this.execute(new ShardedJedisAction<Map<String, String>>() {
-			public Map<String, String> doAction(ShardedJedis jedis) {
-				return jedis.hgetAll(key);
-			}
-		});
+		return this.execute(HGET_ALL, key);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> RPUSH =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] values) {
+					return jedis.rpush(key, values);
+				}
+			};
+
 	@Override
 	public Long rpush(final String key, final String... values) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.rpush(key, values);
-			}
-		});
+		return this.execute(RPUSH, key, values);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> LPUSH =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] values) {
+					return jedis.lpush(key, values);
+				}
+			};
+
 	@Override
 	public Long lpush(final String key, final String... values) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.lpush(key, values);
-			}
-		});
+		return this.execute(LPUSH, key, values);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> LLEN = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.llen(key);
+		}
+	};
+
 	@Override
 	public Long llen(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.llen(key);
-			}
-		});
+		return this.execute(LLEN, key);
 	}
 
 	@Override
@@ -644,104 +753,123 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> LPOP = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.lpop(key);
+		}
+	};
+
 	@Override
 	public String lpop(final String key) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.lpop(key);
-			}
-		});
+		return this.execute(LPOP, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> RPOP = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.rpop(key);
+		}
+	};
+
 	@Override
 	public String rpop(final String key) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.rpop(key);
-			}
-		});
+		return this.execute(RPOP, key);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> SADD =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] members) {
+					return jedis.sadd(key, members);
+				}
+			};
+
 	@Override
 	public Long sadd(final String key, final String... members) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.sadd(key, members);
-			}
-		});
+		return this.execute(SADD, key, members);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Set<String>> SMEMBERS =
+			new ShardedKeyCommand<String, Void, Set<String>>() {
+				public Set<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.smembers(key);
+				}
+			};
+
 	@Override
 	public Set<String> smembers(final String key) {
-
-		return this.execute(new ShardedJedisAction<Set<String>>() {
-			public Set<String> doAction(ShardedJedis jedis) {
-				return jedis.smembers(key);
-			}
-		});
+		return this.execute(SMEMBERS, key);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> SREM =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] members) {
+					return jedis.srem(key, members);
+				}
+			};
+
 	@Override
 	public Long srem(final String key, final String... members) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.srem(key, members);
-			}
-		});
+		return this.execute(SREM, key, members);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> SPOP = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.spop(key);
+		}
+	};
+
 	@Override
 	public String spop(final String key) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.spop(key);
-			}
-		});
+		return this.execute(SPOP, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> SCARD = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.scard(key);
+		}
+	};
+
 	@Override
 	public Long scard(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.scard(key);
-			}
-		});
+		return this.execute(SCARD, key);
 	}
 
+	private static final ShardedKeyCommand<String, String, Boolean> SISMEMBER =
+			new ShardedKeyCommand<String, String, Boolean>() {
+				public Boolean doAction(ShardedJedis jedis, String key, String member) {
+					return jedis.sismember(key, member);
+				}
+			};
+
 	@Override
 	public Boolean sismember(final String key, final String member) {
-
-		return this.execute(new ShardedJedisAction<Boolean>() {
-			public Boolean doAction(ShardedJedis jedis) {
-				return jedis.sismember(key, member);
-			}
-		});
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			return pipeline.submit(key, AutoPipeline.SISMEMBER, member).join();
+		}
+		return this.execute(SISMEMBER, key, member);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> SRANDMEMBER =
+			new ShardedKeyCommand<String, Void, String>() {
+				public String doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.srandmember(key);
+				}
+			};
+
 	@Override
 	public String srandmember(final String key) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.srandmember(key);
-			}
-		});
+		return this.execute(SRANDMEMBER, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> STRLEN = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.strlen(key);
+		}
+	};
+
 	@Override
 	public Long strlen(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.strlen(key);
-			}
-		});
+		return this.execute(STRLEN, key);
 	}
 
 	@Override
@@ -754,14 +882,16 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Map<String, Double>, Long> ZADD =
+			new ShardedKeyCommand<String, Map<String, Double>, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, Map<String, Double> scoreMembers) {
+					return jedis.zadd(key, scoreMembers);
+				}
+			};
+
 	@Override
 	public Long zadd(final String key, final Map<String, Double> scoreMembers) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.zadd(key, scoreMembers);
-			}
-		});
+		return this.execute(ZADD, key, scoreMembers);
 	}
 
 	@Override
@@ -774,14 +904,16 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> ZREM =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] members) {
+					return jedis.zrem(key, members);
+				}
+			};
+
 	@Override
 	public Long zrem(final String key, final String... members) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.zrem(key, members);
-			}
-		});
+		return this.execute(ZREM, key, members);
 	}
 
 	@Override
@@ -794,24 +926,27 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> ZRANK = new ShardedKeyCommand<String, String, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, String member) {
+			return jedis.zrank(key, member);
+		}
+	};
+
 	@Override
 	public Long zrank(final String key, final String member) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.zrank(key, member);
-			}
-		});
+		return this.execute(ZRANK, key, member);
 	}
 
+	private static final ShardedKeyCommand<String, String, Long> ZREVRANK =
+			new ShardedKeyCommand<String, String, Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String member) {
+					return jedis.zrevrank(key, member);
+				}
+			};
+
 	@Override
 	public Long zrevrank(final String key, final String member) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.zrevrank(key, member);
-			}
-		});
+		return this.execute(ZREVRANK, key, member);
 	}
 
 	@Override
@@ -844,44 +979,63 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> ZCARD = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.zcard(key);
+		}
+	};
+
 	@Override
 	public Long zcard(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.zcard(key);
-			}
-		});
+		return this.execute(ZCARD, key);
 	}
 
+	private static final ShardedKeyCommand<String, String, Double> ZSCORE =
+			new ShardedKeyCommand<String, String, Double>() {
+				public Double doAction(ShardedJedis jedis, String key, String member) {
+					return jedis.zscore(key, member);
+				}
+			};
+
 	@Override
 	public Double zscore(final String key, final String member) {
-
-		return this.execute(new ShardedJedisAction<Double>() {
-			public Double doAction(ShardedJedis jedis) {
-				return jedis.zscore(key, member);
-			}
-		});
+		return this.execute(ZSCORE, key, member);
 	}
 
-	@Override
-	public List<String> sort(final String key) {
+	// 分片迁移窗口内，结果为null时从旧分片再读一次的只读命令
+	private static final Set<ShardedKeyCommand<?, ?, ?>> FALLBACK_READS = Collections
+			.newSetFromMap(new IdentityHashMap<ShardedKeyCommand<?, ?, ?>, Boolean>());
 
-		return this.execute(new ShardedJedisAction<List<String>>() {
-			public List<String> doAction(ShardedJedis jedis) {
-				return jedis.sort(key);
-			}
-		});
+	static {
+		FALLBACK_READS.add(GET);
+		FALLBACK_READS.add(HGET);
+		FALLBACK_READS.add(ZSCORE);
+		FALLBACK_READS.add(ZRANK);
+		FALLBACK_READS.add(ZREVRANK);
+	}
+
+	private static final ShardedKeyCommand<String, Void, List<String>> SORT =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.sort(key);
+				}
+			};
+
+	@Override
+	public List<String> sort(final String key) {
+		return this.execute(SORT, key);
 	}
 
+	private static final ShardedKeyCommand<String, SortingParams, List<String>> SORT_SORTING_PARAMETERS =
+			new ShardedKeyCommand<String, SortingParams, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, SortingParams sortingParameters) {
+					return jedis.sort(key, sortingParameters);
+				}
+			};
+
 	@Override
 	public List<String> sort(final String key, final SortingParams sortingParameters) {
-
-		return this.execute(new ShardedJedisAction<List<String>>() {
-			public List<String> doAction(ShardedJedis jedis) {
-				return jedis.sort(key, sortingParameters);
-			}
-		});
+		return this.execute(SORT_SORTING_PARAMETERS, key, sortingParameters);
 	}
 
 	@Override
@@ -1113,64 +1267,79 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> LPUSHX =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] strings) {
+					return jedis.lpushx(key, strings);
+				}
+			};
+
 	@Override
 	public Long lpushx(final String key, final String... strings) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.lpushx(key, strings);
-			}
-		});
+		return this.execute(LPUSHX, key, strings);
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> RPUSHX =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] strings) {
+					return jedis.rpushx(key, strings);
+				}
+			};
+
 	@Override
 	public Long rpushx(final String key, final String... strings) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.rpushx(key, strings);
-			}
-		});
+		return this.execute(RPUSHX, key, strings);
 	}
 
+	private static final ShardedKeyCommand<String, Void, List<String>> BLPOP =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.blpop(key);
+				}
+			};
+
 	@Override
 	public List<String> blpop(final String key) {
-
-		return this.execute(new ShardedJedisAction<List<String>>() {
-			public List<String> doAction(ShardedJedis jedis) {
-				return jedis.blpop(key);
-			}
-		});
+		return this.execute(BLPOP, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, List<String>> BRPOP =
+			new ShardedKeyCommand<String, Void, List<String>>() {
+				public List<String> doAction(ShardedJedis jedis, String key, Void arg) {
+					return jedis.brpop(key);
+				}
+			};
+
 	@Override
 	public List<String> brpop(final String key) {
-
-		return this.execute(new ShardedJedisAction<List<String>>() {
-			public List<String> doAction(ShardedJedis jedis) {
-				return jedis.brpop(key);
-			}
-		});
+		return this.execute(BRPOP, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> DEL = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.del(key);
+		}
+	};
+
 	@Override
 	public Long del(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.del(key);
-			}
-		});
+		evictMoved(key);
+		AutoPipeline pipeline = autoPipeline;
+		if (pipeline != null) {
+			return pipeline.submit(key, AutoPipeline.DEL, null).join();
+		}
+		return this.execute(DEL, key);
 	}
 
+	private static final ShardedKeyCommand<String, Void, String> ECHO = new ShardedKeyCommand<String, Void, String>() {
+		public String doAction(ShardedJedis jedis, String message, Void arg) {
+			return jedis.echo(message);
+		}
+	};
+
 	@Override
 	public String echo(final String message) {
-
-		return this.execute(new ShardedJedisAction<String>() {
-			public String doAction(ShardedJedis jedis) {
-				return jedis.echo(message);
-			}
-		});
+		return this.execute(ECHO, message);
 	}
 
 	@Override
@@ -1183,14 +1352,15 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> BITCOUNT = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.bitcount(key);
+		}
+	};
+
 	@Override
 	public Long bitcount(final String key) {
-
-		return this.execute(new ShardedJedisAction<Long>() {
-			public Long doAction(ShardedJedis jedis) {
-				return jedis.bitcount(key);
-			}
-		});
+		return this.execute(BITCOUNT, key);
 	}
 
 	@Override
@@ -1236,34 +1406,40 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		});
 	}
 
+	private static final ShardedKeyCommand<String, String, ScanResult<Entry<String, String>>> HSCAN =
+			new ShardedKeyCommand<String, String, ScanResult<Entry<String, String>>>() {
+				public ScanResult<Entry<String, String>> doAction(ShardedJedis jedis, String key, String cursor) {
+					return jedis.hscan(key, cursor);
+				}
+			};
+
 	@Override
 	public ScanResult<Entry<String, String>> hscan(final String key, final String cursor) {
-
-		return this.execute(new ShardedJedisAction<ScanResult<Entry<String, String>>>() {
-			public ScanResult<Entry<String, String>> doAction(ShardedJedis jedis) {
-				return jedis.hscan(key, cursor);
-			}
-		});
+		return this.execute(HSCAN, key, cursor);
 	}
 
+	private static final ShardedKeyCommand<String, String, ScanResult<String>> SSCAN =
+			new ShardedKeyCommand<String, String, ScanResult<String>>() {
+				public ScanResult<String> doAction(ShardedJedis jedis, String key, String cursor) {
+					return jedis.sscan(key, cursor);
+				}
+			};
+
 	@Override
 	public ScanResult<String> sscan(final String key, final String cursor) {
-
-		return this.execute(new ShardedJedisAction<ScanResult<String>>() {
-			public ScanResult<String> doAction(ShardedJedis jedis) {
-				return jedis.sscan(key, cursor);
-			}
-		});
+		return this.execute(SSCAN, key, cursor);
 	}
 
+	private static final ShardedKeyCommand<String, String, ScanResult<Tuple>> ZSCAN =
+			new ShardedKeyCommand<String, String, ScanResult<Tuple>>() {
+				public ScanResult<Tuple> doAction(ShardedJedis jedis, String key, String cursor) {
+					return jedis.zscan(key, cursor);
+				}
+			};
+
 	@Override
 	public ScanResult<Tuple> zscan(final String key, final String cursor) {
-
-		return this.execute(new ShardedJedisAction<ScanResult<Tuple>>() {
-			public ScanResult<Tuple> doAction(ShardedJedis jedis) {
-				return jedis.zscan(key, cursor);
-			}
-		});
+		return this.execute(ZSCAN, key, cursor);
 	}
 
 	private static String[] mapToArray(Map<String, String> map) {
@@ -1282,99 +1458,155 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 	}
 
 	@Override
-	public String set(String key, String value, String nxxx, String expx, long time) {
-		// TODO Auto-generated method stub
-		return null;
+	public String set(final String key, final String value, final String nxxx, final String expx, final long time) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.set(key, value, nxxx, expx, time);
+			}
+		});
 	}
 
 	@Override
-	public Long pexpire(String key, long milliseconds) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pexpire(final String key, final long milliseconds) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.pexpire(key, milliseconds);
+			}
+		});
 	}
 
 	@Override
-	public Long pexpireAt(String key, long millisecondsTimestamp) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pexpireAt(final String key, final long millisecondsTimestamp) {
+		evictMoved(key);
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.pexpireAt(key, millisecondsTimestamp);
+			}
+		});
 	}
 
 	@Override
-	public Double incrByFloat(String key, double value) {
-		// TODO Auto-generated method stub
-		return null;
+	public Double incrByFloat(final String key, final double value) {
+		return this.execute(new ShardedJedisAction<Double>() {
+			public Double doAction(ShardedJedis jedis) {
+				return jedis.incrByFloat(key, value);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> spop(String key, long count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> spop(final String key, final long count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.spop(key, count);
+			}
+		});
 	}
 
 	@Override
-	public List<String> srandmember(String key, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> srandmember(final String key, final int count) {
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(ShardedJedis jedis) {
+				return jedis.srandmember(key, count);
+			}
+		});
 	}
 
 	@Override
-	public Long zlexcount(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zlexcount(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zlexcount(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByLex(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByLex(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByLex(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrangeByLex(String key, String min, String max, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrangeByLex(final String key, final String min, final String max, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrangeByLex(key, min, max, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByLex(String key, String max, String min) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByLex(final String key, final String max, final String min) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByLex(key, max, min);
+			}
+		});
 	}
 
 	@Override
-	public Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
-		// TODO Auto-generated method stub
-		return null;
+	public Set<String> zrevrangeByLex(final String key, final String max, final String min, final int offset, final int count) {
+		return this.execute(new ShardedJedisAction<Set<String>>() {
+			public Set<String> doAction(ShardedJedis jedis) {
+				return jedis.zrevrangeByLex(key, max, min, offset, count);
+			}
+		});
 	}
 
 	@Override
-	public Long zremrangeByLex(String key, String min, String max) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long zremrangeByLex(final String key, final String min, final String max) {
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				return jedis.zremrangeByLex(key, min, max);
+			}
+		});
 	}
 
 	@Override
-	public List<String> blpop(int timeout, String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> blpop(final int timeout, final String key) {
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(ShardedJedis jedis) {
+				return jedis.blpop(timeout, key);
+			}
+		});
 	}
 
 	@Override
-	public List<String> brpop(int timeout, String key) {
-		// TODO Auto-generated method stub
-		return null;
+	public List<String> brpop(final int timeout, final String key) {
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(ShardedJedis jedis) {
+				return jedis.brpop(timeout, key);
+			}
+		});
 	}
 
+	private static final ShardedKeyCommand<String, String[], Long> PFADD =
+			new ShardedKeyCommand<String, String[], Long>() {
+				public Long doAction(ShardedJedis jedis, String key, String[] elements) {
+					return jedis.pfadd(key, elements);
+				}
+			};
+
 	@Override
-	public Long pfadd(String key, String... elements) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long pfadd(final String key, final String... elements) {
+		return this.execute(PFADD, key, elements);
 	}
 
+	private static final ShardedKeyCommand<String, Void, Long> PFCOUNT = new ShardedKeyCommand<String, Void, Long>() {
+		public Long doAction(ShardedJedis jedis, String key, Void arg) {
+			return jedis.pfcount(key);
+		}
+	};
+
 	@Override
-	public long pfcount(String key) {
-		// TODO Auto-generated method stub
-		return 0;
+	public long pfcount(final String key) {
+		return this.execute(PFCOUNT, key);
 	}
 
 	@Override
@@ -1383,16 +1615,195 @@ public class MyShardedClient extends AbstractShardedClient implements ShardedRed
 		return null;
 	}
 
+	/**
+	 * 按分片分组，各分片并行MSET，分片内每批最多 MAX_BATCH_SIZE 个key顺序执行 (各分片之间不保证原子性)
+	 */
 	@Override
-	public String mset(Map<String, String> keyValues) {
-		// TODO Auto-generated method stub
-		return null;
+	public String mset(final Map<String, String> keyValues) {
+		if (keyValues == null || keyValues.isEmpty()) {
+			return "OK";
+		}
+		evictMoved(keyValues.keySet().toArray(new String[keyValues.size()]));
+		return this.execute(new ShardedJedisAction<String>() {
+			public String doAction(final ShardedJedis jedis) {
+				List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+				for (final List<String> group : ShardExecutor.groupByShard(jedis, keyValues.keySet())) {
+					tasks.add(new Callable<String>() {
+						public String call() {
+							// 同一个分片共用一个连接，分批顺序发送
+							Jedis shard = jedis.getShard(group.get(0));
+							for (List<String> batch : ShardExecutor.partition(group)) {
+								String[] keysvalues = new String[batch.size() * 2];
+								for (int i = 0; i < batch.size(); i++) {
+									keysvalues[2 * i] = batch.get(i);
+									keysvalues[2 * i + 1] = keyValues.get(batch.get(i));
+								}
+								shard.mset(keysvalues);
+							}
+							return "OK";
+						}
+					});
+				}
+				shardExecutor.invokeAll(tasks);
+				return "OK";
+			}
+		});
 	}
 
+	/**
+	 * MSETNX需要原子性，所有key必须在同一个分片上 (可以使用hash tag)
+	 * @throws RedisClientException key分布在多个分片上
+	 */
 	@Override
-	public Long msetnx(Map<String, String> keyValues) {
-		// TODO Auto-generated method stub
-		return null;
+	public Long msetnx(final Map<String, String> keyValues) {
+		if (keyValues == null || keyValues.isEmpty()) {
+			return 0L;
+		}
+		return this.execute(new ShardedJedisAction<Long>() {
+			public Long doAction(ShardedJedis jedis) {
+				String[] keysvalues = new String[keyValues.size() * 2];
+				JedisShardInfo shard = null;
+				int i = 0;
+				for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+					JedisShardInfo current = jedis.getShardInfo(entry.getKey());
+					if (shard != null && current != shard) {
+						throw new RedisClientException("msetnx keys must be on the same shard");
+					}
+					shard = current;
+					keysvalues[i++] = entry.getKey();
+					keysvalues[i++] = entry.getValue();
+				}
+				return jedis.getShard(keysvalues[0]).msetnx(keysvalues);
+			}
+		});
+	}
+
+	@Override
+	public ScanIterator<String> scan(String pattern, int count) {
+		ShardedJedisPool pool = getShardedJedisPool();
+		return new ShardedScanIterator<String>(pool, pool.getResource(),
+				pattern == null ? null : SafeEncoder.encode(pattern), count, shardExecutor) {
+			@Override
+			protected String decode(byte[] key) {
+				return SafeEncoder.encode(key);
+			}
+		};
+	}
+
+	@Override
+	public Batch<String> batch() {
+		return new ShardedBatch<String>(Batch.STRING_KEYS, StringCodec.INSTANCE, shardExecutor);
+	}
+
+	@Override
+	public List<String> mget(final String... keys) {
+		if (keys == null || keys.length == 0) {
+			return new ArrayList<String>(0);
+		}
+		return this.execute(new ShardedJedisAction<List<String>>() {
+			public List<String> doAction(final ShardedJedis jedis) {
+				List<Callable<List<String>>> tasks = new ArrayList<Callable<List<String>>>();
+				final List<List<String>> groups = ShardExecutor.groupByShard(jedis, Arrays.asList(keys));
+				for (final List<String> group : groups) {
+					tasks.add(new Callable<List<String>>() {
+						public List<String> call() {
+							// 同一个分片共用一个连接，分批顺序发送
+							Jedis shard = jedis.getShard(group.get(0));
+							List<String> values = new ArrayList<String>(group.size());
+							for (List<String> batch : ShardExecutor.partition(group)) {
+								values.addAll(shard.mget(batch.toArray(new String[batch.size()])));
+							}
+							return values;
+						}
+					});
+				}
+				List<List<String>> results = shardExecutor.invokeAll(tasks);
+				Map<String, String> values = new HashMap<String, String>(keys.length * 2);
+				for (int i = 0; i < groups.size(); i++) {
+					List<String> group = groups.get(i);
+					for (int j = 0; j < group.size(); j++) {
+						values.put(group.get(j), results.get(i).get(j));
+					}
+				}
+				List<String> list = new ArrayList<String>(keys.length);
+				for (String key : keys) {
+					list.add(values.get(key));
+				}
+				return list;
+			}
+		});
+	}
+
+	@Override
+	public RedisFuture<String> getAsync(final String key) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return get(key);
+			}
+		});
+	}
+
+	@Override
+	public RedisFuture<String> setAsync(final String key, final String value) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return set(key, value);
+			}
+		});
+	}
+
+	@Override
+	public RedisFuture<String> setexAsync(final String key, final int seconds, final String value) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return setex(key, seconds, value);
+			}
+		});
+	}
+
+	@Override
+	public RedisFuture<Long> delAsync(final String key) {
+		return asyncExecutor.submit(new Callable<Long>() {
+			public Long call() {
+				return del(key);
+			}
+		});
+	}
+
+	@Override
+	public RedisFuture<Boolean> existsAsync(final String key) {
+		return asyncExecutor.submit(new Callable<Boolean>() {
+			public Boolean call() {
+				return exists(key);
+			}
+		});
+	}
+
+	@Override
+	public RedisFuture<String> hgetAsync(final String key, final String field) {
+		return asyncExecutor.submit(new Callable<String>() {
+			public String call() {
+				return hget(key, field);
+			}
+		});
+	}
+
+	@Override
+	public RedisFuture<List<String>> mgetAsync(final String... keys) {
+		return asyncExecutor.submit(new Callable<List<String>>() {
+			public List<String> call() {
+				return mget(keys);
+			}
+		});
+	}
+
+	@Override
+	public <T> RedisFuture<T> executeAsync(final ShardedJedisAction<T> action) {
+		return asyncExecutor.submit(new Callable<T>() {
+			public T call() {
+				return execute(action);
+			}
+		});
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,203 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * 配置变更时平滑替换连接池 (drain-and-swap)
+ * <p>
+ * 新池先建立 minIdle 个连接，再由调用方原子替换；旧池不再借出新连接，等已借出的连接归还后关闭，
+ * 最多等 graceMillis，超时时强制关闭，仍未归还的连接上的命令计为失败。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+final class PoolSwap {
+
+	private static final Logger logger = LoggerFactory.getLogger(PoolSwap.class);
+
+	// 旧池等待已借出连接归还的默认时间 毫秒
+	static final int DEFAULT_GRACE_MILLIS = 5000;
+
+	// 检查旧池借出连接数的间隔 毫秒
+	private static final long POLL_MILLIS = 20;
+
+	private static final ScheduledExecutorService DRAINER = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "redis-pool-drainer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * 被替换的旧池
+	 */
+	interface Drainable {
+
+		/**
+		 * @return 已借出、还没有归还的连接数
+		 */
+		int getActiveCount();
+
+		void close();
+	}
+
+	private PoolSwap() {
+	}
+
+	/**
+	 * 借出 count 个 ShardedJedis 并 ping 每个分片，归还后留在池中空闲
+	 *
+	 * @param pool
+	 * @param count
+	 * @return 建立失败的连接数
+	 */
+	static int prewarm(ShardedJedisPool pool, int count) {
+		List<ShardedJedis> warmed = new ArrayList<ShardedJedis>(count);
+		int failed = 0;
+		try {
+			for (int i = 0; i < count; i++) {
+				ShardedJedis jedis = null;
+				try {
+					jedis = pool.getResource();
+					for (Jedis shard : jedis.getAllShards()) {
+						shard.ping();
+					}
+					warmed.add(jedis);
+				} catch (RuntimeException e) {
+					failed++;
+					if (jedis != null) {
+						pool.returnBrokenResource(jedis);
+					}
+				}
+			}
+		} finally {
+			for (ShardedJedis jedis : warmed) {
+				pool.returnResource(jedis);
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * 每个节点的连接池建立 count 个连接
+	 *
+	 * @param cluster
+	 * @param count
+	 * @return 建立失败的连接数
+	 */
+	static int prewarm(MyJedisCluster cluster, int count) {
+		int failed = 0;
+		for (JedisPool pool : cluster.getClusterNodes().values()) {
+			List<Jedis> warmed = new ArrayList<Jedis>(count);
+			try {
+				for (int i = 0; i < count; i++) {
+					Jedis jedis = null;
+					try {
+						jedis = pool.getResource();
+						jedis.ping();
+						warmed.add(jedis);
+					} catch (RuntimeException e) {
+						failed++;
+						if (jedis != null) {
+							pool.returnBrokenResource(jedis);
+						}
+					}
+				}
+			} finally {
+				for (Jedis jedis : warmed) {
+					pool.returnResource(jedis);
+				}
+			}
+		}
+		return failed;
+	}
+
+	static Drainable drainable(final ShardedJedisPool pool) {
+		return new Drainable() {
+			public int getActiveCount() {
+				return Math.max(0, pool.getNumActive());
+			}
+
+			public void close() {
+				pool.destroy();
+			}
+		};
+	}
+
+	static Drainable drainable(final MyJedisCluster cluster) {
+		return new Drainable() {
+			public int getActiveCount() {
+				int active = 0;
+				for (JedisPool pool : cluster.getClusterNodes().values()) {
+					active += Math.max(0, pool.getNumActive());
+				}
+				return active;
+			}
+
+			public void close() {
+				for (JedisPool pool : cluster.getClusterNodes().values()) {
+					try {
+						pool.destroy();
+					} catch (JedisConnectionException e) {
+						// ok to go...
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * 在后台等待旧池的连接归还后关闭，完成时输出替换耗时和失败的命令数
+	 *
+	 * @param name 配置路径
+	 * @param swapMillis 创建、预热和切换新池的耗时 毫秒
+	 * @param warmupFailures 新池预热失败的连接数
+	 * @param old 被替换的旧池
+	 * @param graceMillis 最多等待的时间 毫秒，&lt;=0 时立即关闭
+	 */
+	static void drain(final String name, final long swapMillis, final int warmupFailures, final Drainable old,
+			long graceMillis) {
+		final long drainNanos = System.nanoTime();
+		final long deadline = drainNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, graceMillis));
+		Runnable check = new Runnable() {
+			public void run() {
+				int active;
+				try {
+					active = old.getActiveCount();
+				} catch (RuntimeException e) {
+					active = 0;
+				}
+				if (active > 0 && System.nanoTime() - deadline < 0) {
+					DRAINER.schedule(this, POLL_MILLIS, TimeUnit.MILLISECONDS);
+					return;
+				}
+				try {
+					old.close();
+				} catch (RuntimeException e) {
+					logger.warn("Fail to close replaced redis pool of " + name, e);
+				}
+				long now = System.nanoTime();
+				logger.info("Redis pool of " + name + " swapped in " + swapMillis + "ms, old pool drained in "
+						+ TimeUnit.NANOSECONDS.toMillis(now - drainNanos) + "ms, failed operations=" + active
+						+ ", warm-up failures=" + warmupFailures);
+			}
+		};
+		DRAINER.execute(check);
+	}
+}
@@ -0,0 +1,430 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Protocol;
+import redis.clients.util.Hashing;
+import redis.clients.util.Sharded;
+
+/**
+ * redis客户端配置 (uniconfig 或 classpath 中的 xml)
+ * <p>
+ * 一次流式 (StAX) 解析得到所有元素的文本，解析后不可变，可以在多个线程之间共享。
+ * 按配置内容缓存，同样的配置只解析一次；热更新时每个新内容各自解析，互不影响。
+ *
+ * <pre>
+ * &lt;config&gt;
+ *   &lt;timeOut&gt;2000&lt;/timeOut&gt;
+ *   &lt;poolConfig&gt;&lt;maxIdle&gt;10&lt;/maxIdle&gt;...&lt;/poolConfig&gt;
+ *   &lt;hostAndPorts&gt;&lt;hostAndPort&gt;127.0.0.1:6379&lt;/hostAndPort&gt;&lt;/hostAndPorts&gt;
+ * &lt;/config&gt;
+ * </pre>
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public final class RedisClientConfig {
+
+	private static final String ROOT = "config";
+
+	// 没有配置name的分片使用的名字，与以前的版本相同，保持key的分布不变
+	private static final String DEFAULT_SHARD_NAME = "root";
+
+	// 缓存的不同配置数，超出时淘汰最久没有使用的
+	private static final int CACHE_SIZE = 64;
+
+	private static final Map<String, RedisClientConfig> CACHE = new LinkedHashMap<String, RedisClientConfig>(16,
+			0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, RedisClientConfig> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	// 元素路径 (不含根元素，如 poolConfig/maxIdle) → 按出现顺序的文本
+	private final Map<String, List<String>> values;
+
+	// 元素路径 → 按出现顺序的属性，与values中的文本一一对应
+	private final Map<String, List<Map<String, String>>> attributes;
+
+	private RedisClientConfig(Map<String, List<String>> values, Map<String, List<Map<String, String>>> attributes) {
+		this.values = values;
+		this.attributes = attributes;
+	}
+
+	/**
+	 * 解析配置，相同内容返回同一个实例
+	 *
+	 * @param redisConfig xml内容
+	 * @return
+	 * @throws RedisClientException 格式错误
+	 */
+	public static RedisClientConfig parse(String redisConfig) {
+		synchronized (CACHE) {
+			RedisClientConfig config = CACHE.get(redisConfig);
+			if (config != null) {
+				return config;
+			}
+		}
+		// 在锁外解析，同时解析相同内容时只是多解析一次
+		Map<String, List<String>> values = new HashMap<String, List<String>>();
+		Map<String, List<Map<String, String>>> attributes = new HashMap<String, List<Map<String, String>>>();
+		read(redisConfig, values, attributes);
+		RedisClientConfig config = new RedisClientConfig(values, attributes);
+		synchronized (CACHE) {
+			CACHE.put(redisConfig, config);
+		}
+		return config;
+	}
+
+	private static void read(String redisConfig, Map<String, List<String>> values,
+			Map<String, List<Map<String, String>>> attributes) {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		XMLStreamReader reader = null;
+		try {
+			reader = factory.createXMLStreamReader(new StringReader(redisConfig));
+			List<String> path = new ArrayList<String>();
+			List<StringBuilder> texts = new ArrayList<StringBuilder>();
+			List<Map<String, String>> elementAttributes = new ArrayList<Map<String, String>>();
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (path.isEmpty() && !ROOT.equals(reader.getLocalName())) {
+						throw new RedisClientException("Invalid xml format, can't find <config> root node!");
+					}
+					path.add(reader.getLocalName());
+					texts.add(new StringBuilder());
+					Map<String, String> attrs = new HashMap<String, String>();
+					for (int i = 0; i < reader.getAttributeCount(); i++) {
+						attrs.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i).trim());
+					}
+					elementAttributes.add(Collections.unmodifiableMap(attrs));
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					// 与 DOM getTextContent 相同，包括子元素的文本
+					for (StringBuilder text : texts) {
+						text.append(reader.getText());
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					String text = texts.remove(texts.size() - 1).toString();
+					Map<String, String> endAttrs = elementAttributes.remove(elementAttributes.size() - 1);
+					if (path.size() > 1) {
+						String key = join(path.subList(1, path.size()));
+						List<String> list = values.get(key);
+						List<Map<String, String>> attrList = attributes.get(key);
+						if (list == null) {
+							list = new ArrayList<String>(1);
+							values.put(key, list);
+							attrList = new ArrayList<Map<String, String>>(1);
+							attributes.put(key, attrList);
+						}
+						list.add(text);
+						attrList.add(endAttrs);
+					}
+					path.remove(path.size() - 1);
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (XMLStreamException ex) {
+			throw new RedisClientException("Fail to parse redis configure file.", ex);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ignore) {
+				}
+			}
+		}
+		for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		for (Map.Entry<String, List<Map<String, String>>> entry : attributes.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+	}
+
+	private static String join(List<String> path) {
+		StringBuilder key = new StringBuilder();
+		for (String name : path) {
+			if (key.length() > 0) {
+				key.append('/');
+			}
+			key.append(name);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 第一个匹配元素的文本
+	 *
+	 * @param path 相对 &lt;config&gt; 的路径，如 poolConfig/maxIdle
+	 * @return 没有配置时为空字符串
+	 */
+	public String getString(String path) {
+		List<String> list = values.get(path);
+		return list == null ? "" : list.get(0);
+	}
+
+	/**
+	 * 所有匹配元素的文本
+	 *
+	 * @param path
+	 * @return
+	 */
+	public List<String> getList(String path) {
+		List<String> list = values.get(path);
+		return list == null ? Collections.<String> emptyList() : list;
+	}
+
+	/**
+	 * 所有匹配元素的属性，与 getList 的顺序相同
+	 *
+	 * @param path
+	 * @return 没有属性的元素为空Map
+	 */
+	public List<Map<String, String>> getAttributes(String path) {
+		List<Map<String, String>> list = attributes.get(path);
+		return list == null ? Collections.<Map<String, String>> emptyList() : list;
+	}
+
+	public boolean contains(String path) {
+		return values.containsKey(path);
+	}
+
+	/**
+	 * @param path
+	 * @param defaultValue 没有配置或为空时使用
+	 * @return
+	 */
+	public int getInt(String path, int defaultValue) {
+		String value = getString(path).trim();
+		if (value.length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new RedisClientException("Invalid " + path + ": " + value);
+		}
+	}
+
+	/**
+	 * hostAndPorts/hostAndPort，没有端口时使用6379
+	 *
+	 * @return HashSet，迭代顺序与以前的解析结果相同 (分片客户端按这个顺序创建分片)
+	 */
+	public Set<HostAndPort> getHostAndPorts() {
+		Set<HostAndPort> hostAndPorts = new HashSet<HostAndPort>();
+		for (String hostAndPort : getList("hostAndPorts/hostAndPort")) {
+			hostAndPorts.add(toHostAndPort(hostAndPort));
+		}
+		return hostAndPorts;
+	}
+
+	private static HostAndPort toHostAndPort(String hostAndPort) {
+		String[] ipAndPort = hostAndPort.split(":");
+		String port = ipAndPort.length > 1 ? ipAndPort[1].trim() : "";
+		return new HostAndPort(ipAndPort[0].trim(), port.length() == 0 ? 6379 : Integer.parseInt(port));
+	}
+
+	/**
+	 * 分片模式的分片列表，顺序与 getHostAndPorts 相同
+	 * <p>
+	 * hostAndPort 的属性 name、weight、timeout、password、db 设置单个分片，
+	 * 没有设置时 timeout、password、db 使用 &lt;timeOut&gt;、&lt;password&gt;、&lt;dbIndex&gt;。
+	 * 没有 name 的分片沿用以前的名字 root：名字相同的分片在hash环上重叠，只有设置了不同名字，weight才有意义。
+	 *
+	 * @return
+	 */
+	public List<JedisShardInfo> getShardInfos() {
+		// 同一个地址配置了多次时使用第一个的属性
+		Map<HostAndPort, Map<String, String>> shardAttributes = new HashMap<HostAndPort, Map<String, String>>();
+		List<String> hostAndPorts = getList("hostAndPorts/hostAndPort");
+		List<Map<String, String>> attrList = getAttributes("hostAndPorts/hostAndPort");
+		for (int i = 0; i < hostAndPorts.size(); i++) {
+			HostAndPort hostAndPort = toHostAndPort(hostAndPorts.get(i));
+			if (!shardAttributes.containsKey(hostAndPort)) {
+				shardAttributes.put(hostAndPort, attrList.get(i));
+			}
+		}
+		int timeout = getInt("timeOut", Protocol.DEFAULT_TIMEOUT);
+		String password = getString("password").trim();
+		int db = getInt("dbIndex", 0);
+		List<JedisShardInfo> shards = new ArrayList<JedisShardInfo>();
+		for (HostAndPort hostAndPort : getHostAndPorts()) {
+			Map<String, String> attrs = shardAttributes.get(hostAndPort);
+			String name = attrs.get("name");
+			String shardPassword = attrs.containsKey("password") ? attrs.get("password") : password;
+			shards.add(new RedisShardInfo(hostAndPort.getHost(), hostAndPort.getPort(),
+					name == null || name.length() == 0 ? DEFAULT_SHARD_NAME : name,
+					attrInt(attrs, "weight", Sharded.DEFAULT_WEIGHT), attrInt(attrs, "timeout", timeout),
+					shardPassword.length() == 0 ? null : shardPassword, attrInt(attrs, "db", db)));
+		}
+		return shards;
+	}
+
+	private static int attrInt(Map<String, String> attrs, String name, int defaultValue) {
+		String value = attrs.get(name);
+		if (value == null || value.length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new RedisClientException("Invalid hostAndPort " + name + ": " + value);
+		}
+	}
+
+	/**
+	 * 分片的hash算法，&lt;hashing&gt; 为 murmur (默认) 或 md5
+	 *
+	 * @return
+	 */
+	public Hashing getHashing() {
+		String hashing = getString("hashing").trim();
+		if (hashing.length() == 0 || "murmur".equalsIgnoreCase(hashing)) {
+			return Hashing.MURMUR_HASH;
+		}
+		if ("md5".equalsIgnoreCase(hashing)) {
+			return Hashing.MD5;
+		}
+		throw new RedisClientException("Invalid hashing: " + hashing);
+	}
+
+	/**
+	 * &lt;keyTagPattern&gt;：按key中第一个分组计算分片，如 \{(.+?)\} 使 {user:1}:name 和 {user:1}:age 在同一个分片
+	 *
+	 * @return 没有配置时为null，按整个key计算
+	 */
+	public Pattern getKeyTagPattern() {
+		String pattern = getString("keyTagPattern").trim();
+		if (pattern.length() == 0) {
+			return null;
+		}
+		try {
+			return Pattern.compile(pattern);
+		} catch (PatternSyntaxException e) {
+			throw new RedisClientException("Invalid keyTagPattern: " + pattern, e);
+		}
+	}
+
+	/**
+	 * shards/shardName
+	 *
+	 * @return
+	 */
+	public List<String> getMasters() {
+		return getList("shards/shardName");
+	}
+
+	/**
+	 * forceMasterkeys/keyPattern
+	 *
+	 * @return
+	 */
+	public List<String> getForceMasterKeys() {
+		return getList("forceMasterkeys/keyPattern");
+	}
+
+	/**
+	 * 按 poolConfig 创建连接池配置，每次返回新的实例
+	 *
+	 * @return
+	 */
+	public GenericObjectPoolConfig newPoolConfig() {
+		GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+		if (!contains("poolConfig")) {
+			return poolConfig;
+		}
+		poolConfig.setMaxTotal(Integer.MAX_VALUE);
+		poolConfig.setMaxWaitMillis(200);
+		poolConfig.setBlockWhenExhausted(false);
+		String maxIdle = getPoolString("maxIdle");
+		if (maxIdle != null) {
+			poolConfig.setMaxIdle(Integer.valueOf(maxIdle));
+		}
+		String minIdle = getPoolString("minIdle");
+		if (minIdle != null) {
+			poolConfig.setMinIdle(Integer.valueOf(minIdle));
+		}
+		String lifo = getPoolString("lifo");
+		if (lifo != null) {
+			poolConfig.setLifo(Boolean.valueOf(lifo));
+		}
+		String minEvictableIdleTimeMillis = getPoolString("minEvictableIdleTimeMillis");
+		poolConfig.setMinEvictableIdleTimeMillis(minEvictableIdleTimeMillis != null
+				? Long.valueOf(minEvictableIdleTimeMillis) : 60000L);
+		String softMinEvictableIdleTimeMillis = getPoolString("softMinEvictableIdleTimeMillis");
+		if (softMinEvictableIdleTimeMillis != null) {
+			poolConfig.setSoftMinEvictableIdleTimeMillis(Long.valueOf(softMinEvictableIdleTimeMillis));
+		}
+		String numTestsPerEvictionRun = getPoolString("numTestsPerEvictionRun");
+		poolConfig.setNumTestsPerEvictionRun(numTestsPerEvictionRun != null ? Integer.valueOf(numTestsPerEvictionRun)
+				: -1);
+		String evictionPolicyClassName = getPoolString("evictionPolicyClassName");
+		if (evictionPolicyClassName != null) {
+			poolConfig.setEvictionPolicyClassName(evictionPolicyClassName);
+		}
+		String testOnBorrow = getPoolString("testOnBorrow");
+		if (testOnBorrow != null) {
+			// 获取连接池是否检测可用性
+			poolConfig.setTestOnBorrow(Boolean.valueOf(testOnBorrow));
+		}
+		String testOnReturn = getPoolString("testOnReturn");
+		if (testOnReturn != null) {
+			// 归还时是否检测可用性
+			poolConfig.setTestOnReturn(Boolean.valueOf(testOnReturn));
+		}
+		String testWhileIdle = getPoolString("testWhileIdle");
+		// 空闲时是否检测可用性
+		poolConfig.setTestWhileIdle(testWhileIdle != null ? Boolean.valueOf(testWhileIdle) : true);
+		String timeBetweenEvictionRunsMillis = getPoolString("timeBetweenEvictionRunsMillis");
+		poolConfig.setTimeBetweenEvictionRunsMillis(timeBetweenEvictionRunsMillis != null
+				? Long.valueOf(timeBetweenEvictionRunsMillis) : 30000L);
+		String jmxEnabled = getPoolString("jmxEnabled");
+		if (jmxEnabled != null) {
+			poolConfig.setJmxEnabled(Boolean.valueOf(jmxEnabled));
+		}
+		String jmxNamePrefix = getPoolString("jmxNamePrefix");
+		if (jmxNamePrefix != null) {
+			poolConfig.setJmxNamePrefix(jmxNamePrefix);
+		}
+		return poolConfig;
+	}
+
+	// poolConfig下的值，去掉空白，没有配置或为空时为null
+	private String getPoolString(String name) {
+		String value = getString("poolConfig/" + name).trim();
+		return value.length() == 0 ? null : value;
+	}
+}
@@ -0,0 +1,51 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+
+/**
+ * 可以指定db的分片信息
+ * <p>
+ * JedisShardInfo 只有地址、名字、权重、超时和密码，这里在建立连接时 (包括断线重连) 再 SELECT db。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class RedisShardInfo extends JedisShardInfo {
+
+	private final int db;
+
+	public RedisShardInfo(String host, int port, String name, int weight, int timeout, String password, int db) {
+		super(host, name, port, timeout, weight);
+		setPassword(password);
+		this.db = db;
+	}
+
+	public int getDb() {
+		return db;
+	}
+
+	@Override
+	public Jedis createResource() {
+		Jedis jedis = super.createResource();
+		if (db != 0) {
+			jedis.getClient().setDb(db);
+		}
+		return jedis;
+	}
+
+	/**
+	 * 分片的db，普通的 JedisShardInfo 为0
+	 *
+	 * @param shard
+	 * @return
+	 */
+	public static int getDb(JedisShardInfo shard) {
+		return shard instanceof RedisShardInfo ? ((RedisShardInfo) shard).db : 0;
+	}
+
+	@Override
+	public String toString() {
+		return getHost() + ":" + getPort() + "*" + getWeight() + (db != 0 ? "/" + db : "");
+	}
+}
@@ -0,0 +1,511 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.client.ShardedKeyCommand;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 分片列表变更后的在线迁移
+ * <p>
+ * 比较新旧两个hash环，找出owner变化的区间。迁移窗口内：
+ * <ul>
+ * <li>新分片上读不到的key，如果所在区间已迁移，从旧分片再读一次；</li>
+ * <li>后台线程按限速 SCAN 旧分片，把owner已变化的key MIGRATE 到新分片 (有密码时使用 DUMP/RESTORE)，
+ * 新分片上已经有的key (迁移开始后写入的新值) 不覆盖，只删除旧分片上的；</li>
+ * <li>删除、覆盖key或设置过期时间之前，客户端先删除旧分片上的旧值 (evict)，再写新分片。
+ * MIGRATE 在旧分片上是原子的，不会把删除的key搬回新分片。</li>
+ * </ul>
+ * 迁移完成 (没有失败的key) 或窗口结束后停止回读，旧连接池在借出的连接归还后关闭。
+ * <p>
+ * 仍然存在的风险：
+ * <ul>
+ * <li>DUMP/RESTORE 不是原子的，复制期间旧值被删除时撤销复制 (删除新分片上的key)，
+ * 同时写入的新值也可能被删除，只会多一次未命中；</li>
+ * <li>对还没迁移的key设置过期时间，旧值直接删除，相当于提前过期；</li>
+ * <li>HSET、SADD 等局部修改不删除旧值，新分片上已有这个key时旧值不再迁移 (与覆盖相同)；</li>
+ * <li>旧分片连接失败时无法删除旧值，旧分片同时也无法迁移，恢复后在窗口内仍可能迁移旧值。</li>
+ * </ul>
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ShardMigration {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShardMigration.class);
+
+	// MIGRATE 等待目标分片的时间 毫秒
+	private static final int MIGRATE_TIMEOUT = 2000;
+
+	private final String name;
+
+	private final ShardedJedisPool oldPool;
+
+	private final ShardRing oldRing;
+
+	private final ShardRing newRing;
+
+	private final List<ShardRing.Range> movedRanges;
+
+	private final long windowEnd;
+
+	private final int keysPerSecond;
+
+	private final int scanCount;
+
+	private final long swapMillis;
+
+	private final long graceMillis;
+
+	private final AtomicLong scannedKeys = new AtomicLong();
+
+	private final AtomicLong migratedKeys = new AtomicLong();
+
+	private final AtomicLong skippedKeys = new AtomicLong();
+
+	private final AtomicLong failedKeys = new AtomicLong();
+
+	private final AtomicLong fallbackReads = new AtomicLong();
+
+	private final AtomicLong fallbackHits = new AtomicLong();
+
+	private final AtomicLong evictedKeys = new AtomicLong();
+
+	private volatile boolean active = true;
+
+	private volatile boolean cancelled;
+
+	private volatile Thread worker;
+
+	// 限速：下一个key可以迁移的时间 (System.nanoTime)，只在worker线程中使用
+	private long nextNanos;
+
+	/**
+	 * @param name 配置路径
+	 * @param oldPool 被替换的连接池，迁移结束后关闭
+	 * @param oldRing
+	 * @param newRing
+	 * @param windowMillis 迁移窗口 毫秒
+	 * @param keysPerSecond 每秒最多迁移的key数，&lt;=0 时不限速
+	 * @param scanCount SCAN 的 COUNT
+	 * @param swapMillis 创建和切换新连接池的耗时，结束时一起输出
+	 * @param graceMillis 关闭旧连接池前等待借出连接归还的时间
+	 */
+	ShardMigration(String name, ShardedJedisPool oldPool, ShardRing oldRing, ShardRing newRing, long windowMillis,
+			int keysPerSecond, int scanCount, long swapMillis, long graceMillis) {
+		this.name = name;
+		this.oldPool = oldPool;
+		this.oldRing = oldRing;
+		this.newRing = newRing;
+		this.movedRanges = ShardRing.diff(oldRing, newRing);
+		this.windowEnd = System.currentTimeMillis() + windowMillis;
+		this.keysPerSecond = keysPerSecond;
+		this.scanCount = scanCount;
+		this.swapMillis = swapMillis;
+		this.graceMillis = graceMillis;
+	}
+
+	/**
+	 * 启动后台迁移线程
+	 */
+	void start() {
+		double fraction = 0;
+		for (ShardRing.Range range : movedRanges) {
+			fraction += range.fraction();
+		}
+		logger.info("Redis shards of " + name + " changed, " + movedRanges.size() + " hash ranges ("
+				+ String.format("%.2f", fraction * 100) + "%) moved, migrating until "
+				+ new Date(windowEnd));
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					boolean completed = migrate();
+					// 有没迁移完的key时，窗口结束前继续从旧分片回读
+					if (!completed || failedKeys.get() > 0) {
+						awaitWindowEnd();
+					}
+				} catch (InterruptedException e) {
+					// cancelled
+				} catch (RuntimeException e) {
+					logger.warn("Redis shard migration of " + name + " failed", e);
+				} finally {
+					active = false;
+					logger.info("Redis shard migration of " + name + " finished: " + ShardMigration.this);
+					PoolSwap.drain(name, swapMillis, 0, PoolSwap.drainable(oldPool), graceMillis);
+				}
+			}
+		}, "redis-shard-migration");
+		thread.setDaemon(true);
+		worker = thread;
+		thread.start();
+	}
+
+	/**
+	 * 停止迁移和回读 (又一次配置变更时)，旧连接池随后关闭
+	 */
+	void cancel() {
+		cancelled = true;
+		active = false;
+		Thread thread = worker;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * 是否还在回读旧分片
+	 *
+	 * @return
+	 */
+	public boolean isActive() {
+		return active && System.currentTimeMillis() < windowEnd;
+	}
+
+	boolean hasMovedRanges() {
+		return !movedRanges.isEmpty();
+	}
+
+	/**
+	 * key的owner是否已变化
+	 *
+	 * @param key
+	 * @return
+	 */
+	public boolean isMoved(byte[] key) {
+		return !ShardRing.sameNode(oldRing.getShard(key), newRing.getShard(key));
+	}
+
+	/**
+	 * 字符串key的owner是否已变化，配置了 keyTagPattern 时按tag计算
+	 *
+	 * @param key
+	 * @return
+	 */
+	public boolean isMoved(String key) {
+		return !ShardRing.sameNode(oldRing.getShard(key), newRing.getShard(key));
+	}
+
+	/**
+	 * 在旧连接池上执行读命令，失败时返回null
+	 */
+	<K, A, T> T read(ShardedKeyCommand<K, A, T> command, K key, A arg) {
+		fallbackReads.incrementAndGet();
+		ShardedJedis jedis = null;
+		try {
+			jedis = oldPool.getResource();
+			T result = command.doAction(jedis, key, arg);
+			if (result != null) {
+				fallbackHits.incrementAndGet();
+			}
+			return result;
+		} catch (RuntimeException e) {
+			if (jedis != null && e instanceof JedisConnectionException) {
+				try {
+					oldPool.returnBrokenResource(jedis);
+				} catch (Exception ex) {
+					logger.warn("Can not return broken resource.", ex);
+				}
+				jedis = null;
+			}
+			logger.debug("Fail to read from old shard", e);
+			return null;
+		} finally {
+			if (jedis != null) {
+				try {
+					oldPool.returnResource(jedis);
+				} catch (Exception ex) {
+					logger.warn("Can not return resource.", ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 删除旧分片上owner已变化的key，写入新分片之前调用。失败时只记录日志
+	 *
+	 * @param keys 计算分片用的key
+	 */
+	void evict(byte[]... keys) {
+		List<byte[]> moved = new ArrayList<byte[]>();
+		for (byte[] key : keys) {
+			if (isMoved(key)) {
+				moved.add(key);
+			}
+		}
+		evict(moved);
+	}
+
+	/**
+	 * 同 evict，字符串key按 keyTagPattern 计算分片
+	 */
+	void evict(String... keys) {
+		List<String> moved = new ArrayList<String>();
+		for (String key : keys) {
+			if (isMoved(key)) {
+				moved.add(key);
+			}
+		}
+		evict(moved);
+	}
+
+	private void evict(List<?> keys) {
+		if (keys.isEmpty()) {
+			return;
+		}
+		evictedKeys.addAndGet(keys.size());
+		ShardedJedis jedis = null;
+		try {
+			jedis = oldPool.getResource();
+			// 按旧分片分组，每个分片分批DEL
+			Map<Jedis, List<byte[]>> groups = new LinkedHashMap<Jedis, List<byte[]>>();
+			for (Object key : keys) {
+				Jedis shard;
+				byte[] rawKey;
+				if (key instanceof String) {
+					shard = jedis.getShard((String) key);
+					rawKey = SafeEncoder.encode((String) key);
+				} else {
+					shard = jedis.getShard((byte[]) key);
+					rawKey = (byte[]) key;
+				}
+				List<byte[]> group = groups.get(shard);
+				if (group == null) {
+					group = new ArrayList<byte[]>();
+					groups.put(shard, group);
+				}
+				group.add(rawKey);
+			}
+			for (Map.Entry<Jedis, List<byte[]>> entry : groups.entrySet()) {
+				for (List<byte[]> batch : ShardExecutor.partition(entry.getValue())) {
+					entry.getKey().del(batch.toArray(new byte[batch.size()][]));
+				}
+			}
+		} catch (RuntimeException e) {
+			if (jedis != null && e instanceof JedisConnectionException) {
+				try {
+					oldPool.returnBrokenResource(jedis);
+				} catch (Exception ex) {
+					logger.warn("Can not return broken resource.", ex);
+				}
+				jedis = null;
+			}
+			logger.warn("Fail to evict keys from old shard", e);
+		} finally {
+			if (jedis != null) {
+				try {
+					oldPool.returnResource(jedis);
+				} catch (Exception ex) {
+					logger.warn("Can not return resource.", ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 依次扫描有区间迁出的旧分片
+	 *
+	 * @return 是否所有分片都扫描完成
+	 */
+	private boolean migrate() throws InterruptedException {
+		Map<String, JedisShardInfo> sources = new LinkedHashMap<String, JedisShardInfo>();
+		for (ShardRing.Range range : movedRanges) {
+			sources.put(ShardRing.nodeName(range.getSource()), range.getSource());
+		}
+		boolean completed = true;
+		for (JedisShardInfo source : sources.values()) {
+			if (!running()) {
+				return false;
+			}
+			completed &= migrateShard(source);
+		}
+		return completed;
+	}
+
+	private boolean migrateShard(JedisShardInfo source) throws InterruptedException {
+		Jedis from = source.createResource();
+		Map<String, Jedis> targets = new LinkedHashMap<String, Jedis>();
+		try {
+			ScanParams params = new ScanParams().count(scanCount);
+			byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+			do {
+				ScanResult<byte[]> page = from.scan(cursor, params);
+				for (byte[] key : page.getResult()) {
+					if (!running()) {
+						return false;
+					}
+					scannedKeys.incrementAndGet();
+					JedisShardInfo target = newRing.getShard(key);
+					if (!ShardRing.sameNode(source, target)) {
+						acquire();
+						migrateKey(from, target, key, targets);
+					}
+				}
+				cursor = page.getCursorAsBytes();
+			} while (!Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY));
+			return true;
+		} catch (JedisConnectionException e) {
+			logger.warn("Fail to migrate keys from " + ShardRing.nodeName(source), e);
+			return false;
+		} finally {
+			from.close();
+			for (Jedis target : targets.values()) {
+				target.close();
+			}
+		}
+	}
+
+	private void migrateKey(Jedis from, JedisShardInfo target, byte[] key, Map<String, Jedis> targets) {
+		try {
+			if (target.getPassword() == null) {
+				String reply = from.migrate(SafeEncoder.encode(target.getHost()), target.getPort(), key,
+						RedisShardInfo.getDb(target), MIGRATE_TIMEOUT);
+				if ("NOKEY".equals(reply)) {
+					return;
+				}
+			} else {
+				// 目标有密码，MIGRATE 无法认证
+				byte[] value = from.dump(key);
+				Long ttl = from.pttl(key);
+				if (value == null || ttl == null || ttl == -2) {
+					return;
+				}
+				int restoreTtl = ttl < 0 ? 0 : (int) Math.min(ttl, Integer.MAX_VALUE);
+				to(target, targets).restore(key, restoreTtl, value);
+				if (from.del(key) == 0) {
+					// 复制期间旧值已被删除 (evict)，撤销复制
+					to(target, targets).del(key);
+					skippedKeys.incrementAndGet();
+					return;
+				}
+			}
+			migratedKeys.incrementAndGet();
+		} catch (JedisDataException e) {
+			if (e.getMessage() != null && e.getMessage().startsWith("BUSYKEY")) {
+				// 新分片上已经是新值
+				from.del(key);
+				skippedKeys.incrementAndGet();
+			} else {
+				failedKeys.incrementAndGet();
+				logger.debug("Fail to migrate key", e);
+			}
+		} catch (JedisConnectionException e) {
+			// 目标分片连接失败，丢弃这个连接，下一个key重新连接
+			Jedis broken = targets.remove(ShardRing.nodeName(target));
+			if (broken != null) {
+				broken.close();
+			}
+			failedKeys.incrementAndGet();
+			if (!from.isConnected()) {
+				throw e;
+			}
+		}
+	}
+
+	private Jedis to(JedisShardInfo target, Map<String, Jedis> targets) {
+		String node = ShardRing.nodeName(target);
+		Jedis jedis = targets.get(node);
+		if (jedis == null) {
+			jedis = target.createResource();
+			targets.put(node, jedis);
+		}
+		return jedis;
+	}
+
+	private boolean running() {
+		return !cancelled && System.currentTimeMillis() < windowEnd;
+	}
+
+	private void acquire() throws InterruptedException {
+		if (keysPerSecond <= 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (nextNanos - now > 0) {
+			TimeUnit.NANOSECONDS.sleep(nextNanos - now);
+			now = nextNanos;
+		}
+		nextNanos = now + TimeUnit.SECONDS.toNanos(1) / keysPerSecond;
+	}
+
+	private void awaitWindowEnd() throws InterruptedException {
+		long remaining = windowEnd - System.currentTimeMillis();
+		while (remaining > 0 && !cancelled) {
+			Thread.sleep(remaining);
+			remaining = windowEnd - System.currentTimeMillis();
+		}
+	}
+
+	public int getMovedRangeCount() {
+		return movedRanges.size();
+	}
+
+	public long getScannedKeys() {
+		return scannedKeys.get();
+	}
+
+	public long getMigratedKeys() {
+		return migratedKeys.get();
+	}
+
+	/**
+	 * 新分片上已有新值、没有迁移的key数
+	 *
+	 * @return
+	 */
+	public long getSkippedKeys() {
+		return skippedKeys.get();
+	}
+
+	public long getFailedKeys() {
+		return failedKeys.get();
+	}
+
+	public long getFallbackReads() {
+		return fallbackReads.get();
+	}
+
+	/**
+	 * 删除、覆盖前从旧分片删除的key数
+	 *
+	 * @return
+	 */
+	public long getEvictedKeys() {
+		return evictedKeys.get();
+	}
+
+	/**
+	 * 回读时在旧分片上读到的次数
+	 *
+	 * @return
+	 */
+	public long getFallbackHits() {
+		return fallbackHits.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ShardMigration [movedRanges=" + movedRanges.size() + ", scannedKeys=" + scannedKeys
+				+ ", migratedKeys=" + migratedKeys + ", skippedKeys=" + skippedKeys + ", failedKeys=" + failedKeys
+				+ ", fallbackReads=" + fallbackReads + ", fallbackHits=" + fallbackHits + ", evictedKeys=" + evictedKeys + "]";
+	}
+}
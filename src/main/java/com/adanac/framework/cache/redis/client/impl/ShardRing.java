@@ -0,0 +1,203 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.util.Hashing;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 与 ShardedJedisPool 相同的一致性hash环
+ * <p>
+ * 按 redis.clients.util.Sharded 的规则构造虚拟节点 (每个分片 160*weight 个)，
+ * 用于比较新旧分片列表，找出owner发生变化的hash区间。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ShardRing {
+
+	// 与 Sharded 相同的每个权重的虚拟节点数
+	private static final int NODES_PER_WEIGHT = 160;
+
+	private final TreeMap<Long, JedisShardInfo> nodes = new TreeMap<Long, JedisShardInfo>();
+
+	private final Hashing algo;
+
+	private final Pattern tagPattern;
+
+	public ShardRing(List<JedisShardInfo> shards) {
+		this(shards, Hashing.MURMUR_HASH, null);
+	}
+
+	/**
+	 * @param shards
+	 * @param algo
+	 * @param tagPattern 与连接池相同的 keyTagPattern，可以为null
+	 */
+	public ShardRing(List<JedisShardInfo> shards, Hashing algo, Pattern tagPattern) {
+		this.algo = algo;
+		this.tagPattern = tagPattern;
+		for (int i = 0; i != shards.size(); ++i) {
+			JedisShardInfo shard = shards.get(i);
+			for (int n = 0; n < NODES_PER_WEIGHT * shard.getWeight(); n++) {
+				String node = shard.getName() == null ? "SHARD-" + i + "-NODE-" + n
+						: shard.getName() + "*" + shard.getWeight() + n;
+				nodes.put(algo.hash(node), shard);
+			}
+		}
+		if (nodes.isEmpty()) {
+			throw new IllegalArgumentException("no shard");
+		}
+	}
+
+	/**
+	 * 二进制key所在的分片，与 KeyTagShardedJedis 相同：配置了 keyTagPattern 且key中有tag时按tag计算
+	 *
+	 * @param key
+	 * @return
+	 */
+	public JedisShardInfo getShard(byte[] key) {
+		if (tagPattern != null) {
+			Matcher m = tagPattern.matcher(SafeEncoder.encode(key));
+			if (m.find()) {
+				return getShard(algo.hash(SafeEncoder.encode(m.group(1))));
+			}
+		}
+		return getShard(algo.hash(key));
+	}
+
+	/**
+	 * 字符串key所在的分片，与 ShardedJedis 相同，先取出tag
+	 *
+	 * @param key
+	 * @return
+	 */
+	public JedisShardInfo getShard(String key) {
+		return getShard(SafeEncoder.encode(getKeyTag(key)));
+	}
+
+	/**
+	 * 与 Sharded.getKeyTag 相同
+	 *
+	 * @param key
+	 * @return 第一个分组，没有匹配时为整个key
+	 */
+	public String getKeyTag(String key) {
+		if (tagPattern != null) {
+			Matcher m = tagPattern.matcher(key);
+			if (m.find()) {
+				return m.group(1);
+			}
+		}
+		return key;
+	}
+
+	JedisShardInfo getShard(long hash) {
+		SortedMap<Long, JedisShardInfo> tail = nodes.tailMap(hash);
+		return tail.isEmpty() ? nodes.get(nodes.firstKey()) : tail.get(tail.firstKey());
+	}
+
+	/**
+	 * 两个环上owner不同的hash区间
+	 *
+	 * @param from 旧的环
+	 * @param to 新的环
+	 * @return 按区间结束位置排序
+	 */
+	public static List<Range> diff(ShardRing from, ShardRing to) {
+		TreeSet<Long> points = new TreeSet<Long>(from.nodes.keySet());
+		points.addAll(to.nodes.keySet());
+		List<Range> moved = new ArrayList<Range>();
+		// (上一个点, 当前点] 在两个环上的owner都是各自环上当前点的ceiling；第一个点的区间从最后一个点绕回
+		long previous = points.last();
+		for (Long point : points) {
+			JedisShardInfo source = from.getShard(point);
+			JedisShardInfo target = to.getShard(point);
+			if (!sameNode(source, target)) {
+				Range last = moved.isEmpty() ? null : moved.get(moved.size() - 1);
+				if (last != null && last.end == previous && last.source == source && last.target == target) {
+					last.end = point;
+				} else {
+					moved.add(new Range(previous, point, source, target));
+				}
+			}
+			previous = point;
+		}
+		return Collections.unmodifiableList(moved);
+	}
+
+	/**
+	 * 是否是同一个redis (host:port)
+	 */
+	static boolean sameNode(JedisShardInfo a, JedisShardInfo b) {
+		return a == b || (a.getPort() == b.getPort() && a.getHost().equals(b.getHost()));
+	}
+
+	static String nodeName(JedisShardInfo shard) {
+		return shard.getHost() + ":" + shard.getPort();
+	}
+
+	/**
+	 * owner发生变化的hash区间 (start, end]，start &gt;= end 时跨过环的起点
+	 */
+	public static final class Range {
+
+		private final long start;
+
+		private long end;
+
+		private final JedisShardInfo source;
+
+		private final JedisShardInfo target;
+
+		Range(long start, long end, JedisShardInfo source, JedisShardInfo target) {
+			this.start = start;
+			this.end = end;
+			this.source = source;
+			this.target = target;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		public JedisShardInfo getSource() {
+			return source;
+		}
+
+		public JedisShardInfo getTarget() {
+			return target;
+		}
+
+		/**
+		 * 区间占整个hash空间的比例
+		 *
+		 * @return
+		 */
+		public double fraction() {
+			// 无符号差值，end==start 时为整个环
+			double size = (double) end - (double) start;
+			if (size <= 0) {
+				size += Math.pow(2, 64);
+			}
+			return size / Math.pow(2, 64);
+		}
+
+		@Override
+		public String toString() {
+			return "(" + start + ", " + end + "] " + nodeName(source) + " to " + nodeName(target);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.adanac.framework.cache.redis.codec;
+
+/**
+ * 缓存值编解码
+ * <p>
+ * 只用于值 (value、hash value、list/set/zset 元素)，key和hash field 仍使用 Serializer，保证key不变。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public interface Codec {
+	/**
+	 * 编码
+	 * @param value 不为null
+	 * @return
+	 */
+	byte[] encode(Object value);
+
+	/**
+	 * 解码
+	 * @param bytes 不为null
+	 * @return
+	 */
+	Object decode(byte[] bytes);
+}
@@ -0,0 +1,34 @@
+package com.adanac.framework.cache.redis.codec;
+
+import com.adanac.framework.cache.redis.compress.ValueCompression;
+
+/**
+ * 在其他codec之上压缩超过阈值的值
+ * @author adanac
+ * @version 1.0
+ */
+public class CompressingCodec implements Codec {
+
+	private final Codec delegate;
+
+	private final ValueCompression compression;
+
+	public CompressingCodec(Codec delegate, ValueCompression compression) {
+		this.delegate = delegate;
+		this.compression = compression;
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		return compression.compress(delegate.encode(value));
+	}
+
+	@Override
+	public Object decode(byte[] bytes) {
+		return delegate.decode(compression.decompress(bytes));
+	}
+
+	public ValueCompression getCompression() {
+		return compression;
+	}
+}
@@ -0,0 +1,103 @@
+package com.adanac.framework.cache.redis.codec;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+import com.alibaba.fastjson.JSON;
+
+/**
+ * 基于fastjson的对象编解码，注册类只写一个varint类编号 (类似Kryo的类注册)
+ * <p>
+ * 格式: varint(类编号) [varint(类名长度) 类名] json。类编号为0表示未注册，后面跟类名。
+ * 类编号在所有读写同一份数据的节点上必须一致，建议使用 register(int, Class) 指定编号。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class FastjsonObjectCodec implements ObjectCodec {
+
+	private final ConcurrentMap<Class<?>, Integer> ids = new ConcurrentHashMap<Class<?>, Integer>();
+
+	private final ConcurrentMap<Integer, Class<?>> registered = new ConcurrentHashMap<Integer, Class<?>>();
+
+	// 未注册类按类名加载的缓存
+	private final ConcurrentMap<String, Class<?>> classCache = new ConcurrentHashMap<String, Class<?>>();
+
+	/**
+	 * 注册类
+	 * @param id 大于0
+	 * @param type
+	 * @return
+	 */
+	public FastjsonObjectCodec register(int id, Class<?> type) {
+		if (id <= 0) {
+			throw new IllegalArgumentException("class id must be positive: " + id);
+		}
+		Class<?> existing = registered.putIfAbsent(id, type);
+		if (existing != null && existing != type) {
+			throw new IllegalArgumentException("class id " + id + " already registered to " + existing.getName());
+		}
+		ids.put(type, id);
+		return this;
+	}
+
+	@Override
+	public byte[] encode(Object value, int reserved) {
+		byte[] json = JSON.toJSONBytes(value);
+		Integer id = ids.get(value.getClass());
+		byte[] name = null;
+		int headerSize;
+		if (id != null) {
+			headerSize = Varint.sizeOf(id);
+		} else {
+			name = value.getClass().getName().getBytes(StringCodec.UTF_8);
+			headerSize = Varint.sizeOf(0) + Varint.sizeOf(name.length) + name.length;
+		}
+		byte[] bytes = new byte[reserved + headerSize + json.length];
+		int offset = reserved;
+		if (id != null) {
+			offset = Varint.write(id, bytes, offset);
+		} else {
+			offset = Varint.write(0, bytes, offset);
+			offset = Varint.write(name.length, bytes, offset);
+			System.arraycopy(name, 0, bytes, offset, name.length);
+			offset += name.length;
+		}
+		System.arraycopy(json, 0, bytes, offset, json.length);
+		return bytes;
+	}
+
+	@Override
+	public Object decode(byte[] bytes, int offset) {
+		int[] position = new int[] { offset };
+		int id = (int) Varint.read(bytes, position);
+		Class<?> type;
+		if (id != 0) {
+			type = registered.get(id);
+			if (type == null) {
+				throw new RedisClientException("unregistered class id " + id);
+			}
+		} else {
+			int length = (int) Varint.read(bytes, position);
+			type = loadClass(new String(bytes, position[0], length, StringCodec.UTF_8));
+			position[0] += length;
+		}
+		return JSON.parseObject(bytes, position[0], bytes.length - position[0], StringCodec.UTF_8.newDecoder(),
+				type);
+	}
+
+	private Class<?> loadClass(String name) {
+		Class<?> type = classCache.get(name);
+		if (type == null) {
+			try {
+				ClassLoader loader = Thread.currentThread().getContextClassLoader();
+				type = Class.forName(name, false, loader == null ? getClass().getClassLoader() : loader);
+			} catch (ClassNotFoundException e) {
+				throw new RedisClientException(e);
+			}
+			classCache.putIfAbsent(name, type);
+		}
+		return type;
+	}
+}
@@ -0,0 +1,50 @@
+package com.adanac.framework.cache.redis.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * java序列化的对象编解码 (对象无法json化时使用)
+ * @author adanac
+ * @version 1.0
+ */
+public class JavaObjectCodec implements ObjectCodec {
+
+	public static final JavaObjectCodec INSTANCE = new JavaObjectCodec();
+
+	@Override
+	public byte[] encode(Object value, int reserved) {
+		try {
+			ByteArrayOutputStream byteOS = new ByteArrayOutputStream(256);
+			byteOS.write(new byte[reserved]);
+			ObjectOutputStream objectOS = new ObjectOutputStream(byteOS);
+			objectOS.writeObject(value);
+			objectOS.close();
+			return byteOS.toByteArray();
+		} catch (IOException e) {
+			throw new RedisClientException(e);
+		}
+	}
+
+	@Override
+	public Object decode(byte[] bytes, int offset) {
+		try {
+			ObjectInputStream objectIS = new ObjectInputStream(
+					new ByteArrayInputStream(bytes, offset, bytes.length - offset));
+			try {
+				return objectIS.readObject();
+			} finally {
+				objectIS.close();
+			}
+		} catch (IOException e) {
+			throw new RedisClientException(e);
+		} catch (ClassNotFoundException e) {
+			throw new RedisClientException(e);
+		}
+	}
+}
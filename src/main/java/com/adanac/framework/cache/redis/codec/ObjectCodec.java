@@ -0,0 +1,24 @@
+package com.adanac.framework.cache.redis.codec;
+
+/**
+ * TaggedCodec 中对象 (非字符串、非基本类型) 的编解码
+ * @author adanac
+ * @version 1.0
+ */
+public interface ObjectCodec {
+	/**
+	 * 编码
+	 * @param value
+	 * @param reserved 结果数组开头需要预留的字节数 (由调用方写入类型头)
+	 * @return
+	 */
+	byte[] encode(Object value, int reserved);
+
+	/**
+	 * 解码
+	 * @param bytes
+	 * @param offset 对象数据的起始位置 (之前为类型头)
+	 * @return
+	 */
+	Object decode(byte[] bytes, int offset);
+}
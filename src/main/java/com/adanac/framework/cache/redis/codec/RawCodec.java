@@ -0,0 +1,24 @@
+package com.adanac.framework.cache.redis.codec;
+
+/**
+ * byte[] 原样保存，没有类型头
+ * @author adanac
+ * @version 1.0
+ */
+public final class RawCodec implements Codec {
+
+	public static final RawCodec INSTANCE = new RawCodec();
+
+	private RawCodec() {
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		return (byte[]) value;
+	}
+
+	@Override
+	public Object decode(byte[] bytes) {
+		return bytes;
+	}
+}
@@ -0,0 +1,28 @@
+package com.adanac.framework.cache.redis.codec;
+
+import java.io.Serializable;
+
+import com.adanac.framework.cache.redis.util.Serializer;
+
+/**
+ * 原有的编码方式 (Integer/Long为十进制字符串，其余为java序列化)，没有类型头，默认使用
+ * @author adanac
+ * @version 1.0
+ */
+public final class SerializableCodec implements Codec {
+
+	public static final SerializableCodec INSTANCE = new SerializableCodec();
+
+	private SerializableCodec() {
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		return Serializer.encode((Serializable) value);
+	}
+
+	@Override
+	public Object decode(byte[] bytes) {
+		return Serializer.decode(bytes);
+	}
+}
@@ -0,0 +1,28 @@
+package com.adanac.framework.cache.redis.codec;
+
+import java.nio.charset.Charset;
+
+/**
+ * UTF-8 字符串，没有类型头 (与其他语言客户端互通)
+ * @author adanac
+ * @version 1.0
+ */
+public final class StringCodec implements Codec {
+
+	public static final StringCodec INSTANCE = new StringCodec();
+
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private StringCodec() {
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		return value.toString().getBytes(UTF_8);
+	}
+
+	@Override
+	public Object decode(byte[] bytes) {
+		return new String(bytes, UTF_8);
+	}
+}
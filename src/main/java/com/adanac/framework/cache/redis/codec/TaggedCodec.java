@@ -0,0 +1,115 @@
+package com.adanac.framework.cache.redis.codec;
+
+import com.adanac.framework.cache.redis.util.Serializer;
+
+/**
+ * 带类型头的编解码
+ * <p>
+ * 第一个字节为类型: 0x01 byte[]，0x02 UTF-8字符串，0x03 Integer，0x04 Long (zigzag varint)，
+ * 0x05 Boolean，0x06 Double，0x07 对象 (ObjectCodec)。
+ * 其他开头的数据按原有 Serializer 格式解码，因此可以直接读取切换前写入的数据。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class TaggedCodec implements Codec {
+
+	static final byte TAG_BYTES = 0x01;
+	static final byte TAG_STRING = 0x02;
+	static final byte TAG_INT = 0x03;
+	static final byte TAG_LONG = 0x04;
+	static final byte TAG_BOOLEAN = 0x05;
+	static final byte TAG_DOUBLE = 0x06;
+	static final byte TAG_OBJECT = 0x07;
+
+	private final ObjectCodec objectCodec;
+
+	/**
+	 * 对象使用 FastjsonObjectCodec (未注册类)
+	 */
+	public TaggedCodec() {
+		this(new FastjsonObjectCodec());
+	}
+
+	public TaggedCodec(ObjectCodec objectCodec) {
+		this.objectCodec = objectCodec;
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		if (value instanceof String) {
+			byte[] utf8 = ((String) value).getBytes(StringCodec.UTF_8);
+			return tagged(TAG_STRING, utf8);
+		}
+		if (value instanceof byte[]) {
+			return tagged(TAG_BYTES, (byte[]) value);
+		}
+		if (value instanceof Integer) {
+			return varint(TAG_INT, ((Integer) value).longValue());
+		}
+		if (value instanceof Long) {
+			return varint(TAG_LONG, ((Long) value).longValue());
+		}
+		if (value instanceof Boolean) {
+			return new byte[] { TAG_BOOLEAN, (byte) (((Boolean) value).booleanValue() ? 1 : 0) };
+		}
+		if (value instanceof Double) {
+			long bits = Double.doubleToLongBits(((Double) value).doubleValue());
+			byte[] bytes = new byte[9];
+			bytes[0] = TAG_DOUBLE;
+			for (int i = 0; i < 8; i++) {
+				bytes[8 - i] = (byte) (bits >>> (i * 8));
+			}
+			return bytes;
+		}
+		byte[] bytes = objectCodec.encode(value, 1);
+		bytes[0] = TAG_OBJECT;
+		return bytes;
+	}
+
+	@Override
+	public Object decode(byte[] bytes) {
+		if (bytes.length == 0) {
+			return Serializer.decode(bytes);
+		}
+		switch (bytes[0]) {
+		case TAG_STRING:
+			return new String(bytes, 1, bytes.length - 1, StringCodec.UTF_8);
+		case TAG_BYTES:
+			byte[] raw = new byte[bytes.length - 1];
+			System.arraycopy(bytes, 1, raw, 0, raw.length);
+			return raw;
+		case TAG_INT:
+			return Integer.valueOf((int) Varint.read(bytes, new int[] { 1 }));
+		case TAG_LONG:
+			return Long.valueOf(Varint.read(bytes, new int[] { 1 }));
+		case TAG_BOOLEAN:
+			return Boolean.valueOf(bytes[1] != 0);
+		case TAG_DOUBLE:
+			long bits = 0;
+			for (int i = 1; i <= 8; i++) {
+				bits = (bits << 8) | (bytes[i] & 0xFF);
+			}
+			return Double.valueOf(Double.longBitsToDouble(bits));
+		case TAG_OBJECT:
+			return objectCodec.decode(bytes, 1);
+		default:
+			// 切换codec之前写入的数据
+			return Serializer.decode(bytes);
+		}
+	}
+
+	private static byte[] tagged(byte tag, byte[] payload) {
+		byte[] bytes = new byte[payload.length + 1];
+		bytes[0] = tag;
+		System.arraycopy(payload, 0, bytes, 1, payload.length);
+		return bytes;
+	}
+
+	private static byte[] varint(byte tag, long value) {
+		byte[] bytes = new byte[1 + Varint.sizeOf(value)];
+		bytes[0] = tag;
+		Varint.write(value, bytes, 1);
+		return bytes;
+	}
+}
@@ -0,0 +1,73 @@
+package com.adanac.framework.cache.redis.codec;
+
+/**
+ * zigzag + varint 编码 (小的正负数只占1~2个字节)
+ * @author adanac
+ * @version 1.0
+ */
+public final class Varint {
+
+	private Varint() {
+	}
+
+	/**
+	 * 编码后的长度
+	 * @param value
+	 * @return
+	 */
+	public static int sizeOf(long value) {
+		long v = zigzag(value);
+		int size = 1;
+		while ((v & ~0x7FL) != 0) {
+			v >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * 写入
+	 * @param value
+	 * @param buffer
+	 * @param offset
+	 * @return 写入后的位置
+	 */
+	public static int write(long value, byte[] buffer, int offset) {
+		long v = zigzag(value);
+		while ((v & ~0x7FL) != 0) {
+			buffer[offset++] = (byte) ((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		buffer[offset++] = (byte) v;
+		return offset;
+	}
+
+	/**
+	 * 读取
+	 * @param buffer
+	 * @param position 输入为读取位置，输出为读取后的位置 (长度为1的数组)
+	 * @return
+	 */
+	public static long read(byte[] buffer, int[] position) {
+		int offset = position[0];
+		long result = 0;
+		int shift = 0;
+		while (true) {
+			if (offset >= buffer.length || shift > 63) {
+				throw new IllegalArgumentException("malformed varint");
+			}
+			byte b = buffer[offset++];
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				break;
+			}
+			shift += 7;
+		}
+		position[0] = offset;
+		return (result >>> 1) ^ -(result & 1);
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+}
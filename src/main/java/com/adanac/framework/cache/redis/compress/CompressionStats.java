@@ -0,0 +1,94 @@
+package com.adanac.framework.cache.redis.compress;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压缩统计
+ * @author adanac
+ * @version 1.0
+ */
+public class CompressionStats {
+
+	private final AtomicLong compressedCount = new AtomicLong();
+
+	// 低于阈值或压缩后没有变小，按原样保存的次数
+	private final AtomicLong skippedCount = new AtomicLong();
+
+	private final AtomicLong decompressedCount = new AtomicLong();
+
+	private final AtomicLong originalBytes = new AtomicLong();
+
+	private final AtomicLong compressedBytes = new AtomicLong();
+
+	private final AtomicLong compressNanos = new AtomicLong();
+
+	private final AtomicLong decompressNanos = new AtomicLong();
+
+	void recordCompress(int original, int compressed, long nanos) {
+		compressedCount.incrementAndGet();
+		originalBytes.addAndGet(original);
+		compressedBytes.addAndGet(compressed);
+		compressNanos.addAndGet(nanos);
+	}
+
+	void recordSkip() {
+		skippedCount.incrementAndGet();
+	}
+
+	void recordDecompress(long nanos) {
+		decompressedCount.incrementAndGet();
+		decompressNanos.addAndGet(nanos);
+	}
+
+	public long getCompressedCount() {
+		return compressedCount.get();
+	}
+
+	public long getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	public long getDecompressedCount() {
+		return decompressedCount.get();
+	}
+
+	public long getOriginalBytes() {
+		return originalBytes.get();
+	}
+
+	public long getCompressedBytes() {
+		return compressedBytes.get();
+	}
+
+	/**
+	 * 压缩率 (压缩后/压缩前)，越小越好
+	 * @return
+	 */
+	public double getCompressionRatio() {
+		long original = originalBytes.get();
+		return original == 0 ? 1.0 : (double) compressedBytes.get() / original;
+	}
+
+	/**
+	 * 压缩累计耗时 纳秒
+	 * @return
+	 */
+	public long getCompressNanos() {
+		return compressNanos.get();
+	}
+
+	/**
+	 * 解压累计耗时 纳秒
+	 * @return
+	 */
+	public long getDecompressNanos() {
+		return decompressNanos.get();
+	}
+
+	@Override
+	public String toString() {
+		return "CompressionStats [compressed=" + getCompressedCount() + ", skipped=" + getSkippedCount()
+				+ ", decompressed=" + getDecompressedCount() + ", ratio=" + getCompressionRatio()
+				+ ", compressNanos=" + getCompressNanos() + ", decompressNanos=" + getDecompressNanos() + "]";
+	}
+}
@@ -0,0 +1,30 @@
+package com.adanac.framework.cache.redis.compress;
+
+/**
+ * 压缩算法
+ * @author adanac
+ * @version 1.0
+ */
+public interface Compressor {
+	/**
+	 * 算法编号，写入压缩数据头部，读取时据此选择解压算法
+	 * @return
+	 */
+	byte id();
+
+	/**
+	 * 压缩
+	 * @param src
+	 * @return
+	 */
+	byte[] compress(byte[] src);
+
+	/**
+	 * 解压
+	 * @param src
+	 * @param offset 压缩数据起始位置
+	 * @param originalLength 原始长度
+	 * @return
+	 */
+	byte[] decompress(byte[] src, int offset, int originalLength);
+}
@@ -0,0 +1,112 @@
+package com.adanac.framework.cache.redis.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * Deflate 压缩，可使用预置字典 (压缩率优先)
+ * <p>
+ * 小的json值之间重复的字段名很多，使用 DictionaryTrainer 从样本生成字典可以明显提高压缩率。
+ * 读写同一份数据的节点必须使用相同的字典，字典不一致时解压会失败。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class DeflateCompressor implements Compressor {
+
+	public static final byte ID = 2;
+
+	private final int level;
+
+	private final byte[] dictionary;
+
+	// Deflater/Inflater 持有本地内存，每个线程复用一个
+	private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+		@Override
+		protected Deflater initialValue() {
+			return new Deflater(level);
+		}
+	};
+
+	private final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+		@Override
+		protected Inflater initialValue() {
+			return new Inflater();
+		}
+	};
+
+	public DeflateCompressor() {
+		this(Deflater.DEFAULT_COMPRESSION, null);
+	}
+
+	/**
+	 * @param level 压缩级别 1~9
+	 * @param dictionary 预置字典，可以为null
+	 */
+	public DeflateCompressor(int level, byte[] dictionary) {
+		this.level = level;
+		this.dictionary = dictionary;
+	}
+
+	@Override
+	public byte id() {
+		return ID;
+	}
+
+	@Override
+	public byte[] compress(byte[] src) {
+		Deflater deflater = deflaters.get();
+		deflater.reset();
+		if (dictionary != null) {
+			deflater.setDictionary(dictionary);
+		}
+		deflater.setInput(src);
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(src.length / 2 + 16);
+		byte[] buffer = new byte[Math.min(8192, src.length + 64)];
+		while (!deflater.finished()) {
+			int count = deflater.deflate(buffer);
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+	@Override
+	public byte[] decompress(byte[] src, int offset, int originalLength) {
+		Inflater inflater = inflaters.get();
+		inflater.reset();
+		inflater.setInput(src, offset, src.length - offset);
+		byte[] dest = new byte[originalLength];
+		int position = 0;
+		try {
+			while (position < originalLength) {
+				int count = inflater.inflate(dest, position, originalLength - position);
+				if (count == 0) {
+					if (inflater.needsDictionary()) {
+						if (dictionary == null) {
+							throw new RedisClientException("compressed value requires a preset dictionary");
+						}
+						inflater.setDictionary(dictionary);
+					} else if (inflater.finished() || inflater.needsInput()) {
+						break;
+					}
+				}
+				position += count;
+			}
+		} catch (DataFormatException e) {
+			throw new RedisClientException(e);
+		} catch (IllegalArgumentException e) {
+			// 字典不一致
+			throw new RedisClientException(e);
+		}
+		if (position != originalLength) {
+			throw new RedisClientException("corrupted compressed value, expected " + originalLength + " bytes but got "
+					+ position);
+		}
+		return dest;
+	}
+}
@@ -0,0 +1,104 @@
+package com.adanac.framework.cache.redis.compress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从样本值生成 Deflate 预置字典
+ * <p>
+ * 统计样本中出现在多个样本里的定长片段，按出现次数从低到高拼接 (deflate 对字典末尾的内容匹配距离更短)。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public final class DictionaryTrainer {
+
+	private static final int GRAM = 8;
+
+	private DictionaryTrainer() {
+	}
+
+	/**
+	 * 生成字典
+	 * @param samples 样本 (如线上的json值)
+	 * @param maxSize 字典最大长度，deflate最多使用32K
+	 * @return
+	 */
+	public static byte[] train(List<byte[]> samples, int maxSize) {
+		Map<Gram, int[]> counts = new HashMap<Gram, int[]>();
+		for (byte[] sample : samples) {
+			Map<Gram, Boolean> seen = new HashMap<Gram, Boolean>();
+			for (int i = 0; i + GRAM <= sample.length; i += GRAM / 2) {
+				Gram gram = new Gram(sample, i);
+				if (seen.put(gram, Boolean.TRUE) == null) {
+					int[] count = counts.get(gram);
+					if (count == null) {
+						counts.put(gram, new int[] { 1 });
+					} else {
+						count[0]++;
+					}
+				}
+			}
+		}
+		List<Map.Entry<Gram, int[]>> grams = new ArrayList<Map.Entry<Gram, int[]>>();
+		for (Map.Entry<Gram, int[]> entry : counts.entrySet()) {
+			// 只在一个样本中出现的片段没有意义
+			if (entry.getValue()[0] > 1) {
+				grams.add(entry);
+			}
+		}
+		Collections.sort(grams, new Comparator<Map.Entry<Gram, int[]>>() {
+			@Override
+			public int compare(Map.Entry<Gram, int[]> o1, Map.Entry<Gram, int[]> o2) {
+				return o2.getValue()[0] - o1.getValue()[0];
+			}
+		});
+		int size = Math.min(maxSize / GRAM, grams.size());
+		byte[] dictionary = new byte[size * GRAM];
+		// 出现次数最多的放在最后
+		for (int i = 0; i < size; i++) {
+			Gram gram = grams.get(i).getKey();
+			System.arraycopy(gram.bytes, gram.offset, dictionary, (size - 1 - i) * GRAM, GRAM);
+		}
+		return dictionary;
+	}
+
+	private static final class Gram {
+		final byte[] bytes;
+		final int offset;
+		final int hash;
+
+		Gram(byte[] bytes, int offset) {
+			this.bytes = bytes;
+			this.offset = offset;
+			int h = 1;
+			for (int i = 0; i < GRAM; i++) {
+				h = 31 * h + bytes[offset + i];
+			}
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Gram)) {
+				return false;
+			}
+			Gram other = (Gram) obj;
+			for (int i = 0; i < GRAM; i++) {
+				if (bytes[offset + i] != other.bytes[other.offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.adanac.framework.cache.redis.compress;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * LZ4 压缩 (速度优先，需要 lz4-java 依赖)
+ * @author adanac
+ * @version 1.0
+ */
+public class Lz4Compressor implements Compressor {
+
+	public static final byte ID = 1;
+
+	private final LZ4Compressor compressor;
+
+	private final LZ4FastDecompressor decompressor;
+
+	public Lz4Compressor() {
+		LZ4Factory factory = LZ4Factory.fastestInstance();
+		this.compressor = factory.fastCompressor();
+		this.decompressor = factory.fastDecompressor();
+	}
+
+	@Override
+	public byte id() {
+		return ID;
+	}
+
+	@Override
+	public byte[] compress(byte[] src) {
+		return compressor.compress(src);
+	}
+
+	@Override
+	public byte[] decompress(byte[] src, int offset, int originalLength) {
+		byte[] dest = new byte[originalLength];
+		decompressor.decompress(src, offset, dest, 0, originalLength);
+		return dest;
+	}
+}
@@ -0,0 +1,115 @@
+package com.adanac.framework.cache.redis.compress;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.adanac.framework.cache.redis.codec.Varint;
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * 值压缩层，只压缩超过阈值的值
+ * <p>
+ * 压缩后的格式: 0xC7 0x5A 算法编号 varint(原始长度) 压缩数据。
+ * 读取时没有该头部的值按原样返回，因此可以直接读取开启压缩前写入的数据。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ValueCompression {
+
+	private static final byte MAGIC_0 = (byte) 0xC7;
+
+	private static final byte MAGIC_1 = (byte) 0x5A;
+
+	private static final int HEADER_SIZE = 3;
+
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	private final Compressor compressor;
+
+	private final int threshold;
+
+	// 可解压的算法，包含当前使用的算法
+	private final Map<Byte, Compressor> decompressors = new HashMap<Byte, Compressor>();
+
+	private final CompressionStats stats = new CompressionStats();
+
+	public ValueCompression(Compressor compressor) {
+		this(compressor, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * @param compressor 写入使用的压缩算法
+	 * @param threshold 大于等于该长度 (字节) 才压缩
+	 * @param readOnly 只用于读取的其他算法 (切换算法时兼容已有数据)
+	 */
+	public ValueCompression(Compressor compressor, int threshold, Compressor... readOnly) {
+		this.compressor = compressor;
+		this.threshold = threshold;
+		for (Compressor other : readOnly) {
+			decompressors.put(other.id(), other);
+		}
+		decompressors.put(compressor.id(), compressor);
+	}
+
+	/**
+	 * 压缩 (低于阈值或压缩后没有变小时返回原数组)
+	 * @param value
+	 * @return
+	 */
+	public byte[] compress(byte[] value) {
+		if (value.length < threshold) {
+			stats.recordSkip();
+			return value;
+		}
+		long start = System.nanoTime();
+		byte[] compressed = compressor.compress(value);
+		int headerSize = HEADER_SIZE + Varint.sizeOf(value.length);
+		if (compressed.length + headerSize >= value.length) {
+			stats.recordSkip();
+			return value;
+		}
+		byte[] result = new byte[headerSize + compressed.length];
+		result[0] = MAGIC_0;
+		result[1] = MAGIC_1;
+		result[2] = compressor.id();
+		int offset = Varint.write(value.length, result, HEADER_SIZE);
+		System.arraycopy(compressed, 0, result, offset, compressed.length);
+		stats.recordCompress(value.length, result.length, System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * 解压，没有压缩头部的值原样返回
+	 * @param value
+	 * @return
+	 */
+	public byte[] decompress(byte[] value) {
+		if (!isCompressed(value)) {
+			return value;
+		}
+		Compressor decompressor = decompressors.get(value[2]);
+		if (decompressor == null) {
+			throw new RedisClientException("unknown compressor id " + value[2]);
+		}
+		long start = System.nanoTime();
+		int[] position = new int[] { HEADER_SIZE };
+		int originalLength = (int) Varint.read(value, position);
+		byte[] result = decompressor.decompress(value, position[0], originalLength);
+		stats.recordDecompress(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * 是否为压缩后的数据
+	 * @param value
+	 * @return
+	 */
+	public static boolean isCompressed(byte[] value) {
+		return value != null && value.length > HEADER_SIZE && value[0] == MAGIC_0 && value[1] == MAGIC_1;
+	}
+
+	public CompressionStats getStats() {
+		return stats;
+	}
+}
@@ -0,0 +1,138 @@
+package com.adanac.framework.cache.redis.util;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.SerializeWriter;
+
+/**
+ * json与UTF-8字节之间直接转换，不生成中间String
+ * <p>
+ * 写入使用fastjson线程内复用的SerializeWriter缓冲区，最后只复制一次得到byte[]；
+ * 读取直接从redis返回的byte[]解析。
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public final class JsonBytes {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final ThreadLocal<CharsetDecoder> DECODERS = new ThreadLocal<CharsetDecoder>() {
+		@Override
+		protected CharsetDecoder initialValue() {
+			return UTF_8.newDecoder();
+		}
+	};
+
+	// fastjson按Type实例缓存反序列化器，相同的集合类型只使用一个实例
+	private static final ConcurrentMap<Type, Type> COLLECTION_TYPES = new ConcurrentHashMap<Type, Type>();
+
+	private JsonBytes() {
+	}
+
+	/**
+	 * 序列化为UTF-8字节
+	 * @param prefix 写在json前面的内容，可以为null
+	 * @param value
+	 * @return
+	 */
+	public static byte[] toBytes(String prefix, Object value) {
+		SerializeWriter out = new SerializeWriter();
+		try {
+			if (prefix != null) {
+				out.write(prefix);
+			}
+			new JSONSerializer(out).write(value);
+			return out.toBytes("UTF-8");
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * 从字节解析
+	 * @param bytes
+	 * @param offset json起始位置
+	 * @param type
+	 * @return bytes为null时返回null
+	 */
+	public static Object parse(byte[] bytes, int offset, Type type) {
+		if (bytes == null) {
+			return null;
+		}
+		CharsetDecoder decoder = DECODERS.get();
+		decoder.reset();
+		return JSON.parseObject(bytes, offset, bytes.length - offset, decoder, type);
+	}
+
+	/**
+	 * 缓存返回值类型转换为反序列化类型 (List/Set带元素类型)
+	 * @param type Cache.get(String, Class...) 的类型参数
+	 * @return
+	 */
+	public static Type typeOf(Class<?>... type) {
+		if (type.length > 1 && type[1] != null
+				&& (type[0].isAssignableFrom(List.class) || type[0].isAssignableFrom(Set.class))) {
+			Type collectionType = new CollectionType(type[0].isAssignableFrom(List.class) ? List.class : Set.class,
+					type[1]);
+			Type existing = COLLECTION_TYPES.putIfAbsent(collectionType, collectionType);
+			return existing == null ? collectionType : existing;
+		}
+		return type[0];
+	}
+
+	private static final class CollectionType implements ParameterizedType {
+		private final Class<?> rawType;
+		private final Type[] arguments;
+
+		CollectionType(Class<?> rawType, Class<?> elementType) {
+			this.rawType = rawType;
+			this.arguments = new Type[] { elementType };
+		}
+
+		@Override
+		public Type[] getActualTypeArguments() {
+			return arguments.clone();
+		}
+
+		@Override
+		public Type getRawType() {
+			return rawType;
+		}
+
+		@Override
+		public Type getOwnerType() {
+			return null;
+		}
+
+		@Override
+		public int hashCode() {
+			return rawType.hashCode() * 31 + arguments[0].hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ParameterizedType)) {
+				return false;
+			}
+			ParameterizedType other = (ParameterizedType) obj;
+			return rawType.equals(other.getRawType()) && other.getOwnerType() == null
+					&& Arrays.equals(arguments, other.getActualTypeArguments());
+		}
+
+		@Override
+		public String toString() {
+			return rawType.getName() + "<" + ((Class<?>) arguments[0]).getName() + ">";
+		}
+	}
+}
@@ -62,38 +62,67 @@ public class Serializer {
 		if (bytes == null) {
 			return null;
 		}
-		try {
-			return Integer.valueOf(SafeEncoder.encode(bytes));
-		} catch (NumberFormatException ne) {
-			Serializable object = null;
-			ObjectInputStream objectIS = null;
-			ByteArrayInputStream byteIS = null;
+		if (isInteger(bytes)) {
 			try {
-				byteIS = new ByteArrayInputStream(bytes);
-				objectIS = new ObjectInputStream(byteIS);
-				object = (Serializable) objectIS.readObject();
-			} catch (IOException e) {
-				object = SafeEncoder.encode(bytes);
-			} catch (ClassNotFoundException e) {
-				object = SafeEncoder.encode(bytes);
-			} finally {
-				if (byteIS != null) {
-					try {
-						byteIS.close();
-					} catch (IOException e) {
-						logger.warn(e.getMessage());
-					}
+				return Integer.valueOf(SafeEncoder.encode(bytes));
+			} catch (NumberFormatException ne) {
+				// 超出int范围，与原有逻辑一致按字符串返回
+				return SafeEncoder.encode(bytes);
+			}
+		}
+		if (!isJavaSerialized(bytes)) {
+			return SafeEncoder.encode(bytes);
+		}
+		Serializable object = null;
+		ObjectInputStream objectIS = null;
+		ByteArrayInputStream byteIS = null;
+		try {
+			byteIS = new ByteArrayInputStream(bytes);
+			objectIS = new ObjectInputStream(byteIS);
+			object = (Serializable) objectIS.readObject();
+		} catch (IOException e) {
+			object = SafeEncoder.encode(bytes);
+		} catch (ClassNotFoundException e) {
+			object = SafeEncoder.encode(bytes);
+		} finally {
+			if (byteIS != null) {
+				try {
+					byteIS.close();
+				} catch (IOException e) {
+					logger.warn(e.getMessage());
 				}
-				if (objectIS != null) {
-					try {
-						objectIS.close();
-					} catch (IOException e) {
-						logger.warn(e.getMessage());
-					}
+			}
+			if (objectIS != null) {
+				try {
+					objectIS.close();
+				} catch (IOException e) {
+					logger.warn(e.getMessage());
 				}
 			}
-			return object;
 		}
+		return object;
+	}
+
+	/**
+	 * 是否为十进制整数 (可带负号)
+	 */
+	private static boolean isInteger(byte[] bytes) {
+		int start = bytes.length > 0 && bytes[0] == '-' ? 1 : 0;
+		if (bytes.length == start || bytes.length > 11) {
+			return false;
+		}
+		for (int i = start; i < bytes.length; i++) {
+			if (bytes[i] < '0' || bytes[i] > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
 
+	/**
+	 * 是否以java序列化的魔数 0xACED 开头
+	 */
+	private static boolean isJavaSerialized(byte[] bytes) {
+		return bytes.length > 4 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
 	}
 }
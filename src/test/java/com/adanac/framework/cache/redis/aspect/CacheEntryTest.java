@@ -0,0 +1,66 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.adanac.framework.cache.redis.util.JsonBytes;
+
+import redis.clients.util.SafeEncoder;
+
+public class CacheEntryTest extends TestCase {
+
+	public void testWrapAndUnwrap() {
+		CacheEntry entry = new CacheEntry("ignored", 1500000000000L, 35);
+		CacheEntry raw = CacheEntry.unwrap(entry.wrap("{\"id\":1,\"name\":\"a:b\"}"));
+		assertEquals(1500000000000L, raw.getExpireAt());
+		assertEquals(35, raw.getDelta());
+		assertEquals("{\"id\":1,\"name\":\"a:b\"}", raw.getValue());
+	}
+
+	public void testPlainValueHasNoLogicalExpiry() {
+		CacheEntry raw = CacheEntry.unwrap("{\"id\":1}");
+		assertEquals("{\"id\":1}", raw.getValue());
+		assertFalse(raw.isStale(System.currentTimeMillis()));
+		assertFalse(raw.shouldRefreshEarly(System.currentTimeMillis(), 1.0));
+		assertNull(CacheEntry.unwrap(null));
+	}
+
+	public void testJsonBytes() {
+		CacheEntry entry = new CacheEntry(new String[] { "a:b", "c" }, 1500000000000L, 35);
+		byte[] bytes = entry.toJsonBytes();
+		assertEquals(entry.wrap("[\"a:b\",\"c\"]"), SafeEncoder.encode(bytes));
+
+		CacheEntry parsed = CacheEntry.fromJsonBytes(bytes, JsonBytes.typeOf(List.class, String.class));
+		assertEquals(1500000000000L, parsed.getExpireAt());
+		assertEquals(35, parsed.getDelta());
+		assertEquals(2, ((List<?>) parsed.getValue()).size());
+		assertEquals("a:b", ((List<?>) parsed.getValue()).get(0));
+
+		CacheEntry plain = CacheEntry.fromJsonBytes(SafeEncoder.encode("\"v\""), String.class);
+		assertEquals("v", plain.getValue());
+		assertEquals(Long.MAX_VALUE, plain.getExpireAt());
+		assertNull(CacheEntry.fromJsonBytes(null, String.class));
+	}
+
+	public void testEarlyRefreshProbabilityGrowsNearExpiry() {
+		long now = System.currentTimeMillis();
+		CacheEntry far = new CacheEntry("v", now + 60000, 100);
+		CacheEntry near = new CacheEntry("v", now + 50, 100);
+		int farRefreshes = 0;
+		int nearRefreshes = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (far.shouldRefreshEarly(now, 1.0)) {
+				farRefreshes++;
+			}
+			if (near.shouldRefreshEarly(now, 1.0)) {
+				nearRefreshes++;
+			}
+		}
+		assertEquals(0, farRefreshes);
+		// P(gap >= 50) = exp(-0.5) ~ 0.61
+		assertTrue(nearRefreshes > 400 && nearRefreshes < 800);
+		assertFalse(near.shouldRefreshEarly(now, 0));
+		assertTrue(near.shouldRefreshEarly(now + 50, 0));
+	}
+}
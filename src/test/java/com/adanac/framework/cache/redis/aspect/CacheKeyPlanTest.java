@@ -0,0 +1,55 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import junit.framework.TestCase;
+
+public class CacheKeyPlanTest extends TestCase {
+
+	private final SpelExpressionParser expressionParser = new SpelExpressionParser();
+
+	public void testLiteralKey() {
+		CacheKeyPlan plan = CacheKeyPlan.compile("allUser", new String[] { "user" }, expressionParser);
+		assertEquals("allUser", plan.generate(new Object[] { new User(1L, "a") }));
+	}
+
+	public void testPrefixAndProperties() {
+		CacheKeyPlan plan = CacheKeyPlan.compile("userCache#user.id#user.name", new String[] { "user" },
+				expressionParser);
+		assertEquals("userCache:1:a", plan.generate(new Object[] { new User(1L, "a") }));
+		assertEquals("userCache:2:b", plan.generate(new Object[] { new User(2L, "b") }));
+	}
+
+	public void testWithoutPrefix() {
+		CacheKeyPlan plan = CacheKeyPlan.compile("#id#user.name", new String[] { "id", "user" }, expressionParser);
+		assertEquals("7:a", plan.generate(new Object[] { 7, new User(1L, "a") }));
+	}
+
+	public void testExpressionFallback() {
+		CacheKeyPlan plan = CacheKeyPlan.compile("map#map['id']", new String[] { "map" }, expressionParser);
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("id", 3);
+		assertEquals("map:3", plan.generate(new Object[] { map }));
+	}
+
+	public static class User {
+		private final Long id;
+		private final String name;
+
+		public User(Long id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+}
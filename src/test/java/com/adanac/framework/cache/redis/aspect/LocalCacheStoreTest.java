@@ -0,0 +1,64 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import junit.framework.TestCase;
+
+public class LocalCacheStoreTest extends TestCase {
+
+	public void testExpire() throws Exception {
+		LocalCacheStore store = new LocalCacheStore(16);
+		store.put("k", "v", 50);
+		assertEquals("v", store.get("k"));
+		Thread.sleep(80);
+		assertNull(store.get("k"));
+	}
+
+	public void testHotKeysSurviveScan() {
+		// 每个分段容量为 2
+		LocalCacheStore store = new LocalCacheStore(32);
+		store.put("hot", "v", 60000);
+		assertEquals("v", store.get("hot"));
+		for (int i = 0; i < 1000; i++) {
+			store.put("scan" + i, "v", 60000);
+		}
+		assertEquals("v", store.get("hot"));
+		assertTrue(store.size() <= 32);
+		assertTrue(store.getEvictionCount() > 0);
+	}
+
+	public void testWeightLimit() {
+		LocalCacheStore store = new LocalCacheStore(1000, 16 * 10, new LocalCacheStore.Weigher() {
+			@Override
+			public int weigh(String key, Object value) {
+				return ((String) value).length();
+			}
+		});
+		for (int i = 0; i < 100; i++) {
+			store.put("k" + i, "0123456789", 60000);
+		}
+		assertTrue(store.size() <= 16);
+	}
+
+	public void testInvalidate() {
+		LocalCacheStore store = new LocalCacheStore(16);
+		store.put("k", "v", 60000);
+		store.invalidate("k");
+		assertNull(store.get("k"));
+		store.put("k", "v", 60000);
+		store.invalidateAll();
+		assertEquals(0, store.size());
+	}
+
+	public void testPutRejectedAfterInvalidate() {
+		LocalCacheStore store = new LocalCacheStore(16);
+		long generation = store.generation("k");
+		store.invalidate("k");
+		assertFalse(store.put("k", "old", 60000, generation));
+		assertNull(store.get("k"));
+		assertTrue(store.put("k", "new", 60000, store.generation("k")));
+		assertEquals("new", store.get("k"));
+
+		generation = store.generation("k");
+		store.invalidateAll();
+		assertFalse(store.put("k", "old", 60000, generation));
+	}
+}
@@ -0,0 +1,118 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * 读取redis期间收到的失效不会被随后的放入覆盖，本地条目不超过redis中的剩余生存时间
+ */
+public class NearCacheTest extends TestCase {
+
+	private final Map<String, Object> redis = new LinkedHashMap<String, Object>();
+
+	// redis中的剩余生存时间 毫秒，没有的key不过期
+	private final Map<String, Long> ttls = new LinkedHashMap<String, Long>();
+
+	private final AtomicInteger reads = new AtomicInteger();
+
+	private final LocalBus bus = new LocalBus();
+
+	private NearCache cache;
+
+	// 第一次读取redis之后、放入本地之前，其他节点修改了这个key
+	private String concurrentWrite;
+
+	@Override
+	protected void setUp() {
+		Cache delegate = (Cache) Proxy.newProxyInstance(Cache.class.getClassLoader(), new Class<?>[] { Cache.class },
+				new InvocationHandler() {
+					@SuppressWarnings("unchecked")
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if ("getAllWithTtl".equals(name)) {
+							Map<String, TimedValue> values = new LinkedHashMap<String, TimedValue>();
+							for (String key : (Collection<String>) args[0]) {
+								reads.incrementAndGet();
+								Object value = redis.get(key);
+								if (key.equals(concurrentWrite)) {
+									concurrentWrite = null;
+									redis.put(key, "v2");
+									bus.listener.onInvalidate(key);
+								}
+								if (value != null) {
+									Long ttl = ttls.get(key);
+									values.put(key, new TimedValue(value, ttl == null ? -1 : ttl.longValue()));
+								}
+							}
+							return values;
+						}
+						throw new AssertionError("unexpected " + name);
+					}
+				});
+		cache = new NearCache(delegate, 100, 60000);
+		cache.setInvalidationBus(bus);
+	}
+
+	public void testInvalidationDuringLoad() throws Exception {
+		redis.put("k", "v1");
+		concurrentWrite = "k";
+		assertEquals("v1", cache.get("k", String.class));
+		// 失效前读到的v1没有放入本地缓存
+		assertEquals("v2", cache.get("k", String.class));
+		assertEquals("v2", cache.get("k", String.class));
+		assertEquals(2, reads.get());
+	}
+
+	public void testGetAllFillsLocalCache() throws Exception {
+		redis.put("a", "1");
+		redis.put("b", "2");
+		assertEquals(redis, cache.getAll(Arrays.asList("a", "b"), String.class));
+		assertEquals("1", cache.get("a", String.class));
+		assertEquals("2", cache.get("b", String.class));
+		assertEquals(2, reads.get());
+	}
+
+	public void testLocalEntryDoesNotOutliveRedisTtl() throws Exception {
+		redis.put("short", "1");
+		ttls.put("short", Long.valueOf(50));
+		redis.put("gone", "2");
+		// GET之后、PTTL之前被删除
+		ttls.put("gone", Long.valueOf(-2));
+		assertEquals("1", cache.get("short", String.class));
+		assertEquals("2", cache.get("gone", String.class));
+		assertEquals("1", cache.get("short", String.class));
+		assertEquals(2, reads.get());
+
+		redis.remove("short");
+		redis.remove("gone");
+		Thread.sleep(100);
+		// redis中已过期，本地条目随之过期
+		assertNull(cache.get("short", String.class));
+		assertNull(cache.get("gone", String.class));
+		assertEquals(4, reads.get());
+	}
+
+	private static final class LocalBus implements InvalidationBus {
+
+		InvalidationBus.Listener listener;
+
+		public void publish(String cacheKey) {
+			listener.onInvalidate(cacheKey);
+		}
+
+		public void subscribe(Listener listener) {
+			this.listener = listener;
+		}
+
+		public void close() {
+		}
+	}
+}
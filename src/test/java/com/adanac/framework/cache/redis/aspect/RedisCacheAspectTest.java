@@ -0,0 +1,139 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import com.adanac.framework.cache.redis.annotations.CacheOperate;
+import com.adanac.framework.cache.redis.annotations.LoadGuard;
+import com.adanac.framework.cache.redis.annotations.MyCacheable;
+
+/**
+ * 并发查询同一个key时，经过切面只回源一次
+ */
+public class RedisCacheAspectTest extends TestCase {
+
+	private static final int CALLERS_PER_KEY = 20;
+
+	private final Map<String, Object> cached = new ConcurrentHashMap<String, Object>();
+
+	private final RedisCacheAspect aspect = new RedisCacheAspect();
+
+	private final UserService service = new UserService();
+
+	@Override
+	protected void setUp() {
+		aspect.setCache((Cache) Proxy.newProxyInstance(Cache.class.getClassLoader(), new Class<?>[] { Cache.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if ("get".equals(method.getName()) && args.length == 2) {
+							return cached.get(args[0]);
+						} else if ("set".equals(method.getName()) && args.length == 3) {
+							cached.put((String) args[0], args[2]);
+							return null;
+						}
+						throw new AssertionError("unexpected " + method.getName());
+					}
+				}));
+	}
+
+	public void testConcurrentQueryLoadsOncePerKey() throws Exception {
+		final Method method = UserService.class.getMethod("findUser", Long.class);
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch finished = new CountDownLatch(2 * CALLERS_PER_KEY);
+		final List<Object> results = new ArrayList<Object>();
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		for (int i = 0; i < 2 * CALLERS_PER_KEY; i++) {
+			final Long id = Long.valueOf(i % 2);
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						Object result = aspect.doAroundCache(joinPoint(method, id));
+						synchronized (results) {
+							results.add(id + "=" + result);
+						}
+					} catch (Throwable e) {
+						synchronized (errors) {
+							errors.add(e);
+						}
+					} finally {
+						finished.countDown();
+					}
+				}
+			}).start();
+		}
+		start.countDown();
+		finished.await();
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(2, service.loads.get());
+		assertEquals(2 * CALLERS_PER_KEY, results.size());
+		for (Object result : results) {
+			String[] pair = ((String) result).split("=");
+			assertEquals("user" + pair[0], pair[1]);
+		}
+		assertEquals("user0", cached.get("user:0"));
+		assertEquals("user1", cached.get("user:1"));
+	}
+
+	/**
+	 * 调用 service 的连接点，只实现切面用到的方法
+	 */
+	private ProceedingJoinPoint joinPoint(final Method method, final Object... args) {
+		final MethodSignature signature = (MethodSignature) Proxy.newProxyInstance(
+				MethodSignature.class.getClassLoader(), new Class<?>[] { MethodSignature.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method m, Object[] a) {
+						if ("getMethod".equals(m.getName())) {
+							return method;
+						} else if ("getParameterNames".equals(m.getName())) {
+							return new String[] { "id" };
+						}
+						throw new AssertionError("unexpected " + m.getName());
+					}
+				});
+		return (ProceedingJoinPoint) Proxy.newProxyInstance(ProceedingJoinPoint.class.getClassLoader(),
+				new Class<?>[] { ProceedingJoinPoint.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method m, Object[] a) throws Throwable {
+						if ("getSignature".equals(m.getName())) {
+							return signature;
+						} else if ("getArgs".equals(m.getName())) {
+							return args.clone();
+						} else if ("proceed".equals(m.getName()) && (a == null || a.length == 0)) {
+							try {
+								return method.invoke(service, args);
+							} catch (InvocationTargetException e) {
+								throw e.getCause();
+							}
+						}
+						throw new AssertionError("unexpected " + m.getName());
+					}
+				});
+	}
+
+	public static class UserService {
+
+		final AtomicInteger loads = new AtomicInteger();
+
+		@MyCacheable(key = "user#id", beforecmd = CacheOperate.QUERY, loadGuard = LoadGuard.LOCAL)
+		public String findUser(Long id) throws InterruptedException {
+			loads.incrementAndGet();
+			// 回源较慢，其余调用方在此期间到达
+			Thread.sleep(200);
+			return "user" + id;
+		}
+	}
+}
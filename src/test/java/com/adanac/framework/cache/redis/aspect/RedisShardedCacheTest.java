@@ -0,0 +1,82 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.client.impl.MyShardedClient;
+import com.adanac.framework.cache.redis.client.impl.StubRedisServer;
+
+/**
+ * 一个分片上超过 MAX_BATCH_SIZE 个key的批量读写，读取值时同时取得剩余生存时间 (使用进程内的 StubRedisServer)
+ */
+public class RedisShardedCacheTest extends TestCase {
+
+	private static final int KEYS = ShardExecutor.MAX_BATCH_SIZE * 4 + 7;
+
+	private StubRedisServer server;
+
+	private MyShardedClient client;
+
+	private ShardExecutor executor;
+
+	private RedisShardedCache cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = new StubRedisServer();
+		client = new MyShardedClient();
+		client.setConfigPath(StubRedisServer.registerShards(server));
+		executor = new ShardExecutor(8);
+		cache = new RedisShardedCache(client);
+		cache.setShardExecutor(executor);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdown();
+		client.destroy();
+		server.stop();
+	}
+
+	public void testSetAllAndGetAllOnOneShard() throws Exception {
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < KEYS; i++) {
+			values.put("k" + i, "v" + i);
+		}
+		List<String> keys = new ArrayList<String>(values.keySet());
+		keys.add("missing");
+		// 多次执行，共用连接被并行使用时回复会错位
+		for (int round = 0; round < 5; round++) {
+			cache.setAll(values, 60);
+			Map<String, Object> result = cache.getAll(keys, String.class);
+			assertEquals(values, result);
+			assertEquals(new ArrayList<String>(values.keySet()), new ArrayList<String>(result.keySet()));
+		}
+		assertTrue(server.pttl("k0") > 0);
+		assertEquals(ShardExecutor.MAX_BATCH_SIZE, server.getMaxKeyCount());
+	}
+
+	public void testGetAllWithTtl() throws Exception {
+		cache.set("timed", 60, "v1");
+		cache.set("forever", "v2");
+		cache.setEntry("entry", 60, new CacheEntry("v3", 1000L, 5L));
+		Map<String, TimedValue> result = cache.getAllWithTtl(Arrays.asList("timed", "forever", "missing"), false,
+				String.class);
+		assertEquals(Arrays.asList("timed", "forever"), new ArrayList<String>(result.keySet()));
+		assertEquals("v1", result.get("timed").getValue());
+		assertTrue(result.get("timed").getTtlMillis() > 59000);
+		assertEquals(1000, result.get("timed").localTtl(1000));
+		assertEquals(-1, result.get("forever").getTtlMillis());
+
+		CacheEntry entry = (CacheEntry) cache.getAllWithTtl(Arrays.asList("entry"), true, String.class).get("entry")
+				.getValue();
+		assertEquals("v3", entry.getValue());
+		assertEquals(1000L, entry.getExpireAt());
+	}
+}
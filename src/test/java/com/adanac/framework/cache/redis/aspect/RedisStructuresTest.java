@@ -0,0 +1,55 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class RedisStructuresTest extends TestCase {
+
+	public void testWriteArgsInOneCall() {
+		List<String> items = new ArrayList<String>();
+		for (int i = 0; i < 2500; i++) {
+			items.add(String.valueOf(i));
+		}
+		List<String> args = RedisStructures.writeArgs(RedisStructures.LIST_COMMAND, true, 60, items);
+		assertEquals(Arrays.asList("1", "60", "RPUSH"), args.subList(0, 3));
+		assertEquals(items, args.subList(3, args.size()));
+		// 分批在脚本内执行
+		assertTrue(RedisStructures.WRITE_SCRIPT.contains("unpack(ARGV, i, math.min(i + 999, #ARGV))"));
+	}
+
+	public void testEmptyCollectionWritesMarker() {
+		List<String> args = RedisStructures.writeArgs(RedisStructures.SET_COMMAND, true, -1, new ArrayList<String>());
+		assertEquals(Arrays.asList("1", "-1", "SADD", RedisStructures.EMPTY_MARKER), args);
+		args = RedisStructures.writeArgs(RedisStructures.HASH_COMMAND, true, -1, new ArrayList<String>());
+		assertEquals(Arrays.asList("1", "-1", "HMSET", RedisStructures.EMPTY_MARKER, ""), args);
+
+		// 保存的空集合与不存在的key区分
+		assertEquals(Collections.emptyList(),
+				RedisStructures.decodeList(Arrays.asList(RedisStructures.EMPTY_MARKER), String.class));
+		assertEquals(Collections.emptySet(), RedisStructures.decodeSet(
+				Collections.singleton(RedisStructures.EMPTY_MARKER), String.class));
+		assertEquals(Collections.emptyMap(), RedisStructures.decodeHash(
+				Collections.singletonMap(RedisStructures.EMPTY_MARKER, ""), String.class));
+		assertNull(RedisStructures.decodeList(new ArrayList<String>(), String.class));
+		assertNull(RedisStructures.decodeHash(null, String.class));
+	}
+
+	public void testHashRoundTrip() {
+		Map<String, Integer> hash = new LinkedHashMap<String, Integer>();
+		hash.put("a", 1);
+		hash.put("b", 2);
+		List<String> items = RedisStructures.encodeHash(hash);
+		assertEquals(Arrays.asList("a", "1", "b", "2"), items);
+		Map<String, String> stored = new LinkedHashMap<String, String>();
+		stored.put(items.get(0), items.get(1));
+		stored.put(items.get(2), items.get(3));
+		Map<String, Object> decoded = RedisStructures.decodeHash(stored, Integer.class);
+		assertEquals(Integer.valueOf(2), decoded.get("b"));
+	}
+}
@@ -0,0 +1,113 @@
+package com.adanac.framework.cache.redis.aspect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class SingleFlightTest extends TestCase {
+
+	private static final int KEYS = 4;
+
+	private static final int CALLERS_PER_KEY = 25;
+
+	public void testOriginHitOncePerKey() throws Exception {
+		final SingleFlight singleFlight = new SingleFlight();
+		final AtomicInteger[] originHits = new AtomicInteger[KEYS];
+		for (int i = 0; i < KEYS; i++) {
+			originHits[i] = new AtomicInteger();
+		}
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch finished = new CountDownLatch(KEYS * CALLERS_PER_KEY);
+		final List<Object> results = new ArrayList<Object>();
+		final List<Throwable> errors = new ArrayList<Throwable>();
+
+		for (int i = 0; i < KEYS * CALLERS_PER_KEY; i++) {
+			final int keyIndex = i % KEYS;
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						Object value = singleFlight.execute("user:" + keyIndex, new SingleFlight.Loader() {
+							@Override
+							public Object load() throws Throwable {
+								originHits[keyIndex].incrementAndGet();
+								Thread.sleep(200);
+								return "value" + keyIndex;
+							}
+						});
+						synchronized (results) {
+							results.add(keyIndex + "=" + value);
+						}
+					} catch (Throwable e) {
+						synchronized (errors) {
+							errors.add(e);
+						}
+					} finally {
+						finished.countDown();
+					}
+				}
+			}).start();
+		}
+
+		start.countDown();
+		finished.await();
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(KEYS * CALLERS_PER_KEY, results.size());
+		for (int i = 0; i < KEYS; i++) {
+			assertEquals("origin hits for key " + i, 1, originHits[i].get());
+		}
+		for (Object result : results) {
+			String[] pair = ((String) result).split("=");
+			assertEquals("value" + pair[0], pair[1]);
+		}
+		assertEquals(0, singleFlight.inFlight());
+	}
+
+	public void testWaitersShareLoaderFailure() throws Throwable {
+		final SingleFlight singleFlight = new SingleFlight();
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Throwable[] waiterError = new Throwable[1];
+
+		Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					loading.await();
+					release.countDown();
+					singleFlight.execute("k", new SingleFlight.Loader() {
+						@Override
+						public Object load() throws Throwable {
+							return "unexpected";
+						}
+					});
+				} catch (Throwable e) {
+					waiterError[0] = e;
+				}
+			}
+		});
+		waiter.start();
+
+		try {
+			singleFlight.execute("k", new SingleFlight.Loader() {
+				@Override
+				public Object load() throws Throwable {
+					loading.countDown();
+					release.await();
+					Thread.sleep(200);
+					throw new IllegalStateException("origin down");
+				}
+			});
+			fail("loader failure must propagate");
+		} catch (IllegalStateException expected) {
+			// expected
+		}
+		waiter.join();
+		assertTrue(waiterError[0] instanceof IllegalStateException);
+	}
+}
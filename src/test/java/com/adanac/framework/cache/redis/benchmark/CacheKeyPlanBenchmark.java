@@ -0,0 +1,112 @@
+package com.adanac.framework.cache.redis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import com.adanac.framework.cache.redis.aspect.CacheKeyPlan;
+
+/**
+ * 缓存key生成：每次解析SpEL (原实现) 与预编译key计划对比
+ * <p>
+ * 运行: mvn test-compile 后执行 main 方法，建议加 -prof gc 观察分配
+ *
+ * @author adanac
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyPlanBenchmark {
+
+	private static final String KEY = "userCache#user.id#user.name";
+
+	private static final String[] PARAMETER_NAMES = { "user" };
+
+	private final SpelExpressionParser expressionParser = new SpelExpressionParser();
+
+	private Object[] args;
+
+	private CacheKeyPlan keyPlan;
+
+	@Setup
+	public void setUp() {
+		args = new Object[] { new User(10086L, "adanac") };
+		keyPlan = CacheKeyPlan.compile(KEY, PARAMETER_NAMES, expressionParser);
+		if (!legacyKey().equals(compiledKey())) {
+			throw new IllegalStateException(legacyKey() + " != " + compiledKey());
+		}
+	}
+
+	@Benchmark
+	public String legacyKey() {
+		String key = KEY;
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		for (int i = 0; i < PARAMETER_NAMES.length; i++) {
+			context.setVariable(PARAMETER_NAMES[i], args[i]);
+		}
+		StringBuilder cacheKeyBuilder = new StringBuilder();
+		if (!key.startsWith("#")) {
+			int firstCharMark = key.indexOf("#");
+			cacheKeyBuilder.append(key.substring(0, firstCharMark));
+			cacheKeyBuilder.append(":");
+			key = key.substring(firstCharMark + 1);
+		} else {
+			key = key.substring(key.indexOf("#") + 1);
+		}
+		for (String keyStr : key.split("#")) {
+			Object object = expressionParser.parseExpression("#" + keyStr).getValue(context);
+			cacheKeyBuilder.append(object.toString());
+			cacheKeyBuilder.append(":");
+		}
+		String cacheKey = cacheKeyBuilder.toString();
+		return cacheKey.substring(0, cacheKey.length() - 1);
+	}
+
+	@Benchmark
+	public String compiledKey() {
+		return keyPlan.generate(args);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(CacheKeyPlanBenchmark.class.getSimpleName())
+				.addProfiler("gc").build();
+		new Runner(options).run();
+	}
+
+	public static class User {
+		private final Long id;
+		private final String name;
+
+		public User(Long id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+}
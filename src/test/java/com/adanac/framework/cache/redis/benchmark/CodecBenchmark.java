@@ -0,0 +1,150 @@
+package com.adanac.framework.cache.redis.benchmark;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.adanac.framework.cache.redis.codec.FastjsonObjectCodec;
+import com.adanac.framework.cache.redis.codec.TaggedCodec;
+import com.adanac.framework.cache.redis.util.Serializer;
+
+/**
+ * 值编解码：原 Serializer (java序列化) 与 TaggedCodec 对比
+ * <p>
+ * 运行: mvn test-compile 后执行 main 方法，建议加 -prof gc 观察分配
+ *
+ * @author adanac
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+	private final TaggedCodec codec = new TaggedCodec(new FastjsonObjectCodec().register(1, User.class));
+
+	private final User user = new User(10086L, "adanac", 30);
+
+	private final String text = "adanac-cache-value";
+
+	private byte[] legacyUser;
+	private byte[] legacyText;
+	private byte[] legacyInt;
+	private byte[] taggedUser;
+	private byte[] taggedText;
+	private byte[] taggedInt;
+
+	@Setup
+	public void setUp() {
+		legacyUser = Serializer.encode(user);
+		legacyText = Serializer.encode(text);
+		legacyInt = Serializer.encode(12345);
+		taggedUser = codec.encode(user);
+		taggedText = codec.encode(text);
+		taggedInt = codec.encode(12345);
+	}
+
+	@Benchmark
+	public byte[] legacyEncodeObject() {
+		return Serializer.encode(user);
+	}
+
+	@Benchmark
+	public byte[] taggedEncodeObject() {
+		return codec.encode(user);
+	}
+
+	@Benchmark
+	public Object legacyDecodeObject() {
+		return Serializer.decode(legacyUser);
+	}
+
+	@Benchmark
+	public Object taggedDecodeObject() {
+		return codec.decode(taggedUser);
+	}
+
+	@Benchmark
+	public Object legacyDecodeString() {
+		return Serializer.decode(legacyText);
+	}
+
+	@Benchmark
+	public Object taggedDecodeString() {
+		return codec.decode(taggedText);
+	}
+
+	@Benchmark
+	public Object legacyDecodeInt() {
+		return Serializer.decode(legacyInt);
+	}
+
+	@Benchmark
+	public Object taggedDecodeInt() {
+		return codec.decode(taggedInt);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(CodecBenchmark.class.getSimpleName()).addProfiler("gc")
+				.build();
+		new Runner(options).run();
+	}
+
+	public static class User implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private Long id;
+		private String name;
+		private int age;
+
+		public User() {
+		}
+
+		public User(Long id, String name, int age) {
+			this.id = id;
+			this.name = name;
+			this.age = age;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public void setId(Long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+	}
+}
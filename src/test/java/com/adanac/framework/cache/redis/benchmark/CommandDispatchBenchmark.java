@@ -0,0 +1,97 @@
+package com.adanac.framework.cache.redis.benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.adanac.framework.cache.redis.client.ShardedJedisAction;
+import com.adanac.framework.cache.redis.client.impl.MyShardedClient;
+import com.adanac.framework.cache.redis.client.impl.StubRedisServer;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+
+/**
+ * 命令分发：每次调用创建匿名 ShardedJedisAction (原实现) 与复用无状态 ShardedKeyCommand 对比
+ * <p>
+ * 使用进程内的 StubRedisServer，耗时包含网络往返，主要比较 gc.alloc.rate.norm (每次操作分配的字节数)。
+ * 运行: mvn test-compile 后执行 main 方法
+ *
+ * @author adanac
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBenchmark {
+
+	private static final String KEY = "benchmark:key";
+
+	private StubRedisServer server;
+
+	private StubShardedClient client;
+
+	@Setup
+	public void setUp() throws IOException {
+		server = new StubRedisServer();
+		client = new StubShardedClient(new ShardedJedisPool(new GenericObjectPoolConfig(),
+				Collections.singletonList(new JedisShardInfo("127.0.0.1", server.getPort()))));
+		client.set(KEY, "value");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		client.destroy();
+		server.stop();
+	}
+
+	@Benchmark
+	public String anonymousAction() {
+		// 与原 get(key) 实现相同，匿名类捕获key
+		final String key = KEY;
+		return client.execute(new ShardedJedisAction<String>() {
+			public String doAction(ShardedJedis jedis) {
+				return jedis.get(key);
+			}
+		});
+	}
+
+	@Benchmark
+	public String reusableCommand() {
+		return client.get(KEY);
+	}
+
+	private static final class StubShardedClient extends MyShardedClient {
+		StubShardedClient(ShardedJedisPool pool) {
+			setConfigPath("benchmark-stub-redis");
+			jedisClusterPools.put(getConfigPath(), pool);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(CommandDispatchBenchmark.class.getSimpleName())
+				.addProfiler("gc").build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,116 @@
+package com.adanac.framework.cache.redis.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import com.adanac.framework.cache.redis.client.impl.LimitedShardedJedisPool;
+import com.adanac.framework.cache.redis.client.impl.MyShardedClient;
+import com.adanac.framework.cache.redis.client.impl.StubRedisServer;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisPool;
+
+/**
+ * 突发并发下的连接数和延迟：原连接池 (不限制，blockWhenExhausted=false) 与 LimitedShardedJedisPool 对比
+ * <p>
+ * concurrency 个线程同时发出一次 GET，输出服务端连接数峰值、p50/p99/最大延迟和失败数。
+ * 运行: mvn test-compile 后执行 main 方法，参数 [concurrency] [maxConnections]，默认 10000 32
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ConnectionBurstBenchmark {
+
+	private static final String KEY = "benchmark:key";
+
+	// 线程栈 字节，上万线程时减少内存占用
+	private static final long STACK_SIZE = 128 * 1024;
+
+	public static void main(String[] args) throws Exception {
+		int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int maxConnections = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+		config.setMaxTotal(Integer.MAX_VALUE);
+		config.setMaxIdle(maxConnections);
+		config.setBlockWhenExhausted(false);
+
+		StubRedisServer server = new StubRedisServer();
+		try {
+			run("unbounded", server, new ShardedJedisPool(config, shards(server)), concurrency);
+		} finally {
+			server.stop();
+		}
+		server = new StubRedisServer();
+		try {
+			run("limited(" + maxConnections + ")", server,
+					new LimitedShardedJedisPool(config, shards(server), maxConnections, 10000L), concurrency);
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static void run(String name, StubRedisServer server, ShardedJedisPool pool, int concurrency)
+			throws InterruptedException {
+		final StubShardedClient client = new StubShardedClient(name, pool);
+		client.set(KEY, "value");
+		final long[] latencies = new long[concurrency];
+		final AtomicInteger errors = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			final int index = i;
+			Thread thread = new Thread(null, new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						long begin = System.nanoTime();
+						try {
+							client.get(KEY);
+						} catch (RuntimeException e) {
+							errors.incrementAndGet();
+						}
+						latencies[index] = System.nanoTime() - begin;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						done.countDown();
+					}
+				}
+			}, "burst-" + i, STACK_SIZE);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		done.await();
+		long elapsed = System.nanoTime() - begin;
+		Arrays.sort(latencies);
+		System.out.println(name + ": concurrency=" + concurrency + " peakConnections="
+				+ server.getPeakConnectionCount() + " errors=" + errors.get() + " p50=" + millis(latencies, 0.50)
+				+ "ms p99=" + millis(latencies, 0.99) + "ms max=" + millis(latencies, 1.0) + "ms total="
+				+ elapsed / 1000000 + "ms");
+		client.destroy();
+	}
+
+	private static String millis(long[] sorted, double percentile) {
+		int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile) - 1);
+		return String.format("%.2f", sorted[Math.max(0, index)] / 1000000.0);
+	}
+
+	private static List<JedisShardInfo> shards(StubRedisServer server) {
+		return Collections.singletonList(new JedisShardInfo("127.0.0.1", server.getPort()));
+	}
+
+	private static final class StubShardedClient extends MyShardedClient {
+		StubShardedClient(String name, ShardedJedisPool pool) {
+			setConfigPath("benchmark-burst-" + name);
+			jedisClusterPools.put(getConfigPath(), pool);
+		}
+	}
+}
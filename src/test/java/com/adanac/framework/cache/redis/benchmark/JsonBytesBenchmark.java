@@ -0,0 +1,84 @@
+package com.adanac.framework.cache.redis.benchmark;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.adanac.framework.cache.redis.benchmark.CodecBenchmark.User;
+import com.adanac.framework.cache.redis.util.JsonBytes;
+import com.alibaba.fastjson.JSON;
+
+import redis.clients.util.SafeEncoder;
+
+/**
+ * json缓存读写：原 String 路径 (toJSONString + 客户端编码) 与 JsonBytes 直接读写字节对比
+ * <p>
+ * 运行: mvn test-compile 后执行 main 方法，gc.alloc.rate.norm 为每次操作分配的字节数
+ *
+ * @author adanac
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBytesBenchmark {
+
+	private final List<User> users = new ArrayList<User>();
+
+	private final Type listType = JsonBytes.typeOf(List.class, User.class);
+
+	private byte[] reply;
+
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < 20; i++) {
+			users.add(new User(10000L + i, "adanac-" + i, 20 + i));
+		}
+		reply = JsonBytes.toBytes(null, users);
+	}
+
+	@Benchmark
+	public byte[] stringWrite() {
+		return SafeEncoder.encode(JSON.toJSONString(users));
+	}
+
+	@Benchmark
+	public byte[] bytesWrite() {
+		return JsonBytes.toBytes(null, users);
+	}
+
+	@Benchmark
+	public Object stringRead() {
+		return JSON.parseArray(SafeEncoder.encode(reply), User.class);
+	}
+
+	@Benchmark
+	public Object bytesRead() {
+		return JsonBytes.parse(reply, 0, listType);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(JsonBytesBenchmark.class.getSimpleName()).addProfiler("gc")
+				.build();
+		new Runner(options).run();
+	}
+}
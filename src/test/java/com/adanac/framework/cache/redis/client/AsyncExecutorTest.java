@@ -0,0 +1,130 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+import junit.framework.TestCase;
+
+public class AsyncExecutorTest extends TestCase {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final AtomicInteger executed = new AtomicInteger();
+
+	private AsyncExecutor executor;
+
+	@Override
+	protected void tearDown() throws Exception {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	public void testIndependentReadsRunInParallel() throws Exception {
+		executor = new AsyncExecutor(4, 16, 0);
+		final CountDownLatch started = new CountDownLatch(4);
+		RedisFuture<?>[] futures = new RedisFuture<?>[4];
+		for (int i = 0; i < futures.length; i++) {
+			final int value = i;
+			futures[i] = executor.submit(new Callable<Integer>() {
+				public Integer call() throws Exception {
+					started.countDown();
+					// 只有4个任务同时在执行才能全部通过
+					assertTrue(started.await(5, TimeUnit.SECONDS));
+					return Integer.valueOf(value);
+				}
+			});
+		}
+		for (int i = 0; i < futures.length; i++) {
+			assertEquals(Integer.valueOf(i), futures[i].get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	public void testFullQueueFailsFuture() {
+		executor = new AsyncExecutor(1, 1, 0);
+		executor.submit(blocking());
+		executor.submit(blocking());
+		RedisFuture<String> rejected = executor.submit(blocking());
+		assertTrue(rejected.isDone());
+		try {
+			rejected.join();
+			fail();
+		} catch (RedisClientException e) {
+			// expected
+		}
+	}
+
+	public void testTimeoutFailsFutureAndSkipsQueuedTask() throws Exception {
+		executor = new AsyncExecutor(1, 4, 0);
+		RedisFuture<String> running = executor.submit(blocking());
+		RedisFuture<String> queued = executor.submit(blocking(), 50);
+		try {
+			queued.join();
+			fail();
+		} catch (RedisClientException e) {
+			assertTrue(e.getMessage().indexOf("timeout") >= 0);
+		}
+		// 超时的命令从队列移除 (在超时线程的回调中，可能晚于join返回)
+		for (int i = 0; i < 100 && executor.getQueueSize() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, executor.getQueueSize());
+		release.countDown();
+		assertEquals("ok", running.get(5, TimeUnit.SECONDS));
+		assertEquals(1, executed.get());
+	}
+
+	public void testCancelQueuedTask() throws Exception {
+		executor = new AsyncExecutor(1, 4, 0);
+		RedisFuture<String> running = executor.submit(blocking());
+		RedisFuture<String> queued = executor.submit(blocking());
+		final AtomicInteger notified = new AtomicInteger();
+		queued.addListener(new Runnable() {
+			public void run() {
+				notified.incrementAndGet();
+			}
+		});
+		assertTrue(queued.cancel(false));
+		assertFalse(queued.cancel(false));
+		assertTrue(queued.isCancelled());
+		assertEquals(1, notified.get());
+		try {
+			queued.get();
+			fail();
+		} catch (CancellationException e) {
+			// expected
+		}
+		release.countDown();
+		running.get(5, TimeUnit.SECONDS);
+		assertEquals(1, executed.get());
+		assertFalse(running.cancel(false));
+	}
+
+	public void testCompletedCommandsLeaveNoTimeouts() throws Exception {
+		executor = new AsyncExecutor(2, 4, 60000);
+		for (int i = 0; i < 100; i++) {
+			assertEquals("ok", executor.submit(new Callable<String>() {
+				public String call() {
+					return "ok";
+				}
+			}).get(5, TimeUnit.SECONDS));
+		}
+		// 已结束的命令在下次扫描时丢弃，不会等到超时时间
+		AsyncExecutor.sweep(System.nanoTime());
+		assertEquals(0, AsyncExecutor.getPendingTimeouts());
+	}
+
+	private Callable<String> blocking() {
+		return new Callable<String>() {
+			public String call() throws Exception {
+				executed.incrementAndGet();
+				release.await();
+				return "ok";
+			}
+		};
+	}
+}
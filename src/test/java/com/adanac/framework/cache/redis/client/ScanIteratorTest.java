@@ -0,0 +1,140 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.util.SafeEncoder;
+
+public class ScanIteratorTest extends TestCase {
+
+	private final ShardExecutor executor = new ShardExecutor(4);
+
+	private final AtomicReference<RuntimeException> released = new AtomicReference<RuntimeException>();
+
+	private final AtomicInteger releaseCount = new AtomicInteger();
+
+	// 所有分片上已请求但未被消费的页数
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	private int maxOutstanding;
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	public void testReturnsKeysOfAllShards() {
+		List<ScanIterator.Source> sources = new ArrayList<ScanIterator.Source>();
+		Set<String> expected = new HashSet<String>();
+		for (int shard = 0; shard < 3; shard++) {
+			sources.add(new PagedSource("s" + shard, 10, -1));
+			for (int page = 0; page < 10; page++) {
+				for (int i = 0; i < 5; i++) {
+					expected.add("s" + shard + ":" + page + ":" + i);
+				}
+			}
+		}
+		ScanIterator<String> it = newIterator(sources);
+		Set<String> keys = new HashSet<String>();
+		while (it.hasNext()) {
+			keys.add(it.next());
+		}
+		assertEquals(expected, keys);
+		assertEquals(1, releaseCount.get());
+		assertNull(released.get());
+		// 每个分片同时最多一页，加上正在消费的一页
+		assertTrue(maxOutstanding <= sources.size() + 1);
+	}
+
+	public void testErrorIsThrownAndConnectionReleased() {
+		List<ScanIterator.Source> sources = new ArrayList<ScanIterator.Source>();
+		sources.add(new PagedSource("ok", 3, -1));
+		sources.add(new PagedSource("bad", 3, 1));
+		ScanIterator<String> it = newIterator(sources);
+		try {
+			while (it.hasNext()) {
+				it.next();
+			}
+			fail();
+		} catch (RedisClientException e) {
+			assertEquals("scan failed", e.getCause().getMessage());
+		}
+		assertEquals(1, releaseCount.get());
+		assertNotNull(released.get());
+		assertFalse(it.hasNext());
+	}
+
+	public void testCloseBeforeEnd() {
+		List<ScanIterator.Source> sources = new ArrayList<ScanIterator.Source>();
+		sources.add(new PagedSource("a", 100, -1));
+		sources.add(new PagedSource("b", 100, -1));
+		ScanIterator<String> it = newIterator(sources);
+		assertTrue(it.hasNext());
+		it.next();
+		it.close();
+		it.close();
+		assertEquals(1, releaseCount.get());
+		assertFalse(it.hasNext());
+	}
+
+	private ScanIterator<String> newIterator(List<ScanIterator.Source> sources) {
+		return new ScanIterator<String>(sources, null, 5, executor) {
+			@Override
+			protected String decode(byte[] key) {
+				outstandingConsumed(key);
+				return SafeEncoder.encode(key);
+			}
+
+			@Override
+			protected void release(RuntimeException error) {
+				released.set(error);
+				releaseCount.incrementAndGet();
+			}
+		};
+	}
+
+	private void outstandingConsumed(byte[] key) {
+		// 每页最后一个key被消费时该页结束
+		if (SafeEncoder.encode(key).endsWith(":4")) {
+			outstanding.decrementAndGet();
+		}
+	}
+
+	private final class PagedSource implements ScanIterator.Source {
+		private final String name;
+		private final int pages;
+		private final int failAt;
+
+		PagedSource(String name, int pages, int failAt) {
+			this.name = name;
+			this.pages = pages;
+			this.failAt = failAt;
+		}
+
+		@Override
+		public ScanResult<byte[]> scan(byte[] cursor, ScanParams params) {
+			int page = Integer.parseInt(SafeEncoder.encode(cursor));
+			if (page == failAt) {
+				throw new IllegalStateException("scan failed");
+			}
+			synchronized (ScanIteratorTest.this) {
+				maxOutstanding = Math.max(maxOutstanding, outstanding.incrementAndGet());
+			}
+			List<byte[]> keys = new ArrayList<byte[]>();
+			for (int i = 0; i < 5; i++) {
+				keys.add(SafeEncoder.encode(name + ":" + page + ":" + i));
+			}
+			String next = page + 1 == pages ? "0" : String.valueOf(page + 1);
+			return new ScanResult<byte[]>(SafeEncoder.encode(next), keys);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.adanac.framework.cache.redis.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+
+public class ShardExecutorTest extends TestCase {
+
+	private final ShardExecutor executor = new ShardExecutor(4);
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	public void testResultsInTaskOrderAndRunInParallel() {
+		final CountDownLatch allStarted = new CountDownLatch(4);
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < 4; i++) {
+			final int index = i;
+			tasks.add(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					allStarted.countDown();
+					// 串行执行时永远等不到其他任务
+					assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+					Thread.sleep(10 * (4 - index));
+					return Integer.valueOf(index);
+				}
+			});
+		}
+		assertEquals(Arrays.asList(0, 1, 2, 3), executor.invokeAll(tasks));
+	}
+
+	public void testFailureWaitsForAllTasks() {
+		final AtomicInteger finished = new AtomicInteger();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		tasks.add(new Callable<Object>() {
+			@Override
+			public Object call() {
+				throw new IllegalStateException("shard down");
+			}
+		});
+		for (int i = 0; i < 3; i++) {
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					Thread.sleep(100);
+					finished.incrementAndGet();
+					return null;
+				}
+			});
+		}
+		try {
+			executor.invokeAll(tasks);
+			fail("task failure must propagate");
+		} catch (IllegalStateException expected) {
+			// expected
+		}
+		assertEquals(3, finished.get());
+	}
+
+	public void testGroupByShardKeepsOneGroupPerShard() {
+		ShardedJedis jedis = new ShardedJedis(Arrays.asList(new JedisShardInfo("127.0.0.1", 6379, "a"),
+				new JedisShardInfo("127.0.0.1", 6380, "b")));
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < ShardExecutor.MAX_BATCH_SIZE * 3; i++) {
+			keys.add("key:" + i);
+		}
+		List<List<String>> groups = ShardExecutor.groupByShard(jedis, keys);
+		assertEquals(2, groups.size());
+		assertEquals(keys.size(), groups.get(0).size() + groups.get(1).size());
+		for (List<String> group : groups) {
+			for (String key : group) {
+				assertSame(jedis.getShardInfo(group.get(0)), jedis.getShardInfo(key));
+			}
+		}
+	}
+
+	public void testPartition() {
+		List<Integer> group = new ArrayList<Integer>();
+		for (int i = 0; i < ShardExecutor.MAX_BATCH_SIZE * 2 + 1; i++) {
+			group.add(Integer.valueOf(i));
+		}
+		List<List<Integer>> batches = ShardExecutor.partition(group);
+		assertEquals(3, batches.size());
+		assertEquals(ShardExecutor.MAX_BATCH_SIZE, batches.get(1).size());
+		assertEquals(Arrays.asList(Integer.valueOf(group.size() - 1)), batches.get(2));
+	}
+}
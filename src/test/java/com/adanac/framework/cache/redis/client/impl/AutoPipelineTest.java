@@ -0,0 +1,124 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisPool;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import com.adanac.framework.cache.redis.client.RedisFuture;
+
+public class AutoPipelineTest extends TestCase {
+
+	private StubRedisServer server;
+
+	private MyShardedClient client;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = new StubRedisServer();
+		String configPath = "stub-redis-" + server.getPort();
+		AbstractShardedClient.jedisClusterPools.put(configPath, new ShardedJedisPool(new GenericObjectPoolConfig(),
+				Collections.singletonList(new JedisShardInfo("127.0.0.1", server.getPort()))));
+		client = new MyShardedClient();
+		client.setConfigPath(configPath);
+		client.enableAutoPipeline(16, 500);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		client.destroy();
+		server.stop();
+	}
+
+	public void testConcurrentCallersGetTheirOwnResults() throws Exception {
+		final int threads = 8;
+		final int commands = 200;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i = 0; i < commands; i++) {
+							String key = "k" + thread + ":" + i;
+							assertEquals("OK", client.set(key, "v" + i));
+							assertEquals("v" + i, client.get(key));
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+			worker.start();
+			workers.add(worker);
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		assertNull(failure.get());
+	}
+
+	public void testSingleCallerIsFlushedAfterDelay() throws Exception {
+		RedisFuture<String> future = client.getAutoPipeline().submit("lonely", AutoPipeline.SET, "v");
+		assertEquals("OK", future.get());
+		assertEquals("v", client.get("lonely"));
+		assertNull(client.get("missing"));
+	}
+
+	public void testDisableSendsQueuedCommands() throws Exception {
+		RedisFuture<String> future = client.getAutoPipeline().submit("queued", AutoPipeline.SET, "v");
+		client.disableAutoPipeline();
+		assertTrue(future.isDone());
+		assertNull(client.getAutoPipeline());
+		assertEquals("v", client.get("queued"));
+	}
+
+	public void testQueuedCommandsFollowPoolSwap() throws Exception {
+		StubRedisServer second = new StubRedisServer();
+		try {
+			client.enableAutoPipeline(64, 1000000);
+			List<RedisFuture<String>> futures = new ArrayList<RedisFuture<String>>();
+			for (int i = 0; i < 20; i++) {
+				futures.add(client.getAutoPipeline().submit("swap" + i, AutoPipeline.SET, "v" + i));
+			}
+			// 命令还在旧路由的队列中时切换为两个分片的连接池
+			List<JedisShardInfo> shards = Arrays.asList(new JedisShardInfo("127.0.0.1", server.getPort()),
+					new JedisShardInfo("127.0.0.1", second.getPort()));
+			AbstractShardedClient.jedisClusterPools.put(client.getConfigPath(),
+					new ShardedJedisPool(new GenericObjectPoolConfig(), shards));
+			client.disableAutoPipeline();
+
+			ShardRing ring = new ShardRing(shards);
+			int moved = 0;
+			for (int i = 0; i < 20; i++) {
+				assertEquals("OK", futures.get(i).get());
+				String key = "swap" + i;
+				int port = ring.getShard(key).getPort();
+				moved += port == second.getPort() ? 1 : 0;
+				Jedis jedis = new Jedis("127.0.0.1", port);
+				try {
+					assertEquals("v" + i, jedis.get(key));
+				} finally {
+					jedis.close();
+				}
+			}
+			assertTrue(moved > 0);
+		} finally {
+			second.stop();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * CLUSTER SLOTS 结果的解析和owner变化的slot计数
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ClusterSlotCacheTest extends TestCase {
+
+	private static final HostAndPort A = new HostAndPort("10.0.0.1", 7000);
+
+	private static final HostAndPort B = new HostAndPort("10.0.0.2", 7001);
+
+	public void testFirstLoad() {
+		ClusterSlotCache cache = new ClusterSlotCache();
+		assertFalse(cache.isLoaded());
+		assertNull(cache.getNode(0));
+
+		List<Object> slots = new ArrayList<Object>();
+		slots.add(range(0, 8191, A));
+		// 节点地址为空时使用被查询的节点
+		slots.add(range(8192, 16383, new HostAndPort("", 7001)));
+		assertEquals(0, cache.update(slots, "10.0.0.2"));
+
+		assertTrue(cache.isLoaded());
+		assertEquals(A, cache.getNode(0));
+		assertEquals(A, cache.getNode(8191));
+		assertEquals(B, cache.getNode(8192));
+		assertEquals(B, cache.getNode(ClusterSlotCache.SLOT_COUNT - 1));
+		assertEquals(1, cache.getRefreshCount());
+		assertEquals(0, cache.getMovedSlotCount());
+	}
+
+	public void testMovedSlots() {
+		ClusterSlotCache cache = new ClusterSlotCache();
+		cache.update(Arrays.<Object> asList(range(0, 8191, A), range(8192, 16383, B)), "10.0.0.1");
+
+		// 100个slot迁到A，16000之后不再分配
+		assertEquals(100 + 384, cache.update(Arrays.<Object> asList(range(0, 8291, A), range(8292, 15999, B)),
+				"10.0.0.1"));
+		assertEquals(A, cache.getNode(8291));
+		assertEquals(B, cache.getNode(8292));
+		assertNull(cache.getNode(16000));
+
+		// 重新分配的slot也计为变化
+		assertEquals(384, cache.update(Arrays.<Object> asList(range(0, 8291, A), range(8292, 16383, B)),
+				"10.0.0.1"));
+		assertEquals(0, cache.update(Arrays.<Object> asList(range(0, 8291, A), range(8292, 16383, B)),
+				"10.0.0.1"));
+		assertEquals(100 + 384 + 384, cache.getMovedSlotCount());
+		assertEquals(4, cache.getRefreshCount());
+	}
+
+	public void testRedirections() {
+		ClusterSlotCache cache = new ClusterSlotCache();
+		cache.update(Arrays.<Object> asList(range(0, 16383, A)), "10.0.0.1");
+		cache.moved(42, B);
+		cache.asked();
+		assertEquals(B, cache.getNode(42));
+		assertEquals(A, cache.getNode(43));
+		assertEquals(2, cache.getRedirectionCount());
+		// MOVED 只修正路由表，不计入刷新时的变化
+		assertEquals(0, cache.getMovedSlotCount());
+	}
+
+	/**
+	 * Jedis.clusterSlots() 返回的一项：[start, end, [host, port, id]]
+	 */
+	private static List<Object> range(long start, long end, HostAndPort master) {
+		List<Object> node = new ArrayList<Object>();
+		node.add(SafeEncoder.encode(master.getHost()));
+		node.add(Long.valueOf(master.getPort()));
+		node.add(SafeEncoder.encode("node-" + master.getPort()));
+		List<Object> range = new ArrayList<Object>();
+		range.add(Long.valueOf(start));
+		range.add(Long.valueOf(end));
+		range.add(node);
+		return range;
+	}
+}
@@ -0,0 +1,197 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ZParams;
+
+import com.adanac.framework.cache.redis.client.ShardExecutor;
+import com.adanac.framework.cache.redis.util.Serializer;
+
+/**
+ * key分布在两个分片上的多key命令 (使用进程内的 StubRedisServer)
+ */
+public class CrossShardCommandsTest extends TestCase {
+
+	// 每个分片都超过一批
+	private static final int KEYS = ShardExecutor.MAX_BATCH_SIZE * 3;
+
+	private StubRedisServer first;
+
+	private StubRedisServer second;
+
+	private ShardedJedis ring;
+
+	private MyShardedBinaryClient binaryClient;
+
+	private MyShardedClient client;
+
+	@Override
+	protected void setUp() throws Exception {
+		first = new StubRedisServer();
+		second = new StubRedisServer();
+		String configPath = StubRedisServer.registerShards(first, second);
+		// 与注册的连接池相同的分片，只用来计算key所在的分片
+		ring = new ShardedJedis(Arrays.asList(new JedisShardInfo("127.0.0.1", first.getPort()),
+				new JedisShardInfo("127.0.0.1", second.getPort())));
+		binaryClient = new MyShardedBinaryClient();
+		binaryClient.setConfigPath(configPath);
+		client = new MyShardedClient();
+		client.setConfigPath(configPath);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		binaryClient.destroy();
+		client.destroy();
+		first.stop();
+		second.stop();
+	}
+
+	public void testMsetMgetDelAcrossShards() {
+		Map<Serializable, Serializable> values = new LinkedHashMap<Serializable, Serializable>();
+		for (long i = 0; i < KEYS; i++) {
+			values.put(Long.valueOf(i), "v" + i);
+		}
+		assertEquals("OK", binaryClient.mset(values));
+
+		List<Serializable> keys = new ArrayList<Serializable>(values.keySet());
+		Collections.reverse(keys);
+		keys.add(KEYS / 2, Long.valueOf(-1));
+		List<Object> expected = new ArrayList<Object>();
+		for (Serializable key : keys) {
+			expected.add(values.get(key));
+		}
+		List<Serializable> result = binaryClient.mget(keys.toArray(new Serializable[keys.size()]));
+		assertEquals(expected, result);
+		assertBatched();
+
+		assertEquals(Long.valueOf(KEYS), binaryClient.del(keys.toArray(new Serializable[keys.size()])));
+		assertEquals(Long.valueOf(0), binaryClient.del(Long.valueOf(0), Long.valueOf(1)));
+	}
+
+	public void testStringMsetAcrossShards() {
+		Map<String, String> values = new LinkedHashMap<String, String>();
+		for (int i = 0; i < KEYS; i++) {
+			values.put("key:" + i, "v" + i);
+		}
+		assertEquals("OK", client.mset(values));
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			assertEquals(entry.getValue(), client.get(entry.getKey()));
+		}
+		assertBatched();
+	}
+
+	public void testStringMgetAcrossShards() {
+		Map<String, String> values = new LinkedHashMap<String, String>();
+		for (int i = 0; i < KEYS; i++) {
+			values.put("key:" + i, "v" + i);
+		}
+		client.mset(values);
+		List<String> keys = new ArrayList<String>(values.keySet());
+		Collections.reverse(keys);
+		keys.add(1, "missing");
+		List<String> expected = new ArrayList<String>();
+		for (String key : keys) {
+			expected.add(values.get(key));
+		}
+		assertEquals(expected, client.mget(keys.toArray(new String[keys.size()])));
+		assertBatched();
+	}
+
+	public void testSetOperationsAcrossShards() {
+		Long a = keyOn(first, 0);
+		Long b = keyOn(second, 0);
+		Long dst = keyOn(second, b.longValue() + 1);
+		// 超过一页SSCAN
+		Integer[] large = new Integer[2500];
+		for (int i = 0; i < large.length; i++) {
+			large[i] = Integer.valueOf(i);
+		}
+		binaryClient.sadd(a, (Serializable[]) large);
+		binaryClient.sadd(b, 3, 4, 5, 6, 7, 3000);
+
+		assertEquals(members(3, 4, 5, 6, 7), binaryClient.sinter(a, b));
+		assertEquals(members(3, 4, 5, 6, 7), binaryClient.sinter(b, a));
+		assertEquals(large.length + 1, binaryClient.sunion(a, b).size());
+		assertEquals(members(3000), binaryClient.sdiff(b, a));
+		assertEquals(large.length - 5, binaryClient.sdiff(a, b).size());
+
+		binaryClient.sadd(dst, "stale");
+		assertEquals(Long.valueOf(5), binaryClient.sinterstore(dst, a, b));
+		assertEquals(members(3, 4, 5, 6, 7), binaryClient.smembers(dst));
+		assertEquals(Long.valueOf(1), binaryClient.sdiffstore(dst, b, a));
+		assertEquals(members(3000), binaryClient.smembers(dst));
+	}
+
+	public void testSortedSetStoreAcrossShards() {
+		Long a = keyOn(first, 0);
+		Long b = keyOn(second, 0);
+		Long dst = keyOn(first, a.longValue() + 1);
+		Long empty = keyOn(second, b.longValue() + 1);
+		// 超过一页ZSCAN，每页重复返回一个成员
+		int size = 1500;
+		for (int i = 0; i < size; i++) {
+			binaryClient.zadd(a, i, Integer.valueOf(i));
+		}
+		for (int i = size - 2; i < size + 2; i++) {
+			binaryClient.zadd(b, 10, Integer.valueOf(i));
+		}
+		first.setRepeatScan(true);
+		second.setRepeatScan(true);
+
+		assertEquals(Long.valueOf(size + 2), binaryClient.zunionstore(dst, a, b));
+		for (int i = 0; i < size + 2; i++) {
+			double expected = (i < size ? i : 0) + (i >= size - 2 ? 10 : 0);
+			assertEquals(Double.valueOf(expected), binaryClient.zscore(dst, Integer.valueOf(i)));
+		}
+
+		ZParams max = new ZParams().weightsByDouble(2.0, 3.0).aggregate(ZParams.Aggregate.MAX);
+		assertEquals(Long.valueOf(size + 2), binaryClient.zunionstore(dst, max, a, b));
+		assertEquals(Double.valueOf(0), binaryClient.zscore(dst, Integer.valueOf(0)));
+		assertEquals(Double.valueOf(2 * (size - 1)), binaryClient.zscore(dst, Integer.valueOf(size - 1)));
+		assertEquals(Double.valueOf(30), binaryClient.zscore(dst, Integer.valueOf(size)));
+
+		assertEquals(Long.valueOf(2), binaryClient.zinterstore(dst, a, b));
+		assertEquals(Long.valueOf(2), binaryClient.zcard(dst));
+		assertEquals(Double.valueOf(size - 1 + 10), binaryClient.zscore(dst, Integer.valueOf(size - 1)));
+
+		ZParams min = new ZParams().weightsByDouble(2.0, 3.0).aggregate(ZParams.Aggregate.MIN);
+		assertEquals(Long.valueOf(2), binaryClient.zinterstore(dst, min, b, a));
+		assertEquals(Double.valueOf(20), binaryClient.zscore(dst, Integer.valueOf(size - 2)));
+
+		// 结果为空时删除目标key
+		assertEquals(Long.valueOf(0), binaryClient.zinterstore(dst, a, empty));
+		assertEquals(Long.valueOf(0), binaryClient.zcard(dst));
+	}
+
+	private void assertBatched() {
+		assertTrue(first.getMaxKeyCount() > 0);
+		assertTrue(second.getMaxKeyCount() > 0);
+		assertTrue(first.getMaxKeyCount() <= ShardExecutor.MAX_BATCH_SIZE);
+		assertTrue(second.getMaxKeyCount() <= ShardExecutor.MAX_BATCH_SIZE);
+	}
+
+	private Long keyOn(StubRedisServer server, long from) {
+		for (long i = from;; i++) {
+			Long key = Long.valueOf(i);
+			if (ring.getShardInfo(Serializer.encode(key)).getPort() == server.getPort()) {
+				return key;
+			}
+		}
+	}
+
+	private static Set<Object> members(Object... members) {
+		return new HashSet<Object>(Arrays.asList(members));
+	}
+}
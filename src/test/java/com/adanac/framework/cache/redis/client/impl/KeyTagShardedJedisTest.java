@@ -0,0 +1,53 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.util.Hashing;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 相同tag的字符串和二进制key在同一个分片，与 ShardRing 一致
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class KeyTagShardedJedisTest extends TestCase {
+
+	private static final Pattern TAG = Pattern.compile("\\{(.+?)\\}");
+
+	public void testSameTagSameShard() {
+		List<JedisShardInfo> shards = shards();
+		KeyTagShardedJedis jedis = new KeyTagShardedJedis(shards, Hashing.MURMUR_HASH, TAG);
+		ShardRing ring = new ShardRing(shards, Hashing.MURMUR_HASH, TAG);
+		for (int i = 0; i < 1000; i++) {
+			String tag = "{user:" + i + "}";
+			JedisShardInfo shard = jedis.getShardInfo(tag + ":name");
+			assertSame(shard, jedis.getShardInfo(SafeEncoder.encode(tag + ":age")));
+			assertSame(shard, jedis.getShardInfo(SafeEncoder.encode("friends:" + tag)));
+			assertSame(shard, ring.getShard(SafeEncoder.encode(tag + ":age")));
+			assertSame(shard, ring.getShard(tag + ":name"));
+		}
+	}
+
+	public void testUntaggedKeyUnchanged() {
+		List<JedisShardInfo> shards = shards();
+		KeyTagShardedJedis jedis = new KeyTagShardedJedis(shards, Hashing.MURMUR_HASH, TAG);
+		ShardRing ring = new ShardRing(shards);
+		for (int i = 0; i < 1000; i++) {
+			byte[] key = SafeEncoder.encode("key:" + i);
+			assertSame(ring.getShard(key), jedis.getShardInfo(key));
+		}
+	}
+
+	private static List<JedisShardInfo> shards() {
+		List<JedisShardInfo> shards = new ArrayList<JedisShardInfo>();
+		for (int port = 6379; port <= 6382; port++) {
+			shards.add(new JedisShardInfo("127.0.0.1", port, "shard-" + port));
+		}
+		return shards;
+	}
+}
@@ -0,0 +1,97 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+public class LimitedShardedJedisPoolTest extends TestCase {
+
+	private StubRedisServer server;
+
+	private LimitedShardedJedisPool pool;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = new StubRedisServer();
+		GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+		config.setMaxTotal(Integer.MAX_VALUE);
+		config.setBlockWhenExhausted(false);
+		pool = new LimitedShardedJedisPool(config,
+				Collections.singletonList(new JedisShardInfo("127.0.0.1", server.getPort())), 4, 5000L);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pool.destroy();
+		server.stop();
+	}
+
+	public void testBurstSharesFixedConnections() throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(200);
+		final AtomicInteger errors = new AtomicInteger();
+		for (int i = 0; i < 200; i++) {
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						ShardedJedis jedis = pool.getResource();
+						try {
+							jedis.set("k", "v");
+						} finally {
+							jedis.close();
+						}
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+		start.countDown();
+		done.await();
+		assertEquals(0, errors.get());
+		assertTrue(pool.getPeakBorrowedCount() <= 4);
+		assertTrue(server.getPeakConnectionCount() <= 4);
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+	public void testWaitTimeoutAndRepeatedReturn() {
+		LimitedShardedJedisPool single = new LimitedShardedJedisPool(new GenericObjectPoolConfig(),
+				Collections.singletonList(new JedisShardInfo("127.0.0.1", server.getPort())), 1, 50L);
+		try {
+			ShardedJedis jedis = single.getResource();
+			try {
+				single.getResource();
+				fail();
+			} catch (JedisConnectionException e) {
+				// expected
+			}
+			// 重复归还 (连接池会报错) 不会多释放许可
+			single.returnResource(jedis);
+			try {
+				single.returnResource(jedis);
+			} catch (RuntimeException e) {
+				// commons-pool拒绝重复归还
+			}
+			assertEquals(0, single.getBorrowedCount());
+			single.getResource();
+			try {
+				single.getResource();
+				fail();
+			} catch (JedisConnectionException e) {
+				// expected
+			}
+		} finally {
+			single.destroy();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisPool;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import com.adanac.framework.cache.redis.client.FanOutResult;
+
+/**
+ * MyShardedClient 命令通过 execute 模板发送到 redis (使用进程内的 StubRedisServer)
+ */
+public class MyShardedClientCommandsTest extends TestCase {
+
+	private StubRedisServer server;
+
+	private MyShardedClient client;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = new StubRedisServer();
+		String configPath = "stub-redis-" + server.getPort();
+		AbstractShardedClient.jedisClusterPools.put(configPath, new ShardedJedisPool(new GenericObjectPoolConfig(),
+				Collections.singletonList(new JedisShardInfo("127.0.0.1", server.getPort()))));
+		client = new MyShardedClient();
+		client.setConfigPath(configPath);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		client.destroy();
+		server.stop();
+	}
+
+	public void testFlushDB() {
+		client.set("a", "1");
+		client.set("b", "2");
+		FanOutResult<String> result = client.flushDB(0, 5000);
+		assertTrue(result.isSuccess());
+		assertEquals(Collections.singletonMap("127.0.0.1:" + server.getPort(), "OK"), result.getResults());
+		assertNull(client.get("a"));
+		assertNull(client.get("b"));
+	}
+
+	public void testSetNxPx() {
+		assertEquals("OK", client.set("k", "v1", "NX", "PX", 60000));
+		assertNull(client.set("k", "v2", "NX", "PX", 60000));
+		assertEquals("v1", client.get("k"));
+		long pttl = server.pttl("k");
+		assertTrue(pttl > 0 && pttl <= 60000);
+	}
+
+	public void testPexpireAndIncrByFloat() {
+		assertEquals(Long.valueOf(0), client.pexpire("f", 1000));
+		assertEquals(Double.valueOf(1.5), client.incrByFloat("f", 1.5));
+		assertEquals(Double.valueOf(3.75), client.incrByFloat("f", 2.25));
+		assertEquals(Long.valueOf(1), client.pexpire("f", 1000));
+		assertTrue(server.pttl("f") > 0);
+	}
+
+	public void testSetCommandsWithCount() {
+		client.sadd("s", "a", "b", "c", "d");
+		assertEquals(2, client.srandmember("s", 2).size());
+		Set<String> popped = client.spop("s", 3);
+		assertEquals(3, popped.size());
+		assertEquals(Long.valueOf(1), client.scard("s"));
+	}
+
+	public void testZrangeByLex() {
+		for (String member : Arrays.asList("a", "b", "c", "d")) {
+			client.zadd("z", 0, member);
+		}
+		assertEquals(Arrays.asList("b", "c"), Arrays.asList(client.zrangeByLex("z", "[b", "(d").toArray()));
+		assertEquals(Arrays.asList("c"), Arrays.asList(client.zrangeByLex("z", "-", "+", 2, 1).toArray()));
+	}
+
+	public void testBlpop() {
+		client.rpush("q", "x");
+		List<String> reply = client.blpop(1, "q");
+		assertEquals(Arrays.asList("q", "x"), reply);
+		assertNull(client.blpop(1, "q"));
+	}
+
+	public void testHyperLogLog() {
+		assertEquals(Long.valueOf(1), client.pfadd("h", "a", "b", "a"));
+		assertEquals(Long.valueOf(0), client.pfadd("h", "b"));
+		assertEquals(2, client.pfcount("h"));
+	}
+}
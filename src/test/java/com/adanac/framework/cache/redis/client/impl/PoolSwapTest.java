@@ -0,0 +1,53 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * 旧连接池在借出的连接归还后才关闭，超过等待时间时强制关闭
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class PoolSwapTest extends TestCase {
+
+	public void testCloseAfterDrained() throws InterruptedException {
+		CountingPool old = new CountingPool(2);
+		PoolSwap.drain("test", 0, 0, old, 10000);
+		assertFalse(old.closed.await(100, TimeUnit.MILLISECONDS));
+		old.active.decrementAndGet();
+		old.active.decrementAndGet();
+		assertTrue(old.closed.await(5, TimeUnit.SECONDS));
+	}
+
+	public void testCloseAfterGraceTimeout() throws InterruptedException {
+		CountingPool old = new CountingPool(1);
+		long start = System.nanoTime();
+		PoolSwap.drain("test", 0, 0, old, 100);
+		assertTrue(old.closed.await(5, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(1, old.active.get());
+	}
+
+	private static final class CountingPool implements PoolSwap.Drainable {
+
+		final AtomicInteger active;
+
+		final CountDownLatch closed = new CountDownLatch(1);
+
+		CountingPool(int active) {
+			this.active = new AtomicInteger(active);
+		}
+
+		public int getActiveCount() {
+			return active.get();
+		}
+
+		public void close() {
+			closed.countDown();
+		}
+	}
+}
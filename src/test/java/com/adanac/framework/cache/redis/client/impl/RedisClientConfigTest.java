@@ -0,0 +1,89 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.util.Hashing;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+public class RedisClientConfigTest extends TestCase {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<config>\n"
+			+ "\t<timeOut>2000</timeOut>\n\t<password></password>\n"
+			+ "\t<poolConfig>\n\t\t<maxIdle> 10 </maxIdle>\n\t\t<testWhileIdle>false</testWhileIdle>\n"
+			+ "\t\t<maxConnections>32</maxConnections>\n\t</poolConfig>\n"
+			+ "\t<hostAndPorts>\n\t\t<hostAndPort>\n\t\t127.0.0.1:6380\n\t\t</hostAndPort>\n"
+			+ "\t\t<hostAndPort>127.0.0.2</hostAndPort>\n\t</hostAndPorts>\n"
+			+ "\t<!-- <hostAndPorts><hostAndPort>10.0.0.1:6379</hostAndPort></hostAndPorts> -->\n"
+			+ "\t<forceMasterkeys><keyPattern>a*</keyPattern><keyPattern>b*</keyPattern></forceMasterkeys>\n"
+			+ "</config>";
+
+	public void testSinglePassValues() {
+		RedisClientConfig config = RedisClientConfig.parse(XML);
+		assertEquals("2000", config.getString("timeOut"));
+		assertEquals("", config.getString("password"));
+		assertEquals("", config.getString("dbIndex"));
+		assertEquals(32, config.getInt("poolConfig/maxConnections", 0));
+		assertEquals(60, config.getInt("topologyRefreshSeconds", 60));
+		assertEquals(Arrays.asList("a*", "b*"), config.getForceMasterKeys());
+		assertEquals(Collections.emptyList(), config.getMasters());
+		assertEquals(2, config.getHostAndPorts().size());
+		assertTrue(config.getHostAndPorts().contains(new HostAndPort("127.0.0.1", 6380)));
+		assertTrue(config.getHostAndPorts().contains(new HostAndPort("127.0.0.2", 6379)));
+
+		GenericObjectPoolConfig poolConfig = config.newPoolConfig();
+		assertEquals(10, poolConfig.getMaxIdle());
+		assertFalse(poolConfig.getTestWhileIdle());
+		assertEquals(30000L, poolConfig.getTimeBetweenEvictionRunsMillis());
+		// 每次返回新的实例，修改不影响缓存的配置
+		poolConfig.setMaxIdle(1);
+		assertEquals(10, config.newPoolConfig().getMaxIdle());
+	}
+
+	public void testShardInfos() {
+		RedisClientConfig config = RedisClientConfig.parse("<config><timeOut>3000</timeOut><password>pw</password>"
+				+ "<dbIndex>1</dbIndex><hashing>md5</hashing><keyTagPattern>\\{(.+?)\\}</keyTagPattern>"
+				+ "<hostAndPorts><hostAndPort name=\"a\" weight=\"2\" timeout=\"500\" password=\"\" db=\"3\">"
+				+ "127.0.0.1:6380</hostAndPort><hostAndPort>127.0.0.2</hostAndPort></hostAndPorts></config>");
+		assertSame(Hashing.MD5, config.getHashing());
+		assertEquals("user:1", new ShardRing(config.getShardInfos(), config.getHashing(), config.getKeyTagPattern())
+				.getKeyTag("{user:1}:name"));
+		assertEquals(2, config.getShardInfos().size());
+		for (JedisShardInfo shard : config.getShardInfos()) {
+			if (shard.getPort() == 6380) {
+				assertEquals("a", shard.getName());
+				assertEquals(2, shard.getWeight());
+				assertEquals(500, shard.getSoTimeout());
+				assertNull(shard.getPassword());
+				assertEquals(3, RedisShardInfo.getDb(shard));
+			} else {
+				// 没有属性时使用全局配置，名字与以前相同
+				assertEquals("root", shard.getName());
+				assertEquals(1, shard.getWeight());
+				assertEquals(3000, shard.getSoTimeout());
+				assertEquals("pw", shard.getPassword());
+				assertEquals(1, RedisShardInfo.getDb(shard));
+			}
+		}
+	}
+
+	public void testCachedByContent() {
+		assertSame(RedisClientConfig.parse(XML), RedisClientConfig.parse(new String(XML)));
+		assertNotSame(RedisClientConfig.parse(XML), RedisClientConfig.parse(XML.replace("2000", "3000")));
+	}
+
+	public void testInvalidRoot() {
+		try {
+			RedisClientConfig.parse("<redis><timeOut>1</timeOut></redis>");
+			fail();
+		} catch (RedisClientException e) {
+			// expected
+		}
+	}
+}
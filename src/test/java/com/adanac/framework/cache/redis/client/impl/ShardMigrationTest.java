@@ -0,0 +1,132 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import com.adanac.framework.cache.redis.aspect.RedisShardedCache;
+import com.adanac.framework.cache.redis.aspect.TimedValue;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisPool;
+
+/**
+ * 迁移窗口内删除、覆盖的key不会被后台迁移搬回新分片，缓存读取新分片未命中时从旧分片读取 (使用进程内的 StubRedisServer)
+ */
+public class ShardMigrationTest extends TestCase {
+
+	private StubRedisServer first;
+
+	private StubRedisServer second;
+
+	private String configPath;
+
+	private ShardRing newRing;
+
+	private ShardMigration migration;
+
+	private MyShardedClient client;
+
+	@Override
+	protected void setUp() throws Exception {
+		first = new StubRedisServer();
+		second = new StubRedisServer();
+		// 新配置增加了一个分片
+		configPath = StubRedisServer.registerShards(first, second);
+		List<JedisShardInfo> oldShards = Collections.singletonList(new JedisShardInfo("127.0.0.1", first.getPort()));
+		newRing = new ShardRing(Arrays.asList(new JedisShardInfo("127.0.0.1", first.getPort()),
+				new JedisShardInfo("127.0.0.1", second.getPort())));
+		ShardedJedisPool oldPool = new ShardedJedisPool(new GenericObjectPoolConfig(), oldShards);
+		migration = new ShardMigration(configPath, oldPool, new ShardRing(oldShards), newRing, 60000, 0, 100, 0,
+				1000);
+		AbstractShardedClient.putShardMigration(configPath, migration);
+		client = new MyShardedClient();
+		client.setConfigPath(configPath);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		client.destroy();
+		first.stop();
+		second.stop();
+	}
+
+	public void testDeletedAndOverwrittenKeysAreNotMigrated() throws Exception {
+		String kept = movedKey(0);
+		String deleted = movedKey(1);
+		String expired = movedKey(2);
+		String expiredLater = movedKey(3);
+		Jedis old = new Jedis("127.0.0.1", first.getPort());
+		try {
+			// 切换前写入旧分片的值
+			for (String key : Arrays.asList(kept, deleted, expired, expiredLater)) {
+				old.set(key, "old");
+			}
+
+			assertEquals("old", client.get(deleted));
+			assertEquals(Long.valueOf(0), client.del(deleted));
+			assertNull(client.get(deleted));
+			// 新值过期后不能再读到旧值
+			assertEquals("OK", client.set(expired, "new", "NX", "PX", 50));
+			assertEquals(Long.valueOf(0), client.expire(expiredLater, 60));
+			assertEquals(3, migration.getEvictedKeys());
+			Thread.sleep(100);
+
+			migration.start();
+			for (int i = 0; i < 500 && migration.isActive(); i++) {
+				Thread.sleep(10);
+			}
+			assertFalse(migration.isActive());
+			assertEquals(1, migration.getMigratedKeys());
+			assertEquals(0, migration.getFailedKeys());
+			assertEquals("old", client.get(kept));
+			assertNull(client.get(deleted));
+			assertNull(client.get(expired));
+			assertNull(client.get(expiredLater));
+			for (String key : Arrays.asList(kept, deleted, expired, expiredLater)) {
+				assertNull(old.get(key));
+			}
+		} finally {
+			old.close();
+		}
+	}
+
+	public void testCacheReadsFallBackToOldShard() throws Exception {
+		String moved = movedKey(0);
+		String movedToo = movedKey(1);
+		RedisShardedCache cache = new RedisShardedCache(client);
+		Jedis old = new Jedis("127.0.0.1", first.getPort());
+		try {
+			old.set(moved, "\"v1\"");
+			old.set(movedToo, "\"v2\"");
+			old.pexpire(movedToo, 60000);
+		} finally {
+			old.close();
+		}
+
+		assertEquals("v1", cache.get(moved, String.class));
+		assertEquals("v1", cache.getEntry(moved, String.class).getValue());
+		Map<String, Object> values = cache.getAll(Arrays.asList(moved, movedToo, "missing"), String.class);
+		assertEquals(Arrays.asList(moved, movedToo), new ArrayList<String>(values.keySet()));
+		assertEquals("v2", values.get(movedToo));
+		Map<String, TimedValue> timed = cache.getAllWithTtl(Arrays.asList(moved, movedToo), false, String.class);
+		assertEquals(-1, timed.get(moved).getTtlMillis());
+		assertTrue(timed.get(movedToo).getTtlMillis() > 0);
+	}
+
+	private String movedKey(int index) {
+		for (int i = 0, found = 0;; i++) {
+			String key = "key:" + i;
+			if (newRing.getShard(key).getPort() == second.getPort() && found++ == index) {
+				return key;
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.util.Hashing;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * hash环与 ShardedJedis 的分片一致，diff 的区间恰好覆盖owner变化的key
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class ShardRingTest extends TestCase {
+
+	private static final int KEYS = 20000;
+
+	public void testSameShardAsShardedJedis() {
+		List<JedisShardInfo> shards = shards(6379, 6380, 6381);
+		ShardRing ring = new ShardRing(shards);
+		ShardedJedis jedis = new ShardedJedis(shards);
+		for (int i = 0; i < KEYS; i++) {
+			String key = "key:" + i;
+			assertSame(jedis.getShardInfo(key), ring.getShard(SafeEncoder.encode(key)));
+		}
+	}
+
+	public void testNoDiffForSameShards() {
+		assertTrue(ShardRing.diff(new ShardRing(shards(6379, 6380)), new ShardRing(shards(6379, 6380))).isEmpty());
+	}
+
+	public void testDiffCoversMovedKeys() {
+		ShardRing from = new ShardRing(shards(6379, 6380, 6381));
+		ShardRing to = new ShardRing(shards(6379, 6380, 6381, 6382));
+		List<ShardRing.Range> ranges = ShardRing.diff(from, to);
+		assertFalse(ranges.isEmpty());
+		int moved = 0;
+		for (int i = 0; i < KEYS; i++) {
+			byte[] key = SafeEncoder.encode("key:" + i);
+			boolean changed = !ShardRing.sameNode(from.getShard(key), to.getShard(key));
+			ShardRing.Range range = find(ranges, Hashing.MURMUR_HASH.hash(key));
+			assertEquals(changed, range != null);
+			if (changed) {
+				moved++;
+				assertSame(to.getShard(key), range.getTarget());
+				assertEquals(6382, range.getTarget().getPort());
+			}
+		}
+		// 新增一个分片，大约1/4的key迁移
+		assertTrue(moved > KEYS / 8 && moved < KEYS / 2);
+	}
+
+	private static ShardRing.Range find(List<ShardRing.Range> ranges, long hash) {
+		for (ShardRing.Range range : ranges) {
+			boolean contains = range.getStart() < range.getEnd() ? hash > range.getStart() && hash <= range.getEnd()
+					: hash > range.getStart() || hash <= range.getEnd();
+			if (contains) {
+				return range;
+			}
+		}
+		return null;
+	}
+
+	private static List<JedisShardInfo> shards(Integer... ports) {
+		List<JedisShardInfo> shards = new ArrayList<JedisShardInfo>();
+		for (int port : Arrays.asList(ports)) {
+			shards.add(new JedisShardInfo("127.0.0.1", port, "shard-" + port));
+		}
+		return shards;
+	}
+}
@@ -0,0 +1,107 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisPool;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import com.adanac.framework.cache.redis.client.Batch;
+import com.adanac.framework.cache.redis.client.BatchResponse;
+import com.adanac.framework.cache.redis.exception.RedisClientException;
+
+/**
+ * 两个分片上的 Batch (使用进程内的 StubRedisServer)
+ */
+public class ShardedBatchTest extends TestCase {
+
+	private StubRedisServer first;
+
+	private StubRedisServer second;
+
+	private MyShardedClient client;
+
+	@Override
+	protected void setUp() throws Exception {
+		first = new StubRedisServer();
+		second = new StubRedisServer();
+		String configPath = "stub-redis-batch-" + first.getPort();
+		AbstractShardedClient.jedisClusterPools.put(configPath, new ShardedJedisPool(new GenericObjectPoolConfig(),
+				Arrays.asList(new JedisShardInfo("127.0.0.1", first.getPort()),
+						new JedisShardInfo("127.0.0.1", second.getPort()))));
+		client = new MyShardedClient();
+		client.setConfigPath(configPath);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		client.destroy();
+		first.stop();
+		second.stop();
+	}
+
+	public void testTypedResponsesAcrossShardsInChunks() {
+		Batch<String> batch = client.batch().chunkSize(3);
+		List<BatchResponse<String>> sets = new ArrayList<BatchResponse<String>>();
+		for (int i = 0; i < 20; i++) {
+			sets.add(batch.set("k" + i, "v" + i));
+		}
+		batch.hset("h", "f1", "a");
+		batch.hset("h", "f2", "b");
+		batch.rpush("l", "x");
+		batch.rpush("l", "y");
+		BatchResponse<Long> counter = batch.incrBy("n", 5);
+		batch.execute();
+		for (BatchResponse<String> response : sets) {
+			assertEquals("OK", response.get());
+		}
+		assertEquals(Long.valueOf(5), counter.get());
+
+		batch = client.batch().chunkSize(3);
+		List<BatchResponse<String>> gets = new ArrayList<BatchResponse<String>>();
+		for (int i = 0; i < 20; i++) {
+			gets.add(batch.<String> get("k" + i));
+		}
+		BatchResponse<String> missing = batch.get("missing");
+		BatchResponse<Map<String, String>> hash = batch.hgetAll("h");
+		BatchResponse<List<String>> list = batch.lrange("l", 0, -1);
+		batch.execute();
+		for (int i = 0; i < 20; i++) {
+			assertEquals("v" + i, gets.get(i).get());
+		}
+		assertNull(missing.get());
+		assertEquals("a", hash.get().get("f1"));
+		assertEquals("b", hash.get().get("f2"));
+		assertEquals(Arrays.asList("x", "y"), list.get());
+		// 两个分片都收到了命令
+		assertTrue(first.getPeakConnectionCount() > 0);
+		assertTrue(second.getPeakConnectionCount() > 0);
+	}
+
+	public void testCommandErrorOnlyFailsItsResponse() {
+		client.set("text", "abc");
+		Batch<String> batch = client.batch();
+		BatchResponse<Long> bad = batch.incrBy("text", 1);
+		BatchResponse<String> good = batch.get("text");
+		assertFalse(good.isDone());
+		batch.execute();
+		assertEquals("abc", good.get());
+		try {
+			bad.get();
+			fail();
+		} catch (RedisClientException e) {
+			// expected
+		}
+		try {
+			batch.execute();
+			fail();
+		} catch (RedisClientException e) {
+			// 只能执行一次
+		}
+	}
+}
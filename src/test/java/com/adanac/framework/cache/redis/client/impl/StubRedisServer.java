@@ -0,0 +1,605 @@
+package com.adanac.framework.cache.redis.client.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisPool;
+
+/**
+ * 测试用的进程内redis (RESP协议)，只实现客户端测试用到的命令，数据保存在内存
+ *
+ * @author adanac
+ * @version 1.0
+ */
+public class StubRedisServer {
+
+	// 按字节透明读写，二进制key和值 (序列化对象) 原样保存
+	private static final String CHARSET = "ISO-8859-1";
+
+	// MIGRATE 的目标，按端口查找
+	private static final Map<Integer, StubRedisServer> SERVERS = new ConcurrentHashMap<Integer, StubRedisServer>();
+
+	private final ServerSocket serverSocket;
+
+	private final Map<String, Object> data = new HashMap<String, Object>();
+
+	private final Map<String, Long> expireAt = new HashMap<String, Long>();
+
+	private final AtomicInteger connections = new AtomicInteger();
+
+	private final AtomicInteger peakConnections = new AtomicInteger();
+
+	private final AtomicInteger maxKeyCount = new AtomicInteger();
+
+	private volatile boolean repeatScan;
+
+	public StubRedisServer() throws IOException {
+		serverSocket = new ServerSocket(0);
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (!serverSocket.isClosed()) {
+					try {
+						final Socket socket = serverSocket.accept();
+						Thread handler = new Thread(new Runnable() {
+							@Override
+							public void run() {
+								serve(socket);
+							}
+						}, "stub-redis-connection");
+						handler.setDaemon(true);
+						handler.start();
+					} catch (IOException e) {
+						return;
+					}
+				}
+			}
+		}, "stub-redis-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		SERVERS.put(Integer.valueOf(getPort()), this);
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public void stop() throws IOException {
+		SERVERS.remove(Integer.valueOf(getPort()));
+		serverSocket.close();
+	}
+
+	/**
+	 * 当前打开的连接数
+	 */
+	public int getConnectionCount() {
+		return connections.get();
+	}
+
+	/**
+	 * 同时打开的连接数峰值
+	 */
+	public int getPeakConnectionCount() {
+		return peakConnections.get();
+	}
+
+	/**
+	 * 一个多key命令 (MGET) 中key数量的最大值
+	 */
+	public int getMaxKeyCount() {
+		return maxKeyCount.get();
+	}
+
+	/**
+	 * SCAN 类命令的每一页都再返回一次上一页的最后一个元素 (rehash时真实redis也会重复返回)
+	 */
+	public void setRepeatScan(boolean repeatScan) {
+		this.repeatScan = repeatScan;
+	}
+
+	/**
+	 * 以这些server为分片注册连接池
+	 *
+	 * @param servers
+	 * @return 客户端 setConfigPath 使用的名字
+	 */
+	public static String registerShards(StubRedisServer... servers) {
+		List<JedisShardInfo> shards = new ArrayList<JedisShardInfo>(servers.length);
+		for (StubRedisServer server : servers) {
+			shards.add(new JedisShardInfo("127.0.0.1", server.getPort()));
+		}
+		String configPath = "stub-redis-shards-" + servers[0].getPort();
+		AbstractShardedClient.jedisClusterPools.put(configPath, new ShardedJedisPool(new GenericObjectPoolConfig(),
+				shards));
+		return configPath;
+	}
+
+	/**
+	 * key的剩余过期时间 毫秒，没有过期时间返回-1
+	 */
+	public synchronized long pttl(String key) {
+		Long at = expireAt.get(key);
+		return at == null ? -1 : at.longValue() - System.currentTimeMillis();
+	}
+
+	private void serve(Socket socket) {
+		int count = connections.incrementAndGet();
+		int peak;
+		while ((peak = peakConnections.get()) < count && !peakConnections.compareAndSet(peak, count)) {
+			// retry
+		}
+		try {
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+			// MULTI 之后排队的命令
+			List<List<String>> queued = null;
+			while (true) {
+				List<String> command = readCommand(in);
+				if (command == null) {
+					break;
+				}
+				String name = command.get(0).toUpperCase();
+				Object reply;
+				if ("MULTI".equals(name)) {
+					queued = new ArrayList<List<String>>();
+					reply = new Status("OK");
+				} else if ("EXEC".equals(name)) {
+					reply = exec(queued);
+					queued = null;
+				} else if (queued != null) {
+					queued.add(command);
+					reply = new Status("QUEUED");
+				} else {
+					reply = executeQuietly(command);
+				}
+				write(out, reply);
+				out.flush();
+				if ("QUIT".equals(command.get(0).toUpperCase())) {
+					break;
+				}
+			}
+			socket.close();
+		} catch (IOException e) {
+			// 连接关闭
+		} finally {
+			connections.decrementAndGet();
+		}
+	}
+
+	private synchronized Object exec(List<List<String>> queued) {
+		if (queued == null) {
+			return new ErrorReply("ERR EXEC without MULTI");
+		}
+		List<Object> replies = new ArrayList<Object>(queued.size());
+		for (List<String> command : queued) {
+			replies.add(executeQuietly(command));
+		}
+		return replies;
+	}
+
+	private Object executeQuietly(List<String> command) {
+		try {
+			return execute(command);
+		} catch (RuntimeException e) {
+			return new ErrorReply("ERR " + e.getMessage());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object execute(List<String> command) {
+		String name = command.get(0).toUpperCase();
+		List<String> args = command.subList(1, command.size());
+		if ("BLPOP".equals(name)) {
+			return blpop(args.get(0), Integer.parseInt(args.get(1)));
+		}
+		synchronized (this) {
+			if ("QUIT".equals(name) || "PING".equals(name)) {
+				return new Status("QUIT".equals(name) ? "OK" : "PONG");
+			} else if ("FLUSHDB".equals(name)) {
+				if (!args.isEmpty() && !"ASYNC".equalsIgnoreCase(args.get(0))) {
+					throw new IllegalArgumentException("syntax error");
+				}
+				data.clear();
+				expireAt.clear();
+				return new Status("OK");
+			} else if ("MGET".equals(name)) {
+				updateMaxKeyCount(args.size());
+				List<String> values = new ArrayList<String>(args.size());
+				for (String key : args) {
+					expireIfNeeded(key);
+					values.add((String) data.get(key));
+				}
+				return values;
+			} else if ("MSET".equals(name)) {
+				updateMaxKeyCount(args.size() / 2);
+				for (int i = 0; i < args.size(); i += 2) {
+					data.put(args.get(i), args.get(i + 1));
+					expireAt.remove(args.get(i));
+				}
+				return new Status("OK");
+			} else if ("DEL".equals(name)) {
+				updateMaxKeyCount(args.size());
+				long deleted = 0;
+				for (String key : args) {
+					expireIfNeeded(key);
+					expireAt.remove(key);
+					deleted += data.remove(key) == null ? 0 : 1;
+				}
+				return Long.valueOf(deleted);
+			} else if ("SCAN".equals(name)) {
+				for (String key : new ArrayList<String>(data.keySet())) {
+					expireIfNeeded(key);
+				}
+				return scan(new ArrayList<String>(new TreeSet<String>(data.keySet())), args);
+			} else if ("MIGRATE".equals(name)) {
+				return migrate(SERVERS.get(Integer.valueOf(args.get(1))), args.get(2));
+			}
+			String key = args.get(0);
+			expireIfNeeded(key);
+			if ("SET".equals(name)) {
+				return set(key, args.get(1), args.subList(2, args.size()));
+			} else if ("SETEX".equals(name)) {
+				return set(key, args.get(2), Arrays.asList("EX", args.get(1)));
+			} else if ("GET".equals(name)) {
+				return data.get(key);
+			} else if ("PTTL".equals(name)) {
+				return Long.valueOf(data.containsKey(key) ? pttl(key) : -2);
+			} else if ("PEXPIRE".equals(name) || "EXPIRE".equals(name)) {
+				if (!data.containsKey(key)) {
+					return Long.valueOf(0);
+				}
+				long ttl = Long.parseLong(args.get(1)) * ("EXPIRE".equals(name) ? 1000 : 1);
+				expireAt.put(key, System.currentTimeMillis() + ttl);
+				return Long.valueOf(1);
+			} else if ("INCRBYFLOAT".equals(name)) {
+				BigDecimal value = new BigDecimal(data.containsKey(key) ? (String) data.get(key) : "0")
+						.add(new BigDecimal(args.get(1)));
+				String result = value.stripTrailingZeros().toPlainString();
+				data.put(key, result);
+				return result;
+			} else if ("SADD".equals(name) || "PFADD".equals(name)) {
+				Set<String> set = (Set<String>) collection(key, new TreeSet<String>());
+				int added = 0;
+				for (String member : args.subList(1, args.size())) {
+					added += set.add(member) ? 1 : 0;
+				}
+				return Long.valueOf("PFADD".equals(name) ? (added > 0 ? 1 : 0) : added);
+			} else if ("SCARD".equals(name) || "PFCOUNT".equals(name)) {
+				Set<String> set = (Set<String>) data.get(key);
+				return Long.valueOf(set == null ? 0 : set.size());
+			} else if ("SISMEMBER".equals(name)) {
+				Set<String> set = (Set<String>) data.get(key);
+				return Long.valueOf(set != null && set.contains(args.get(1)) ? 1 : 0);
+			} else if ("SMEMBERS".equals(name)) {
+				Set<String> set = (Set<String>) data.get(key);
+				return set == null ? new ArrayList<String>() : new ArrayList<String>(set);
+			} else if ("SSCAN".equals(name)) {
+				Set<String> set = (Set<String>) data.get(key);
+				return scan(set == null ? new ArrayList<String>() : new ArrayList<String>(set),
+						args.subList(1, args.size()));
+			} else if ("SPOP".equals(name) || "SRANDMEMBER".equals(name)) {
+				Set<String> set = (Set<String>) collection(key, new TreeSet<String>());
+				List<String> members = new ArrayList<String>(set);
+				members = members.subList(0, Math.min(members.size(), Integer.parseInt(args.get(1))));
+				if ("SPOP".equals(name)) {
+					set.removeAll(members);
+				}
+				return new ArrayList<String>(members);
+			} else if ("ZADD".equals(name)) {
+				// 成员按字典序保存，ZRANGEBYLEX 只用于分数相同的集合
+				Map<String, Double> zset = (Map<String, Double>) collection(key, new TreeMap<String, Double>());
+				int added = 0;
+				for (int i = 1; i + 1 < args.size(); i += 2) {
+					added += zset.put(args.get(i + 1), Double.valueOf(args.get(i))) == null ? 1 : 0;
+				}
+				return Long.valueOf(added);
+			} else if ("ZRANGEBYLEX".equals(name)) {
+				return rangeByLex(((Map<String, Double>) collection(key, new TreeMap<String, Double>())).keySet(),
+						args);
+			} else if ("ZCARD".equals(name)) {
+				Map<String, Double> zset = (Map<String, Double>) data.get(key);
+				return Long.valueOf(zset == null ? 0 : zset.size());
+			} else if ("ZSCORE".equals(name)) {
+				Map<String, Double> zset = (Map<String, Double>) data.get(key);
+				Double score = zset == null ? null : zset.get(args.get(1));
+				return score == null ? null : String.valueOf(score);
+			} else if ("ZSCAN".equals(name)) {
+				Map<String, Double> zset = (Map<String, Double>) data.get(key);
+				List<String> members = zset == null ? new ArrayList<String>() : new ArrayList<String>(zset.keySet());
+				List<Object> reply = scan(members, args.subList(1, args.size()));
+				List<String> withScores = new ArrayList<String>();
+				for (String member : (List<String>) reply.get(1)) {
+					Collections.addAll(withScores, member, String.valueOf(zset.get(member)));
+				}
+				reply.set(1, withScores);
+				return reply;
+			} else if ("INCRBY".equals(name)) {
+				long value = Long.parseLong(data.containsKey(key) ? (String) data.get(key) : "0")
+						+ Long.parseLong(args.get(1));
+				data.put(key, String.valueOf(value));
+				return Long.valueOf(value);
+			} else if ("HSET".equals(name)) {
+				Map<String, String> hash = (Map<String, String>) collection(key, new TreeMap<String, String>());
+				return Long.valueOf(hash.put(args.get(1), args.get(2)) == null ? 1 : 0);
+			} else if ("HGETALL".equals(name)) {
+				List<String> reply = new ArrayList<String>();
+				Map<String, String> hash = (Map<String, String>) data.get(key);
+				if (hash != null) {
+					for (Map.Entry<String, String> entry : hash.entrySet()) {
+						Collections.addAll(reply, entry.getKey(), entry.getValue());
+					}
+				}
+				return reply;
+			} else if ("LRANGE".equals(name)) {
+				List<String> list = (List<String>) collection(key, new LinkedList<String>());
+				int end = Integer.parseInt(args.get(2));
+				end = end < 0 ? list.size() + end : Math.min(end, list.size() - 1);
+				return new ArrayList<String>(list.subList(Integer.parseInt(args.get(1)), end + 1));
+			} else if ("RPUSH".equals(name)) {
+				List<String> list = (List<String>) collection(key, new LinkedList<String>());
+				list.addAll(args.subList(1, args.size()));
+				notifyAll();
+				return Long.valueOf(list.size());
+			}
+			throw new IllegalArgumentException("unknown command '" + name + "'");
+		}
+	}
+
+	/**
+	 * 把key移到同一进程内的目标server，目标上已有时返回BUSYKEY
+	 */
+	private Object migrate(StubRedisServer target, String key) {
+		expireIfNeeded(key);
+		if (!data.containsKey(key)) {
+			return new Status("NOKEY");
+		}
+		if (!target.restore(key, data.get(key), expireAt.get(key))) {
+			return new ErrorReply("BUSYKEY Target key name already exists.");
+		}
+		data.remove(key);
+		expireAt.remove(key);
+		return new Status("OK");
+	}
+
+	private synchronized boolean restore(String key, Object value, Long at) {
+		expireIfNeeded(key);
+		if (data.containsKey(key)) {
+			return false;
+		}
+		data.put(key, value);
+		if (at != null) {
+			expireAt.put(key, at);
+		}
+		return true;
+	}
+
+	private void expireIfNeeded(String key) {
+		Long at = expireAt.get(key);
+		if (at != null && at.longValue() <= System.currentTimeMillis()) {
+			data.remove(key);
+			expireAt.remove(key);
+		}
+	}
+
+	private void updateMaxKeyCount(int count) {
+		int max;
+		while ((max = maxKeyCount.get()) < count && !maxKeyCount.compareAndSet(max, count)) {
+			// retry
+		}
+	}
+
+	/**
+	 * 游标为下标，每次返回 COUNT (默认10) 个元素，不支持 MATCH
+	 *
+	 * @param args 游标和选项
+	 */
+	private List<Object> scan(List<String> items, List<String> args) {
+		int cursor = Integer.parseInt(args.get(0));
+		int count = 10;
+		for (int i = 1; i + 1 < args.size(); i += 2) {
+			if ("COUNT".equalsIgnoreCase(args.get(i))) {
+				count = Integer.parseInt(args.get(i + 1));
+			}
+		}
+		int end = Math.min(items.size(), cursor + count);
+		List<Object> reply = new ArrayList<Object>(2);
+		reply.add(end >= items.size() ? "0" : String.valueOf(end));
+		int start = repeatScan && cursor > 0 ? cursor - 1 : cursor;
+		reply.add(new ArrayList<String>(items.subList(Math.min(start, end), end)));
+		return reply;
+	}
+
+	private Object collection(String key, Object empty) {
+		Object value = data.get(key);
+		if (value == null) {
+			value = empty;
+			data.put(key, value);
+		}
+		return value;
+	}
+
+	private Object set(String key, String value, List<String> options) {
+		boolean exists = data.containsKey(key);
+		long ttl = -1;
+		for (int i = 0; i < options.size(); i++) {
+			String option = options.get(i).toUpperCase();
+			if (("NX".equals(option) && exists) || ("XX".equals(option) && !exists)) {
+				return null;
+			} else if ("PX".equals(option)) {
+				ttl = Long.parseLong(options.get(++i));
+			} else if ("EX".equals(option)) {
+				ttl = Long.parseLong(options.get(++i)) * 1000;
+			}
+		}
+		data.put(key, value);
+		expireAt.remove(key);
+		if (ttl > 0) {
+			expireAt.put(key, System.currentTimeMillis() + ttl);
+		}
+		return new Status("OK");
+	}
+
+	private List<String> rangeByLex(Set<String> set, List<String> args) {
+		List<String> result = new ArrayList<String>();
+		for (String member : set) {
+			if (aboveMin(member, args.get(1)) && belowMax(member, args.get(2))) {
+				result.add(member);
+			}
+		}
+		if (args.size() > 3 && "LIMIT".equals(args.get(3).toUpperCase())) {
+			int offset = Math.min(result.size(), Integer.parseInt(args.get(4)));
+			int count = Integer.parseInt(args.get(5));
+			result = result.subList(offset, count < 0 ? result.size() : Math.min(result.size(), offset + count));
+		}
+		return new ArrayList<String>(result);
+	}
+
+	private static boolean aboveMin(String member, String min) {
+		if ("-".equals(min)) {
+			return true;
+		}
+		int c = member.compareTo(min.substring(1));
+		return min.charAt(0) == '[' ? c >= 0 : c > 0;
+	}
+
+	private static boolean belowMax(String member, String max) {
+		if ("+".equals(max)) {
+			return true;
+		}
+		int c = member.compareTo(max.substring(1));
+		return max.charAt(0) == '[' ? c <= 0 : c < 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized Object blpop(String key, int timeout) {
+		long deadline = System.currentTimeMillis() + timeout * 1000L;
+		while (true) {
+			List<String> list = (List<String>) data.get(key);
+			if (list != null && !list.isEmpty()) {
+				String value = list.remove(0);
+				if (list.isEmpty()) {
+					data.remove(key);
+				}
+				List<String> reply = new ArrayList<String>();
+				Collections.addAll(reply, key, value);
+				return reply;
+			}
+			long wait = deadline - System.currentTimeMillis();
+			if (timeout > 0 && wait <= 0) {
+				return NIL_ARRAY;
+			}
+			try {
+				wait(timeout > 0 ? wait : 0);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return NIL_ARRAY;
+			}
+		}
+	}
+
+	private static final Object NIL_ARRAY = new Object();
+
+	private static List<String> readCommand(InputStream in) throws IOException {
+		String line = readLine(in);
+		if (line == null) {
+			return null;
+		}
+		if (line.charAt(0) != '*') {
+			throw new IOException("unexpected " + line);
+		}
+		int count = Integer.parseInt(line.substring(1));
+		List<String> command = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			int length = Integer.parseInt(readLine(in).substring(1));
+			byte[] bytes = new byte[length];
+			int read = 0;
+			while (read < length) {
+				int n = in.read(bytes, read, length - read);
+				if (n < 0) {
+					return null;
+				}
+				read += n;
+			}
+			in.read();
+			in.read();
+			command.add(new String(bytes, CHARSET));
+		}
+		return command;
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\r') {
+			if (c < 0) {
+				return null;
+			}
+			sb.append((char) c);
+		}
+		in.read();
+		return sb.toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void write(OutputStream out, Object reply) throws IOException {
+		if (reply == null) {
+			out.write("$-1\r\n".getBytes(CHARSET));
+		} else if (reply == NIL_ARRAY) {
+			out.write("*-1\r\n".getBytes(CHARSET));
+		} else if (reply instanceof Status) {
+			out.write(("+" + ((Status) reply).message + "\r\n").getBytes(CHARSET));
+		} else if (reply instanceof ErrorReply) {
+			out.write(("-" + ((ErrorReply) reply).message + "\r\n").getBytes(CHARSET));
+		} else if (reply instanceof Long) {
+			out.write((":" + reply + "\r\n").getBytes(CHARSET));
+		} else if (reply instanceof String) {
+			byte[] bytes = ((String) reply).getBytes(CHARSET);
+			out.write(("$" + bytes.length + "\r\n").getBytes(CHARSET));
+			out.write(bytes);
+			out.write("\r\n".getBytes(CHARSET));
+		} else {
+			List<Object> list = (List<Object>) reply;
+			out.write(("*" + list.size() + "\r\n").getBytes(CHARSET));
+			for (Object item : list) {
+				write(out, item);
+			}
+		}
+	}
+
+	private static final class Status {
+		final String message;
+
+		Status(String message) {
+			this.message = message;
+		}
+	}
+
+	private static final class ErrorReply {
+		final String message;
+
+		ErrorReply(String message) {
+			this.message = message;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.adanac.framework.cache.redis.codec;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.adanac.framework.cache.redis.benchmark.CodecBenchmark.User;
+import com.adanac.framework.cache.redis.util.Serializer;
+
+public class CodecTest extends TestCase {
+
+	private final TaggedCodec codec = new TaggedCodec(new FastjsonObjectCodec().register(1, User.class));
+
+	public void testVarint() {
+		long[] values = { 0, 1, -1, 63, -64, 64, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE,
+				Long.MIN_VALUE };
+		for (long value : values) {
+			byte[] buffer = new byte[Varint.sizeOf(value)];
+			assertEquals(buffer.length, Varint.write(value, buffer, 0));
+			int[] position = { 0 };
+			assertEquals(value, Varint.read(buffer, position));
+			assertEquals(buffer.length, position[0]);
+		}
+		assertEquals(1, Varint.sizeOf(-1));
+	}
+
+	public void testPrimitivesAndStrings() {
+		assertEquals(Integer.valueOf(12345), codec.decode(codec.encode(12345)));
+		assertEquals(Long.valueOf(-7L), codec.decode(codec.encode(-7L)));
+		assertEquals(Boolean.TRUE, codec.decode(codec.encode(Boolean.TRUE)));
+		assertEquals(Double.valueOf(3.25), codec.decode(codec.encode(3.25d)));
+		assertEquals("中文value", codec.decode(codec.encode("中文value")));
+		assertEquals(2, codec.encode(1).length);
+		byte[] raw = { 0, 1, 2 };
+		assertTrue(Arrays.equals(raw, (byte[]) codec.decode(codec.encode(raw))));
+	}
+
+	public void testRegisteredObject() {
+		User user = new User(10086L, "adanac", 30);
+		byte[] bytes = codec.encode(user);
+		User decoded = (User) codec.decode(bytes);
+		assertEquals(user.getId(), decoded.getId());
+		assertEquals(user.getName(), decoded.getName());
+		assertTrue(bytes.length < Serializer.encode(user).length);
+	}
+
+	public void testReadsLegacyPayloads() {
+		assertEquals(Integer.valueOf(42), codec.decode(Serializer.encode(42)));
+		User decoded = (User) codec.decode(Serializer.encode(new User(1L, "a", 2)));
+		assertEquals("a", decoded.getName());
+		assertEquals("plain", codec.decode("plain".getBytes()));
+	}
+
+	public void testSerializerDecodeWithoutExceptions() {
+		assertEquals(Integer.valueOf(-12), Serializer.decode("-12".getBytes()));
+		assertEquals("99999999999", Serializer.decode("99999999999".getBytes()));
+		assertEquals("abc", Serializer.decode("abc".getBytes()));
+		assertEquals("", Serializer.decode(new byte[0]));
+		assertEquals("x", Serializer.decode(Serializer.encode("x")));
+	}
+}
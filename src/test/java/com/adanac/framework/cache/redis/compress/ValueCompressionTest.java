@@ -0,0 +1,83 @@
+package com.adanac.framework.cache.redis.compress;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ValueCompressionTest extends TestCase {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static byte[] user(int id) {
+		return ("{\"id\":" + id + ",\"name\":\"user" + id + "\",\"email\":\"user" + id
+				+ "@example.com\",\"address\":{\"city\":\"Shanghai\",\"street\":\"Nanjing Road " + id
+				+ "\"},\"tags\":[\"vip\",\"active\"]}").getBytes(UTF_8);
+	}
+
+	private static byte[] users(int count) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(new String(user(i), UTF_8));
+		}
+		return sb.append(']').toString().getBytes(UTF_8);
+	}
+
+	public void testRoundTrip() {
+		ValueCompression compression = new ValueCompression(new DeflateCompressor());
+		byte[] value = users(50);
+		byte[] compressed = compression.compress(value);
+		assertTrue(ValueCompression.isCompressed(compressed));
+		assertTrue(compressed.length < value.length);
+		assertTrue(Arrays.equals(value, compression.decompress(compressed)));
+		assertTrue(compression.getStats().getCompressionRatio() < 1);
+		assertEquals(1, compression.getStats().getCompressedCount());
+	}
+
+	public void testBelowThresholdAndLegacyValues() {
+		ValueCompression compression = new ValueCompression(new DeflateCompressor());
+		byte[] small = user(1);
+		assertSame(small, compression.compress(small));
+		// 开启压缩前写入的数据原样读取
+		byte[] legacy = users(50);
+		assertSame(legacy, compression.decompress(legacy));
+		assertEquals(1, compression.getStats().getSkippedCount());
+	}
+
+	public void testDictionary() {
+		List<byte[]> samples = new ArrayList<byte[]>();
+		for (int i = 0; i < 200; i++) {
+			samples.add(user(i));
+		}
+		byte[] dictionary = DictionaryTrainer.train(samples, 4096);
+		assertTrue(dictionary.length > 0 && dictionary.length <= 4096);
+
+		ValueCompression plain = new ValueCompression(new DeflateCompressor(), 64);
+		ValueCompression trained = new ValueCompression(new DeflateCompressor(6, dictionary), 64);
+		byte[] value = user(1000);
+		byte[] compressed = trained.compress(value);
+		assertTrue(ValueCompression.isCompressed(compressed));
+		assertTrue(compressed.length < plain.compress(value).length);
+		assertTrue(Arrays.equals(value, trained.decompress(compressed)));
+	}
+
+	public void testReadOnlyCompressor() {
+		ValueCompression old = new ValueCompression(new DeflateCompressor(), 64);
+		byte[] value = users(10);
+		byte[] compressed = old.compress(value);
+
+		Compressor other = new DeflateCompressor() {
+			@Override
+			public byte id() {
+				return 9;
+			}
+		};
+		ValueCompression current = new ValueCompression(other, 64, new DeflateCompressor());
+		assertTrue(Arrays.equals(value, current.decompress(compressed)));
+	}
+}